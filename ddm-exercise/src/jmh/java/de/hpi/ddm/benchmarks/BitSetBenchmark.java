@@ -0,0 +1,110 @@
+package de.hpi.ddm.benchmarks;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.hpi.ddm.structures.BitSet;
+
+/**
+ * Bulk operations of the heap {@link BitSet}. A heap BitSet is indexed by {@code int} and therefore holds at most
+ * 256 MB; see {@link OffHeapBitSetBenchmark} for the 1 GB size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx2g" })
+public class BitSetBenchmark {
+
+	static final int BATCH_SIZE = 4096;
+
+	@Param({ "1", "100" })
+	public int sizeInMB;
+
+	private BitSet bits;
+	private BitSet other;
+	private int[] batch;
+
+	@Setup
+	public void setUp() {
+		int numBits = this.sizeInMB * 8 * 1024 * 1024;
+		this.bits = new BitSet(numBits);
+		this.other = new BitSet(numBits);
+		this.bits.randomize();
+		this.other.randomize();
+
+		Random random = new Random(42);
+		this.batch = new int[BATCH_SIZE];
+		for (int i = 0; i < BATCH_SIZE; i++)
+			this.batch[i] = random.nextInt(numBits);
+		Arrays.sort(this.batch);
+		// The batch is set, so that getAllSorted tests all of it
+		this.bits.setAll(this.batch, this.batch.length);
+	}
+
+	@Benchmark
+	public BitSet setOneByOne() {
+		for (int bitIndex : this.batch)
+			this.bits.set(bitIndex);
+		return this.bits;
+	}
+
+	@Benchmark
+	public BitSet setAllSorted() {
+		this.bits.setAll(this.batch, this.batch.length);
+		return this.bits;
+	}
+
+	@Benchmark
+	public boolean getAllSorted() {
+		return this.bits.getAll(this.batch, this.batch.length);
+	}
+
+	@Benchmark
+	public int cardinality() {
+		return this.bits.cardinality();
+	}
+
+	@Benchmark
+	public int cardinalityOfHalf() {
+		return this.bits.cardinality(this.sizeInMB, this.sizeInMB * 4 * 1024 * 1024);
+	}
+
+	@Benchmark
+	public BitSet or() {
+		this.bits.or(this.other);
+		return this.bits;
+	}
+
+	@Benchmark
+	public BitSet parallelOr() {
+		this.bits.parallelOr(this.other);
+		return this.bits;
+	}
+
+	@Benchmark
+	public BitSet and() {
+		this.bits.and(this.other);
+		return this.bits;
+	}
+
+	@Benchmark
+	public BitSet parallelAnd() {
+		this.bits.parallelAnd(this.other);
+		return this.bits;
+	}
+}
@@ -0,0 +1,77 @@
+package de.hpi.ddm.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.hpi.ddm.structures.BloomFilter;
+
+/**
+ * Adding to and testing a {@link BloomFilter} with a false positive rate of 1 %, sized for the given number of
+ * elements, i.e., 1.2 MB and 120 MB.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx2g" })
+public class BloomFilterBenchmark {
+
+	@Param({ "1000000", "100000000" })
+	public long expectedElements;
+
+	private BloomFilter filter;
+	private long[] batch;
+	private byte[][] digests;
+	private int next;
+
+	@Setup
+	public void setUp() {
+		this.filter = BloomFilter.create(this.expectedElements, 0.01);
+		Random random = new Random(42);
+		this.batch = new long[BitSetBenchmark.BATCH_SIZE];
+		this.digests = new byte[BitSetBenchmark.BATCH_SIZE][];
+		for (int i = 0; i < this.batch.length; i++) {
+			this.batch[i] = random.nextLong();
+			this.digests[i] = Long.toHexString(this.batch[i]).getBytes(StandardCharsets.UTF_8);
+		}
+		this.filter.addAll(this.batch);
+	}
+
+	@Benchmark
+	public boolean addLong() {
+		this.next = (this.next + 1) & (this.batch.length - 1);
+		return this.filter.add(this.batch[this.next] + 1);
+	}
+
+	@Benchmark
+	public boolean containsLong() {
+		this.next = (this.next + 1) & (this.batch.length - 1);
+		return this.filter.contains(this.batch[this.next]);
+	}
+
+	@Benchmark
+	public boolean containsBytes() {
+		this.next = (this.next + 1) & (this.digests.length - 1);
+		return this.filter.contains(this.digests[this.next]);
+	}
+
+	@Benchmark
+	public BloomFilter addBatch() {
+		this.filter.addAll(this.batch);
+		return this.filter;
+	}
+}
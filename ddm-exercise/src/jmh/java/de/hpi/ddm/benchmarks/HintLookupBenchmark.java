@@ -0,0 +1,74 @@
+package de.hpi.ddm.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.hpi.ddm.structures.HintIndex;
+
+/**
+ * Resolving a hint in the {@link HintIndex}, which is what the BruteForceWorker does per hint. 3628800 entries are
+ * the permutations of an alphabet of eleven characters with one left out, i.e., 10!.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx2g" })
+public class HintLookupBenchmark {
+
+	private static final int NUM_HINTS = 1024;
+
+	@Param({ "40320", "3628800" })
+	public int entries;
+
+	private HintIndex hintIndex;
+	private String[] hits;
+	private String[] misses;
+	private int next;
+
+	@Setup
+	public void setUp() {
+		Random random = new Random(42);
+		this.hintIndex = new HintIndex("ABCDEFGHIJK", 10);
+		this.hits = new String[NUM_HINTS];
+		for (int i = 0; i < this.entries; i++) {
+			long key = random.nextLong();
+			this.hintIndex.add(key, 'A');
+			if (i < NUM_HINTS)
+				this.hits[i] = hexDigest(key);
+		}
+		this.misses = new String[NUM_HINTS];
+		for (int i = 0; i < NUM_HINTS; i++)
+			this.misses[i] = hexDigest(random.nextLong());
+	}
+
+	private static String hexDigest(long key) {
+		// Only the first 64 bits are part of the key; the rest of the digest is filler
+		return String.format("%016x", key) + "1883ae033b52109169eb784969be09d51883ae033b52109169eb7849";
+	}
+
+	@Benchmark
+	public char lookupHit() {
+		this.next = (this.next + 1) & (NUM_HINTS - 1);
+		return this.hintIndex.lookup(this.hits[this.next]);
+	}
+
+	@Benchmark
+	public char lookupMiss() {
+		this.next = (this.next + 1) & (NUM_HINTS - 1);
+		return this.hintIndex.lookup(this.misses[this.next]);
+	}
+}
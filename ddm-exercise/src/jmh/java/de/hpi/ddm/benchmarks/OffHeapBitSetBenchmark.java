@@ -0,0 +1,118 @@
+package de.hpi.ddm.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.hpi.ddm.structures.OffHeapBitSet;
+
+/**
+ * Bulk operations of the {@link OffHeapBitSet} in direct memory and memory-mapped onto a temporary file.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx1g", "-XX:MaxDirectMemorySize=3g" })
+public class OffHeapBitSetBenchmark {
+
+	@Param({ "1", "100", "1024" })
+	public int sizeInMB;
+
+	@Param({ "direct", "mapped" })
+	public String backing;
+
+	private OffHeapBitSet bits;
+	private OffHeapBitSet other;
+	private File bitsFile;
+	private File otherFile;
+	private long[] batch;
+
+	@Setup
+	public void setUp() throws IOException {
+		long numBits = (long) this.sizeInMB * 8 * 1024 * 1024;
+		if ("mapped".equals(this.backing)) {
+			this.bitsFile = File.createTempFile("bits", ".bin");
+			this.otherFile = File.createTempFile("other", ".bin");
+			this.bits = OffHeapBitSet.map(this.bitsFile, numBits);
+			this.other = OffHeapBitSet.map(this.otherFile, numBits);
+		}
+		else {
+			this.bits = OffHeapBitSet.allocate(numBits);
+			this.other = OffHeapBitSet.allocate(numBits);
+		}
+
+		Random random = new Random(42);
+		for (long i = 0; i < numBits; i += 1 + random.nextInt(4)) {
+			this.bits.set(i);
+			this.other.set(numBits - 1 - i);
+		}
+		this.batch = new long[BitSetBenchmark.BATCH_SIZE];
+		for (int i = 0; i < this.batch.length; i++)
+			this.batch[i] = (long) (random.nextDouble() * numBits);
+		Arrays.sort(this.batch);
+		// The batch is set, so that getAllSorted tests all of it
+		this.bits.setAll(this.batch, this.batch.length);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		this.bits.close();
+		this.other.close();
+		if (this.bitsFile != null) {
+			this.bitsFile.delete();
+			this.otherFile.delete();
+		}
+	}
+
+	@Benchmark
+	public OffHeapBitSet setOneByOne() {
+		for (long bitIndex : this.batch)
+			this.bits.set(bitIndex);
+		return this.bits;
+	}
+
+	@Benchmark
+	public OffHeapBitSet setAllSorted() {
+		this.bits.setAll(this.batch, this.batch.length);
+		return this.bits;
+	}
+
+	@Benchmark
+	public boolean getAllSorted() {
+		return this.bits.getAll(this.batch, this.batch.length);
+	}
+
+	@Benchmark
+	public long cardinality() {
+		return this.bits.cardinality();
+	}
+
+	@Benchmark
+	public OffHeapBitSet parallelOr() {
+		this.bits.parallelOr(this.other);
+		return this.bits;
+	}
+
+	@Benchmark
+	public OffHeapBitSet parallelAnd() {
+		this.bits.parallelAnd(this.other);
+		return this.bits;
+	}
+}
@@ -0,0 +1,53 @@
+package de.hpi.ddm.compute;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * SHA-256 hashing of one candidate, as the permutation and cracking tasks do it, against the textual hashing of
+ * a fresh MessageDigest per candidate that the permutation workers did before.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashingBenchmark {
+
+	private final char[] candidate = "ABCDEFGHIJK".toCharArray();
+	private HintPermutationTask.Hasher hasher;
+
+	@Setup
+	public void setUp() {
+		this.hasher = new HintPermutationTask.Hasher(this.candidate.length - 1);
+	}
+
+	@Benchmark
+	public long reusedDigest() {
+		return this.hasher.hash(this.candidate);
+	}
+
+	@Benchmark
+	public String digestPerCandidate() throws NoSuchAlgorithmException {
+		MessageDigest digest = MessageDigest.getInstance("SHA-256");
+		byte[] hashedBytes = digest.digest(new String(this.candidate, 0, this.candidate.length - 1).getBytes(StandardCharsets.UTF_8));
+		StringBuilder stringBuffer = new StringBuilder();
+		for (byte hashedByte : hashedBytes)
+			stringBuffer.append(Integer.toString((hashedByte & 0xff) + 0x100, 16).substring(1));
+		return stringBuffer.toString();
+	}
+}
@@ -0,0 +1,54 @@
+package de.hpi.ddm.compute;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The brute force search of the {@link PasswordCrackTask} over the five characters that remain after all hints of a
+ * password are solved. The password is the last candidate in search order, so every candidate is hashed. Searches
+ * above 65536 candidates fork, and their subtasks run on the common fork-join pool.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordCrackBenchmark {
+
+	private static final String CHARACTERS = "ABCDE";
+
+	@Param({ "6", "8" })
+	public int passwordLength;
+
+	private String encodedPassword;
+
+	@Setup
+	public void setUp() throws NoSuchAlgorithmException {
+		String password = "EEEEEEEEEE".substring(0, this.passwordLength);
+		byte[] digest = MessageDigest.getInstance("SHA-256").digest(password.getBytes(StandardCharsets.UTF_8));
+		StringBuilder hex = new StringBuilder();
+		for (byte b : digest)
+			hex.append(String.format("%02x", b));
+		this.encodedPassword = hex.toString();
+	}
+
+	@Benchmark
+	public String crack() {
+		return new PasswordCrackTask(CHARACTERS.toCharArray(), this.passwordLength, this.encodedPassword, new CancellationToken()).invoke();
+	}
+}
@@ -0,0 +1,42 @@
+package de.hpi.ddm.compute;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.hpi.ddm.structures.HintIndex;
+
+/**
+ * One leaf of the {@link HintPermutationTask}: Heap's algorithm over the characters behind a two-character prefix,
+ * hashing every permutation into a fresh {@link HintIndex}. A leaf does not fork, so it runs on the calling thread.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PermutationBenchmark {
+
+	/** Characters behind the prefix; 8 is the largest leaf, i.e., 40320 permutations. */
+	@Param({ "6", "8" })
+	public int remaining;
+
+	@Benchmark
+	public long permuteAndHash() {
+		char[] alphabet = "ABCDEFGHIJK".substring(0, this.remaining + 2).toCharArray();
+		char[] prefix = { alphabet[0], alphabet[1] };
+		char[] rest = new String(alphabet, 2, this.remaining).toCharArray();
+		HintIndex hintIndex = new HintIndex(new String(alphabet), alphabet.length - 1);
+		return new HintPermutationTask(prefix, rest, hintIndex, new CancellationToken()).invoke();
+	}
+}
@@ -0,0 +1,56 @@
+package de.hpi.ddm.serialization;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.twitter.chill.KryoPool;
+
+import de.hpi.ddm.singletons.KryoPoolSingleton;
+
+/**
+ * A Kryo round trip through the registered serializers for each message type of the {@link SerializerBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KryoBenchmark {
+
+	@Param({
+			"WorkerWorkRequestMessage", "HintMessage", "BruteForceResultMessage", "PasswordCrackerResultMessage",
+			"PasswordWorkPackageMessage", "PasswordAndSolvedHintsMessage", "PermutationWorkPackagesMessage",
+			"BatchMessage", "WelcomeMessage", "PermutationsReadyMessage", "PermutationsEvictedMessage",
+			"PermutationWorkMessage", "PermutationResultMessage", "BytesMessage", "AckMessage", "PoolDemandMessage",
+			"PoolSizeMessage" })
+	public String messageType;
+
+	private KryoPool kryo;
+	private Object message;
+
+	@Setup
+	public void setUp() {
+		this.kryo = KryoPoolSingleton.get();
+		this.message = SerializerBenchmark.messages().stream()
+				.filter(message -> message.getClass().getSimpleName().equals(this.messageType))
+				.findFirst()
+				.orElseThrow(() -> new IllegalArgumentException("No message of type " + this.messageType));
+	}
+
+	@Benchmark
+	public Object roundTrip() {
+		return this.kryo.fromBytes(this.kryo.toBytesWithClass(this.message));
+	}
+}
@@ -0,0 +1,94 @@
+package de.hpi.ddm.actors;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import akka.actor.AbstractActor;
+import akka.actor.ActorIdentity;
+import akka.actor.ActorPath;
+import akka.actor.ActorRef;
+import akka.actor.Address;
+import akka.actor.Identify;
+import akka.actor.RootActorPath;
+
+/**
+ * Resolves the actor selections that an actor sends to over and over, e.g., the master, once via {@link Identify} and
+ * remembers the resulting {@link ActorRef}s, so that later messages skip the path lookup. Until a path is resolved,
+ * messages go through its selection, so nothing waits for the resolution. Resolved actors are watched; the owning
+ * actor passes {@link ActorIdentity} and {@link akka.actor.Terminated} messages as well as removed cluster members on
+ * to the cache, which then forgets the affected references.
+ */
+public class ActorRefCache {
+
+	private final AbstractActor owner;
+	private final Map<ActorPath, ActorRef> refs = new HashMap<>();
+	private final Map<String, ActorPath> resolving = new HashMap<>(); // path as string -> path; the string is the correlation id, because it can cross the wire
+
+	public ActorRefCache(AbstractActor owner) {
+		this.owner = owner;
+	}
+
+	/**
+	 * @param address the address of an actor system
+	 * @param name the name of a top-level actor in that system
+	 * @return the path of the actor, e.g., of the master
+	 */
+	public static ActorPath userPath(Address address, String name) {
+		return new RootActorPath(address, "/").child("user").child(name);
+	}
+
+	/**
+	 * @param path the path of an actor
+	 * @return the resolved reference of the actor or {@code null}, if it is not resolved yet; the resolution is started
+	 * then
+	 */
+	public ActorRef get(ActorPath path) {
+		ActorRef ref = this.refs.get(path);
+		if (ref == null && this.resolving.putIfAbsent(path.toString(), path) == null)
+			this.owner.getContext().actorSelection(path).tell(new Identify(path.toString()), this.owner.getSelf());
+		return ref;
+	}
+
+	public void tell(ActorPath path, Object message, ActorRef sender) {
+		ActorRef ref = this.get(path);
+		if (ref != null)
+			ref.tell(message, sender);
+		else
+			this.owner.getContext().actorSelection(path).tell(message, sender);
+	}
+
+	/**
+	 * Take the answer to an {@link Identify} of this cache.
+	 * @param identity the answer
+	 * @return {@code false} if the answer belongs to somebody else
+	 */
+	public boolean resolved(ActorIdentity identity) {
+		ActorPath path = this.resolving.remove(identity.correlationId());
+		if (path == null)
+			return false;
+		// An actor that does not exist (yet) is looked up again with the next message to it
+		identity.getActorRef().ifPresent(ref -> {
+			this.refs.put(path, ref);
+			this.owner.getContext().watch(ref);
+		});
+		return true;
+	}
+
+	/**
+	 * Forget a terminated actor.
+	 * @param actor the actor
+	 * @return {@code true} if the actor was resolved by this cache
+	 */
+	public boolean invalidate(ActorRef actor) {
+		return this.refs.values().remove(actor);
+	}
+
+	/**
+	 * Forget all actors of an actor system that left the cluster.
+	 * @param address the address of the actor system
+	 */
+	public void invalidate(Address address) {
+		this.refs.keySet().removeIf(path -> path.address().equals(address));
+		this.resolving.values().removeIf(path -> path.address().equals(address));
+	}
+}
@@ -0,0 +1,211 @@
+package de.hpi.ddm.actors;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+import akka.actor.AbstractLoggingActor;
+import akka.actor.ActorRef;
+import akka.actor.Cancellable;
+import akka.actor.Props;
+import akka.actor.Terminated;
+import akka.cluster.Cluster;
+import akka.cluster.ClusterEvent.CurrentClusterState;
+import akka.cluster.metrics.ClusterMetricsChanged;
+import akka.cluster.metrics.ClusterMetricsExtension;
+import akka.cluster.metrics.NodeMetrics;
+import akka.cluster.metrics.StandardMetrics;
+import akka.cluster.metrics.StandardMetrics.Cpu;
+import akka.dispatch.RequiresMessageQueue;
+import de.hpi.ddm.actors.monitoring.ActorMetrics;
+import de.hpi.ddm.actors.monitoring.InstrumentedMessageQueueSemantics;
+import de.hpi.ddm.actors.scheduling.PoolSizer;
+import de.hpi.ddm.actors.scheduling.PoolSizer.Pool;
+import de.hpi.ddm.configuration.Configuration;
+import de.hpi.ddm.singletons.ConfigurationSingleton;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resizes the worker pools of one node. The Worker and PermutationHandler actors report how much work is queued in
+ * their pools, and the autoscaler periodically tells each of them how many workers its pools should have, based on
+ * the node's cores, its load as reported by the cluster metrics and the queues of all phases on the node.
+ */
+public class Autoscaler extends AbstractLoggingActor implements RequiresMessageQueue<InstrumentedMessageQueueSemantics> {
+
+	////////////////////////
+	// Actor Construction //
+	////////////////////////
+
+	public static final String DEFAULT_NAME = "autoscaler";
+
+	public static final Duration REPORT_INTERVAL = Duration.ofSeconds(1);
+
+	public static Props props() {
+		return Props.create(Autoscaler.class);
+	}
+
+	public Autoscaler() {
+		Configuration c = ConfigurationSingleton.get();
+		this.cluster = Cluster.get(this.context().system());
+		this.sizer = new PoolSizer(Runtime.getRuntime().availableProcessors(), c.getNumComputeThreads());
+		this.demands = new EnumMap<>(Pool.class);
+		this.targets = new HashMap<>();
+	}
+
+	/**
+	 * Let a pool owner send itself a {@link ReportDemandMessage} in the interval in which the autoscaler resizes.
+	 * @param owner the owner of one or more pools
+	 * @return the schedule, or {@code null} if autoscaling is disabled
+	 */
+	public static Cancellable scheduleDemandReports(AbstractLoggingActor owner) {
+		if (!ConfigurationSingleton.get().isAutoscaling())
+			return null;
+		return owner.getContext().system().scheduler().scheduleWithFixedDelay(
+				REPORT_INTERVAL,
+				REPORT_INTERVAL,
+				owner.self(),
+				new ReportDemandMessage(),
+				owner.getContext().dispatcher(),
+				ActorRef.noSender()
+		);
+	}
+
+	/**
+	 * Send the demand of a pool to the autoscaler of the owner's node.
+	 * @param owner the owner of the pool
+	 * @param pool the pool
+	 * @param demand the queued plus in-progress work packages of the pool
+	 */
+	public static void reportDemand(AbstractLoggingActor owner, Pool pool, int demand) {
+		owner.getContext().actorSelection("/user/" + DEFAULT_NAME).tell(new PoolDemandMessage(pool, demand), owner.self());
+	}
+
+	////////////////////
+	// Actor Messages //
+	////////////////////
+
+	@Data @NoArgsConstructor @AllArgsConstructor
+	public static class PoolDemandMessage implements Serializable {
+		private static final long serialVersionUID = -2648120574386925470L;
+		private Pool pool;
+		private int demand; // Queued plus in-progress work packages of the sender's pool
+	}
+
+	@Data @NoArgsConstructor @AllArgsConstructor
+	public static class PoolSizeMessage implements Serializable {
+		private static final long serialVersionUID = 5827364510934720153L;
+		private Pool pool;
+		private int size;
+	}
+
+	@Data
+	public static class ReportDemandMessage implements Serializable {
+		private static final long serialVersionUID = -7031934623508172915L;
+	}
+
+	@Data
+	private static class ResizeMessage implements Serializable {
+		private static final long serialVersionUID = 1187230569238471142L;
+	}
+
+	/////////////////
+	// Actor State //
+	/////////////////
+
+	private final Cluster cluster;
+	private final PoolSizer sizer;
+	private final Map<Pool, Map<ActorRef, Integer>> demands;
+	private final Map<ActorRef, Map<Pool, Integer>> targets;
+	private double systemLoadAverage = -1;
+	private Cancellable resize;
+
+	/////////////////////
+	// Actor Lifecycle //
+	/////////////////////
+
+	@Override
+	public void preStart() {
+		// Not watched by the Reaper: the autoscaler lives as long as the node and must not keep it from shutting down
+		ClusterMetricsExtension.get(this.context().system()).subscribe(this.self());
+		this.resize = this.getContext().system().scheduler().scheduleWithFixedDelay(
+				REPORT_INTERVAL,
+				REPORT_INTERVAL,
+				this.self(),
+				new ResizeMessage(),
+				this.getContext().dispatcher(),
+				ActorRef.noSender()
+		);
+	}
+
+	@Override
+	public void postStop() {
+		ClusterMetricsExtension.get(this.context().system()).unsubscribe(this.self());
+		this.resize.cancel();
+	}
+
+	////////////////////
+	// Actor Behavior //
+	////////////////////
+
+	@Override
+	public Receive createReceive() {
+		return ActorMetrics.instrument(this, receiveBuilder()
+				.match(PoolDemandMessage.class, this::handle) // Queue depths from Worker and PermutationHandler
+				.match(ResizeMessage.class, this::handle) // Periodic resizing
+				.match(ClusterMetricsChanged.class, this::handle) // Load samples of this node
+				.match(CurrentClusterState.class, message -> {/*Ignore*/})
+				.match(Terminated.class, this::handle)
+				.matchAny(object -> this.log().info("Received unknown message: \"{}\"", object.toString()))
+				.build());
+	}
+
+	private void handle(PoolDemandMessage message) {
+		if (!this.targets.containsKey(this.sender())) {
+			this.context().watch(this.sender());
+			this.targets.put(this.sender(), new EnumMap<>(Pool.class));
+		}
+		this.demands.computeIfAbsent(message.getPool(), pool -> new HashMap<>()).put(this.sender(), message.getDemand());
+	}
+
+	private void handle(ClusterMetricsChanged message) {
+		for (NodeMetrics nodeMetrics : message.getNodeMetrics()) {
+			if (!nodeMetrics.address().equals(this.cluster.selfAddress()))
+				continue;
+			Cpu cpu = StandardMetrics.extractCpu(nodeMetrics);
+			if (cpu != null && cpu.systemLoadAverage().isDefined())
+				this.systemLoadAverage = (Double) cpu.systemLoadAverage().get();
+		}
+	}
+
+	private void handle(Terminated message) {
+		this.targets.remove(message.getActor());
+		for (Map<ActorRef, Integer> ownerDemands : this.demands.values())
+			ownerDemands.remove(message.getActor());
+	}
+
+	private void handle(ResizeMessage message) {
+		Map<Pool, Integer> nodeDemands = new EnumMap<>(Pool.class);
+		for (Map.Entry<Pool, Map<ActorRef, Integer>> entry : this.demands.entrySet())
+			nodeDemands.put(entry.getKey(), entry.getValue().values().stream().mapToInt(Integer::intValue).sum());
+
+		Map<Pool, Integer> sizes = this.sizer.size(nodeDemands, this.sizer.budget(this.systemLoadAverage));
+
+		for (Map.Entry<Pool, Map<ActorRef, Integer>> entry : this.demands.entrySet()) {
+			Pool pool = entry.getKey();
+			Map<ActorRef, Integer> ownerDemands = entry.getValue();
+			for (Map.Entry<ActorRef, Integer> ownerDemand : ownerDemands.entrySet()) {
+				ActorRef owner = ownerDemand.getKey();
+				int size = PoolSizer.share(sizes.get(pool), ownerDemand.getValue(), nodeDemands.get(pool), ownerDemands.size());
+				Integer previous = this.targets.get(owner).put(pool, size);
+				if (previous == null || previous != size) {
+					this.log().info("Resizing {} pool of {} to {} workers", pool, owner.path().name(), size);
+					owner.tell(new PoolSizeMessage(pool, size), this.self());
+				}
+			}
+		}
+	}
+}
@@ -5,8 +5,14 @@ import akka.cluster.Cluster;
 import akka.cluster.ClusterEvent;
 import akka.cluster.Member;
 import akka.cluster.MemberStatus;
+import akka.dispatch.RequiresMessageQueue;
+import de.hpi.ddm.actors.monitoring.ActorMetrics;
+import de.hpi.ddm.actors.monitoring.HintResolutionEvent;
+import de.hpi.ddm.actors.monitoring.PriorityMessageQueueSemantics;
+import de.hpi.ddm.actors.monitoring.WorkMessage;
 import de.hpi.ddm.singletons.PermutationSingleton;
 import de.hpi.ddm.structures.BruteForceWorkPackage;
+import de.hpi.ddm.structures.HintIndex;
 import de.hpi.ddm.structures.HintResult;
 
 import de.hpi.ddm.systems.MasterSystem;
@@ -22,7 +28,7 @@ import static akka.cluster.ClusterEvent.*;
 import static de.hpi.ddm.actors.Master.*;
 import static de.hpi.ddm.actors.Worker.*;
 
-public class BruteForceWorker extends AbstractLoggingActor {
+public class BruteForceWorker extends AbstractLoggingActor implements RequiresMessageQueue<PriorityMessageQueueSemantics> {
 
     ////////////////////////
     // Actor Construction //
@@ -44,7 +50,7 @@ public class BruteForceWorker extends AbstractLoggingActor {
     ////////////////////
 
     @Data @NoArgsConstructor @AllArgsConstructor
-    public static class HintMessage implements Serializable {
+    public static class HintMessage implements Serializable, WorkMessage {
         private static final long serialVersionUID = 7356980942734604738L;
         private BruteForceWorkPackage bruteForceWorkPackage;
     }
@@ -79,14 +85,14 @@ public class BruteForceWorker extends AbstractLoggingActor {
 
     @Override
     public Receive createReceive() {
-        return receiveBuilder()
+        return ActorMetrics.instrument(this, receiveBuilder()
                 .match(CurrentClusterState.class, this::handle)
                 .match(MemberUp.class, this::handle)
                 .match(MemberRemoved.class, this::handle)
                 .match(WelcomeMessage.class, this::handle) // Welcome message from Worker (parent)
                 .match(HintMessage.class, this::handle) // Receives hint to work on from Worker
                 .matchAny(object -> this.log().info("Received unknown message: \"{}\"", object.toString()))
-                .build();
+                .build());
     }
 
     private void handle(CurrentClusterState message) {
@@ -109,55 +115,45 @@ public class BruteForceWorker extends AbstractLoggingActor {
         final long transmissionTime = System.currentTimeMillis() - this.registrationTime;
         int sizeInMB = message.getWelcomeData().getSizeInMB();
         this.log().info("WelcomeMessage with " + sizeInMB + " MB data received in " + transmissionTime + " ms.");
-        this.context().parent().tell(new BruteForceWorkerWorkRequestMessage(), this.self());
     }
 
     private void handle(HintMessage message) {
         final BruteForceWorkPackage bruteForceWorkPackage = message.getBruteForceWorkPackage();
-        final char[] passwordChars = bruteForceWorkPackage.getPasswordChars().toCharArray();
         final String hint = bruteForceWorkPackage.getHint();
         final int passwordId = bruteForceWorkPackage.getPasswordId();
 
         this.log().info("Received Hint {} for Password {}", hint, passwordId);
 
-        String decodedHint = bruteforceHint(hint);
-        char letter = solveHint(passwordChars, decodedHint);
-        HintResult hintResult = new HintResult(passwordId, letter, hint);
-        this.sender().tell(new BruteForceResultMessage(hintResult), this.self());
+        final long start = System.nanoTime();
+        HintResolutionEvent event = new HintResolutionEvent();
+        event.begin();
+        HintIndex hintIndex = PermutationSingleton.get().get(PermutationSingleton.alphabet(bruteForceWorkPackage.getPasswordChars()));
+        char letter = (hintIndex == null) ? 0 : hintIndex.lookup(hint);
+        if (event.shouldCommit()) {
+            event.jobId = bruteForceWorkPackage.getJobId();
+            event.passwordId = passwordId;
+            event.traceId = bruteForceWorkPackage.getTraceId();
+            event.alphabet = bruteForceWorkPackage.getPasswordChars();
+            event.resolved = letter != 0;
+            event.commit();
+        }
+        // Any made-up letter would let one character too many into the password cracker's alphabet
+        if (letter == 0) {
+            if (hintIndex == null)
+                this.log().warning("No hint index for alphabet {} on this node.", bruteForceWorkPackage.getPasswordChars());
+            else
+                this.log().error("Hint {} of password {} is not in the index of alphabet {}.", hint, passwordId, bruteForceWorkPackage.getPasswordChars());
+            this.sender().tell(new HintUnresolvedMessage(bruteForceWorkPackage, hintIndex == null), this.self());
+            return;
+        }
+        HintResult hintResult = new HintResult(bruteForceWorkPackage.getJobId(), passwordId, letter, hint, bruteForceWorkPackage.getTraceId(), System.nanoTime() - start);
+        this.sender().tell(new BruteForceResultMessage(hintResult, bruteForceWorkPackage.getHintPosition()), this.self());
     }
 
     ////////////////////
     // Helper Methods //
     ////////////////////
 
-    private String bruteforceHint(String encodedHint) {
-        List<String> permutations = PermutationSingleton.getPermutations();
-        for (String string : permutations) {
-            String decodedPermutation = string.substring(0, 10);
-            String encodedPermutation = string.substring(10);
-            if(encodedPermutation.equals(encodedHint)) {
-                return decodedPermutation;
-            }
-        }
-        return "";
-    }
-
-    private char solveHint(char[] passwordChars, String decodedHint) {
-        for (char passwordChar: passwordChars) {
-            boolean contains = false;
-            for (char decodedCharacter: decodedHint.toCharArray()) {
-                if (decodedCharacter == passwordChar) {
-                    contains = true;
-                    break;
-                }
-            }
-            if (!contains) {
-                return passwordChar;
-            }
-        }
-        return '0';
-    }
-
     private void register(Member member) {
         if ((this.masterSystem == null) && member.hasRole(MasterSystem.MASTER_ROLE)) {
             this.masterSystem = member;
@@ -165,6 +161,8 @@ public class BruteForceWorker extends AbstractLoggingActor {
                     .actorSelection(member.address() + "/user/" + Master.DEFAULT_NAME)
                     .tell(new RegistrationMessage(), this.self());
             this.registrationTime = System.currentTimeMillis();
+            // Work does not depend on the welcome data, so there is no need to wait for its transfer
+            this.context().parent().tell(new BruteForceWorkerWorkRequestMessage(), this.self());
         }
     }
 }
\ No newline at end of file
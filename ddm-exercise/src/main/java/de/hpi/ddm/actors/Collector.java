@@ -3,15 +3,22 @@ package de.hpi.ddm.actors;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 import akka.actor.AbstractLoggingActor;
 import akka.actor.Props;
+import akka.dispatch.RequiresMessageQueue;
+import de.hpi.ddm.actors.monitoring.ActorMetrics;
+import de.hpi.ddm.actors.monitoring.InstrumentedMessageQueueSemantics;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import static de.hpi.ddm.actors.Master.*;
 import static de.hpi.ddm.actors.Worker.*;
 
-public class Collector extends AbstractLoggingActor {
+public class Collector extends AbstractLoggingActor implements RequiresMessageQueue<InstrumentedMessageQueueSemantics> {
 
 	////////////////////////
 	// Actor Construction //
@@ -31,12 +38,18 @@ public class Collector extends AbstractLoggingActor {
 	public static class PrintMessage implements Serializable {
 		private static final long serialVersionUID = -267778464637901383L;
 	}
+
+	@Data @NoArgsConstructor @AllArgsConstructor
+	public static class ResultsMessage implements Serializable {
+		private static final long serialVersionUID = -267778464637901384L;
+		private List<PasswordCrackerResultMessage> results;
+	}
 	
 	/////////////////
 	// Actor State //
 	/////////////////
 	
-	private final List<String> results = new ArrayList<>();
+	private final Map<Integer, List<String>> results = new TreeMap<>(); // job id -> cracked passwords
 	
 	/////////////////////
 	// Actor Lifecycle //
@@ -53,22 +66,31 @@ public class Collector extends AbstractLoggingActor {
 
 	@Override
 	public Receive createReceive() {
-		return receiveBuilder()
+		return ActorMetrics.instrument(this, receiveBuilder()
 				.match(PrintMessage.class, this::handle)
-				.match(PasswordCrackerResultMessage.class, this::handle) // Password result from master
+				.match(ResultsMessage.class, this::handle) // Batch of password results from a password shard
 				.matchAny(object -> this.log().info("Received unknown message: \"{}\"", object.toString()))
-				.build();
+				.build());
 	}
 	
 	protected void handle(PrintMessage message) {
-		this.results.forEach(result -> this.log().info("{}", result));
+		this.results.forEach((jobId, jobResults) -> {
+			this.log().info("Results of job {}:", jobId);
+			jobResults.forEach(result -> this.log().info("{}", result));
+		});
 		this.sender().tell(new KillTheSystemMessage(), this.self());
 	}
 
-	private void handle(PasswordCrackerResultMessage message) {
-		String crackedPassword = message.getCrackedPassword();
-		int passwordId = message.getPasswordId();
-		this.results.add(crackedPassword);
-		this.log().info("Added Cracked password with ID {}: {}", passwordId, crackedPassword);
+	private void handle(ResultsMessage message) {
+		for (PasswordCrackerResultMessage result : message.getResults()) {
+			String crackedPassword = result.getCrackedPassword();
+			int passwordId = result.getPasswordId();
+			if (crackedPassword == null) {
+				this.log().warning("Password with ID {} of job {} could not be cracked", passwordId, result.getJobId());
+				continue;
+			}
+			this.results.computeIfAbsent(result.getJobId(), jobId -> new ArrayList<>()).add(crackedPassword);
+			this.log().info("Added Cracked password with ID {} of job {}: {}", passwordId, result.getJobId(), crackedPassword);
+		}
 	}
 }
@@ -3,12 +3,15 @@ package de.hpi.ddm.actors;
 import akka.actor.AbstractLoggingActor;
 import akka.actor.DeadLetter;
 import akka.actor.Props;
+import akka.dispatch.RequiresMessageQueue;
 import lombok.NoArgsConstructor;
 
 import de.hpi.ddm.actors.LargeMessageProxy.*;
+import de.hpi.ddm.actors.monitoring.ActorMetrics;
+import de.hpi.ddm.actors.monitoring.InstrumentedMessageQueueSemantics;
 
 @NoArgsConstructor
-public class DeadLetterActor extends AbstractLoggingActor {
+public class DeadLetterActor extends AbstractLoggingActor implements RequiresMessageQueue<InstrumentedMessageQueueSemantics> {
 
     public static final String DEFAULT_NAME = "dead-letter";
 
@@ -18,7 +21,7 @@ public class DeadLetterActor extends AbstractLoggingActor {
 
     @Override
     public Receive createReceive() {
-        return receiveBuilder()
+        return ActorMetrics.instrument(this, receiveBuilder()
                 .match(
                         DeadLetter.class,
                         msg -> {
@@ -31,6 +34,6 @@ public class DeadLetterActor extends AbstractLoggingActor {
                             }
 
                         })
-                .build();
+                .build());
     }
 }
@@ -1,13 +1,27 @@
 package de.hpi.ddm.actors;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.io.Serializable;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import akka.actor.*;
-import com.twitter.chill.KryoPool;
+import akka.dispatch.RequiresMessageQueue;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import de.hpi.ddm.actors.monitoring.ActorMetrics;
+import de.hpi.ddm.actors.monitoring.ChunkRetransmitEvent;
+import de.hpi.ddm.actors.monitoring.InstrumentedMessageQueueSemantics;
+import de.hpi.ddm.actors.monitoring.LargeMessageTransferEvent;
+import de.hpi.ddm.actors.monitoring.Metrics;
+import de.hpi.ddm.actors.monitoring.WorkMessage;
+import de.hpi.ddm.serialization.ChunkedOutputStream;
 import de.hpi.ddm.singletons.ConfigurationSingleton;
 import de.hpi.ddm.singletons.KryoPoolSingleton;
 import de.hpi.ddm.structures.ByteBuffer;
@@ -15,7 +29,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-public class LargeMessageProxy extends AbstractLoggingActor {
+public class LargeMessageProxy extends AbstractLoggingActor implements RequiresMessageQueue<InstrumentedMessageQueueSemantics> {
 
 	////////////////////////
 	// Actor Construction //
@@ -23,6 +37,14 @@ public class LargeMessageProxy extends AbstractLoggingActor {
 
 	public static final String DEFAULT_NAME = "largeMessageProxy";
 
+	private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+	private static final Metrics.Counter TRANSFERS = Metrics.counter("ddm_large_message_transfers_total", "Large messages that the proxies started to send");
+	private static final Metrics.Gauge TRANSFERS_IN_FLIGHT = Metrics.gauge("ddm_large_message_transfers_in_flight", "Large messages with chunks that are not acknowledged yet");
+	private static final Metrics.Counter BYTES_SENT = Metrics.counter("ddm_large_message_sent_bytes_total", "Serialized bytes of the large messages that the proxies sent, without retransmissions");
+	private static final Metrics.Counter BYTES_RECEIVED = Metrics.counter("ddm_large_message_received_bytes_total", "Chunk bytes that the proxies received, including duplicates");
+	private static final Metrics.Counter RETRANSMITS = Metrics.counter("ddm_large_message_retransmits_total", "Chunks that were sent again because their acknowledgement was overdue");
+
 	public static Props props() {
 		return Props.create(LargeMessageProxy.class);
 	}
@@ -32,14 +54,14 @@ public class LargeMessageProxy extends AbstractLoggingActor {
 	////////////////////
 
 	@Data @NoArgsConstructor @AllArgsConstructor
-	public static class LargeMessage<T> implements Serializable {
+	public static class LargeMessage<T> implements Serializable, WorkMessage {
 		private static final long serialVersionUID = 2940665245810221108L;
 		private T message;
 		private ActorRef receiver;
 	}
 
 	@Data @NoArgsConstructor @AllArgsConstructor
-	public static class BytesMessage<T> implements Serializable {
+	public static class BytesMessage<T> implements Serializable, WorkMessage {
 		private static final long serialVersionUID = 4057807743872319842L;
 		private T bytes;
 		private ActorRef sender;
@@ -62,9 +84,12 @@ public class LargeMessageProxy extends AbstractLoggingActor {
 	/////////////////
 
 	private int chunkedMessageSize;
+	private Kryo kryo; // Only ever used by this actor, so it need not come from the pool
 	private ByteBuffer receiverByteBuffer;
 	private ByteBuffer senderByteBuffer;
 	private Map<String, Map<Integer, Cancellable>> sendAttempts;
+	private Map<String, LargeMessageTransferEvent> transferEvents; // only while flight recording is on
+	private final ActorRefCache actorRefs = new ActorRefCache(this); // receiver path + proxy name -> proxy
 
 	/////////////////////
 	// Actor Lifecycle //
@@ -75,9 +100,21 @@ public class LargeMessageProxy extends AbstractLoggingActor {
 		Reaper.watchWithDefaultReaper(this);
 		
 		chunkedMessageSize = ConfigurationSingleton.get().getLargeMessageChunkSize();
+		kryo = KryoPoolSingleton.newKryo();
 		receiverByteBuffer = new ByteBuffer();
 		senderByteBuffer = new ByteBuffer();
 		sendAttempts = new HashMap<>();
+		transferEvents = new HashMap<>();
+	}
+
+	@Override
+	public void postStop() {
+		// Acknowledgements can no longer reach this proxy
+		for (Map<Integer, Cancellable> attempts : sendAttempts.values())
+			attempts.values().forEach(Cancellable::cancel);
+		TRANSFERS_IN_FLIGHT.add(-sendAttempts.size());
+		for (LargeMessageTransferEvent event : transferEvents.values())
+			event.commit();
 	}
 
 	////////////////////
@@ -86,12 +123,14 @@ public class LargeMessageProxy extends AbstractLoggingActor {
 
 	@Override
 	public Receive createReceive() {
-		return receiveBuilder()
+		return ActorMetrics.instrument(this, receiveBuilder()
 				.match(LargeMessage.class, this::handle) // Sender Proxy
 				.match(BytesMessage.class, this::handle) // Receiver Proxy
 				.match(AckMessage.class, this::handle) // ACK from Receiver to Sender for received Chunk
+				.match(ActorIdentity.class, this.actorRefs::resolved) // Resolved receiver proxy
+				.match(Terminated.class, message -> this.actorRefs.invalidate(message.getActor())) // Receiver proxy is gone
 				.matchAny(object -> this.log().info("Received unknown message: \"{}\"", object.toString()))
-				.build();
+				.build());
 	}
 
 	// Sender proxy
@@ -99,35 +138,62 @@ public class LargeMessageProxy extends AbstractLoggingActor {
 		Object message = largeMessage.getMessage();
 		ActorRef sender = this.sender();
 		ActorRef receiver = largeMessage.getReceiver();
-		ActorSelection receiverProxy = this.context().actorSelection(receiver.path().child(DEFAULT_NAME));
-
-		// Serialize to byte array
-
-		KryoPool kryoPool = KryoPoolSingleton.get();
-		byte[] messageAsBytes = kryoPool.toBytesWithClass(message);
+		// Chunks go to the resolved proxy, once the proxy of the receiver is known, instead of resolving its path for each
+		ActorPath receiverProxyPath = receiver.path().child(DEFAULT_NAME);
+		ActorRef resolvedProxy = this.actorRefs.get(receiverProxyPath);
+		ActorSelection receiverProxy = this.context().actorSelection(receiverProxyPath);
+		LargeMessageTransferEvent event = new LargeMessageTransferEvent();
+		event.begin();
+
+		// Serialize straight into chunks, so that the message never exists as one contiguous byte array
+
+		ChunkedOutputStream chunks = new ChunkedOutputStream(chunkedMessageSize);
+		try (Output output = new Output(chunks, STREAM_BUFFER_SIZE)) {
+			kryo.writeClassAndObject(output, message);
+		}
+		final int messageLength = chunks.getLength();
 		final String messageId = createID();
+		TRANSFERS.inc();
+		TRANSFERS_IN_FLIGHT.add(1);
+		BYTES_SENT.add(messageLength);
+		if (event.isEnabled()) {
+			event.messageId = messageId;
+			event.messageClass = message.getClass().getSimpleName();
+			event.receiver = receiver.path().toString();
+			event.bytes = messageLength;
+			event.chunks = chunks.getChunks().size();
+			transferEvents.put(messageId, event);
+		}
 
 		// Send bytes chunk-wise to receiver proxy
-		for(int index = 0; index < messageAsBytes.length; index += chunkedMessageSize) {
-			byte[] bytesChunk = Arrays.copyOfRange(
-					messageAsBytes, index, Math.min(index + chunkedMessageSize, messageAsBytes.length)
-			);
+		int index = 0;
+		for (byte[] bytesChunk : chunks.getChunks()) {
 			BytesMessage<byte[]> messageChunk = chunkedBytesMessageCreator(
-					receiver, sender, bytesChunk, index, messageId, messageAsBytes.length
+					receiver, sender, bytesChunk, index, messageId, messageLength
 			);
 
 			senderByteBuffer.saveChunksToMap(messageId, index, bytesChunk);
 
+			AtomicInteger attempts = new AtomicInteger();
 			Cancellable sendAttempt = this.getContext().system().scheduler()
 				.scheduleAtFixedRate(
 					Duration.ofMillis(new Random().nextInt(3000)),
 					Duration.ofSeconds(5),
-					() -> receiverProxy.tell(messageChunk, this.self()),
+					() -> {
+						int attempt = attempts.incrementAndGet();
+						if (attempt > 1)
+							retransmitted(messageChunk, attempt);
+						if (resolvedProxy != null)
+							resolvedProxy.tell(messageChunk, this.self());
+						else
+							receiverProxy.tell(messageChunk, this.self());
+					},
 					this.context().dispatcher()
 				);
 
 			sendAttempts.computeIfAbsent(messageId, id -> new ConcurrentHashMap<>());
 			sendAttempts.get(messageId).put(index, sendAttempt);
+			index += bytesChunk.length;
 		}
 	}
 
@@ -138,6 +204,7 @@ public class LargeMessageProxy extends AbstractLoggingActor {
 		String messageId = message.getMessageId().toString();
 		int chunkOffset = message.getChunkOffset();
 		this.sender().tell(new AckMessage(messageId, chunkOffset), this.self()); // TODO what if ACK is never received?
+		BYTES_RECEIVED.add(((byte[]) message.getBytes()).length);
 
 		receiverByteBuffer.saveChunksToMap(messageId, chunkOffset, (byte[]) message.getBytes());
 		receiverByteBuffer.getMap(messageId).put(chunkOffset, (byte[]) message.getBytes());
@@ -145,18 +212,17 @@ public class LargeMessageProxy extends AbstractLoggingActor {
 		// Check if all chunks present
 		int partitionSize = (int) Math.ceil(message.getMessageLength() * 1.0 / chunkedMessageSize);
 		if (partitionSize == receiverByteBuffer.getMap(messageId).size()) {
-			byte[] destinationMessage = new byte[message.messageLength];
-
-			// Copying message chunks into destinationMessage byte array in correct order
-			List<Integer> sortedChunkOffsets = receiverByteBuffer.getMap(messageId).keySet().stream().sorted().collect(Collectors.toList());
-			for (Integer offset : sortedChunkOffsets) {
-				byte[] sourceMessageChunk = receiverByteBuffer.getMap(messageId).get(offset);
-				System.arraycopy(sourceMessageChunk, 0, destinationMessage, offset, sourceMessageChunk.length);
-			}
+			// Reading the message chunks in correct order as one stream, without copying them into one byte array
+			Map<Integer, byte[]> chunks = receiverByteBuffer.getMap(messageId);
+			List<InputStream> sortedChunks = chunks.keySet().stream().sorted()
+					.map(offset -> new ByteArrayInputStream(chunks.get(offset)))
+					.collect(Collectors.toList());
 
 			// Deserialize; Decoded Message = Original Message
-			KryoPool kryoPool = KryoPoolSingleton.get();
-			Object decodedMessage = kryoPool.fromBytes(destinationMessage);
+			Object decodedMessage;
+			try (Input input = new Input(new SequenceInputStream(Collections.enumeration(sortedChunks)), STREAM_BUFFER_SIZE)) {
+				decodedMessage = kryo.readClassAndObject(input);
+			}
 			message.getReceiver().tell(decodedMessage, message.getSender());
 			this.receiverByteBuffer.deleteMapForMessageId(messageId);
 		}
@@ -176,6 +242,12 @@ public class LargeMessageProxy extends AbstractLoggingActor {
 			}
 			if (cancellableMap.isEmpty()) {
 				sendAttempts.remove(messageId);
+				TRANSFERS_IN_FLIGHT.add(-1);
+				LargeMessageTransferEvent event = transferEvents.remove(messageId);
+				if (event != null) {
+					event.completed = true;
+					event.commit();
+				}
 			}
 		}
 
@@ -193,6 +265,19 @@ public class LargeMessageProxy extends AbstractLoggingActor {
 	// Helper Methods //
 	////////////////////
 
+	// Runs on the scheduler, not in the actor
+	private static void retransmitted(BytesMessage<byte[]> messageChunk, int attempt) {
+		RETRANSMITS.inc();
+		ChunkRetransmitEvent event = new ChunkRetransmitEvent();
+		if (event.shouldCommit()) {
+			event.messageId = messageChunk.getMessageId();
+			event.chunkOffset = messageChunk.getChunkOffset();
+			event.bytes = messageChunk.getBytes().length;
+			event.attempt = attempt;
+			event.commit();
+		}
+	}
+
 	private String createID() {
 		return UUID.randomUUID().toString();
 	}
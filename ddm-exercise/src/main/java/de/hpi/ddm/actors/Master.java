@@ -1,18 +1,32 @@
 package de.hpi.ddm.actors;
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 import akka.actor.AbstractLoggingActor;
 import akka.actor.ActorRef;
+import akka.actor.Address;
 import akka.actor.PoisonPill;
 import akka.actor.Props;
 import akka.actor.Terminated;
+import akka.cluster.Cluster;
+import akka.cluster.ClusterEvent.CurrentClusterState;
+import akka.cluster.ClusterEvent.MemberRemoved;
+import akka.cluster.metrics.ClusterMetricsChanged;
+import akka.cluster.metrics.ClusterMetricsExtension;
+import akka.cluster.metrics.NodeMetrics;
+import akka.dispatch.RequiresMessageQueue;
+import de.hpi.ddm.actors.monitoring.ActorMetrics;
+import de.hpi.ddm.actors.monitoring.InstrumentedMessageQueueSemantics;
+import de.hpi.ddm.actors.monitoring.PriorityMailbox;
+import de.hpi.ddm.actors.monitoring.WorkMessage;
+import de.hpi.ddm.actors.scheduling.NodeCapacityTracker;
+import de.hpi.ddm.configuration.DatasetDescriptor;
+import de.hpi.ddm.singletons.ConfigurationSingleton;
+import de.hpi.ddm.singletons.PermutationSingleton;
 import de.hpi.ddm.structures.BloomFilter;
-import de.hpi.ddm.structures.PasswordWorkPackage;
+import de.hpi.ddm.structures.HintSolutionCache;
+import de.hpi.ddm.structures.Job;
 import de.hpi.ddm.structures.PermutationWorkPackage;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -20,10 +34,16 @@ import lombok.NoArgsConstructor;
 
 import static de.hpi.ddm.actors.Collector.*;
 import static de.hpi.ddm.actors.LargeMessageProxy.*;
+import static de.hpi.ddm.actors.PasswordShard.*;
 import static de.hpi.ddm.actors.PermutationHandler.*;
 import static de.hpi.ddm.actors.Worker.*;
 
-public class Master extends AbstractLoggingActor {
+/**
+ * Reads the datasets, lets every system build the hint indexes that its passwords need, and routes the passwords to
+ * the {@link PasswordShard}s, which coordinate the actual work. The master itself only counts the passwords and
+ * results of each job, so that its load does not grow with the number of workers.
+ */
+public class Master extends AbstractLoggingActor implements RequiresMessageQueue<InstrumentedMessageQueueSemantics> {
 
 	////////////////////////
 	// Actor Construction //
@@ -31,20 +51,33 @@ public class Master extends AbstractLoggingActor {
 	
 	public static final String DEFAULT_NAME = "master";
 
-	public static Props props(final ActorRef reader, final ActorRef collector, final BloomFilter welcomeData) {
-		return Props.create(Master.class, () -> new Master(reader, collector, welcomeData));
+	public static Props props(final List<DatasetDescriptor> datasets, final ActorRef collector, final BloomFilter welcomeData) {
+		return Props.create(Master.class, () -> new Master(datasets, collector, welcomeData));
 	}
 
-	public Master(final ActorRef reader, final ActorRef collector, final BloomFilter welcomeData) {
-		this.reader = reader;
+	public Master(final List<DatasetDescriptor> datasets, final ActorRef collector, final BloomFilter welcomeData) {
+		this.pendingDatasets = new ArrayDeque<>(datasets);
+		this.readers = new HashMap<>();
 		this.collector = collector;
 		this.largeMessageProxy = this.context().actorOf(LargeMessageProxy.props(), LargeMessageProxy.DEFAULT_NAME);
 		this.workers = new ArrayList<>();
+		this.workerShards = new HashMap<>();
+		this.permutationHandlers = new HashMap<>();
 		this.welcomeData = welcomeData;
-		this.passwordWorkPackages = new ArrayList<>();
-		this.permutationWorkPackages = new ArrayList<>();
-		this.resultTracker = new HashMap<>();
+		this.jobs = new LinkedHashMap<>();
+		this.hintSolutions = new HintSolutionCache(ConfigurationSingleton.get().getHintSolutionCacheSize());
+		this.permutationWorkPackages = new LinkedHashMap<>();
+		this.readyAlphabets = new HashMap<>();
+		this.buildingAlphabets = new HashMap<>();
+		this.snapshotSources = new HashMap<>();
 		this.otherWatchedActors = new ArrayList<>();
+		this.maxConcurrentJobs = Math.max(1, ConfigurationSingleton.get().getMaxConcurrentJobs());
+		this.cluster = Cluster.get(this.context().system());
+		this.capacities = new NodeCapacityTracker();
+		this.shards = new ArrayList<>();
+		int numShards = Math.max(1, ConfigurationSingleton.get().getCoordinatorShards());
+		for (int i = 0; i < numShards; i++)
+			this.shards.add(this.context().actorOf(PasswordShard.props(i, numShards, collector), PasswordShard.name(i)));
 	}
 
 	////////////////////
@@ -57,9 +90,11 @@ public class Master extends AbstractLoggingActor {
 	}
 	
 	@Data @NoArgsConstructor @AllArgsConstructor
-	public static class BatchMessage implements Serializable {
+	public static class BatchMessage implements Serializable, WorkMessage {
 		private static final long serialVersionUID = 8343040942748609598L;
+		private int jobId;
 		private List<String[]> lines;
+		private long readTime; // nanoseconds that the Reader spent on the lines
 	}
 
 	@Data
@@ -72,14 +107,60 @@ public class Master extends AbstractLoggingActor {
 		private static final long serialVersionUID = -20374816448627627L;
 	}
 
-	@Data
-	public static class PermutationWorkPackageRequest implements Serializable {
-		private static final long serialVersionUID = -63434816465427697L;
+	@Data @NoArgsConstructor @AllArgsConstructor
+	public static class PermutationsReadyMessage implements Serializable {
+		private static final long serialVersionUID = 12344816432127698L;
+		private String alphabet;
+	}
+
+	@Data @NoArgsConstructor @AllArgsConstructor
+	public static class PermutationsEvictedMessage implements Serializable {
+		private static final long serialVersionUID = 12344816432127699L;
+		private String alphabet;
+	}
+
+	@Data @NoArgsConstructor @AllArgsConstructor
+	public static class PasswordReturnedMessage implements Serializable {
+		private static final long serialVersionUID = 12344816432127700L;
+		private int jobId;
+		private int passwordId; // a password whose hints the worker's system cannot resolve; its shard hands it out again
+	}
+
+	@Data @NoArgsConstructor @AllArgsConstructor
+	public static class PasswordsCompletedMessage implements Serializable {
+		private static final long serialVersionUID = 10171816141617124L;
+		private int jobId;
+		private int count;
+	}
+
+	/**
+	 * The password work packages that a shard's workers completed per node since the last report.
+	 */
+	@Data @NoArgsConstructor @AllArgsConstructor
+	public static class NodeCompletionsMessage implements Serializable {
+		private static final long serialVersionUID = 10171816141617127L;
+		private Map<Address, Integer> completions;
+	}
+
+	@Data @NoArgsConstructor @AllArgsConstructor
+	public static class NoWorkMessage implements Serializable {
+		private static final long serialVersionUID = 10171816141617125L;
+		private Address node; // system for which no password shard has pending passwords
+	}
+
+	/**
+	 * Hints with their missing character; workers publish the hints they resolved, the master passes on the new ones.
+	 */
+	@Data @NoArgsConstructor @AllArgsConstructor
+	public static class SolvedHintsMessage implements Serializable {
+		private static final long serialVersionUID = 10171816141617126L;
+		private String[] keys; // HintSolutionCache.key(alphabet, hint)
+		private char[] letters;
 	}
 
 	@Data
-	public static class PermutationsReadyMessage implements Serializable {
-		private static final long serialVersionUID = 12344816432127698L;
+	public static class LeaseCheckMessage implements Serializable {
+		private static final long serialVersionUID = 10171816141617122L;
 	}
 
 	@Data
@@ -87,19 +168,42 @@ public class Master extends AbstractLoggingActor {
 		private static final long serialVersionUID = 10171816141617121L;
 	}
 
+	public enum Phase { STARTED, PERMUTATIONS_READY, PASSWORD_CRACKED, FINISHED }
+
+	/**
+	 * Published on the local event stream whenever the master reaches a phase; benchmarks subscribe to it for timings.
+	 */
+	@Data @NoArgsConstructor @AllArgsConstructor
+	public static class PhaseEvent implements Serializable {
+		private static final long serialVersionUID = 10171816141617123L;
+		private Phase phase;
+		private long timestamp;
+	}
+
 	/////////////////
 	// Actor State //
 	/////////////////
 
-	private final ActorRef reader;
+	private final Cluster cluster;
+	private final Queue<DatasetDescriptor> pendingDatasets;
+	private final Map<Integer, ActorRef> readers;
 	private final ActorRef collector;
 	private final ActorRef largeMessageProxy;
 	private final List<ActorRef> workers;
+	private final List<ActorRef> shards;
+	private final NodeCapacityTracker capacities; // shared by all shards, so that the cluster metrics are followed once
+	private final Map<ActorRef, ActorRef> workerShards; // worker -> the password shard that it is bound to
+	private final Map<Address, ActorRef> permutationHandlers;
 	private final List<ActorRef> otherWatchedActors;
 	private final BloomFilter welcomeData;
-	private final List<PasswordWorkPackage> passwordWorkPackages;
-	private final List<PermutationWorkPackage> permutationWorkPackages;
-	private final Map<Integer, Boolean> resultTracker;
+	private final Map<Integer, Job> jobs; // active jobs by id in the order in which they were started
+	private final HintSolutionCache hintSolutions; // hints that any worker resolved; kept apart from the workers' cache of this system
+	private final Map<String, List<PermutationWorkPackage>> permutationWorkPackages; // alphabet -> packages; built once and shared by all jobs
+	private final Map<Address, Set<String>> readyAlphabets; // alphabets for which a system has all permutations
+	private final Map<Address, Set<String>> buildingAlphabets; // alphabets that a system is currently building
+	private final Map<Address, Address> snapshotSources; // system -> system that ships it the index it is building
+	private final int maxConcurrentJobs;
+	private int nextJobId;
 	private long startTime;
 	
 	/////////////////////
@@ -109,6 +213,14 @@ public class Master extends AbstractLoggingActor {
 	@Override
 	public void preStart() {
 		Reaper.watchWithDefaultReaper(this);
+		ClusterMetricsExtension.get(this.context().system()).subscribe(this.self());
+		this.cluster.subscribe(this.self(), MemberRemoved.class);
+	}
+
+	@Override
+	public void postStop() {
+		ClusterMetricsExtension.get(this.context().system()).unsubscribe(this.self());
+		this.cluster.unsubscribe(this.self());
 	}
 
 	////////////////////
@@ -117,75 +229,93 @@ public class Master extends AbstractLoggingActor {
 
 	@Override
 	public Receive createReceive() {
-		return receiveBuilder()
+		return ActorMetrics.instrument(this, receiveBuilder()
 				.match(StartMessage.class, this::handle)
 				.match(BatchMessage.class, this::handle)
 				.match(Terminated.class, this::handle)
 				.match(RegistrationMessage.class, this::handle) // Registration from PermutationHandler & Workers
-				.match(PermutationWorkPackageRequest.class, this::handle) // PermutationHandler asks for Work Packages
 				.match(PermutationsReadyMessage.class, this::handle) // PermutationHandler signals that Permutation Calculation is done
-				.match(WorkerWorkRequestMessage.class, this::handle) // Worker asks for next password to crack
+				.match(PermutationsEvictedMessage.class, this::handle) // PermutationHandler signals that its node dropped an alphabet
+				.match(WorkerWorkRequestMessage.class, this::handle) // Worker asks for next password before its shard has answered it
 				.match(PasswordCrackerResultMessage.class, this::handle) // Password result from worker
+				.match(PasswordsCompletedMessage.class, this::handle) // PasswordShard counts cracked passwords
+				.match(NoWorkMessage.class, this::handle) // PasswordShard found no passwords for a system
+				.match(NodeCompletionsMessage.class, this::handle) // PasswordShard counts completed packages per node
+				.match(ClusterMetricsChanged.class, this::handle) // Heap and load samples of all nodes
+				.match(MemberRemoved.class, this::handle)
+				.match(SolvedHintsMessage.class, this::handle) // Worker resolved new hints
 				.match(KillTheSystemMessage.class, this::handle) // Collector is done printing
+				.match(PriorityMailbox.WorkRejectedMessage.class, this::handle) // A PermutationHandler's work queue was full
+				.match(CurrentClusterState.class, message -> {/*Ignore*/})
 				.matchAny(object -> this.log().info("Received unknown message: \"{}\"", object.toString()))
-				.build();
+				.build());
 	}
 
 	protected void handle(StartMessage message) {
 		this.log().info("Received StartMessage from MasterSystem.");
 		this.startTime = System.currentTimeMillis();
-		this.reader.tell(new Reader.ReadMessage(), this.self());
+		this.publish(Phase.STARTED);
+		this.startPendingJobs();
 	}
 	
 	protected void handle(BatchMessage message) {
 		// Stop fetching lines from the Reader once an empty BatchMessage was received; we have seen all data then
-		this.log().info("Received BatchMessage from Reader.");
+		this.log().info("Received BatchMessage from Reader of job {}.", message.getJobId());
+		Job job = this.jobs.get(message.getJobId());
+		ActorRef reader = this.readers.get(message.getJobId());
+		if (job == null || reader == null)
+			return;
+
 		if (message.getLines().isEmpty()) {
-			this.reader.tell(new Reader.StopReadMessage(), this.self());
+			reader.tell(new Reader.StopReadMessage(), this.self());
+			job.setReadingDone(true);
+			this.finishJobIfDone(job);
 		}
 		else {
+			List<List<String[]>> shardLines = new ArrayList<>();
+			for (int i = 0; i < this.shards.size(); i++)
+				shardLines.add(new ArrayList<>());
 			for (String[] line : message.getLines()) {
-				int numberOfHints = line.length-5;
-				String[] hints = new String[numberOfHints];
-				if (numberOfHints - 5 >= 0) {
-					System.arraycopy(line, 5, hints, 0, numberOfHints);
-				}
 				int passwordId = Integer.parseInt(line[0]);
-				PasswordWorkPackage passwordWorkpackage = new PasswordWorkPackage(
-						passwordId,
-						line[1],
-						line[2],
-						Integer.parseInt(line[3]),
-						line[4],
-						hints
-				);
-				this.passwordWorkPackages.add(passwordWorkpackage);
-				this.resultTracker.put(passwordId, false);
-			}
-
-			// creation of permutation work packages
-			if (this.permutationWorkPackages.isEmpty()) {
-				PasswordWorkPackage passwordWorkpackage = this.passwordWorkPackages.get(0);
-				String passwordCharacters = passwordWorkpackage.getPasswordCharacters();
-				char[] charactersArray = passwordCharacters.toCharArray();
-				for (char character: charactersArray) {
-					for (char character2: charactersArray) {
-						if (character2!=character) {
-							PermutationWorkPackage permutationWorkPackage = new PermutationWorkPackage(character, character2, passwordCharacters);
-							this.permutationWorkPackages.add(permutationWorkPackage);
-						}
-					}
+				// The shard would count a repeated id once, so the job could never finish if it were counted twice here
+				if (!job.addPassword(passwordId)) {
+					this.log().warning("Skipping repeated password id {} of job {}.", passwordId, job.getId());
+					continue;
 				}
+				shardLines.get(PasswordShard.shardOf(passwordId, this.shards.size())).add(line);
+				String alphabet = PermutationSingleton.alphabet(line[2]);
+				job.getAlphabets().add(alphabet);
+
+				// creation of permutation work packages; alphabets that an earlier job has already seen are reused
+				this.permutationWorkPackages.computeIfAbsent(alphabet, this::createPermutationWorkPackages);
 			}
+			for (int i = 0; i < this.shards.size(); i++)
+				if (!shardLines.get(i).isEmpty())
+					this.shards.get(i).tell(new BatchMessage(job.getId(), shardLines.get(i), message.getReadTime()), this.self());
+
+			// Every system starts building an index as soon as there are passwords for it, not only once its workers idle
+			this.permutationHandlers.keySet().forEach(this::buildMissingAlphabet);
 
 			// Fetch further lines from the Reader
-			this.reader.tell(new Reader.ReadMessage(), this.self());
+			reader.tell(new Reader.ReadMessage(), this.self());
 		}
 	}
 
 	protected void handle(Terminated message) {
 		this.context().unwatch(message.getActor());
+		// The worker's shard watches it, too, and reassigns its passwords
 		this.workers.remove(message.getActor());
+		this.workerShards.remove(message.getActor());
+		if (this.permutationHandlers.values().remove(message.getActor())) {
+			Address node = this.nodeOf(message.getActor());
+			// Snapshots that the departed system was shipping never arrive; their receivers build the index themselves
+			for (Address receiver : new ArrayList<>(this.snapshotSources.keySet())) {
+				if (this.snapshotSources.get(receiver).equals(node)) {
+					this.snapshotSources.remove(receiver);
+					this.buildingAlphabets.getOrDefault(receiver, Collections.emptySet()).clear();
+				}
+			}
+		}
 		this.log().info("Unregistered {}", message.getActor());
 	}
 
@@ -194,11 +324,21 @@ public class Master extends AbstractLoggingActor {
 		String name = this.sender().path().name();
 		String type = name.substring(0, name.length() - 1);
 		if (type.equals(Worker.DEFAULT_NAME)) {
+			// Workers are bound round-robin to a home shard, which serves all their requests and results
+			ActorRef shard = this.shards.get(this.workers.size() % this.shards.size());
 			this.workers.add(this.sender());
+			this.workerShards.put(this.sender(), shard);
+			shard.tell(new AddWorkerMessage(this.sender()), this.self());
 		}
 		else {
 			this.otherWatchedActors.add(this.sender());
 		}
+		if (name.startsWith(PermutationHandler.DEFAULT_NAME)) {
+			// Push the packages of pending alphabets right away; they travel in parallel with the welcome data
+			Address node = this.nodeOf(this.sender());
+			this.permutationHandlers.putIfAbsent(node, this.sender());
+			this.buildMissingAlphabet(node);
+		}
 
 		this.log().info("Registered {}", this.sender());
 
@@ -207,47 +347,86 @@ public class Master extends AbstractLoggingActor {
 		this.largeMessageProxy.tell(largeMessage, this.self());
 	}
 
-	private void handle(PermutationWorkPackageRequest message) {
-		this.log().info("Received Request for Permutation Work Packages from {}", this.sender().path().name());
-		if(!this.permutationWorkPackages.isEmpty()) {
-			PermutationWorkPackagesMessage workPackagesMessage = new PermutationWorkPackagesMessage(this.permutationWorkPackages);
-			LargeMessage<PermutationWorkPackagesMessage> largeMessage = new LargeMessage<>(workPackagesMessage, this.sender());
-			this.largeMessageProxy.tell(largeMessage, this.self());
-		}
+	private void handle(PermutationsReadyMessage message) {
+		this.log().info("Received Signal that Permutations for {} are ready for System {}", message.getAlphabet(), this.sender().path().name());
+		Address address = this.nodeOf(this.sender());
+		this.buildingAlphabets.getOrDefault(address, Collections.emptySet()).remove(message.getAlphabet());
+		this.snapshotSources.remove(address);
+		this.readyAlphabets.computeIfAbsent(address, key -> new HashSet<>()).add(message.getAlphabet());
+		this.publish(Phase.PERMUTATIONS_READY);
+		this.broadcastAlphabets(address);
 	}
 
-	private void handle(PermutationsReadyMessage message) {
-		this.log().info("Received Signal that Permutations are ready for System {}", this.sender().path().name());
-		for (ActorRef worker : this.workers) {
-			if (!this.passwordWorkPackages.isEmpty()) {
-				if (worker.path().parent().equals(sender().path().parent())) {
-					PasswordWorkPackage passwordWorkpackage = this.passwordWorkPackages.remove(0);
-					worker.tell(new PasswordWorkPackageMessage(passwordWorkpackage), this.self());
-				}
-			}
-		}
+	private void handle(PermutationsEvictedMessage message) {
+		this.log().info("Received Signal that Permutations for {} were evicted on System {}", message.getAlphabet(), this.sender().path().name());
+		Address address = this.nodeOf(this.sender());
+		this.readyAlphabets.getOrDefault(address, Collections.emptySet()).remove(message.getAlphabet());
+		// A system whose snapshot did not come reports the alphabet as evicted, too
+		this.buildingAlphabets.getOrDefault(address, Collections.emptySet()).remove(message.getAlphabet());
+		this.snapshotSources.remove(address);
+		this.broadcastAlphabets(address);
 	}
 
 	private void handle(WorkerWorkRequestMessage message) {
-		if (!this.passwordWorkPackages.isEmpty()) {
-			PasswordWorkPackage passwordWorkpackage = this.passwordWorkPackages.remove(0);
-			this.sender().tell(new PasswordWorkPackageMessage(passwordWorkpackage), this.self());
-		}
+		this.forwardToShard(message);
 	}
 
 	private void handle(PasswordCrackerResultMessage message) {
-		this.collector.tell(message, this.self());
-		this.resultTracker.put(message.getPasswordId(), true);
-		boolean allDone = true;
-		for (Boolean value : this.resultTracker.values()) {
-			if (!value) {
-				allDone = false;
-				break;
+		this.forwardToShard(message);
+	}
+
+	private void handle(PasswordsCompletedMessage message) {
+		Job job = this.jobs.get(message.getJobId());
+		if (job == null)
+			return;
+		job.addCompleted(message.getCount());
+		this.finishJobIfDone(job);
+	}
+
+	private void handle(NodeCompletionsMessage message) {
+		message.getCompletions().forEach(this.capacities::completed);
+	}
+
+	private void handle(ClusterMetricsChanged message) {
+		for (NodeMetrics nodeMetrics : message.getNodeMetrics())
+			this.capacities.update(nodeMetrics);
+		Map<Address, Double> weights = this.capacities.weights();
+		this.shards.forEach(shard -> shard.tell(new NodeWeightsMessage(weights), this.self()));
+	}
+
+	private void handle(MemberRemoved message) {
+		this.capacities.remove(message.member().address());
+	}
+
+	private void handle(NoWorkMessage message) {
+		this.buildMissingAlphabet(message.getNode());
+	}
+
+	private void handle(SolvedHintsMessage message) {
+		List<String> keys = new ArrayList<>();
+		StringBuilder letters = new StringBuilder();
+		for (int i = 0; i < message.getKeys().length; i++) {
+			if (this.hintSolutions.put(message.getKeys()[i], message.getLetters()[i])) {
+				keys.add(message.getKeys()[i]);
+				letters.append(message.getLetters()[i]);
 			}
 		}
-		if (allDone) {
-			this.collector.tell(new PrintMessage(), this.self());
-		}
+		if (keys.isEmpty())
+			return;
+
+		// One worker per system is enough, because the workers of a system share their cache
+		SolvedHintsMessage solvedHints = new SolvedHintsMessage(keys.toArray(new String[0]), letters.toString().toCharArray());
+		Set<Address> nodes = new HashSet<>();
+		nodes.add(this.nodeOf(this.sender()));
+		for (ActorRef worker : this.workers)
+			if (nodes.add(this.nodeOf(worker)))
+				worker.tell(solvedHints, this.self());
+	}
+
+	private void handle(PriorityMailbox.WorkRejectedMessage message) {
+		// Work packages reach the PermutationHandlers through the LargeMessageProxy, so they go that way again
+		LargeMessage<Object> largeMessage = new LargeMessage<>(message.getMessage(), message.getReceiver());
+		PriorityMailbox.retry(this.context(), this.largeMessageProxy, largeMessage);
 	}
 
 	private void handle(KillTheSystemMessage killTheSystemMessage) {
@@ -258,8 +437,120 @@ public class Master extends AbstractLoggingActor {
 	// Helper Methods //
 	////////////////////
 
+	private void startPendingJobs() {
+		while (this.jobs.size() < this.maxConcurrentJobs && !this.pendingDatasets.isEmpty()) {
+			DatasetDescriptor dataset = this.pendingDatasets.poll();
+			Job job = new Job(this.nextJobId++, dataset.getDatasetName());
+			job.setStartTime(System.currentTimeMillis());
+			this.jobs.put(job.getId(), job);
+			this.shards.forEach(shard -> shard.tell(new StartJobMessage(job.getId(), job.getName()), this.self()));
+
+			ActorRef reader = this.context().actorOf(Reader.props(job.getId(), dataset), Reader.DEFAULT_NAME + job.getId());
+			this.readers.put(job.getId(), reader);
+			reader.tell(new Reader.ReadMessage(), this.self());
+			this.log().info("Started job {} for dataset {}.", job.getId(), job.getName());
+		}
+	}
+
+	private void finishJobIfDone(Job job) {
+		if (!job.isDone())
+			return;
+
+		this.jobs.remove(job.getId());
+		this.shards.forEach(shard -> shard.tell(new FinishJobMessage(job.getId()), this.self()));
+		ActorRef reader = this.readers.remove(job.getId());
+		if (reader != null)
+			reader.tell(PoisonPill.getInstance(), ActorRef.noSender());
+		this.log().info("Job {} for dataset {} finished in {} ms", job.getId(), job.getName(), System.currentTimeMillis() - job.getStartTime());
+
+		this.startPendingJobs();
+		if (this.jobs.isEmpty())
+			this.collector.tell(new PrintMessage(), this.self());
+	}
+
+	private List<PermutationWorkPackage> createPermutationWorkPackages(String alphabet) {
+		List<PermutationWorkPackage> packages = new ArrayList<>();
+		char[] charactersArray = alphabet.toCharArray();
+		for (char character: charactersArray) {
+			for (char character2: charactersArray) {
+				if (character2!=character) {
+					packages.add(new PermutationWorkPackage(character, character2, alphabet));
+				}
+			}
+		}
+		return packages;
+	}
+
+	private void sendPermutationWorkPackages(List<PermutationWorkPackage> packages, ActorRef permutationHandler) {
+		PermutationWorkPackagesMessage workPackagesMessage = new PermutationWorkPackagesMessage(new ArrayList<>(packages));
+		LargeMessage<PermutationWorkPackagesMessage> largeMessage = new LargeMessage<>(workPackagesMessage, permutationHandler);
+		this.largeMessageProxy.tell(largeMessage, this.self());
+	}
+
+	/**
+	 * Pass a message of a worker on to the worker's home shard, keeping the worker as its sender.
+	 */
+	private void forwardToShard(Object message) {
+		ActorRef shard = this.workerShards.get(this.sender());
+		if (shard != null)
+			shard.forward(message, this.context());
+	}
+
+	private void broadcastAlphabets(Address address) {
+		Set<String> alphabets = new HashSet<>(this.readyAlphabets.getOrDefault(address, Collections.emptySet()));
+		this.shards.forEach(shard -> shard.tell(new NodeAlphabetsMessage(address, alphabets), this.self()));
+	}
+
+	private Address nodeOf(ActorRef actor) {
+		Address address = actor.path().address();
+		return address.hasLocalScope() ? this.cluster.selfAddress() : address;
+	}
+
+	/**
+	 * Let the system at the given address build the hint index for an alphabet that has pending passwords but is not
+	 * ready on that system. Each system builds one alphabet at a time, so indexes are only built on demand. If another
+	 * system already holds the index, it ships a snapshot instead, which is much faster than permuting the alphabet
+	 * again; this is what makes systems that join mid-run productive within seconds.
+	 */
+	private void buildMissingAlphabet(Address address) {
+		ActorRef permutationHandler = this.permutationHandlers.get(address);
+		Set<String> building = this.buildingAlphabets.computeIfAbsent(address, key -> new HashSet<>());
+		if (permutationHandler == null || !building.isEmpty())
+			return;
+
+		Set<String> ready = this.readyAlphabets.getOrDefault(address, Collections.emptySet());
+		// The alphabets of all passwords of the active jobs; the shards do not report which of them are still pending
+		Set<String> pending = new LinkedHashSet<>();
+		this.jobs.values().forEach(job -> pending.addAll(job.getAlphabets()));
+		for (String alphabet : pending) {
+			if (!ready.contains(alphabet)) {
+				building.add(alphabet);
+				Address source = this.snapshotSource(alphabet, address);
+				if (source != null) {
+					this.log().info("Shipping hint index for {} from {} to {}", alphabet, source, address);
+					this.snapshotSources.put(address, source);
+					this.permutationHandlers.get(source).tell(new HintIndexRequestMessage(alphabet, permutationHandler), this.self());
+				}
+				else {
+					this.sendPermutationWorkPackages(this.permutationWorkPackages.get(alphabet), permutationHandler);
+				}
+				return;
+			}
+		}
+	}
+
+	/**
+	 * @return a system other than the given one that holds the complete index for the alphabet, or {@code null}
+	 */
+	private Address snapshotSource(String alphabet, Address address) {
+		for (Map.Entry<Address, Set<String>> entry : this.readyAlphabets.entrySet())
+			if (!entry.getKey().equals(address) && entry.getValue().contains(alphabet) && this.permutationHandlers.containsKey(entry.getKey()))
+				return entry.getKey();
+		return null;
+	}
+
 	protected void terminate() {
-		this.reader.tell(PoisonPill.getInstance(), ActorRef.noSender());
+		this.readers.values().forEach(reader -> reader.tell(PoisonPill.getInstance(), ActorRef.noSender()));
 		this.collector.tell(PoisonPill.getInstance(), ActorRef.noSender());
 
 		for (ActorRef worker : this.workers) {
@@ -275,5 +566,10 @@ public class Master extends AbstractLoggingActor {
 
 		long executionTime = System.currentTimeMillis() - this.startTime;
 		this.log().info("Algorithm finished in {} ms", executionTime);
+		this.publish(Phase.FINISHED);
+	}
+
+	private void publish(Phase phase) {
+		this.context().system().eventStream().publish(new PhaseEvent(phase, System.nanoTime()));
 	}
 }
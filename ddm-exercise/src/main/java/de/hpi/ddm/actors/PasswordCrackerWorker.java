@@ -8,6 +8,14 @@ import akka.cluster.Cluster;
 import akka.cluster.ClusterEvent;
 import akka.cluster.Member;
 import akka.cluster.MemberStatus;
+import akka.dispatch.RequiresMessageQueue;
+import akka.pattern.Patterns;
+import de.hpi.ddm.actors.monitoring.ActorMetrics;
+import de.hpi.ddm.actors.monitoring.PriorityMessageQueueSemantics;
+import de.hpi.ddm.actors.monitoring.WorkMessage;
+import de.hpi.ddm.compute.CancellationToken;
+import de.hpi.ddm.compute.PasswordCrackTask;
+import de.hpi.ddm.singletons.ComputeSingleton;
 import de.hpi.ddm.structures.HintResult;
 import de.hpi.ddm.structures.PasswordWorkPackage;
 import de.hpi.ddm.systems.MasterSystem;
@@ -17,16 +25,14 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.io.Serializable;
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import static de.hpi.ddm.actors.Master.*;
 
-public class PasswordCrackerWorker extends AbstractLoggingActor {
+public class PasswordCrackerWorker extends AbstractLoggingActor implements RequiresMessageQueue<PriorityMessageQueueSemantics> {
 
     ////////////////////////
     // Actor Construction //
@@ -41,6 +47,7 @@ public class PasswordCrackerWorker extends AbstractLoggingActor {
     public PasswordCrackerWorker() {
         this.cluster = Cluster.get(this.context().system());
         this.largeMessageProxy = this.context().actorOf(LargeMessageProxy.props(), LargeMessageProxy.DEFAULT_NAME);
+        this.computations = new HashSet<>();
     }
 
     ////////////////////
@@ -48,12 +55,22 @@ public class PasswordCrackerWorker extends AbstractLoggingActor {
     ////////////////////
 
     @Data @NoArgsConstructor @AllArgsConstructor
-    public static class PasswordAndSolvedHintsMessage implements Serializable {
+    public static class PasswordAndSolvedHintsMessage implements Serializable, WorkMessage {
         private static final long serialVersionUID = -1111040922228609111L;
         private PasswordWorkPackage passwordWorkpackage;
         private List<HintResult> hintResults;
     }
 
+    @Data @NoArgsConstructor @AllArgsConstructor
+    private static class PasswordCrackedMessage implements Serializable {
+        private static final long serialVersionUID = -2236702841309475126L;
+        private PasswordWorkPackage passwordWorkpackage;
+        private String crackedPassword; // null if no combination of the characters matched
+        private ActorRef requester;
+        private CancellationToken computation;
+        private Throwable failure; // null if the compute pool finished the task
+    }
+
     /////////////////
     // Actor State //
     /////////////////
@@ -62,6 +79,7 @@ public class PasswordCrackerWorker extends AbstractLoggingActor {
     private final Cluster cluster;
     private final ActorRef largeMessageProxy;
     private long registrationTime;
+    private final Set<CancellationToken> computations; // one per password that is being cracked
 
     /////////////////////
     // Actor Lifecycle //
@@ -76,6 +94,7 @@ public class PasswordCrackerWorker extends AbstractLoggingActor {
     @Override
     public void postStop() {
         this.cluster.unsubscribe(this.self());
+        this.computations.forEach(CancellationToken::cancel);
     }
 
     ////////////////////
@@ -84,14 +103,15 @@ public class PasswordCrackerWorker extends AbstractLoggingActor {
 
     @Override
     public Receive createReceive() {
-        return receiveBuilder()
+        return ActorMetrics.instrument(this, receiveBuilder()
                 .match(ClusterEvent.CurrentClusterState.class, this::handle)
                 .match(ClusterEvent.MemberUp.class, this::handle)
                 .match(ClusterEvent.MemberRemoved.class, this::handle)
                 .match(Worker.WelcomeMessage.class, this::handle) // Welcome message from Worker (parent)
                 .match(PasswordAndSolvedHintsMessage.class, this::handle) // Gets password and hints to solve
+                .match(PasswordCrackedMessage.class, this::handle) // Result of the compute pool
                 .matchAny(object -> this.log().info("Received unknown message: \"{}\"", object.toString()))
-                .build();
+                .build());
     }
 
     private void handle(ClusterEvent.CurrentClusterState message) {
@@ -114,7 +134,6 @@ public class PasswordCrackerWorker extends AbstractLoggingActor {
         final long transmissionTime = System.currentTimeMillis() - this.registrationTime;
         int sizeInMB = message.getWelcomeData().getSizeInMB();
         this.log().info("WelcomeMessage with " + sizeInMB + " MB data received in " + transmissionTime + " ms.");
-        this.context().parent().tell(new Worker.PasswordCrackerWorkRequestMessage(), this.self());
     }
 
     private void handle(PasswordAndSolvedHintsMessage message) {
@@ -124,31 +143,40 @@ public class PasswordCrackerWorker extends AbstractLoggingActor {
         String encodedPassword = passwordWorkPackage.getPassword();
 
         int passwordLength = passwordWorkPackage.getPasswordLength();
-        int numberOfHints = passwordWorkPackage.getHints().length;
         char[] allPasswordCharacters = passwordWorkPackage.getPasswordCharacters().toCharArray();
-        int numberOfPasswordCharacters = allPasswordCharacters.length - numberOfHints;
-
-        char[] passwordCharacters = new char[numberOfPasswordCharacters]; // character which can actually be part of the password
-        int counter = 0;
 
+        // Identical hints share their letter, so the remaining characters are counted instead of derived from the hints
+        StringBuilder remainingCharacters = new StringBuilder(allPasswordCharacters.length);
         for (char character : allPasswordCharacters) {
-            if (!hintCharacters.contains(character)) {
-                passwordCharacters[counter] = character;
-                counter++;
-            }
+            if (!hintCharacters.contains(character))
+                remainingCharacters.append(character);
         }
+        char[] passwordCharacters = remainingCharacters.toString().toCharArray(); // character which can actually be part of the password
+
+        // Brute-force on the compute pool, so that this actor keeps answering cluster events in the meantime
+        CancellationToken computation = new CancellationToken();
+        this.computations.add(computation);
+        ActorRef requester = this.sender();
+        PasswordCrackTask task = new PasswordCrackTask(passwordCharacters, passwordLength, encodedPassword,
+                (passwordWorkPackage.getTrace() == null) ? 0 : passwordWorkPackage.getTrace().getId(), computation);
+        Patterns.pipe(ComputeSingleton.get().submit(task).handle((crackedPassword, failure) -> new PasswordCrackedMessage(passwordWorkPackage, crackedPassword, requester, computation, failure)), this.context().dispatcher())
+                .to(this.self());
+    }
 
-        List<String> result = new ArrayList<>();
-        generate(passwordCharacters, passwordLength, "", passwordCharacters.length, encodedPassword, result);
-        if (!result.isEmpty()) {
-            String crackedPassword = result.get(0);
-            int passwordId = passwordWorkPackage.getId();
-            this.log().info("Cracked password with ID {}: {}", passwordId, crackedPassword);
-            this.sender().tell(new Worker.PasswordCrackerResultMessage(passwordId, crackedPassword), this.self());
-        }
-        else {
+    private void handle(PasswordCrackedMessage message) {
+        PasswordWorkPackage passwordWorkPackage = message.getPasswordWorkpackage();
+        String crackedPassword = message.getCrackedPassword();
+        int passwordId = passwordWorkPackage.getId();
+        this.computations.remove(message.getComputation());
+        if (message.getFailure() != null)
+            this.log().error(message.getFailure(), "Cracking password with ID {} of job {} failed.", passwordId, passwordWorkPackage.getJobId());
+        else if (crackedPassword == null)
             this.log().info("Could not decode password :(");
-        }
+        else
+            this.log().info("Cracked password with ID {} of job {}: {}", passwordId, passwordWorkPackage.getJobId(), crackedPassword);
+        // A password without result is reported, too, so that the Worker releases it and its job can finish; the
+        // Worker answers every result with new work
+        message.getRequester().tell(new Worker.PasswordCrackerResultMessage(passwordWorkPackage.getJobId(), passwordId, crackedPassword, null), this.self());
     }
 
     ////////////////////
@@ -162,37 +190,8 @@ public class PasswordCrackerWorker extends AbstractLoggingActor {
                     .actorSelection(member.address() + "/user/" + Master.DEFAULT_NAME)
                     .tell(new RegistrationMessage(), this.self());
             this.registrationTime = System.currentTimeMillis();
-        }
-    }
-
-    // source: https://www.geeksforgeeks.org/generate-passwords-given-character-set/
-    static void generate(char[] arr, int i, String s, int len, String encodedPassword, List<String> result) {
-        if (result.size() == 1) {
-            return;
-        }
-        if (i == 0) {
-            if (encodedPassword.equals(hash(s))) {
-                result.add(s);
-            }
-            return;
-        }
-        for (int j = 0; j < len; j++) {
-            String appended = s + arr[j];
-            generate(arr, i - 1, appended, len, encodedPassword, result);
-        }
-    }
-
-    private static String hash(String characters) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hashedBytes = digest.digest(String.valueOf(characters).getBytes(StandardCharsets.UTF_8));
-            StringBuilder stringBuffer = new StringBuilder();
-            for (byte hashedByte : hashedBytes) {
-                stringBuffer.append(Integer.toString((hashedByte & 0xff) + 0x100, 16).substring(1));
-            }
-            return stringBuffer.toString();
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException(e.getMessage());
+            // Work does not depend on the welcome data, so there is no need to wait for its transfer
+            this.context().parent().tell(new Worker.PasswordCrackerWorkRequestMessage(), this.self());
         }
     }
 }
@@ -0,0 +1,462 @@
+package de.hpi.ddm.actors;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.*;
+
+import akka.actor.AbstractLoggingActor;
+import akka.actor.ActorRef;
+import akka.actor.ActorSelection;
+import akka.actor.Address;
+import akka.actor.Cancellable;
+import akka.actor.Props;
+import akka.actor.Terminated;
+import akka.cluster.Cluster;
+import akka.cluster.ClusterEvent.CurrentClusterState;
+import akka.cluster.ClusterEvent.MemberRemoved;
+import akka.dispatch.RequiresMessageQueue;
+import de.hpi.ddm.actors.monitoring.ActorMetrics;
+import de.hpi.ddm.actors.monitoring.InstrumentedMessageQueueSemantics;
+import de.hpi.ddm.actors.monitoring.Metrics;
+import de.hpi.ddm.actors.monitoring.PriorityMailbox;
+import de.hpi.ddm.actors.monitoring.WorkPackageTracer;
+import de.hpi.ddm.actors.scheduling.FairShareJobScheduler;
+import de.hpi.ddm.actors.scheduling.LeaseTracker;
+import de.hpi.ddm.actors.scheduling.NodeCapacityTracker;
+import de.hpi.ddm.configuration.Configuration;
+import de.hpi.ddm.singletons.ConfigurationSingleton;
+import de.hpi.ddm.singletons.PermutationSingleton;
+import de.hpi.ddm.structures.PasswordWorkPackage;
+import de.hpi.ddm.structures.ShardJob;
+import de.hpi.ddm.structures.Trace;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import static de.hpi.ddm.actors.Master.*;
+import static de.hpi.ddm.actors.Worker.*;
+
+/**
+ * Coordinates the passwords whose id modulo the number of shards equals this shard's index: it holds their pending
+ * work packages, hands them to the workers that are bound to it, tracks their leases and collects their results. The
+ * {@link Master} routes between the shards and only counts passwords and results per job. A shard that runs dry for a
+ * node steals half of the fitting passwords of its siblings, asking them one after another around the ring.
+ */
+public class PasswordShard extends AbstractLoggingActor implements RequiresMessageQueue<InstrumentedMessageQueueSemantics> {
+
+	////////////////////////
+	// Actor Construction //
+	////////////////////////
+
+	public static final String DEFAULT_NAME = "password-shard";
+
+	private static final Duration LEASE_CHECK_INTERVAL = Duration.ofSeconds(1);
+
+	// Results are passed on in batches of this size, when the shard's part of a job drains, or with the lease check
+	static final int RESULT_BATCH_SIZE = 64;
+
+	private static final Metrics.Counter PASSWORDS_DISPATCHED = Metrics.counter("ddm_packages_dispatched_total", "Work packages handed out per package type", "type", "password");
+	private static final Metrics.Counter PASSWORDS_SPECULATED = Metrics.counter("ddm_packages_speculated_total", "Overdue work packages that were handed out once more per package type", "type", "password");
+	private static final Metrics.Counter PASSWORDS_COMPLETED = Metrics.counter("ddm_packages_completed_total", "Work packages whose first result arrived per package type", "type", "password");
+	private static final Metrics.Counter PASSWORDS_STOLEN = Metrics.counter("ddm_passwords_stolen_total", "Pending passwords that a password shard took over from a sibling");
+
+	public static Props props(final int index, final int numShards, final ActorRef collector) {
+		return Props.create(PasswordShard.class, () -> new PasswordShard(index, numShards, collector));
+	}
+
+	public PasswordShard(final int index, final int numShards, final ActorRef collector) {
+		this.index = index;
+		this.numShards = numShards;
+		this.collector = collector;
+		this.workers = new ArrayList<>();
+		this.idleWorkers = new LinkedHashSet<>();
+		this.scheduler = new FairShareJobScheduler();
+		this.readyAlphabets = new HashMap<>();
+		this.stealing = new HashSet<>();
+		this.tracers = new HashMap<>();
+		this.uncollectedResults = new ArrayList<>();
+		this.uncountedResults = new HashMap<>();
+		Configuration c = ConfigurationSingleton.get();
+		this.weights = new HashMap<>();
+		this.uncountedCompletions = new HashMap<>();
+		this.passwordBatchSize = Math.max(1, c.getPasswordBatchSize());
+		this.cluster = Cluster.get(this.context().system());
+		this.passwordLeases = new LeaseTracker<>(c.getSpeculationPercentile(), c.getSpeculationMultiplier(), c.getSpeculationMinDeadline());
+	}
+
+	public static String name(int index) {
+		return DEFAULT_NAME + index;
+	}
+
+	public static int shardOf(int passwordId, int numShards) {
+		return Math.floorMod(passwordId, numShards);
+	}
+
+	////////////////////
+	// Actor Messages //
+	////////////////////
+
+	@Data @NoArgsConstructor @AllArgsConstructor
+	public static class StartJobMessage implements Serializable {
+		private static final long serialVersionUID = 4173816448627601L;
+		private int jobId;
+		private String name;
+	}
+
+	@Data @NoArgsConstructor @AllArgsConstructor
+	public static class FinishJobMessage implements Serializable {
+		private static final long serialVersionUID = 4173816448627602L;
+		private int jobId;
+	}
+
+	@Data @NoArgsConstructor @AllArgsConstructor
+	public static class AddWorkerMessage implements Serializable {
+		private static final long serialVersionUID = 4173816448627603L;
+		private ActorRef worker;
+	}
+
+	@Data @NoArgsConstructor @AllArgsConstructor
+	public static class NodeAlphabetsMessage implements Serializable {
+		private static final long serialVersionUID = 4173816448627604L;
+		private Address node;
+		private Set<String> alphabets; // alphabets for which the node has all permutations
+	}
+
+	/**
+	 * The capacity weights of the nodes, which the Master derives from the cluster metrics and the completions that all
+	 * shards report; nodes without a weight count as average.
+	 */
+	@Data @NoArgsConstructor @AllArgsConstructor
+	public static class NodeWeightsMessage implements Serializable {
+		private static final long serialVersionUID = 4173816448627607L;
+		private Map<Address, Double> weights;
+	}
+
+	@Data @NoArgsConstructor @AllArgsConstructor
+	public static class StealMessage implements Serializable {
+		private static final long serialVersionUID = 4173816448627605L;
+		private ActorRef thief;
+		private Address node;
+		private Set<String> alphabets;
+		private int hops; // number of shards that were asked so far
+	}
+
+	@Data @NoArgsConstructor @AllArgsConstructor
+	public static class StolenPasswordsMessage implements Serializable {
+		private static final long serialVersionUID = 4173816448627606L;
+		private Address node;
+		private List<PasswordWorkPackage> passwordWorkPackages;
+	}
+
+	/////////////////
+	// Actor State //
+	/////////////////
+
+	private final int index;
+	private final int numShards;
+	private final Cluster cluster;
+	private final ActorRef collector;
+	private final List<ActorRef> workers;
+	private final Set<ActorRef> idleWorkers;
+	private final FairShareJobScheduler scheduler; // this shard's part of every active job
+	private final Map<Address, Set<String>> readyAlphabets; // alphabets for which a system has all permutations
+	private final Set<Address> stealing; // systems for which a steal is travelling around the ring
+	private final LeaseTracker<Long, PasswordWorkPackage> passwordLeases; // PasswordWorkPackage.key(jobId, passwordId) -> worker(s)
+	private Cancellable leaseCheck;
+	private final Map<Integer, WorkPackageTracer> tracers; // job id -> lifecycle traces of its password work packages
+	private long nextTraceId;
+	private final List<PasswordCrackerResultMessage> uncollectedResults; // first results that the collector has not got yet
+	private final Map<Integer, Integer> uncountedResults; // job id -> number of first results that the master has not counted yet
+	private Map<Address, Double> weights; // node -> capacity weight, as last sent by the master
+	private final Map<Address, Integer> uncountedCompletions; // node -> first results that the master has not counted yet
+	private final int passwordBatchSize;
+
+	/////////////////////
+	// Actor Lifecycle //
+	/////////////////////
+
+	@Override
+	public void preStart() {
+		this.leaseCheck = this.getContext().system().scheduler().scheduleWithFixedDelay(
+				LEASE_CHECK_INTERVAL,
+				LEASE_CHECK_INTERVAL,
+				this.self(),
+				new LeaseCheckMessage(),
+				this.getContext().dispatcher(),
+				ActorRef.noSender()
+		);
+		this.cluster.subscribe(this.self(), MemberRemoved.class);
+	}
+
+	@Override
+	public void postStop() {
+		this.leaseCheck.cancel();
+		this.cluster.unsubscribe(this.self());
+	}
+
+	////////////////////
+	// Actor Behavior //
+	////////////////////
+
+	@Override
+	public Receive createReceive() {
+		return ActorMetrics.instrument(this, receiveBuilder()
+				.match(StartJobMessage.class, this::handle)
+				.match(FinishJobMessage.class, this::handle)
+				.match(BatchMessage.class, this::handle)
+				.match(AddWorkerMessage.class, this::handle)
+				.match(Terminated.class, this::handle)
+				.match(NodeAlphabetsMessage.class, this::handle)
+				.match(WorkerWorkRequestMessage.class, this::handle) // Worker asks for next password to crack
+				.match(PasswordCrackerResultMessage.class, this::handle) // Password result from worker
+				.match(PasswordReturnedMessage.class, this::handle) // Worker cannot resolve the hints of a password
+				.match(StealMessage.class, this::handle) // A sibling ran out of work for a system
+				.match(StolenPasswordsMessage.class, this::handle) // Answer to a steal of this shard
+				.match(LeaseCheckMessage.class, this::handle) // Periodic check for overdue password work packages
+				.match(NodeWeightsMessage.class, this::handle) // Capacity weights of all nodes
+				.match(PriorityMailbox.WorkRejectedMessage.class, message -> PriorityMailbox.retry(this.context(), message)) // A worker's work queue was full
+				.match(MemberRemoved.class, this::handle)
+				.match(CurrentClusterState.class, message -> {/*Ignore*/})
+				.matchAny(object -> this.log().info("Received unknown message: \"{}\"", object.toString()))
+				.build());
+	}
+
+	private void handle(StartJobMessage message) {
+		this.scheduler.addJob(new ShardJob(message.getJobId(), message.getName()));
+	}
+
+	private void handle(FinishJobMessage message) {
+		this.scheduler.removeJob(message.getJobId());
+		WorkPackageTracer tracer = this.tracers.remove(message.getJobId());
+		if (tracer != null && tracer.getCount() > 0)
+			this.log().info("Job {} (shard {}): {}", message.getJobId(), this.index, tracer.report());
+	}
+
+	private void handle(BatchMessage message) {
+		ShardJob job = this.scheduler.getJob(message.getJobId());
+		if (job == null)
+			return;
+
+		WorkPackageTracer tracer = this.tracers.computeIfAbsent(job.getId(), id -> new WorkPackageTracer());
+		for (String[] line : message.getLines()) {
+			int numberOfHints = line.length-5;
+			String[] hints = new String[numberOfHints];
+			if (numberOfHints - 5 >= 0) {
+				System.arraycopy(line, 5, hints, 0, numberOfHints);
+			}
+			int passwordId = Integer.parseInt(line[0]);
+			PasswordWorkPackage passwordWorkpackage = new PasswordWorkPackage(
+					job.getId(),
+					passwordId,
+					line[1],
+					line[2],
+					Integer.parseInt(line[3]),
+					line[4],
+					hints,
+					// Interleaved ids keep traces of different shards apart
+					new Trace(this.nextTraceId++ * this.numShards + this.index).with(Trace.Stage.READ, message.getReadTime())
+			);
+			if (job.addPasswordWorkPackage(PermutationSingleton.alphabet(passwordWorkpackage.getPasswordCharacters()), passwordWorkpackage))
+				tracer.created(passwordWorkpackage.getTrace(), System.nanoTime());
+		}
+		this.assignIdleWorkers();
+	}
+
+	private void handle(AddWorkerMessage message) {
+		this.context().watch(message.getWorker());
+		this.workers.add(message.getWorker());
+		this.idleWorkers.add(message.getWorker());
+		this.assignIdleWorkers();
+	}
+
+	private void handle(Terminated message) {
+		this.context().unwatch(message.getActor());
+		this.workers.remove(message.getActor());
+		this.idleWorkers.remove(message.getActor());
+		// Work of departed workers goes back to its job, unless a speculative copy is still running somewhere else
+		for (PasswordWorkPackage passwordWorkPackage : this.passwordLeases.release(message.getActor())) {
+			ShardJob job = this.scheduler.getJob(passwordWorkPackage.getJobId());
+			if (job != null) {
+				String alphabet = PermutationSingleton.alphabet(passwordWorkPackage.getPasswordCharacters());
+				job.requeuePasswordWorkPackage(alphabet, passwordWorkPackage);
+				this.log().info("Reassigning password {} of job {} from terminated {}", passwordWorkPackage.getId(), job.getId(), message.getActor());
+			}
+		}
+		this.assignIdleWorkers();
+	}
+
+	private void handle(NodeAlphabetsMessage message) {
+		this.readyAlphabets.put(message.getNode(), message.getAlphabets());
+		this.assignIdleWorkers();
+	}
+
+	private void handle(WorkerWorkRequestMessage message) {
+		this.idleWorkers.add(this.sender());
+		this.assignIdleWorkers();
+	}
+
+	private void handle(PasswordCrackerResultMessage message) {
+		// First result wins; results of speculative copies that arrive later are dropped
+		this.passwordLeases.complete(PasswordWorkPackage.key(message.getJobId(), message.getPasswordId()));
+		ShardJob job = this.scheduler.getJob(message.getJobId());
+		if (job == null || !job.complete(message.getPasswordId()))
+			return;
+		this.context().system().eventStream().publish(new PhaseEvent(Phase.PASSWORD_CRACKED, System.nanoTime()));
+		PASSWORDS_COMPLETED.inc();
+		WorkPackageTracer tracer = this.tracers.get(job.getId());
+		if (tracer != null && message.getTrace() != null)
+			tracer.completed(message.getTrace(), System.nanoTime());
+
+		this.uncountedCompletions.merge(this.nodeOf(this.sender()), 1, Integer::sum);
+		// A finished password frees a slot in the worker's batch
+		this.assignIdleWorkers();
+
+		this.uncollectedResults.add(message);
+		this.uncountedResults.merge(job.getId(), 1, Integer::sum);
+		// The last results of a job must not wait, because the master finishes the job only once it has counted them
+		if (this.uncollectedResults.size() >= RESULT_BATCH_SIZE || job.isDrained())
+			this.flushResults();
+	}
+
+	private void handle(PasswordReturnedMessage message) {
+		PasswordWorkPackage passwordWorkPackage = this.passwordLeases.release(PasswordWorkPackage.key(message.getJobId(), message.getPasswordId()), this.sender());
+		ShardJob job = this.scheduler.getJob(message.getJobId());
+		// A speculative copy may still be running somewhere else
+		if (passwordWorkPackage != null && job != null) {
+			job.requeuePasswordWorkPackage(PermutationSingleton.alphabet(passwordWorkPackage.getPasswordCharacters()), passwordWorkPackage);
+			this.log().info("Reassigning password {} of job {} returned by {}", message.getPasswordId(), job.getId(), this.sender());
+		}
+		this.assignIdleWorkers();
+	}
+
+	private void handle(StealMessage message) {
+		List<PasswordWorkPackage> stolen = this.scheduler.handOff(message.getAlphabets());
+		if (stolen.isEmpty() && message.getHops() < this.numShards - 1)
+			this.sibling(this.index + 1).tell(new StealMessage(message.getThief(), message.getNode(), message.getAlphabets(), message.getHops() + 1), this.self());
+		else
+			message.getThief().tell(new StolenPasswordsMessage(message.getNode(), stolen), this.self());
+	}
+
+	private void handle(StolenPasswordsMessage message) {
+		this.stealing.remove(message.getNode());
+		if (message.getPasswordWorkPackages().isEmpty()) {
+			// No shard has work for the system; maybe it lacks an alphabet that has pending passwords
+			this.context().parent().tell(new NoWorkMessage(message.getNode()), this.self());
+			return;
+		}
+
+		this.log().info("Took over {} passwords from shard {}", message.getPasswordWorkPackages().size(), this.sender().path().name());
+		for (PasswordWorkPackage passwordWorkPackage : message.getPasswordWorkPackages()) {
+			ShardJob job = this.scheduler.getJob(passwordWorkPackage.getJobId());
+			if (job == null || !job.addPasswordWorkPackage(PermutationSingleton.alphabet(passwordWorkPackage.getPasswordCharacters()), passwordWorkPackage))
+				continue;
+			if (passwordWorkPackage.getTrace() != null)
+				this.tracers.computeIfAbsent(job.getId(), id -> new WorkPackageTracer()).created(passwordWorkPackage.getTrace(), System.nanoTime());
+			PASSWORDS_STOLEN.inc();
+		}
+		this.assignIdleWorkers();
+	}
+
+	private void handle(NodeWeightsMessage message) {
+		this.weights = message.getWeights();
+	}
+
+	private void handle(MemberRemoved message) {
+		this.weights.remove(message.member().address());
+		this.readyAlphabets.remove(message.member().address());
+	}
+
+	private void handle(LeaseCheckMessage message) {
+		this.flushResults();
+		// Re-issue overdue passwords to idle workers that can work on them; each password is speculated on once
+		for (Long key : this.passwordLeases.overdue()) {
+			LeaseTracker.Lease<PasswordWorkPackage> lease = this.passwordLeases.get(key);
+			PasswordWorkPackage passwordWorkPackage = lease.getWorkPackage();
+			String alphabet = PermutationSingleton.alphabet(passwordWorkPackage.getPasswordCharacters());
+			for (ActorRef worker : this.idleWorkers) {
+				if (lease.isHeldBy(worker) || !this.readyAlphabets.getOrDefault(this.nodeOf(worker), Collections.emptySet()).contains(alphabet))
+					continue;
+				this.log().info("Password {} of job {} is overdue; speculatively re-issuing it to {}", passwordWorkPackage.getId(), passwordWorkPackage.getJobId(), worker);
+				worker.tell(new PasswordWorkPackageMessage(passwordWorkPackage), this.self());
+				PASSWORDS_SPECULATED.inc();
+				this.passwordLeases.speculate(key, worker);
+				this.idleWorkers.remove(worker);
+				break;
+			}
+		}
+	}
+
+	////////////////////
+	// Helper Methods //
+	////////////////////
+
+	/**
+	 * Hand out pending passwords to the workers that asked for work. Workers on nodes with a higher capacity weight are
+	 * served first and may hold proportionally more passwords at once; passwords are handed out one per worker and
+	 * round, so that scarce work is spread instead of going to whoever asked first. If this shard has nothing left for
+	 * a node, it tries to steal from its siblings.
+	 */
+	private void assignIdleWorkers() {
+		List<ActorRef> candidates = new ArrayList<>(this.idleWorkers);
+		candidates.sort(Comparator.comparingDouble((ActorRef worker) -> this.weights.getOrDefault(this.nodeOf(worker), 1.0)).reversed());
+
+		boolean assigned = true;
+		while (assigned) {
+			assigned = false;
+			for (ActorRef worker : candidates) {
+				Address node = this.nodeOf(worker);
+				if (this.passwordLeases.heldBy(worker) >= NodeCapacityTracker.batchSize(this.weights.getOrDefault(node, 1.0), this.passwordBatchSize))
+					continue;
+
+				PasswordWorkPackage passwordWorkpackage = this.scheduler.next(this.readyAlphabets.getOrDefault(node, Collections.emptySet()));
+				if (passwordWorkpackage != null) {
+					worker.tell(new PasswordWorkPackageMessage(passwordWorkpackage), this.self());
+					PASSWORDS_DISPATCHED.inc();
+					WorkPackageTracer tracer = this.tracers.get(passwordWorkpackage.getJobId());
+					if (tracer != null && passwordWorkpackage.getTrace() != null)
+						tracer.dispatched(passwordWorkpackage.getTrace(), System.nanoTime());
+					this.passwordLeases.issue(PasswordWorkPackage.key(passwordWorkpackage.getJobId(), passwordWorkpackage.getId()), passwordWorkpackage, worker);
+					// The worker asks again once it has resolved the hints of a password
+					this.idleWorkers.remove(worker);
+					assigned = true;
+				}
+				else {
+					this.steal(node);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Pass the collected results on to the collector and their counts per job and per node on to the master.
+	 */
+	private void flushResults() {
+		if (this.uncollectedResults.isEmpty())
+			return;
+		this.collector.tell(new Collector.ResultsMessage(new ArrayList<>(this.uncollectedResults)), this.self());
+		this.uncollectedResults.clear();
+		this.uncountedResults.forEach((jobId, count) -> this.context().parent().tell(new PasswordsCompletedMessage(jobId, count), this.self()));
+		this.uncountedResults.clear();
+		this.context().parent().tell(new NodeCompletionsMessage(new HashMap<>(this.uncountedCompletions)), this.self());
+		this.uncountedCompletions.clear();
+	}
+
+	private void steal(Address node) {
+		Set<String> alphabets = this.readyAlphabets.getOrDefault(node, Collections.emptySet());
+		if (this.scheduler.isEmpty() || !this.stealing.add(node))
+			return;
+		if (alphabets.isEmpty() || this.numShards == 1)
+			this.self().tell(new StolenPasswordsMessage(node, Collections.emptyList()), this.self());
+		else
+			this.sibling(this.index + 1).tell(new StealMessage(this.self(), node, new HashSet<>(alphabets), 1), this.self());
+	}
+
+	private ActorSelection sibling(int index) {
+		return this.context().actorSelection(this.self().path().parent().child(name(index % this.numShards)));
+	}
+
+	private Address nodeOf(ActorRef actor) {
+		Address address = actor.path().address();
+		return address.hasLocalScope() ? this.cluster.selfAddress() : address;
+	}
+}
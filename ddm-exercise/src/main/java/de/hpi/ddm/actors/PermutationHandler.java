@@ -5,27 +5,37 @@ import akka.cluster.Cluster;
 import akka.cluster.ClusterEvent;
 import akka.cluster.Member;
 import akka.cluster.MemberStatus;
+import akka.dispatch.RequiresMessageQueue;
+import akka.event.LoggingAdapter;
+import de.hpi.ddm.actors.monitoring.ActorMetrics;
+import de.hpi.ddm.actors.monitoring.Metrics;
+import de.hpi.ddm.actors.monitoring.PriorityMailbox;
+import de.hpi.ddm.actors.monitoring.PriorityMessageQueueSemantics;
+import de.hpi.ddm.actors.monitoring.WorkMessage;
+import de.hpi.ddm.actors.scheduling.PoolSizer.Pool;
 import de.hpi.ddm.configuration.Configuration;
 import de.hpi.ddm.singletons.ConfigurationSingleton;
+import de.hpi.ddm.singletons.PermutationSingleton;
 import de.hpi.ddm.structures.BloomFilter;
+import de.hpi.ddm.structures.HintIndex;
 import de.hpi.ddm.structures.PermutationWorkPackage;
 import de.hpi.ddm.systems.MasterSystem;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.io.IOException;
 import java.io.Serializable;
-import java.time.Duration;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
+import static de.hpi.ddm.actors.LargeMessageProxy.*;
 import static de.hpi.ddm.actors.Master.*;
 import static de.hpi.ddm.actors.PermutationWorker.*;
 
 
-public class PermutationHandler extends AbstractLoggingActor {
+public class PermutationHandler extends AbstractLoggingActor implements RequiresMessageQueue<PriorityMessageQueueSemantics> {
 
     ////////////////////////
     // Actor Construction //
@@ -33,17 +43,29 @@ public class PermutationHandler extends AbstractLoggingActor {
 
     public static final String DEFAULT_NAME = "permutation-handler";
 
+    private static final Metrics.Counter PERMUTATIONS_DISPATCHED = Metrics.counter("ddm_packages_dispatched_total", "Work packages handed out per package type", "type", "permutation");
+    private static final Metrics.Counter PERMUTATIONS_COMPLETED = Metrics.counter("ddm_packages_completed_total", "Work packages whose first result arrived per package type", "type", "permutation");
+
     public static Props props(final BloomFilter welcomeData) {
         return Props.create(PermutationHandler.class, () -> new PermutationHandler(welcomeData));
     }
 
     public PermutationHandler(final BloomFilter welcomeData) {
         this.cluster = Cluster.get(this.context().system());
+        this.actorRefs = new ActorRefCache(this);
         this.permutationWorkers = new ArrayList<>();
         this.permutationWorkPackages = new ArrayList<>();
         this.resultTracker = new HashMap<>();
+        this.openPackagesPerAlphabet = new HashMap<>();
+        this.idlePermutationWorkers = new ArrayList<>();
+        this.permutationWorkerTarget = this.c.getNumPermutationWorkers();
         this.welcomeData = welcomeData;
         this.largeMessageProxy = this.context().actorOf(LargeMessageProxy.props(), LargeMessageProxy.DEFAULT_NAME);
+        ActorRef self = this.self();
+        this.evictionListener = alphabet -> self.tell(new PermutationsEvictedMessage(alphabet), ActorRef.noSender());
+        // Spills and loads happen on whichever thread uses the cache, so the errors go to the system's thread-safe log
+        LoggingAdapter systemLog = this.context().system().log();
+        this.errorListener = (alphabet, e) -> systemLog.error(e, "Hint index for {} could not be spilled or loaded.", alphabet);
     }
 
     ////////////////////
@@ -51,7 +73,7 @@ public class PermutationHandler extends AbstractLoggingActor {
     ////////////////////
 
     @Data @NoArgsConstructor @AllArgsConstructor
-    public static class PermutationWorkPackagesMessage implements Serializable {
+    public static class PermutationWorkPackagesMessage implements Serializable, WorkMessage {
         private static final long serialVersionUID = 12344816443217600L;
         private List<PermutationWorkPackage> permutationWorkPackages;
     }
@@ -61,6 +83,13 @@ public class PermutationHandler extends AbstractLoggingActor {
         private static final long serialVersionUID = -72434659866542342L;
         private char head;
         private char head2;
+        private String passwordChars;
+    }
+
+    @Data @NoArgsConstructor @AllArgsConstructor
+    public static class PermutationFailedMessage implements Serializable {
+        private static final long serialVersionUID = -72434659866542343L;
+        private PermutationWorkPackage permutationWorkPackage;
     }
 
     @Data
@@ -68,20 +97,42 @@ public class PermutationHandler extends AbstractLoggingActor {
         private static final long serialVersionUID = 53134659986442334L;
     }
 
+    @Data @NoArgsConstructor @AllArgsConstructor
+    public static class HintIndexRequestMessage implements Serializable {
+        private static final long serialVersionUID = 53134659986442335L;
+        private String alphabet;
+        private ActorRef receiver; // the PermutationHandler of the node that lacks the index
+    }
+
+    @Data @NoArgsConstructor @AllArgsConstructor
+    public static class HintIndexSnapshotMessage implements Serializable {
+        private static final long serialVersionUID = 53134659986442336L;
+        private String alphabet;
+        private HintIndex hintIndex; // null if the sender no longer holds a complete index
+    }
+
     /////////////////
     // Actor State //
     /////////////////
 
     private Member masterSystem;
+    private ActorPath master; // path of the master actor in the masterSystem
+    private final ActorRefCache actorRefs;
     private final Cluster cluster;
     private final List<ActorRef> permutationWorkers;
     private long registrationTime;
-    private Cancellable workRequest;
     private final List<PermutationWorkPackage> permutationWorkPackages;
     private final Map<String, Boolean> resultTracker;
+    private final Map<String, Integer> openPackagesPerAlphabet;
+    private final List<ActorRef> idlePermutationWorkers;
+    private int permutationWorkerTarget; // set by the Autoscaler
+    private int nextWorkerId;
+    private Cancellable demandReports;
     private final Configuration c = ConfigurationSingleton.get();
     private final BloomFilter welcomeData;
     private final ActorRef largeMessageProxy;
+    private final Consumer<String> evictionListener; // the cache is shared by all systems of the JVM, so each handler has its own listeners
+    private final BiConsumer<String, IOException> errorListener;
 
     /////////////////////
     // Actor Lifecycle //
@@ -91,11 +142,18 @@ public class PermutationHandler extends AbstractLoggingActor {
     public void preStart() {
         Reaper.watchWithDefaultReaper(this);
         this.cluster.subscribe(this.self(), ClusterEvent.MemberUp.class, ClusterEvent.MemberRemoved.class);
+        PermutationSingleton.get().addEvictionListener(this.evictionListener);
+        PermutationSingleton.get().addErrorListener(this.errorListener);
+        this.demandReports = Autoscaler.scheduleDemandReports(this);
     }
 
     @Override
     public void postStop() {
         this.cluster.unsubscribe(this.self());
+        PermutationSingleton.get().removeEvictionListener(this.evictionListener);
+        PermutationSingleton.get().removeErrorListener(this.errorListener);
+        if (this.demandReports != null)
+            this.demandReports.cancel();
     }
 
     ////////////////////
@@ -104,16 +162,25 @@ public class PermutationHandler extends AbstractLoggingActor {
 
     @Override
     public Receive createReceive() {
-        return receiveBuilder()
+        return ActorMetrics.instrument(this, receiveBuilder()
                 .match(ClusterEvent.CurrentClusterState.class, this::handle)
                 .match(ClusterEvent.MemberUp.class, this::handle)
                 .match(ClusterEvent.MemberRemoved.class, this::handle)
+                .match(ActorIdentity.class, this.actorRefs::resolved)
+                .match(Terminated.class, message -> this.actorRefs.invalidate(message.getActor()))
                 .match(Worker.WelcomeMessage.class, this::handle) // Welcome from Master
                 .match(PermutationWorkPackagesMessage.class, this::handle) // PermutationWorkPackages List from Master
                 .match(PermutationWorkRequest.class, this::handle) // WorkRequest from PermutationWorker
                 .match(PermutationResultMessage.class, this::handle) // Message that job is finished from PermutationWorker
+                .match(PermutationFailedMessage.class, this::handle) // PermutationWorker could not compute a package
+                .match(PermutationsEvictedMessage.class, this::handle) // Hint index cache dropped the permutations of an alphabet
+                .match(HintIndexRequestMessage.class, this::handle) // Master asks to ship an index to another node
+                .match(HintIndexSnapshotMessage.class, this::handle) // Complete index shipped by another node
+                .match(Autoscaler.ReportDemandMessage.class, this::handle) // Periodic queue depth report to the Autoscaler
+                .match(Autoscaler.PoolSizeMessage.class, this::handle) // New pool size from the Autoscaler
+                .match(PriorityMailbox.WorkRejectedMessage.class, message -> PriorityMailbox.retry(this.context(), message)) // A PermutationWorker's work queue was full
                 .matchAny(object -> this.log().info("Received unknown message: \"{}\"", object.toString()))
-                .build();
+                .build());
     }
 
     private void handle(ClusterEvent.CurrentClusterState message) {
@@ -128,6 +195,7 @@ public class PermutationHandler extends AbstractLoggingActor {
     }
 
     private void handle(ClusterEvent.MemberRemoved message) {
+        this.actorRefs.invalidate(message.member().address());
         if (this.masterSystem.equals(message.member()))
             this.self().tell(PoisonPill.getInstance(), ActorRef.noSender());
     }
@@ -136,76 +204,154 @@ public class PermutationHandler extends AbstractLoggingActor {
         final long transmissionTime = System.currentTimeMillis() - this.registrationTime;
         int sizeInMB = message.getWelcomeData().getSizeInMB();
         this.log().info("WelcomeMessage with " + sizeInMB + " MB data received in " + transmissionTime + " ms.");
-        PermutationWorkPackageRequest workRequestMessage = new PermutationWorkPackageRequest();
-        this.workRequest = this.getContext().system().scheduler().schedule(
-                Duration.ZERO,
-                Duration.ofSeconds(3),
-                this.sender(),
-                workRequestMessage,
-                this.getContext().dispatcher(),
-                this.self()
-        );
     }
 
-
     private void handle(PermutationWorkPackagesMessage message) {
         this.log().info("Received Permutation Work Packages from master.");
-        this.workRequest.cancel();
-        this.permutationWorkPackages.addAll(message.getPermutationWorkPackages());
-        for (PermutationWorkPackage workPackage : this.permutationWorkPackages) {
-            String key = String.valueOf(workPackage.getHead()) + String.valueOf(workPackage.getHead2());
-            this.resultTracker.put(key, false);
+        Set<String> readyAlphabets = new HashSet<>();
+        for (PermutationWorkPackage workPackage : message.getPermutationWorkPackages()) {
+            // Alphabets whose index this node still holds, e.g. in the spill directory, need not be built again
+            HintIndex hintIndex = PermutationSingleton.get().get(workPackage.getPasswordChars());
+            if (hintIndex != null && hintIndex.isComplete()) {
+                readyAlphabets.add(workPackage.getPasswordChars());
+                continue;
+            }
+            // Packages that this node is already permuting are not queued twice
+            String key = this.key(workPackage.getPasswordChars(), workPackage.getHead(), workPackage.getHead2());
+            if (this.resultTracker.putIfAbsent(key, false) != null)
+                continue;
+            this.permutationWorkPackages.add(workPackage);
+            this.openPackagesPerAlphabet.merge(workPackage.getPasswordChars(), 1, Integer::sum);
         }
+        for (String alphabet : readyAlphabets)
+            this.sender().tell(new PermutationsReadyMessage(alphabet), this.self());
         if (this.permutationWorkers.isEmpty()) {
-            for (int i = 0; i < c.getNumPermutationWorkers(); i++) {
-                ActorRef actor = this.context()
-                        .actorOf(PermutationWorker.props().withDispatcher("akka.actor.my-dispatcher"), PermutationWorker.DEFAULT_NAME + i);
-                this.log().info("Created actor {}", actor.path().name());
-                this.permutationWorkers.add(actor);
-            }
+            for (int i = 0; i < this.permutationWorkerTarget; i++)
+                this.spawnPermutationWorker();
+        }
+        else {
+            while (!this.idlePermutationWorkers.isEmpty() && !this.permutationWorkPackages.isEmpty())
+                this.givePermutationWork(this.idlePermutationWorkers.remove(0));
         }
     }
 
     protected void handle(PermutationWorkRequest message) {
         this.log().info("Received Permutation Work Request from {}", this.sender().path().name());
-        if (!this.permutationWorkPackages.isEmpty()) {
-            PermutationWorkPackage workPackage = this.permutationWorkPackages.remove(0);
-            this.sender().tell(new PermutationWorkMessage(workPackage), this.self());
-        }
+        this.givePermutationWork(this.sender());
     }
 
     private void handle(PermutationResultMessage message) {
         this.log().info("Received Signal that Computation for letter combination {}-{} is done from {}", message.head, message.head2, this.sender().path().name());
-        if (!this.permutationWorkPackages.isEmpty()) {
-            PermutationWorkPackage workPackage = this.permutationWorkPackages.remove(0);
-            this.sender().tell(new PermutationWorkMessage(workPackage), this.self());
+        this.givePermutationWork(this.sender());
+        String key = this.key(message.passwordChars, message.head, message.head2);
+        if (!Boolean.FALSE.equals(this.resultTracker.replace(key, true)))
+            return;
+        PERMUTATIONS_COMPLETED.inc();
+        int openPackages = this.openPackagesPerAlphabet.merge(message.passwordChars, -1, Integer::sum);
+        if (openPackages == 0) {
+            this.openPackagesPerAlphabet.remove(message.passwordChars);
+            PermutationSingleton.get().complete(message.passwordChars);
+            this.actorRefs.tell(this.master, new PermutationsReadyMessage(message.passwordChars), this.self());
         }
-        String key = String.valueOf(message.head) + String.valueOf(message.head2);
-        this.resultTracker.replace(key, true);
-        boolean allDone = true;
-        for (Boolean done : resultTracker.values()) {
-            if (!done) {
-                allDone = false;
-                break;
-            }
+    }
+
+    private void handle(PermutationFailedMessage message) {
+        PermutationWorkPackage workPackage = message.getPermutationWorkPackage();
+        String key = this.key(workPackage.getPasswordChars(), workPackage.getHead(), workPackage.getHead2());
+        // The package is still open, so it is queued again; its alphabet must not become ready without it
+        if (Boolean.FALSE.equals(this.resultTracker.get(key))) {
+            this.log().warning("Queueing letter combination {}-{} of {} again, because {} failed on it.", workPackage.getHead(), workPackage.getHead2(), workPackage.getPasswordChars(), this.sender().path().name());
+            this.permutationWorkPackages.add(0, workPackage);
         }
-        if (allDone) {
-            this.getContext()
-                    .actorSelection(this.masterSystem.address() + "/user/" + Master.DEFAULT_NAME)
-                    .tell(new PermutationsReadyMessage(), this.self());
+        this.givePermutationWork(this.sender());
+    }
+
+    private void handle(PermutationsEvictedMessage message) {
+        // The alphabet needs to be built from scratch again, if the Master ever sends its packages again
+        this.log().info("Hint index for {} was evicted.", message.getAlphabet());
+        this.resultTracker.keySet().removeIf(key -> key.startsWith(message.getAlphabet() + ":"));
+        this.actorRefs.tell(this.master, message, this.self());
+    }
+
+    private void handle(HintIndexRequestMessage message) {
+        HintIndex hintIndex = PermutationSingleton.get().get(message.getAlphabet());
+        if (hintIndex == null || !hintIndex.isComplete())
+            hintIndex = null;
+        this.log().info("Shipping hint index for {} to {}.", message.getAlphabet(), message.getReceiver().path().address());
+        // The proxy streams the index straight into its chunks, so it is never copied into one byte array
+        HintIndexSnapshotMessage snapshot = new HintIndexSnapshotMessage(message.getAlphabet(), hintIndex);
+        this.largeMessageProxy.tell(new LargeMessage<>(snapshot, message.getReceiver()), this.self());
+    }
+
+    private void handle(HintIndexSnapshotMessage message) {
+        if (message.getHintIndex() == null) {
+            // The Master lets this node build the index itself, once it knows that the snapshot did not come
+            this.log().info("{} could not ship the hint index for {}.", this.sender().path().address(), message.getAlphabet());
+            this.actorRefs.tell(this.master, new PermutationsEvictedMessage(message.getAlphabet()), this.self());
+            return;
         }
+        this.log().info("Received hint index for {} with {} entries from {}.", message.getAlphabet(), message.getHintIndex().size(), this.sender().path().address());
+        PermutationSingleton.get().put(message.getHintIndex());
+        this.actorRefs.tell(this.master, new PermutationsReadyMessage(message.getAlphabet()), this.self());
+    }
+
+    private void handle(Autoscaler.ReportDemandMessage message) {
+        int busyPermutationWorkers = this.permutationWorkers.size() - this.idlePermutationWorkers.size();
+        Autoscaler.reportDemand(this, Pool.PERMUTATION, this.permutationWorkPackages.size() + busyPermutationWorkers);
+    }
+
+    private void handle(Autoscaler.PoolSizeMessage message) {
+        this.permutationWorkerTarget = message.getSize();
+        // Workers are only created once there is something to permute; until then, the target is the initial size
+        if (this.permutationWorkers.isEmpty())
+            return;
+        while (this.permutationWorkers.size() < this.permutationWorkerTarget)
+            this.spawnPermutationWorker();
+        // Busy workers are retired when they come back for work
+        while (this.permutationWorkers.size() > this.permutationWorkerTarget && !this.idlePermutationWorkers.isEmpty())
+            this.retire(this.idlePermutationWorkers.remove(0));
     }
 
     ////////////////////
     // Helper Methods //
     ////////////////////
 
+    private void spawnPermutationWorker() {
+        ActorRef actor = this.context()
+                .actorOf(PermutationWorker.props(), PermutationWorker.DEFAULT_NAME + this.nextWorkerId++);
+        this.log().info("Created actor {}", actor.path().name());
+        this.permutationWorkers.add(actor);
+    }
+
+    private void retire(ActorRef permutationWorker) {
+        this.permutationWorkers.remove(permutationWorker);
+        permutationWorker.tell(PoisonPill.getInstance(), this.self());
+    }
+
+    private void givePermutationWork(ActorRef permutationWorker) {
+        if (this.permutationWorkers.size() > this.permutationWorkerTarget) {
+            this.idlePermutationWorkers.remove(permutationWorker);
+            this.retire(permutationWorker);
+        }
+        else if (!this.permutationWorkPackages.isEmpty()) {
+            PermutationWorkPackage workPackage = this.permutationWorkPackages.remove(0);
+            permutationWorker.tell(new PermutationWorkMessage(workPackage), this.self());
+            PERMUTATIONS_DISPATCHED.inc();
+        }
+        else if (!this.idlePermutationWorkers.contains(permutationWorker)) {
+            this.idlePermutationWorkers.add(permutationWorker);
+        }
+    }
+
+    private String key(String passwordChars, char head, char head2) {
+        return passwordChars + ":" + head + head2;
+    }
+
     private void register(Member member) {
         if ((this.masterSystem == null) && member.hasRole(MasterSystem.MASTER_ROLE)) {
             this.masterSystem = member;
-            this.getContext()
-                    .actorSelection(member.address() + "/user/" + Master.DEFAULT_NAME)
-                    .tell(new RegistrationMessage(), this.self());
+            this.master = ActorRefCache.userPath(member.address(), Master.DEFAULT_NAME);
+            this.actorRefs.tell(this.master, new RegistrationMessage(), this.self());
             this.registrationTime = System.currentTimeMillis();
         }
     }
@@ -8,7 +8,18 @@ import akka.cluster.Cluster;
 import akka.cluster.ClusterEvent;
 import akka.cluster.Member;
 import akka.cluster.MemberStatus;
+import akka.dispatch.RequiresMessageQueue;
+import akka.pattern.Patterns;
+import de.hpi.ddm.actors.monitoring.ActorMetrics;
+import de.hpi.ddm.actors.monitoring.FirstWork;
+import de.hpi.ddm.actors.monitoring.PermutationPackageEvent;
+import de.hpi.ddm.actors.monitoring.PriorityMessageQueueSemantics;
+import de.hpi.ddm.actors.monitoring.WorkMessage;
+import de.hpi.ddm.compute.CancellationToken;
+import de.hpi.ddm.compute.HintPermutationTask;
+import de.hpi.ddm.singletons.ComputeSingleton;
 import de.hpi.ddm.singletons.PermutationSingleton;
+import de.hpi.ddm.structures.HintIndex;
 import de.hpi.ddm.structures.PermutationWorkPackage;
 import de.hpi.ddm.systems.MasterSystem;
 import de.hpi.ddm.systems.WorkerSystem;
@@ -17,16 +28,13 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.io.Serializable;
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.util.*;
 
 import static de.hpi.ddm.actors.Master.*;
 import static de.hpi.ddm.actors.PermutationHandler.*;
 
 
-public class PermutationWorker extends AbstractLoggingActor {
+public class PermutationWorker extends AbstractLoggingActor implements RequiresMessageQueue<PriorityMessageQueueSemantics> {
 
     ////////////////////////
     // Actor Construction //
@@ -41,6 +49,7 @@ public class PermutationWorker extends AbstractLoggingActor {
     public PermutationWorker() {
         this.cluster = Cluster.get(this.context().system());
         this.largeMessageProxy = this.context().actorOf(LargeMessageProxy.props(), LargeMessageProxy.DEFAULT_NAME);
+        this.computations = new HashSet<>();
     }
 
     ////////////////////
@@ -48,11 +57,20 @@ public class PermutationWorker extends AbstractLoggingActor {
     ////////////////////
 
     @Data @NoArgsConstructor @AllArgsConstructor
-    public static class PermutationWorkMessage implements Serializable {
+    public static class PermutationWorkMessage implements Serializable, WorkMessage {
         private static final long serialVersionUID = -6345481666862325L;
         private PermutationWorkPackage permutationWorkPackage;
     }
 
+    @Data @NoArgsConstructor @AllArgsConstructor
+    private static class PermutationsComputedMessage implements Serializable {
+        private static final long serialVersionUID = 4493521067810452391L;
+        private PermutationWorkPackage permutationWorkPackage;
+        private ActorRef requester;
+        private CancellationToken computation;
+        private Throwable failure; // null if the permutations were computed
+    }
+
     /////////////////
     // Actor State //
     /////////////////
@@ -61,6 +79,7 @@ public class PermutationWorker extends AbstractLoggingActor {
     private final Cluster cluster;
     private final ActorRef largeMessageProxy;
     private long registrationTime;
+    private final Set<CancellationToken> computations; // one per package that is being computed
 
     /////////////////////
     // Actor Lifecycle //
@@ -75,6 +94,7 @@ public class PermutationWorker extends AbstractLoggingActor {
     @Override
     public void postStop() {
         this.cluster.unsubscribe(this.self());
+        this.computations.forEach(CancellationToken::cancel);
     }
 
     ////////////////////
@@ -83,21 +103,21 @@ public class PermutationWorker extends AbstractLoggingActor {
 
     @Override
     public Receive createReceive() {
-        return receiveBuilder()
+        return ActorMetrics.instrument(this, receiveBuilder()
                 .match(ClusterEvent.CurrentClusterState.class, this::handle)
                 .match(ClusterEvent.MemberUp.class, this::handle)
                 .match(ClusterEvent.MemberRemoved.class, this::handle)
                 .match(Worker.WelcomeMessage.class, this::handle) // Welcome Message from PermutationHandler
                 .match(PermutationWorkMessage.class, this::handle)
+                .match(PermutationsComputedMessage.class, this::handle) // Result of the compute pool
                 .matchAny(object -> this.log().info("Received unknown message: \"{}\"", object.toString()))
-                .build();
+                .build());
     }
 
     private void handle(Worker.WelcomeMessage message) {
         final long transmissionTime = System.currentTimeMillis() - this.registrationTime;
         int sizeInMB = message.getWelcomeData().getSizeInMB();
         this.log().info("WelcomeMessage with " + sizeInMB + " MB data received in " + transmissionTime + " ms.");
-        this.context().parent().tell(new PermutationWorkRequest(), this.self());
     }
 
     private void handle(ClusterEvent.CurrentClusterState message) {
@@ -117,6 +137,7 @@ public class PermutationWorker extends AbstractLoggingActor {
     }
 
     private void handle(PermutationWorkMessage message) {
+        FirstWork.started(this.context().system());
         PermutationWorkPackage permutationWorkPackage = message.permutationWorkPackage;
         char head = permutationWorkPackage.getHead();
         char head2 = permutationWorkPackage.getHead2();
@@ -130,66 +151,48 @@ public class PermutationWorker extends AbstractLoggingActor {
                 index++;
             }
         }
-        parallelHeapPermutation(
-                charsWithoutHead,
-                charsWithoutHead.length,
-                charsWithoutHead.length-1,
-                head,
-                head2
-        );
-        PermutationResultMessage permutationResultMessage = new PermutationResultMessage(head, head2);
-        this.sender().tell(permutationResultMessage, this.self());
-    }
-
-    ////////////////////
-    // Helper Methods //
-    ////////////////////
-
-    private void parallelHeapPermutation(
-            char[] passwordChars,
-            int charLength,
-            int desiredPermutationLength,
-            char head,
-            char head2
-    ) {
-        if (charLength == 1) {
-            String correctLengthString = new String(Arrays.copyOf(passwordChars, desiredPermutationLength));
-            String permutation = String.valueOf(head) + String.valueOf(head2) + correctLengthString;
-            String hashed = hash(permutation);
-            PermutationSingleton.addPermutation(permutation + hashed);
-        }
-
-        for (int i = 0; i < charLength; i++) {
-            parallelHeapPermutation(passwordChars, charLength - 1, desiredPermutationLength, head, head2);
-            // If size is odd, swap first and last element
-            char temp;
-            if (charLength % 2 == 1) {
-                temp = passwordChars[0];
-                passwordChars[0] = passwordChars[charLength - 1];
-            }
-            // If size is even, swap i-th and last element
-            else {
-                temp = passwordChars[i];
-                passwordChars[i] = passwordChars[charLength - 1];
+        HintIndex hintIndex = PermutationSingleton.get().getOrCreate(permutationWorkPackage.getPasswordChars());
+
+        // Hash on the compute pool, so that this actor keeps answering cluster events while the permutations are built
+        CancellationToken computation = new CancellationToken();
+        this.computations.add(computation);
+        ActorRef requester = this.sender();
+        // An index that was created for fixed targets only keeps their permutations; the ones of the cache hold all
+        HintPermutationTask task = new HintPermutationTask(new char[] { head, head2 }, charsWithoutHead, hintIndex, hintIndex.getTargets(), computation);
+        PermutationPackageEvent event = new PermutationPackageEvent();
+        event.begin();
+        Patterns.pipe(ComputeSingleton.get().submit(task).handle((count, failure) -> {
+            if (failure != null)
+                return new PermutationsComputedMessage(permutationWorkPackage, requester, computation, failure);
+            if (event.shouldCommit()) {
+                event.alphabet = permutationWorkPackage.getPasswordChars();
+                event.head = head;
+                event.head2 = head2;
+                event.hashes = count;
+                event.commit();
             }
-            passwordChars[charLength - 1] = temp;
-        }
+            return new PermutationsComputedMessage(permutationWorkPackage, requester, computation, null);
+        }), this.context().dispatcher())
+                .to(this.self());
     }
 
-    private String hash(String characters) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hashedBytes = digest.digest(String.valueOf(characters).getBytes(StandardCharsets.UTF_8));
-            StringBuilder stringBuffer = new StringBuilder();
-            for (byte hashedByte : hashedBytes) {
-                stringBuffer.append(Integer.toString((hashedByte & 0xff) + 0x100, 16).substring(1));
-            }
-            return stringBuffer.toString();
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException(e.getMessage());
+    private void handle(PermutationsComputedMessage message) {
+        this.computations.remove(message.getComputation());
+        PermutationWorkPackage permutationWorkPackage = message.getPermutationWorkPackage();
+        if (message.getFailure() != null) {
+            // The package stays open at the handler, which queues it again and sends new work
+            this.log().error(message.getFailure(), "Computing permutations for {}-{} of {} failed.", permutationWorkPackage.getHead(), permutationWorkPackage.getHead2(), permutationWorkPackage.getPasswordChars());
+            message.getRequester().tell(new PermutationFailedMessage(permutationWorkPackage), this.self());
+            return;
         }
+        PermutationResultMessage permutationResultMessage = new PermutationResultMessage(permutationWorkPackage.getHead(), permutationWorkPackage.getHead2(), permutationWorkPackage.getPasswordChars());
+        message.getRequester().tell(permutationResultMessage, this.self());
     }
 
+    ////////////////////
+    // Helper Methods //
+    ////////////////////
+
     private void register(Member member) {
         if ((this.masterSystem == null) && member.hasRole(MasterSystem.MASTER_ROLE)) {
             this.masterSystem = member;
@@ -197,6 +200,8 @@ public class PermutationWorker extends AbstractLoggingActor {
                     .actorSelection(member.address() + "/user/" + Master.DEFAULT_NAME)
                     .tell(new RegistrationMessage(), this.self());
             this.registrationTime = System.currentTimeMillis();
+            // Work does not depend on the welcome data, so there is no need to wait for its transfer
+            this.context().parent().tell(new PermutationWorkRequest(), this.self());
         }
     }
 }
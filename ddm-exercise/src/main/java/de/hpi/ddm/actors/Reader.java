@@ -9,6 +9,12 @@ import com.opencsv.CSVReader;
 
 import akka.actor.AbstractLoggingActor;
 import akka.actor.Props;
+import akka.dispatch.RequiresMessageQueue;
+import de.hpi.ddm.actors.monitoring.ActorMetrics;
+import de.hpi.ddm.actors.monitoring.InstrumentedMessageQueueSemantics;
+import de.hpi.ddm.actors.monitoring.Metrics;
+import de.hpi.ddm.actors.monitoring.ReaderBatchEvent;
+import de.hpi.ddm.configuration.DatasetDescriptor;
 import de.hpi.ddm.singletons.ConfigurationSingleton;
 import de.hpi.ddm.singletons.DatasetDescriptorSingleton;
 import lombok.Data;
@@ -16,7 +22,7 @@ import lombok.Data;
 import static de.hpi.ddm.actors.LargeMessageProxy.*;
 import static de.hpi.ddm.actors.Master.*;
 
-public class Reader extends AbstractLoggingActor {
+public class Reader extends AbstractLoggingActor implements RequiresMessageQueue<InstrumentedMessageQueueSemantics> {
 
 	////////////////////////
 	// Actor Construction //
@@ -24,12 +30,21 @@ public class Reader extends AbstractLoggingActor {
 	
 	public static final String DEFAULT_NAME = "reader";
 
-	public Reader() {
-		largeMessageProxy = this.context().actorOf(LargeMessageProxy.props(), LargeMessageProxy.DEFAULT_NAME);;
+	private static final Metrics.Counter ROWS = Metrics.counter("ddm_reader_rows_total", "Rows that the readers parsed");
+	private static final Metrics.Counter READ_TIME = Metrics.counter("ddm_reader_read_nanoseconds_total", "Time that the readers spent parsing rows");
+
+	public Reader(final int jobId, final DatasetDescriptor datasetDescriptor) {
+		this.jobId = jobId;
+		this.datasetDescriptor = datasetDescriptor;
+		this.largeMessageProxy = this.context().actorOf(LargeMessageProxy.props(), LargeMessageProxy.DEFAULT_NAME);
 	}
 
 	public static Props props() {
-		return Props.create(Reader.class);
+		return props(0, DatasetDescriptorSingleton.get());
+	}
+
+	public static Props props(final int jobId, final DatasetDescriptor datasetDescriptor) {
+		return Props.create(Reader.class, () -> new Reader(jobId, datasetDescriptor));
 	}
 
 	////////////////////
@@ -50,10 +65,13 @@ public class Reader extends AbstractLoggingActor {
 	// Actor State //
 	/////////////////
 
+	private final int jobId;
+	private final DatasetDescriptor datasetDescriptor;
 	private final ActorRef largeMessageProxy;
 	private CSVReader reader;
 	private int bufferSize;
 	private List<String[]> buffer;
+	private long readTime; // nanoseconds spent on filling the buffer
 	
 	/////////////////////
 	// Actor Lifecycle //
@@ -63,12 +81,12 @@ public class Reader extends AbstractLoggingActor {
 	public void preStart() throws Exception {
 		Reaper.watchWithDefaultReaper(this);
 		
-		this.reader = DatasetDescriptorSingleton.get().createCSVReader();
+		this.reader = this.datasetDescriptor.createCSVReader();
 		this.bufferSize = ConfigurationSingleton.get().getBufferSize();
 		this.buffer = new ArrayList<>(this.bufferSize);
 		
 		this.read();
-		this.log().info("Started Reading...");
+		this.log().info("Started Reading {}...", this.datasetDescriptor.getDatasetName());
 	}
 
 	@Override
@@ -82,15 +100,15 @@ public class Reader extends AbstractLoggingActor {
 
 	@Override
 	public Receive createReceive() {
-		return receiveBuilder()
+		return ActorMetrics.instrument(this, receiveBuilder()
 				.match(ReadMessage.class, this::handle)
 				.match(StopReadMessage.class, this::handle)
 				.matchAny(object -> this.log().info("Received unknown message: \"{}\"", object.toString()))
-				.build();
+				.build());
 	}
 
 	private void handle(ReadMessage message) throws Exception {
-		BatchMessage batchMessage = new BatchMessage(new ArrayList<>(this.buffer));
+		BatchMessage batchMessage = new BatchMessage(this.jobId, new ArrayList<>(this.buffer), this.readTime);
 		LargeMessage<BatchMessage> largeMessage = new LargeMessage<>(batchMessage, this.sender());
 		this.largeMessageProxy.tell(largeMessage, this.self());
 		this.read();
@@ -103,10 +121,22 @@ public class Reader extends AbstractLoggingActor {
 	}
 	
 	private void read() throws Exception {
+		final long start = System.nanoTime();
+		ReaderBatchEvent event = new ReaderBatchEvent();
+		event.begin();
 		this.buffer.clear();
 		
 		String[] line;
 		while ((this.buffer.size() < this.bufferSize) && ((line = this.reader.readNext()) != null))
 			this.buffer.add(line);
+		this.readTime = System.nanoTime() - start;
+		if (event.shouldCommit()) {
+			event.jobId = this.jobId;
+			event.dataset = this.datasetDescriptor.getDatasetName();
+			event.rows = this.buffer.size();
+			event.commit();
+		}
+		ROWS.add(this.buffer.size());
+		READ_TIME.add(this.readTime);
 	}
 }
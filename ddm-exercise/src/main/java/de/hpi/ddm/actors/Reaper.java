@@ -10,10 +10,13 @@ import akka.actor.ActorRef;
 import akka.actor.ActorSelection;
 import akka.actor.Props;
 import akka.actor.Terminated;
+import akka.dispatch.RequiresMessageQueue;
+import de.hpi.ddm.actors.monitoring.ActorMetrics;
+import de.hpi.ddm.actors.monitoring.InstrumentedMessageQueueSemantics;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-public class Reaper extends AbstractLoggingActor {
+public class Reaper extends AbstractLoggingActor implements RequiresMessageQueue<InstrumentedMessageQueueSemantics> {
 
 	////////////////////////
 	// Actor Construction //
@@ -55,11 +58,11 @@ public class Reaper extends AbstractLoggingActor {
 	
 	@Override
 	public Receive createReceive() {
-		return receiveBuilder()
+		return ActorMetrics.instrument(this, receiveBuilder()
 				.match(WatchMeMessage.class, this::handle)
 				.match(Terminated.class, this::handle)
 				.matchAny(object -> this.log().info("Received unknown message: \"{}\"", object.toString()))
-				.build();
+				.build());
 	}
 
 	private void handle(WatchMeMessage message) {
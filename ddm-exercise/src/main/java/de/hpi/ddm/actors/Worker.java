@@ -1,6 +1,7 @@
 package de.hpi.ddm.actors;
 
 import java.io.Serializable;
+import java.time.Duration;
 import java.util.*;
 
 import akka.actor.*;
@@ -8,22 +9,36 @@ import akka.cluster.Cluster;
 import akka.cluster.ClusterEvent.CurrentClusterState;
 import akka.cluster.ClusterEvent.MemberRemoved;
 import akka.cluster.ClusterEvent.MemberUp;
+import akka.cluster.Member;
+import akka.cluster.MemberStatus;
+import akka.dispatch.RequiresMessageQueue;
+import de.hpi.ddm.actors.monitoring.ActorMetrics;
+import de.hpi.ddm.actors.monitoring.FirstWork;
+import de.hpi.ddm.actors.monitoring.Metrics;
+import de.hpi.ddm.actors.monitoring.PriorityMailbox;
+import de.hpi.ddm.actors.monitoring.PriorityMessageQueueSemantics;
+import de.hpi.ddm.actors.monitoring.WorkMessage;
+import de.hpi.ddm.actors.scheduling.LeaseTracker;
+import de.hpi.ddm.actors.scheduling.PoolSizer.Pool;
 import de.hpi.ddm.configuration.Configuration;
 import de.hpi.ddm.singletons.ConfigurationSingleton;
+import de.hpi.ddm.singletons.PermutationSingleton;
 import de.hpi.ddm.structures.*;
 import de.hpi.ddm.systems.MasterSystem;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import akka.cluster.Member;
-import akka.cluster.MemberStatus;
 
+import static de.hpi.ddm.actors.Autoscaler.*;
 import static de.hpi.ddm.actors.BruteForceWorker.*;
 import static de.hpi.ddm.actors.Master.*;
 import static de.hpi.ddm.actors.PasswordCrackerWorker.*;
 import static de.hpi.ddm.actors.PermutationHandler.*;
 
-public class Worker extends AbstractLoggingActor {
+public class Worker extends AbstractLoggingActor implements RequiresMessageQueue<PriorityMessageQueueSemantics> {
 
 	////////////////////////
 	// Actor Construction //
@@ -31,21 +46,36 @@ public class Worker extends AbstractLoggingActor {
 	
 	public static final String DEFAULT_NAME = "worker";
 
+	private static final Metrics.Counter HINTS_DISPATCHED = Metrics.counter("ddm_packages_dispatched_total", "Work packages handed out per package type", "type", "hint");
+	private static final Metrics.Counter HINTS_SPECULATED = Metrics.counter("ddm_packages_speculated_total", "Overdue work packages that were handed out once more per package type", "type", "hint");
+	private static final Metrics.Counter HINTS_COMPLETED = Metrics.counter("ddm_packages_completed_total", "Work packages whose first result arrived per package type", "type", "hint");
+	private static final Metrics.Counter HINTS_CACHED = Metrics.counter("ddm_hints_deduplicated_total", "Hints that were resolved without a brute force package of their own per reason", "reason", "cached");
+	private static final Metrics.Counter HINTS_DUPLICATE = Metrics.counter("ddm_hints_deduplicated_total", "Hints that were resolved without a brute force package of their own per reason", "reason", "in_flight");
+
+	private static final int HINT_PUBLISH_BATCH = 256;
+
 	public static Props props(BloomFilter welcomeData) {
 		return Props.create(Worker.class, () -> new Worker(welcomeData));
 	}
 
 	public Worker(BloomFilter welcomeData) {
 		this.cluster = Cluster.get(this.context().system());
+		this.actorRefs = new ActorRefCache(this);
 		this.largeMessageProxy = this.context().actorOf(LargeMessageProxy.props(), LargeMessageProxy.DEFAULT_NAME);
 		this.bruteforceWorkers = new ArrayList<>();
-		this.bruteForceWorkPackages = new ArrayList<>();
-		this.hintResults = new HashMap<>();
+		this.bruteForceWorkPackages = new ArrayDeque<>();
 		this.welcomeData = welcomeData;
-		this.numberOfHints = 0;
-		this.passwordWorkPackages = new HashMap<>();
-		this.workPackagesReadyForPasswordCracker = new ArrayList<>();
+		this.passwords = new Long2ObjectOpenHashMap<>();
+		this.workPackagesReadyForPasswordCracker = new LongArrayFIFOQueue();
 		this.passwordCrackerWorkers = new ArrayList<>();
+		this.idleBruteForceWorkers = new ArrayList<>();
+		this.idlePasswordCrackerWorkers = new ArrayList<>();
+		this.bruteForceWorkerTarget = this.c.getNumBruteForceWorkers();
+		this.passwordCrackerWorkerTarget = this.c.getNumPasswordCrackerWorkers();
+		this.hintLeases = new LeaseTracker<>(this.c.getSpeculationPercentile(), this.c.getSpeculationMultiplier(), this.c.getSpeculationMinDeadline());
+		this.hintSolutions = PermutationSingleton.solutions();
+		this.inFlightHints = new InFlightHints();
+		this.unpublishedHints = new LinkedHashMap<>();
 	}
 	
 	////////////////////
@@ -59,7 +89,7 @@ public class Worker extends AbstractLoggingActor {
 	}
 
 	@Data @NoArgsConstructor @AllArgsConstructor
-	public static class PasswordWorkPackageMessage implements Serializable {
+	public static class PasswordWorkPackageMessage implements Serializable, WorkMessage {
 		private static final long serialVersionUID = -1237147518255012838L;
 		private PasswordWorkPackage passwordWorkpackage;
 	}
@@ -78,13 +108,23 @@ public class Worker extends AbstractLoggingActor {
 	public static class BruteForceResultMessage implements Serializable {
 		private static final long serialVersionUID = -83744659694042645L;
 		private HintResult hintResult;
+		private int hintPosition;
+	}
+
+	@Data @NoArgsConstructor @AllArgsConstructor
+	public static class HintUnresolvedMessage implements Serializable {
+		private static final long serialVersionUID = -83744659694042646L;
+		private BruteForceWorkPackage bruteForceWorkPackage;
+		private boolean indexMissing; // otherwise, the complete index of the alphabet does not contain the hint
 	}
 
 	@Data @NoArgsConstructor @AllArgsConstructor
 	public static class PasswordCrackerResultMessage implements Serializable {
 		private static final long serialVersionUID = 34564659090942333L;
+		private int jobId;
 		private int passwordId;
 		private String crackedPassword;
+		private Trace trace; // attached by the Worker on the way to the master
 	}
 
 
@@ -93,18 +133,30 @@ public class Worker extends AbstractLoggingActor {
 	/////////////////
 
 	private Member masterSystem;
+	private ActorPath master; // path of the master actor in the masterSystem
+	private final ActorRefCache actorRefs;
+	private ActorRef coordinator; // the password shard that hands out this worker's passwords
 	private final Cluster cluster;
 	private final ActorRef largeMessageProxy;
 	private final List<ActorRef> bruteforceWorkers;
 	private final List<ActorRef> passwordCrackerWorkers;
-	private final List<BruteForceWorkPackage> bruteForceWorkPackages;
-	private final Map<Integer, List<HintResult>> hintResults;
-	private final Map<Integer, PasswordWorkPackage> passwordWorkPackages;
-	private final List<Integer> workPackagesReadyForPasswordCracker;
+	private final Deque<BruteForceWorkPackage> bruteForceWorkPackages;
+	private final Long2ObjectMap<HintAggregate> passwords; // PasswordWorkPackage.key(jobId, passwordId) -> hints resolved so far; removed once the result is sent
+	private final LongArrayFIFOQueue workPackagesReadyForPasswordCracker; // keys of the passwords whose hints are all resolved
+	private final List<ActorRef> idleBruteForceWorkers;
+	private final List<ActorRef> idlePasswordCrackerWorkers;
+	private int bruteForceWorkerTarget; // set by the Autoscaler
+	private int passwordCrackerWorkerTarget; // set by the Autoscaler
+	private int nextWorkerId;
+	private Cancellable demandReports;
+	private final LeaseTracker<Long, BruteForceWorkPackage> hintLeases; // hintLeaseKey(passwordKey, hint position) -> brute force worker(s)
+	private final HintSolutionCache hintSolutions; // shared by all workers of this system
+	private final InFlightHints inFlightHints; // hints that are brute-forced here, with the packages that wait for them
+	private final Map<String, Character> unpublishedHints; // hints resolved here that the master does not know yet
+	private Cancellable leaseCheck;
 	private long registrationTime;
 	private final Configuration c = ConfigurationSingleton.get();
 	private final BloomFilter welcomeData;
-	private int numberOfHints;
 
 	/////////////////////
 	// Actor Lifecycle //
@@ -115,11 +167,23 @@ public class Worker extends AbstractLoggingActor {
 		Reaper.watchWithDefaultReaper(this);
 		
 		this.cluster.subscribe(this.self(), MemberUp.class, MemberRemoved.class);
+		this.leaseCheck = this.getContext().system().scheduler().scheduleWithFixedDelay(
+				Duration.ofSeconds(1),
+				Duration.ofSeconds(1),
+				this.self(),
+				new LeaseCheckMessage(),
+				this.getContext().dispatcher(),
+				ActorRef.noSender()
+		);
+		this.demandReports = Autoscaler.scheduleDemandReports(this);
 	}
 
 	@Override
 	public void postStop() {
 		this.cluster.unsubscribe(this.self());
+		this.leaseCheck.cancel();
+		if (this.demandReports != null)
+			this.demandReports.cancel();
 	}
 
 	////////////////////
@@ -128,18 +192,26 @@ public class Worker extends AbstractLoggingActor {
 
 	@Override
 	public Receive createReceive() {
-		return receiveBuilder()
+		return ActorMetrics.instrument(this, receiveBuilder()
 				.match(CurrentClusterState.class, this::handle)
 				.match(MemberUp.class, this::handle)
 				.match(MemberRemoved.class, this::handle)
+				.match(ActorIdentity.class, this.actorRefs::resolved)
+				.match(Terminated.class, message -> this.actorRefs.invalidate(message.getActor()))
 				.match(WelcomeMessage.class, this::handle) // Welcome from Master
 				.match(PasswordWorkPackageMessage.class, this::handle) // Gets Password that should be worked on from Master
+				.match(SolvedHintsMessage.class, this::handle) // Hints that workers on other systems resolved
 				.match(BruteForceWorkerWorkRequestMessage.class, this::handle) // BruteForceWorkers asks for Hint to crack
 				.match(BruteForceResultMessage.class, this::handle) // Receives Result from BruteForceWorker
+				.match(HintUnresolvedMessage.class, this::handle) // BruteForceWorker could not resolve a hint
 				.match(PasswordCrackerWorkRequestMessage.class, this::handle) // PasswordCracker asks for Password to crack
 				.match(PasswordCrackerResultMessage.class, this::handle) // Cracked password result from password cracker
+				.match(LeaseCheckMessage.class, this::handle) // Periodic check for overdue hints
+				.match(ReportDemandMessage.class, this::handle) // Periodic queue depth report to the Autoscaler
+				.match(PoolSizeMessage.class, this::handle) // New pool size from the Autoscaler
+				.match(PriorityMailbox.WorkRejectedMessage.class, message -> PriorityMailbox.retry(this.context(), message)) // A worker's work queue was full
 				.matchAny(object -> this.log().info("Received unknown message: \"{}\"", object.toString()))
-				.build();
+				.build());
 	}
 
 	private void handle(CurrentClusterState message) {
@@ -154,6 +226,7 @@ public class Worker extends AbstractLoggingActor {
 	}
 	
 	private void handle(MemberRemoved message) {
+		this.actorRefs.invalidate(message.member().address());
 		if (this.masterSystem.equals(message.member()))
 			this.self().tell(PoisonPill.getInstance(), ActorRef.noSender());
 	}
@@ -166,31 +239,51 @@ public class Worker extends AbstractLoggingActor {
 
 	private void handle(PasswordWorkPackageMessage message) {
 		this.log().info("Received Password Work Package from Master.");
+		FirstWork.started(this.context().system());
+		this.coordinator = this.sender();
 		PasswordWorkPackage passwordWorkpackage = message.getPasswordWorkpackage();
 		String[] hints = passwordWorkpackage.getHints();
-		this.numberOfHints = hints.length;
 		int passwordId = passwordWorkpackage.getId();
-		this.passwordWorkPackages.put(passwordId, passwordWorkpackage);
-		for (String hint: hints) {
+		long key = PasswordWorkPackage.key(passwordWorkpackage.getJobId(), passwordId);
+		// A speculative copy of a password that is already here adds nothing
+		if (this.passwords.containsKey(key))
+			return;
+		this.passwords.put(key, new HintAggregate(passwordWorkpackage, System.nanoTime()));
+		Trace trace = passwordWorkpackage.getTrace();
+		String alphabet = PermutationSingleton.alphabet(passwordWorkpackage.getPasswordCharacters());
+		// The index must not be evicted while hints of the password may still need it
+		PermutationSingleton.get().pin(alphabet);
+		for (int position = 0; position < hints.length; position++) {
+			String hint = hints[position];
 			BruteForceWorkPackage bruteForceWorkPackage = new BruteForceWorkPackage(
+					passwordWorkpackage.getJobId(),
 					passwordId,
 					passwordWorkpackage.getPasswordCharacters(),
-					hint
+					hint,
+					position,
+					(trace == null) ? 0 : trace.getId()
 			);
-			this.bruteForceWorkPackages.add(bruteForceWorkPackage);
+			// Hints repeat across passwords; each distinct hint is brute-forced only once in the cluster
+			String hintKey = HintSolutionCache.key(alphabet, hint);
+			Character letter = this.hintSolutions.get(hintKey);
+			if (letter != null) {
+				HINTS_CACHED.inc();
+				this.completeHint(this.resolve(bruteForceWorkPackage, letter));
+			}
+			else if (this.inFlightHints.await(hintKey, bruteForceWorkPackage)) {
+				HINTS_DUPLICATE.inc();
+			}
+			else {
+				this.bruteForceWorkPackages.add(bruteForceWorkPackage);
+			}
 		}
 		if (this.bruteforceWorkers.isEmpty()) {
-			for (int i = 0; i < c.getNumBruteForceWorkers(); i++) {
-				ActorRef actor = this.context().actorOf(
-						BruteForceWorker.props(),
-						BruteForceWorker.DEFAULT_NAME + "-" + this.self().path().name() + "-" +  i
-				);
-				this.bruteforceWorkers.add(actor);
-			}
+			for (int i = 0; i < this.bruteForceWorkerTarget; i++)
+				this.spawnBruteForceWorker();
 		}
 		else {
-			for (ActorRef bruteforceWorker : this.bruteforceWorkers) {
-				giveBruteForceWorkersWork(bruteforceWorker);
+			while (!this.idleBruteForceWorkers.isEmpty() && !this.bruteForceWorkPackages.isEmpty()) {
+				giveBruteForceWorkersWork(this.idleBruteForceWorkers.remove(0));
 			}
 		}
 	}
@@ -203,34 +296,58 @@ public class Worker extends AbstractLoggingActor {
 		this.log().info("Received Hint Result from {}.", this.sender().path().name());
 		HintResult hintResult = message.hintResult;
 		int passwordId = hintResult.getPasswordId();
-		this.hintResults.putIfAbsent(passwordId, new ArrayList<>());
-		this.hintResults.get(passwordId).add(hintResult);
-		boolean allDone = this.hintResults.get(passwordId).size() == this.numberOfHints;
-		this.log().info("{} for password {}", String.valueOf(allDone), passwordId);
-		if(allDone) {
-			this.workPackagesReadyForPasswordCracker.add(passwordId);
-			this.log().info("Collected all Hint Results.");
-			if (this.passwordCrackerWorkers.isEmpty()) {
-				for (int i = 0; i < c.getNumPasswordCrackerWorkers(); i++) {
-					ActorRef actor = this.context().actorOf(
-							PasswordCrackerWorker.props(),
-							PasswordCrackerWorker.DEFAULT_NAME + "-" + this.self().path().name() + "-" + i
-					);
-					this.passwordCrackerWorkers.add(actor);
-				}
+		long key = PasswordWorkPackage.key(hintResult.getJobId(), passwordId);
+		giveBruteForceWorkersWork(this.sender());
+		// First result wins; results of speculative copies that arrive later are dropped
+		LeaseTracker.Lease<BruteForceWorkPackage> lease = this.hintLeases.complete(hintLeaseKey(key, message.getHintPosition()));
+		if (lease == null) {
+			return;
+		}
+		HINTS_COMPLETED.inc();
+		// Waiting passwords are resolved even if the password of this package is gone by now
+		String hintKey = HintSolutionCache.key(PermutationSingleton.alphabet(lease.getWorkPackage().getPasswordChars()), hintResult.getEncodedHint());
+		if (this.hintSolutions.put(hintKey, hintResult.getLetter()))
+			this.unpublishedHints.put(hintKey, hintResult.getLetter());
+		if (this.unpublishedHints.size() >= HINT_PUBLISH_BATCH)
+			this.publishHints();
+		for (BruteForceWorkPackage duplicate : this.inFlightHints.land(hintKey))
+			this.completeHint(this.resolve(duplicate, hintResult.getLetter()));
+		this.completeHint(hintResult);
+	}
+
+	private void handle(HintUnresolvedMessage message) {
+		BruteForceWorkPackage bruteForceWorkPackage = message.getBruteForceWorkPackage();
+		long key = PasswordWorkPackage.key(bruteForceWorkPackage.getJobId(), bruteForceWorkPackage.getPasswordId());
+		giveBruteForceWorkersWork(this.sender());
+		if (this.hintLeases.complete(hintLeaseKey(key, bruteForceWorkPackage.getHintPosition())) == null)
+			return;
+		// Passwords that wait for the same hint cannot be resolved either
+		String hintKey = HintSolutionCache.key(PermutationSingleton.alphabet(bruteForceWorkPackage.getPasswordChars()), bruteForceWorkPackage.getHint());
+		List<BruteForceWorkPackage> affected = new ArrayList<>(this.inFlightHints.land(hintKey));
+		affected.add(bruteForceWorkPackage);
+		boolean dropped = false;
+		for (BruteForceWorkPackage unresolved : affected) {
+			HintAggregate password = this.dropPassword(PasswordWorkPackage.key(unresolved.getJobId(), unresolved.getPasswordId()));
+			if (password == null)
+				continue;
+			dropped = true;
+			if (message.isIndexMissing()) {
+				// Another system, or this one once it has rebuilt the index, can still resolve the password
+				this.log().warning("Returning password {} of job {}, because this system has no hint index for it.", unresolved.getPasswordId(), unresolved.getJobId());
+				this.tellCoordinator(new PasswordReturnedMessage(unresolved.getJobId(), unresolved.getPasswordId()));
 			}
 			else {
-				for (ActorRef passwordCrackerWorker : this.passwordCrackerWorkers) {
-					givePasswordCrackerWork(passwordCrackerWorker);
-				}
+				// No system can resolve a hint that the complete index does not contain; the password counts as failed
+				this.tellCoordinator(new PasswordCrackerResultMessage(unresolved.getJobId(), unresolved.getPasswordId(), null, password.getTrace()));
 			}
-			ActorSelection master = this.getContext()
-					.actorSelection(this.masterSystem.address() + "/user/" + Master.DEFAULT_NAME);
-			master.tell(new WorkerWorkRequestMessage(), this.self());
-		}
-		else {
-			giveBruteForceWorkersWork(this.sender());
 		}
+		if (dropped)
+			this.tellCoordinator(new WorkerWorkRequestMessage());
+	}
+
+	private void handle(SolvedHintsMessage message) {
+		for (int i = 0; i < message.getKeys().length; i++)
+			this.hintSolutions.put(message.getKeys()[i], message.getLetters()[i]);
 	}
 
 	private void handle(PasswordCrackerWorkRequestMessage message) {
@@ -238,41 +355,207 @@ public class Worker extends AbstractLoggingActor {
 	}
 
 	private void handle(PasswordCrackerResultMessage message) {
-		this.getContext()
-				.actorSelection(this.masterSystem.address() + "/user/" + Master.DEFAULT_NAME)
-				.tell(message, this.self());
+		// The password is done on this worker; its state goes with the result
+		HintAggregate password = this.dropPassword(PasswordWorkPackage.key(message.getJobId(), message.getPasswordId()));
+		Trace trace = null;
+		if (password != null) {
+			password.trace(Trace.Stage.CRACK, System.nanoTime());
+			trace = password.getTrace();
+		}
+		PasswordCrackerResultMessage result = new PasswordCrackerResultMessage(message.getJobId(), message.getPasswordId(), message.getCrackedPassword(), trace);
+		this.tellCoordinator(result);
 		givePasswordCrackerWork(this.sender());
 	}
 
+	private void handle(LeaseCheckMessage message) {
+		this.publishHints();
+		// Re-issue overdue hints to idle brute force workers; each hint is speculated on once
+		for (long leaseKey : this.hintLeases.overdue()) {
+			LeaseTracker.Lease<BruteForceWorkPackage> lease = this.hintLeases.get(leaseKey);
+			for (ActorRef bruteforceWorker : this.idleBruteForceWorkers) {
+				if (lease.isHeldBy(bruteforceWorker))
+					continue;
+				bruteforceWorker.tell(new HintMessage(lease.getWorkPackage()), this.self());
+				HINTS_SPECULATED.inc();
+				this.hintLeases.speculate(leaseKey, bruteforceWorker);
+				this.idleBruteForceWorkers.remove(bruteforceWorker);
+				break;
+			}
+		}
+	}
+
+	private void handle(ReportDemandMessage message) {
+		int busyPasswordCrackerWorkers = this.passwordCrackerWorkers.size() - this.idlePasswordCrackerWorkers.size();
+		Autoscaler.reportDemand(this, Pool.HINT, this.bruteForceWorkPackages.size() + this.hintLeases.size());
+		Autoscaler.reportDemand(this, Pool.CRACKING, this.workPackagesReadyForPasswordCracker.size() + busyPasswordCrackerWorkers);
+	}
+
+	private void handle(PoolSizeMessage message) {
+		// Pools are only resized once they exist; until then, the target is their initial size
+		if (message.getPool() == Pool.HINT) {
+			this.bruteForceWorkerTarget = message.getSize();
+			if (this.bruteforceWorkers.isEmpty())
+				return;
+			while (this.bruteforceWorkers.size() < this.bruteForceWorkerTarget)
+				this.spawnBruteForceWorker();
+			// Busy workers are retired when they come back for work
+			while (this.bruteforceWorkers.size() > this.bruteForceWorkerTarget && !this.idleBruteForceWorkers.isEmpty())
+				this.retire(this.idleBruteForceWorkers.remove(0), this.bruteforceWorkers);
+		}
+		else if (message.getPool() == Pool.CRACKING) {
+			this.passwordCrackerWorkerTarget = message.getSize();
+			if (this.passwordCrackerWorkers.isEmpty())
+				return;
+			while (this.passwordCrackerWorkers.size() < this.passwordCrackerWorkerTarget)
+				this.spawnPasswordCrackerWorker();
+			while (this.passwordCrackerWorkers.size() > this.passwordCrackerWorkerTarget && !this.idlePasswordCrackerWorkers.isEmpty())
+				this.retire(this.idlePasswordCrackerWorkers.remove(0), this.passwordCrackerWorkers);
+		}
+	}
+
 	////////////////////
 	// Helper Methods //
 	////////////////////
 
+	/**
+	 * Send a message to the password shard that coordinates this worker, or to the master as long as no shard has
+	 * handed out work yet; the master forwards it to the worker's shard.
+	 */
+	private void tellCoordinator(Object message) {
+		if (this.coordinator != null)
+			this.coordinator.tell(message, this.self());
+		else
+			this.actorRefs.tell(this.master, message, this.self());
+	}
+
+	/**
+	 * Record the result of a hint and pass the password on to the password crackers once all its hints are resolved.
+	 */
+	private void completeHint(HintResult hintResult) {
+		int passwordId = hintResult.getPasswordId();
+		long key = PasswordWorkPackage.key(hintResult.getJobId(), passwordId);
+		HintAggregate password = this.passwords.get(key);
+		if (password == null || !password.solve(hintResult))
+			return;
+		boolean allDone = password.isComplete();
+		this.log().info("{} for password {} of job {}", String.valueOf(allDone), passwordId, hintResult.getJobId());
+		if(allDone) {
+			password.trace(Trace.Stage.HINTS, System.nanoTime());
+			password.addStage(Trace.Stage.HINT_SOLVE, password.getSlowestSolveTime());
+			this.workPackagesReadyForPasswordCracker.enqueue(key);
+			this.log().info("Collected all Hint Results.");
+			if (this.passwordCrackerWorkers.isEmpty()) {
+				for (int i = 0; i < this.passwordCrackerWorkerTarget; i++)
+					this.spawnPasswordCrackerWorker();
+			}
+			else if (!this.idlePasswordCrackerWorkers.isEmpty()) {
+				givePasswordCrackerWork(this.idlePasswordCrackerWorkers.remove(0));
+			}
+			this.tellCoordinator(new WorkerWorkRequestMessage());
+		}
+	}
+
+	/**
+	 * Forget a password, e.g., because its result is sent, and release its pin on the index. Hints of the password that
+	 * are still queued are resolved anyway, because other passwords may wait for them.
+	 * @return the state of the password or {@code null} if the password was not here anymore
+	 */
+	private HintAggregate dropPassword(long key) {
+		HintAggregate password = this.passwords.remove(key);
+		if (password != null)
+			PermutationSingleton.get().unpin(PermutationSingleton.alphabet(password.getPasswordWorkPackage().getPasswordCharacters()));
+		return password;
+	}
+
+	/**
+	 * Hints are leased by their position, because a password may list the same hint more than once. The position takes
+	 * the lowest byte of the key; job ids stay far below 2^24 and passwords have fewer than 256 hints.
+	 */
+	private static long hintLeaseKey(long passwordKey, int hintPosition) {
+		return (passwordKey << 8) | hintPosition;
+	}
+
+	private HintResult resolve(BruteForceWorkPackage bruteForceWorkPackage, char letter) {
+		return new HintResult(bruteForceWorkPackage.getJobId(), bruteForceWorkPackage.getPasswordId(), letter, bruteForceWorkPackage.getHint(), bruteForceWorkPackage.getTraceId(), 0);
+	}
+
+	/**
+	 * Send the hints resolved since the last batch to the master, which passes them on to the other systems.
+	 */
+	private void publishHints() {
+		if (this.unpublishedHints.isEmpty() || this.masterSystem == null)
+			return;
+		String[] keys = this.unpublishedHints.keySet().toArray(new String[0]);
+		char[] letters = new char[keys.length];
+		for (int i = 0; i < keys.length; i++)
+			letters[i] = this.unpublishedHints.get(keys[i]);
+		this.unpublishedHints.clear();
+		this.actorRefs.tell(this.master, new SolvedHintsMessage(keys, letters), this.self());
+	}
+
+	private void spawnBruteForceWorker() {
+		this.bruteforceWorkers.add(this.context().actorOf(
+				BruteForceWorker.props(),
+				BruteForceWorker.DEFAULT_NAME + "-" + this.self().path().name() + "-" + this.nextWorkerId++
+		));
+	}
+
+	private void spawnPasswordCrackerWorker() {
+		this.passwordCrackerWorkers.add(this.context().actorOf(
+				PasswordCrackerWorker.props(),
+				PasswordCrackerWorker.DEFAULT_NAME + "-" + this.self().path().name() + "-" + this.nextWorkerId++
+		));
+	}
+
+	private void retire(ActorRef worker, List<ActorRef> pool) {
+		pool.remove(worker);
+		worker.tell(PoisonPill.getInstance(), this.self());
+	}
+
 	private void register(Member member) {
 		if ((this.masterSystem == null) && member.hasRole(MasterSystem.MASTER_ROLE)) {
 			this.masterSystem = member;
-			this.getContext()
-					.actorSelection(member.address() + "/user/" + Master.DEFAULT_NAME)
-					.tell(new RegistrationMessage(), this.self());
+			this.master = ActorRefCache.userPath(member.address(), Master.DEFAULT_NAME);
+			this.actorRefs.tell(this.master, new RegistrationMessage(), this.self());
 			this.registrationTime = System.currentTimeMillis();
 		}
 	}
 
 	private void givePasswordCrackerWork(ActorRef receiver) {
-		if (!this.workPackagesReadyForPasswordCracker.isEmpty()) {
-			Integer passwordId = this.workPackagesReadyForPasswordCracker.remove(0);
-			PasswordWorkPackage passwordWorkpackage = this.passwordWorkPackages.get(passwordId);
-			List<HintResult> hintResults = this.hintResults.get(passwordId);
-			PasswordAndSolvedHintsMessage passwordAndSolvedHintsMessage = new PasswordAndSolvedHintsMessage(passwordWorkpackage, hintResults);
+		if (this.passwordCrackerWorkers.size() > this.passwordCrackerWorkerTarget) {
+			this.idlePasswordCrackerWorkers.remove(receiver);
+			this.retire(receiver, this.passwordCrackerWorkers);
+		}
+		else if (!this.workPackagesReadyForPasswordCracker.isEmpty()) {
+			HintAggregate password = this.passwords.get(this.workPackagesReadyForPasswordCracker.dequeueLong());
+			if (password == null) {
+				this.givePasswordCrackerWork(receiver);
+				return;
+			}
+			password.trace(Trace.Stage.CRACK_QUEUE, System.nanoTime());
+			PasswordAndSolvedHintsMessage passwordAndSolvedHintsMessage = new PasswordAndSolvedHintsMessage(password.getPasswordWorkPackage(), password.getHintResults());
 			receiver.tell(passwordAndSolvedHintsMessage, this.self());
 		}
+		else if (!this.idlePasswordCrackerWorkers.contains(receiver)) {
+			this.idlePasswordCrackerWorkers.add(receiver);
+		}
 	}
 
 	private void giveBruteForceWorkersWork(ActorRef receiver) {
-		if (!this.bruteForceWorkPackages.isEmpty()) {
-			BruteForceWorkPackage bruteForceWorkPackage = this.bruteForceWorkPackages.remove(0);
+		if (this.bruteforceWorkers.size() > this.bruteForceWorkerTarget) {
+			this.idleBruteForceWorkers.remove(receiver);
+			this.retire(receiver, this.bruteforceWorkers);
+		}
+		else if (!this.bruteForceWorkPackages.isEmpty()) {
+			BruteForceWorkPackage bruteForceWorkPackage = this.bruteForceWorkPackages.poll();
 			HintMessage hintMessage = new HintMessage(bruteForceWorkPackage);
 			receiver.tell(hintMessage, this.self());
+			HINTS_DISPATCHED.inc();
+			long key = PasswordWorkPackage.key(bruteForceWorkPackage.getJobId(), bruteForceWorkPackage.getPasswordId());
+			this.hintLeases.issue(hintLeaseKey(key, bruteForceWorkPackage.getHintPosition()), bruteForceWorkPackage, receiver);
+		}
+		else if (!this.idleBruteForceWorkers.contains(receiver)) {
+			this.idleBruteForceWorkers.add(receiver);
 		}
 	}
 }
\ No newline at end of file
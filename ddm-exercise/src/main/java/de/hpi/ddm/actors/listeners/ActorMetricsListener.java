@@ -0,0 +1,105 @@
+package de.hpi.ddm.actors.listeners;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import akka.actor.AbstractActor;
+import akka.actor.Cancellable;
+import akka.actor.Props;
+import akka.event.Logging;
+import akka.event.LoggingAdapter;
+import de.hpi.ddm.actors.monitoring.ActorMetrics;
+import de.hpi.ddm.actors.monitoring.ActorStats;
+import de.hpi.ddm.actors.monitoring.Histogram;
+
+/**
+ * Periodically logs, per actor class that was active in the last interval, the number of messages, the queue depths,
+ * the mailbox wait times and the handler times; configured by {@code ddm.monitoring.summary-interval}.
+ */
+public class ActorMetricsListener extends AbstractActor {
+
+	////////////////////////
+	// Actor Construction //
+	////////////////////////
+	
+	public static final String DEFAULT_NAME = "actorMetricsListener";
+
+	public static Props props() {
+		return Props.create(ActorMetricsListener.class);
+	}
+
+	private static class SummaryMessage {
+	}
+
+	private static class Snapshots {
+		private Histogram.Snapshot queueDepths = Histogram.Snapshot.empty();
+		private Histogram.Snapshot waitTimes = Histogram.Snapshot.empty();
+		private Histogram.Snapshot handlerTimes = Histogram.Snapshot.empty();
+	}
+
+	/////////////////
+	// Actor State //
+	/////////////////
+	
+	private final LoggingAdapter log = Logging.getLogger(getContext().system(), this);
+	private final Map<String, Snapshots> previous = new HashMap<>();
+	private Cancellable summaries;
+
+	/////////////////////
+	// Actor Lifecycle //
+	/////////////////////
+	
+	@Override
+	public void preStart() {
+		Duration interval = this.getContext().getSystem().settings().config().getDuration("ddm.monitoring.summary-interval");
+		if (!interval.isZero())
+			this.summaries = this.getContext().getSystem().scheduler().scheduleWithFixedDelay(
+					interval, interval, this.self(), new SummaryMessage(), this.getContext().dispatcher(), this.self());
+	}
+
+	@Override
+	public void postStop() {
+		if (this.summaries != null)
+			this.summaries.cancel();
+	}
+
+	////////////////////
+	// Actor Behavior //
+	////////////////////
+	
+	@Override
+	public Receive createReceive() {
+		return receiveBuilder()
+			.match(SummaryMessage.class, message -> this.logSummary())
+			.build();
+	}
+
+	private void logSummary() {
+		for (ActorStats stats : ActorMetrics.all()) {
+			Snapshots snapshots = this.previous.computeIfAbsent(stats.getActorClass(), key -> new Snapshots());
+			Histogram.Snapshot queueDepths = stats.getQueueDepths().snapshot();
+			Histogram.Snapshot waitTimes = stats.getWaitTimes().snapshot();
+			Histogram.Snapshot handlerTimes = stats.getHandlerTimes().snapshot();
+
+			Histogram.Snapshot intervalDepths = queueDepths.since(snapshots.queueDepths);
+			Histogram.Snapshot intervalWaits = waitTimes.since(snapshots.waitTimes);
+			Histogram.Snapshot intervalHandlers = handlerTimes.since(snapshots.handlerTimes);
+			snapshots.queueDepths = queueDepths;
+			snapshots.waitTimes = waitTimes;
+			snapshots.handlerTimes = handlerTimes;
+
+			if (intervalHandlers.getCount() == 0 && stats.getQueueDepth() == 0)
+				continue;
+			this.log.info(String.format("%s: %d messages, queue depth %d (p99 %d, max %d), wait p50/p99/max %d/%d/%d us, handler p50/p99/max %d/%d/%d us",
+					stats.getActorClass(), intervalHandlers.getCount(),
+					stats.getQueueDepth(), intervalDepths.percentile(0.99), intervalDepths.max(),
+					micros(intervalWaits.percentile(0.5)), micros(intervalWaits.percentile(0.99)), micros(intervalWaits.max()),
+					micros(intervalHandlers.percentile(0.5)), micros(intervalHandlers.percentile(0.99)), micros(intervalHandlers.max())));
+		}
+	}
+
+	private static long micros(long nanos) {
+		return nanos / 1000;
+	}
+}
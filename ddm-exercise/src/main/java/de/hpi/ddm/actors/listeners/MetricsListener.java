@@ -4,6 +4,7 @@ import akka.actor.AbstractActor;
 import akka.actor.Props;
 import akka.cluster.Cluster;
 import akka.cluster.ClusterEvent.CurrentClusterState;
+import akka.cluster.ClusterEvent.MemberRemoved;
 import akka.cluster.metrics.ClusterMetricsChanged;
 import akka.cluster.metrics.NodeMetrics;
 import akka.cluster.metrics.StandardMetrics;
@@ -12,7 +13,12 @@ import akka.cluster.metrics.StandardMetrics.Cpu;
 import akka.cluster.metrics.ClusterMetricsExtension;
 import akka.event.Logging;
 import akka.event.LoggingAdapter;
+import de.hpi.ddm.actors.monitoring.Metrics;
 
+/**
+ * Exposes the heap and load samples of all cluster nodes as {@link Metrics} and logs those of its own node on debug.
+ * The series of a node are dropped once it leaves the cluster.
+ */
 public class MetricsListener extends AbstractActor {
 
 	////////////////////////
@@ -21,6 +27,9 @@ public class MetricsListener extends AbstractActor {
 	
 	public static final String DEFAULT_NAME = "metricsListener";
 
+	private static final String[] NODE_GAUGES = { "ddm_node_heap_used_bytes", "ddm_node_heap_committed_bytes", "ddm_node_heap_max_bytes",
+			"ddm_node_processors", "ddm_node_load_average", "ddm_node_cpu_combined" };
+
 	public static Props props() {
 		return Props.create(MetricsListener.class);
 	}
@@ -40,11 +49,13 @@ public class MetricsListener extends AbstractActor {
 	@Override
 	public void preStart() {
 		this.extension.subscribe(self());
+		this.cluster.subscribe(self(), MemberRemoved.class);
 	}
 
 	@Override
 	public void postStop() {
 		this.extension.unsubscribe(self());
+		this.cluster.unsubscribe(self());
 	}
 
 	////////////////////
@@ -56,29 +67,50 @@ public class MetricsListener extends AbstractActor {
 		return receiveBuilder()
 			.match(ClusterMetricsChanged.class, this::logMetrics)
 			.match(CurrentClusterState.class, message -> {/*Ignore*/})
+			.match(MemberRemoved.class, this::removeMetrics)
 			.build();
 	}
 	
 	private void logMetrics(ClusterMetricsChanged clusterMetrics) {
+		int nodes = 0;
 		for (NodeMetrics nodeMetrics : clusterMetrics.getNodeMetrics()) {
-			if (nodeMetrics.address().equals(this.cluster.selfAddress())) {
-				this.logHeap(nodeMetrics);
-				this.logCpu(nodeMetrics);
-			}
+			this.recordHeap(nodeMetrics);
+			this.recordCpu(nodeMetrics);
+			nodes++;
 		}
+		Metrics.gauge("ddm_cluster_nodes", "Cluster nodes that report metrics").set(nodes);
+	}
+
+	private void removeMetrics(MemberRemoved message) {
+		String node = message.member().address().toString();
+		for (String name : NODE_GAUGES)
+			Metrics.remove(name, "node", node);
 	}
 
-	private void logHeap(NodeMetrics nodeMetrics) {
+	private void recordHeap(NodeMetrics nodeMetrics) {
 		HeapMemory heap = StandardMetrics.extractHeapMemory(nodeMetrics);
 		if (heap != null) {
-			this.log.info("Used heap: {} MB", ((double) heap.used()) / 1024 / 1024);
+			String node = nodeMetrics.address().toString();
+			Metrics.gauge("ddm_node_heap_used_bytes", "Used heap per cluster node", "node", node).set(heap.used());
+			Metrics.gauge("ddm_node_heap_committed_bytes", "Committed heap per cluster node", "node", node).set(heap.committed());
+			if (heap.max().isDefined())
+				Metrics.gauge("ddm_node_heap_max_bytes", "Maximum heap per cluster node", "node", node).set((Long) heap.max().get());
+			if (nodeMetrics.address().equals(this.cluster.selfAddress()))
+				this.log.debug("Used heap: {} MB", ((double) heap.used()) / 1024 / 1024);
 		}
 	}
 
-	private void logCpu(NodeMetrics nodeMetrics) {
+	private void recordCpu(NodeMetrics nodeMetrics) {
 		Cpu cpu = StandardMetrics.extractCpu(nodeMetrics);
-		if (cpu != null && cpu.systemLoadAverage().isDefined()) {
-			this.log.info("Load: {} ({} processors)", cpu.systemLoadAverage().get(), cpu.processors());
+		if (cpu != null) {
+			String node = nodeMetrics.address().toString();
+			Metrics.gauge("ddm_node_processors", "Processors per cluster node", "node", node).set(cpu.processors());
+			if (cpu.systemLoadAverage().isDefined())
+				Metrics.gauge("ddm_node_load_average", "System load average per cluster node", "node", node).set((Double) cpu.systemLoadAverage().get());
+			if (cpu.cpuCombined().isDefined())
+				Metrics.gauge("ddm_node_cpu_combined", "Combined CPU usage (0-1) per cluster node", "node", node).set((Double) cpu.cpuCombined().get());
+			if (nodeMetrics.address().equals(this.cluster.selfAddress()) && cpu.systemLoadAverage().isDefined())
+				this.log.debug("Load: {} ({} processors)", cpu.systemLoadAverage().get(), cpu.processors());
 		}
 	}
 }
@@ -0,0 +1,82 @@
+package de.hpi.ddm.actors.monitoring;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import akka.actor.AbstractActor;
+import scala.PartialFunction;
+import scala.runtime.AbstractPartialFunction;
+import scala.runtime.BoxedUnit;
+
+/**
+ * The JVM-wide registry of {@link ActorStats}, one per actor class. Each stats object is registered as an MXBean named
+ * {@code de.hpi.ddm:type=ActorStats,name=<class>} on first use.
+ */
+public class ActorMetrics {
+
+	private static final ConcurrentMap<String, ActorStats> stats = new ConcurrentHashMap<>();
+
+	public static ActorStats get(String actorClass) {
+		return stats.computeIfAbsent(actorClass, ActorMetrics::register);
+	}
+
+	public static List<ActorStats> all() {
+		return new ArrayList<>(stats.values());
+	}
+
+	private static ActorStats register(String actorClass) {
+		ActorStats actorStats = new ActorStats(actorClass);
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(actorStats, new ObjectName("de.hpi.ddm:type=ActorStats,name=" + ObjectName.quote(actorClass)));
+		} catch (JMException e) {
+			// Monitoring must not break the actor; the stats are still logged
+		}
+		Metrics.counter("ddm_actor_messages_total", "Messages handled per actor class", actorStats::getMessages, "actor", actorClass);
+		Metrics.gauge("ddm_actor_queue_depth", "Messages waiting in the mailboxes per actor class", actorStats::getQueueDepth, "actor", actorClass);
+		Metrics.summary("ddm_actor_mailbox_wait_seconds", "Time that messages waited in the mailbox per actor class", actorStats.getWaitTimes(), 1e-9, "actor", actorClass);
+		Metrics.summary("ddm_actor_handler_seconds", "Time that the handlers took per message and actor class", actorStats.getHandlerTimes(), 1e-9, "actor", actorClass);
+		return actorStats;
+	}
+
+	/**
+	 * Wrap the behavior of an actor so that the time that its handlers take per message is recorded.
+	 * @param actor the actor whose class the times are recorded for
+	 * @param receive the actor's behavior
+	 * @return the instrumented behavior
+	 */
+	public static AbstractActor.Receive instrument(AbstractActor actor, AbstractActor.Receive receive) {
+		return new AbstractActor.Receive(new TimedReceive(receive.onMessage(), get(actor.getClass().getSimpleName())));
+	}
+
+	private static class TimedReceive extends AbstractPartialFunction<Object, BoxedUnit> {
+
+		private final PartialFunction<Object, BoxedUnit> receive;
+		private final ActorStats stats;
+
+		TimedReceive(PartialFunction<Object, BoxedUnit> receive, ActorStats stats) {
+			this.receive = receive;
+			this.stats = stats;
+		}
+
+		@Override
+		public boolean isDefinedAt(Object message) {
+			return this.receive.isDefinedAt(message);
+		}
+
+		@Override
+		public <A1, B1> B1 applyOrElse(A1 message, scala.Function1<A1, B1> otherwise) {
+			long start = System.nanoTime();
+			try {
+				return this.receive.applyOrElse(message, otherwise);
+			} finally {
+				this.stats.handled(System.nanoTime() - start);
+			}
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package de.hpi.ddm.actors.monitoring;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.Getter;
+
+/**
+ * Mailbox and processing statistics of all actors of one class: the queue depth that arriving messages find, the time
+ * that messages wait in the mailbox and the time that the actor's handler takes per message. The mailbox records the
+ * first two if the actor runs on an {@link InstrumentedMailbox}; the handler times come from
+ * {@link ActorMetrics#instrument}. The values of the MXBean getters cover the whole lifetime of the JVM.
+ */
+public class ActorStats implements ActorStatsMXBean {
+
+	@Getter
+	private final String actorClass;
+	private final AtomicLong queueDepth = new AtomicLong();
+	private final LongAccumulator maxQueueDepth = new LongAccumulator(Long::max, 0);
+	private final LongAdder handlerTimeTotal = new LongAdder();
+	@Getter
+	private final Histogram queueDepths = new Histogram();
+	@Getter
+	private final Histogram waitTimes = new Histogram();
+	@Getter
+	private final Histogram handlerTimes = new Histogram();
+
+	ActorStats(String actorClass) {
+		this.actorClass = actorClass;
+	}
+
+	void enqueued(long depth) {
+		this.queueDepths.record(depth);
+		this.maxQueueDepth.accumulate(this.queueDepth.incrementAndGet());
+	}
+
+	void dequeued(long waitTime) {
+		this.queueDepth.decrementAndGet();
+		this.waitTimes.record(waitTime);
+	}
+
+	void discarded(long count) {
+		this.queueDepth.addAndGet(-count);
+	}
+
+	void handled(long handlerTime) {
+		this.handlerTimes.record(handlerTime);
+		this.handlerTimeTotal.add(handlerTime);
+	}
+
+	private static double micros(long nanos) {
+		return nanos / 1000.0;
+	}
+
+	@Override
+	public long getMessages() {
+		return this.handlerTimes.snapshot().getCount();
+	}
+
+	@Override
+	public long getQueueDepth() {
+		return this.queueDepth.get();
+	}
+
+	@Override
+	public long getMaxQueueDepth() {
+		return this.maxQueueDepth.get();
+	}
+
+	@Override
+	public long getQueueDepthP99() {
+		return this.queueDepths.snapshot().percentile(0.99);
+	}
+
+	@Override
+	public double getWaitTimeP50Micros() {
+		return micros(this.waitTimes.snapshot().percentile(0.5));
+	}
+
+	@Override
+	public double getWaitTimeP99Micros() {
+		return micros(this.waitTimes.snapshot().percentile(0.99));
+	}
+
+	@Override
+	public double getWaitTimeMaxMicros() {
+		return micros(this.waitTimes.snapshot().max());
+	}
+
+	@Override
+	public double getHandlerTimeP50Micros() {
+		return micros(this.handlerTimes.snapshot().percentile(0.5));
+	}
+
+	@Override
+	public double getHandlerTimeP99Micros() {
+		return micros(this.handlerTimes.snapshot().percentile(0.99));
+	}
+
+	@Override
+	public double getHandlerTimeMaxMicros() {
+		return micros(this.handlerTimes.snapshot().max());
+	}
+
+	@Override
+	public long getHandlerTimeTotalMillis() {
+		return this.handlerTimeTotal.sum() / 1_000_000;
+	}
+}
@@ -0,0 +1,19 @@
+package de.hpi.ddm.actors.monitoring;
+
+/**
+ * The JMX view of the {@link ActorStats} of one actor class; times are in microseconds unless stated otherwise.
+ */
+public interface ActorStatsMXBean {
+	String getActorClass();
+	long getMessages();
+	long getQueueDepth();
+	long getMaxQueueDepth();
+	long getQueueDepthP99();
+	double getWaitTimeP50Micros();
+	double getWaitTimeP99Micros();
+	double getWaitTimeMaxMicros();
+	double getHandlerTimeP50Micros();
+	double getHandlerTimeP99Micros();
+	double getHandlerTimeMaxMicros();
+	long getHandlerTimeTotalMillis();
+}
@@ -0,0 +1,33 @@
+package de.hpi.ddm.actors.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A {@code LargeMessageProxy} sending a chunk again, because the receiver has not acknowledged it in time.
+ */
+@Name("de.hpi.ddm.ChunkRetransmit")
+@Label("Chunk Retransmit")
+@Category({ "DDM", "Transfers" })
+@Description("Resending an unacknowledged chunk of a large message")
+@StackTrace(false)
+public class ChunkRetransmitEvent extends Event {
+
+	@Label("Message Id")
+	public String messageId;
+
+	@Label("Chunk Offset")
+	public int chunkOffset;
+
+	@Label("Chunk Size")
+	@DataAmount
+	public int bytes;
+
+	@Label("Attempt")
+	public int attempt;
+}
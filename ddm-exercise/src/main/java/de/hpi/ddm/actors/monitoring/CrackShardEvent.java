@@ -0,0 +1,32 @@
+package de.hpi.ddm.actors.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A leaf of a {@code PasswordCrackTask}, i.e., one shard of a password's keyspace, being enumerated on a pool thread.
+ */
+@Name("de.hpi.ddm.CrackShard")
+@Label("Crack Shard")
+@Category({ "DDM", "Work" })
+@Description("Hashing all password candidates that start with a given prefix")
+public class CrackShardEvent extends Event {
+
+	@Label("Trace Id")
+	public long traceId;
+
+	@Label("Prefix")
+	public String prefix;
+
+	@Label("Password Length")
+	public int length;
+
+	@Label("Candidates")
+	public long candidates;
+
+	@Label("Found")
+	public boolean found;
+}
@@ -0,0 +1,31 @@
+package de.hpi.ddm.actors.monitoring;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import akka.actor.ActorSystem;
+import akka.actor.ExtendedActorSystem;
+
+/**
+ * Measures the time to first useful work of every node, i.e., the time from the start of its actor system until one of
+ * its actors starts on a permutation or password work package. The time is exported once per node as the gauge
+ * {@code ddm_node_first_work_seconds} and logged.
+ */
+public class FirstWork {
+
+	private static final Set<String> started = ConcurrentHashMap.newKeySet(); // node addresses
+
+	/**
+	 * Record that an actor of the given system started on a work package; only the first call per node counts.
+	 * @return whether this was the first work of the node
+	 */
+	public static boolean started(ActorSystem system) {
+		String node = ((ExtendedActorSystem) system).provider().getDefaultAddress().toString();
+		if (!started.add(node))
+			return false;
+		long millis = System.currentTimeMillis() - system.startTime();
+		Metrics.gauge("ddm_node_first_work_seconds", "Time from the start of a node until it started on its first work package", "node", node).set(millis / 1000.0);
+		system.log().info("First useful work on {} after {} ms", node, millis);
+		return true;
+	}
+}
@@ -0,0 +1,32 @@
+package de.hpi.ddm.actors.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A {@code BruteForceWorker} resolving one hint against its node's hint index.
+ */
+@Name("de.hpi.ddm.HintResolution")
+@Label("Hint Resolution")
+@Category({ "DDM", "Work" })
+@Description("Looking up the character that a hint leaves out")
+public class HintResolutionEvent extends Event {
+
+	@Label("Job Id")
+	public int jobId;
+
+	@Label("Password Id")
+	public int passwordId;
+
+	@Label("Trace Id")
+	public long traceId;
+
+	@Label("Alphabet")
+	public String alphabet;
+
+	@Label("Resolved")
+	public boolean resolved;
+}
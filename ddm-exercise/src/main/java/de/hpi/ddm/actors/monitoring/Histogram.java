@@ -0,0 +1,96 @@
+package de.hpi.ddm.actors.monitoring;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of non-negative values, e.g., latencies in nanoseconds or queue depths, with eight buckets per
+ * power of two; the relative error of a percentile is therefore at most 12.5%. Recording costs one atomic increment.
+ * Snapshots can be subtracted from each other to get the distribution of an interval.
+ */
+public class Histogram {
+
+	private static final int SUB_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+	private static final int NUM_BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(NUM_BUCKETS);
+
+	static int bucket(long value) {
+		if (value < SUB_BUCKETS)
+			return (int) Math.max(0, value);
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+	}
+
+	static long upperBound(int bucket) {
+		if (bucket < SUB_BUCKETS)
+			return bucket;
+		int shift = bucket / SUB_BUCKETS - 1;
+		long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+		return lower + (1L << shift) - 1;
+	}
+
+	public void record(long value) {
+		this.counts.incrementAndGet(bucket(value));
+	}
+
+	public Snapshot snapshot() {
+		long[] counts = new long[NUM_BUCKETS];
+		for (int i = 0; i < NUM_BUCKETS; i++)
+			counts[i] = this.counts.get(i);
+		return new Snapshot(counts);
+	}
+
+	public static class Snapshot {
+
+		private final long[] counts;
+		private final long count;
+
+		private Snapshot(long[] counts) {
+			this.counts = counts;
+			long count = 0;
+			for (long bucketCount : counts)
+				count += bucketCount;
+			this.count = count;
+		}
+
+		public long getCount() {
+			return this.count;
+		}
+
+		/**
+		 * @param quantile the quantile, e.g., 0.99
+		 * @return the upper bound of the bucket that holds the quantile or 0 if the snapshot is empty
+		 */
+		public long percentile(double quantile) {
+			long rank = (long) Math.ceil(quantile * this.count);
+			long seen = 0;
+			for (int i = 0; i < this.counts.length; i++) {
+				seen += this.counts[i];
+				if (seen >= rank && seen > 0)
+					return upperBound(i);
+			}
+			return 0;
+		}
+
+		public long max() {
+			return this.percentile(1.0);
+		}
+
+		/**
+		 * @param earlier a snapshot of the same histogram that was taken before this one
+		 * @return the distribution of the values recorded between the two snapshots
+		 */
+		public Snapshot since(Snapshot earlier) {
+			long[] counts = new long[this.counts.length];
+			for (int i = 0; i < counts.length; i++)
+				counts[i] = this.counts[i] - earlier.counts[i];
+			return new Snapshot(counts);
+		}
+
+		public static Snapshot empty() {
+			return new Snapshot(new long[NUM_BUCKETS]);
+		}
+	}
+}
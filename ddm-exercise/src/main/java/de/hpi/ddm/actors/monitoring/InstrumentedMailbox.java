@@ -0,0 +1,101 @@
+package de.hpi.ddm.actors.monitoring;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.typesafe.config.Config;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorRefWithCell;
+import akka.actor.ActorSystem;
+import akka.dispatch.Envelope;
+import akka.dispatch.MailboxType;
+import akka.dispatch.MessageQueue;
+import akka.dispatch.ProducesMessageQueue;
+import scala.Option;
+
+/**
+ * An unbounded mailbox that records, per actor class, the queue depth that each message finds and the time that it
+ * waits until the actor dequeues it. Configured as {@code ddm-instrumented-mailbox} in the application.conf and used for
+ * all actors that require {@link InstrumentedMessageQueueSemantics}.
+ */
+public class InstrumentedMailbox implements MailboxType, ProducesMessageQueue<InstrumentedMailbox.InstrumentedMessageQueue> {
+
+	public InstrumentedMailbox(ActorSystem.Settings settings, Config config) {
+	}
+
+	@Override
+	public MessageQueue create(Option<ActorRef> owner, Option<ActorSystem> system) {
+		return new InstrumentedMessageQueue(ActorMetrics.get(actorClass(owner)));
+	}
+
+	/**
+	 * The class of the actor, if the mailbox's owner is a local actor, or else the name of the owner.
+	 */
+	static String actorClass(Option<ActorRef> owner) {
+		if (owner.isEmpty())
+			return "unknown";
+		if (owner.get() instanceof ActorRefWithCell)
+			return ((ActorRefWithCell) owner.get()).underlying().props().actorClass().getSimpleName();
+		return owner.get().path().name();
+	}
+
+	static class TimedEnvelope {
+		final Envelope envelope;
+		final long enqueued;
+
+		TimedEnvelope(Envelope envelope, long enqueued) {
+			this.envelope = envelope;
+			this.enqueued = enqueued;
+		}
+	}
+
+	public static class InstrumentedMessageQueue implements MessageQueue, InstrumentedMessageQueueSemantics {
+
+		private final Queue<TimedEnvelope> queue = new ConcurrentLinkedQueue<>();
+		// ConcurrentLinkedQueue.size() is linear in the queue length
+		private final AtomicInteger size = new AtomicInteger();
+		private final ActorStats stats;
+
+		InstrumentedMessageQueue(ActorStats stats) {
+			this.stats = stats;
+		}
+
+		@Override
+		public void enqueue(ActorRef receiver, Envelope handle) {
+			this.stats.enqueued(this.size.getAndIncrement());
+			this.queue.add(new TimedEnvelope(handle, System.nanoTime()));
+		}
+
+		@Override
+		public Envelope dequeue() {
+			TimedEnvelope timed = this.queue.poll();
+			if (timed == null)
+				return null;
+			this.size.decrementAndGet();
+			this.stats.dequeued(System.nanoTime() - timed.enqueued);
+			return timed.envelope;
+		}
+
+		@Override
+		public int numberOfMessages() {
+			return this.size.get();
+		}
+
+		@Override
+		public boolean hasMessages() {
+			return !this.queue.isEmpty();
+		}
+
+		@Override
+		public void cleanUp(ActorRef owner, MessageQueue deadLetters) {
+			TimedEnvelope timed;
+			while ((timed = this.queue.poll()) != null) {
+				this.size.decrementAndGet();
+				this.stats.discarded(1);
+				deadLetters.enqueue(owner, timed.envelope);
+			}
+		}
+	}
+}
@@ -0,0 +1,10 @@
+package de.hpi.ddm.actors.monitoring;
+
+import akka.dispatch.UnboundedMessageQueueSemantics;
+
+/**
+ * Actors that implement {@code RequiresMessageQueue<InstrumentedMessageQueueSemantics>} get an
+ * {@link InstrumentedMailbox}; the mapping is configured in the application.conf.
+ */
+public interface InstrumentedMessageQueueSemantics extends UnboundedMessageQueueSemantics {
+}
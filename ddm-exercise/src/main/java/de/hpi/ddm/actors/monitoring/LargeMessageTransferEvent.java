@@ -0,0 +1,39 @@
+package de.hpi.ddm.actors.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A large message on the sending {@code LargeMessageProxy}, from serialization until the receiver acknowledged its
+ * last chunk; the event begins and ends in different messages of the proxy.
+ */
+@Name("de.hpi.ddm.LargeMessageTransfer")
+@Label("Large Message Transfer")
+@Category({ "DDM", "Transfers" })
+@Description("Sending a large message in acknowledged chunks")
+public class LargeMessageTransferEvent extends Event {
+
+	@Label("Message Id")
+	public String messageId;
+
+	@Label("Message Class")
+	public String messageClass;
+
+	@Label("Receiver")
+	public String receiver;
+
+	@Label("Size")
+	@DataAmount
+	public long bytes;
+
+	@Label("Chunks")
+	public int chunks;
+
+	@Label("Completed")
+	@Description("Whether the receiver acknowledged all chunks; false if the proxy stopped before")
+	public boolean completed;
+}
@@ -0,0 +1,183 @@
+package de.hpi.ddm.actors.monitoring;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * The JVM-wide registry of counters, gauges and histograms that the {@link MetricsServer} exposes in the Prometheus
+ * text format. Metrics are identified by their name and labels, which are given as alternating label names and values;
+ * asking for the same metric twice returns the same instance, so hot paths should keep it in a field. Rates, e.g.,
+ * hashes per second, are left to the scraper, which derives them from the counters.
+ */
+public class Metrics {
+
+	private enum Type { counter, gauge, summary }
+
+	private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 1.0 };
+
+	private static final ConcurrentMap<String, Family> families = new ConcurrentSkipListMap<>();
+
+	public static class Counter {
+
+		private final LongAdder value = new LongAdder();
+
+		public void inc() {
+			this.value.increment();
+		}
+
+		public void add(long amount) {
+			this.value.add(amount);
+		}
+
+		public long get() {
+			return this.value.sum();
+		}
+	}
+
+	public static class Gauge {
+
+		private final AtomicLong bits = new AtomicLong(Double.doubleToLongBits(0));
+
+		public void set(double value) {
+			this.bits.set(Double.doubleToLongBits(value));
+		}
+
+		public void add(double amount) {
+			this.bits.accumulateAndGet(0, (bits, ignored) -> Double.doubleToLongBits(Double.longBitsToDouble(bits) + amount));
+		}
+
+		public double get() {
+			return Double.longBitsToDouble(this.bits.get());
+		}
+	}
+
+	private static class Family {
+
+		private final String name;
+		private final String help;
+		private final Type type;
+		private final Map<String, Object> series = new ConcurrentHashMap<>(); // rendered labels -> metric
+
+		private Family(String name, String help, Type type) {
+			this.name = name;
+			this.help = help;
+			this.type = type;
+		}
+	}
+
+	public static Counter counter(String name, String help, String... labels) {
+		return (Counter) family(name, help, Type.counter).series.computeIfAbsent(labels(labels), key -> new Counter());
+	}
+
+	/**
+	 * Register a counter whose value is read from elsewhere whenever the metrics are scraped.
+	 */
+	public static void counter(String name, String help, DoubleSupplier value, String... labels) {
+		family(name, help, Type.counter).series.put(labels(labels), value);
+	}
+
+	public static Gauge gauge(String name, String help, String... labels) {
+		return (Gauge) family(name, help, Type.gauge).series.computeIfAbsent(labels(labels), key -> new Gauge());
+	}
+
+	/**
+	 * Register a gauge whose value is read from elsewhere whenever the metrics are scraped.
+	 */
+	public static void gauge(String name, String help, DoubleSupplier value, String... labels) {
+		family(name, help, Type.gauge).series.put(labels(labels), value);
+	}
+
+	/**
+	 * Expose a histogram as a summary of its quantiles and count.
+	 * @param scale the factor by which the recorded values are converted to the exposed unit, e.g., 1e-9 for seconds
+	 */
+	public static void summary(String name, String help, Histogram histogram, double scale, String... labels) {
+		family(name, help, Type.summary).series.put(labels(labels), new Summary(histogram, scale));
+	}
+
+	/**
+	 * Drop one series of a metric, e.g., because the node or actor that its labels name is gone.
+	 */
+	public static void remove(String name, String... labels) {
+		Family family = families.get(name);
+		if (family != null)
+			family.series.remove(labels(labels));
+	}
+
+	private static class Summary {
+
+		private final Histogram histogram;
+		private final double scale;
+
+		private Summary(Histogram histogram, double scale) {
+			this.histogram = histogram;
+			this.scale = scale;
+		}
+	}
+
+	private static Family family(String name, String help, Type type) {
+		Family family = families.computeIfAbsent(name, key -> new Family(name, help, type));
+		if (family.type != type)
+			throw new IllegalArgumentException("Metric " + name + " is a " + family.type + ", not a " + type);
+		return family;
+	}
+
+	private static String labels(String... labels) {
+		if (labels.length % 2 != 0)
+			throw new IllegalArgumentException("Labels must be given as name-value pairs");
+		StringBuilder rendered = new StringBuilder();
+		for (int i = 0; i < labels.length; i += 2) {
+			rendered.append(rendered.length() == 0 ? "" : ",").append(labels[i]).append("=\"");
+			rendered.append(labels[i + 1].replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n")).append('"');
+		}
+		return rendered.toString();
+	}
+
+	/**
+	 * @return all metrics in the Prometheus text exposition format, version 0.0.4
+	 */
+	public static String scrape() {
+		StringBuilder text = new StringBuilder();
+		for (Family family : families.values()) {
+			text.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+			text.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+			for (Map.Entry<String, Object> series : family.series.entrySet()) {
+				String labels = series.getKey();
+				Object metric = series.getValue();
+				if (metric instanceof Counter)
+					line(text, family.name, labels, ((Counter) metric).get());
+				else if (metric instanceof Gauge)
+					line(text, family.name, labels, ((Gauge) metric).get());
+				else if (metric instanceof DoubleSupplier)
+					line(text, family.name, labels, ((DoubleSupplier) metric).getAsDouble());
+				else if (metric instanceof Summary) {
+					Summary summary = (Summary) metric;
+					Histogram.Snapshot snapshot = summary.histogram.snapshot();
+					for (double quantile : QUANTILES) {
+						String quantileLabel = "quantile=\"" + quantile + "\"";
+						line(text, family.name, labels.isEmpty() ? quantileLabel : labels + "," + quantileLabel, snapshot.percentile(quantile) * summary.scale);
+					}
+					line(text, family.name + "_count", labels, snapshot.getCount());
+				}
+			}
+		}
+		return text.toString();
+	}
+
+	private static void line(StringBuilder text, String name, String labels, double value) {
+		text.append(name);
+		if (!labels.isEmpty())
+			text.append('{').append(labels).append('}');
+		text.append(' ');
+		if (value == Math.rint(value) && !Double.isInfinite(value))
+			text.append((long) value);
+		else
+			text.append(value);
+		text.append('\n');
+	}
+}
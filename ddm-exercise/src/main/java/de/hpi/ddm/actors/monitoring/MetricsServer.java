@@ -0,0 +1,61 @@
+package de.hpi.ddm.actors.monitoring;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.typesafe.config.Config;
+
+import akka.actor.ActorSystem;
+
+/**
+ * Serves the {@link Metrics} of this JVM as Prometheus text on {@code http://<host>:<port>/metrics}. Every actor system
+ * gets its own endpoint on its artery port plus {@code ddm.monitoring.metrics-port-offset}, so that the nodes of a
+ * cluster, even several on one machine, never compete for a port; a negative offset disables the endpoint.
+ */
+public class MetricsServer {
+
+	public static final String PATH = "/metrics";
+
+	private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+	/**
+	 * Start the endpoint of an actor system; it is stopped when the system terminates. A port that is already taken
+	 * is logged, but does not fail the system.
+	 * @param system the actor system
+	 * @return the server or {@code null} if the endpoint is disabled or could not be bound
+	 */
+	public static HttpServer start(ActorSystem system) {
+		Config config = system.settings().config();
+		int offset = config.getInt("ddm.monitoring.metrics-port-offset");
+		if (offset < 0)
+			return null;
+		String host = config.getString("akka.remote.artery.canonical.hostname");
+		int port = config.getInt("akka.remote.artery.canonical.port") + offset;
+
+		HttpServer server;
+		try {
+			server = HttpServer.create(new InetSocketAddress(host, port), 0);
+		} catch (IOException e) {
+			system.log().warning("Could not serve metrics on {}:{}: {}", host, port, e.getMessage());
+			return null;
+		}
+		server.createContext(PATH, MetricsServer::handle);
+		server.start();
+		system.registerOnTermination(() -> server.stop(0));
+		system.log().info("Serving metrics on http://{}:{}{}", host, port, PATH);
+		return server;
+	}
+
+	private static void handle(HttpExchange exchange) throws IOException {
+		byte[] body = Metrics.scrape().getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+		exchange.sendResponseHeaders(200, body.length);
+		try (OutputStream output = exchange.getResponseBody()) {
+			output.write(body);
+		}
+	}
+}
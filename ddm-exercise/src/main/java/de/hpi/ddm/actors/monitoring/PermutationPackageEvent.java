@@ -0,0 +1,30 @@
+package de.hpi.ddm.actors.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A {@code PermutationWorker} hashing the permutations of one work package on the compute pool, from submission to
+ * completion.
+ */
+@Name("de.hpi.ddm.PermutationPackage")
+@Label("Permutation Package")
+@Category({ "DDM", "Work" })
+@Description("Hashing all permutations of an alphabet that start with two given characters")
+public class PermutationPackageEvent extends Event {
+
+	@Label("Alphabet")
+	public String alphabet;
+
+	@Label("Head")
+	public char head;
+
+	@Label("Second Head")
+	public char head2;
+
+	@Label("Hashes")
+	public long hashes;
+}
@@ -0,0 +1,156 @@
+package de.hpi.ddm.actors.monitoring;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.typesafe.config.Config;
+
+import akka.actor.ActorContext;
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.DeadLetter;
+import akka.actor.InternalActorRef;
+import akka.dispatch.Envelope;
+import akka.dispatch.MailboxType;
+import akka.dispatch.MessageQueue;
+import akka.dispatch.ProducesMessageQueue;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import scala.Option;
+
+/**
+ * An instrumented mailbox with two lanes: control messages, i.e., everything that is not a {@link WorkMessage}, are
+ * always dequeued before work messages, so that cluster events, registrations and results never wait behind work. The
+ * work lane holds at most {@code work-capacity} messages. Enqueueing never blocks, because the enqueueing thread may
+ * be a dispatcher thread or Artery's inbound stream: a work message that finds the lane full is returned to its sender
+ * in a {@link WorkRejectedMessage}. The sender still owns the work and sends it again after {@code retry-delay}, see
+ * {@link #retry}, so a saturated actor slows down its senders instead of losing their work. Configured as
+ * {@code ddm-priority-mailbox} in the application.conf and used for all actors that require
+ * {@link PriorityMessageQueueSemantics}.
+ */
+public class PriorityMailbox implements MailboxType, ProducesMessageQueue<PriorityMailbox.PriorityMessageQueue> {
+
+	public static final String CONFIG_PATH = "ddm-priority-mailbox";
+
+	private static final Metrics.Counter REJECTED = Metrics.counter("ddm_work_rejected_total", "Work messages returned to their senders, because the work lane of their receiver was full");
+
+	private final int workCapacity;
+
+	/**
+	 * Sent back to the sender of a work message that found the work lane of its receiver full.
+	 */
+	@Data @NoArgsConstructor @AllArgsConstructor
+	public static class WorkRejectedMessage implements Serializable {
+		private static final long serialVersionUID = -5326415473392075466L;
+		private Object message;
+		private ActorRef receiver;
+	}
+
+	public PriorityMailbox(ActorSystem.Settings settings, Config config) {
+		this(config.getInt("work-capacity"));
+	}
+
+	public PriorityMailbox(int workCapacity) {
+		if (workCapacity <= 0)
+			throw new IllegalArgumentException("The work capacity of a priority mailbox must be positive");
+		this.workCapacity = workCapacity;
+	}
+
+	@Override
+	public MessageQueue create(Option<ActorRef> owner, Option<ActorSystem> system) {
+		return new PriorityMessageQueue(this.workCapacity, ActorMetrics.get(InstrumentedMailbox.actorClass(owner)));
+	}
+
+	/**
+	 * Send rejected work to its receiver again once the {@code retry-delay} has passed.
+	 * @param context the context of the actor that sent the work
+	 * @param rejected the rejection that came back
+	 */
+	public static void retry(ActorContext context, WorkRejectedMessage rejected) {
+		retry(context, rejected.getReceiver(), rejected.getMessage());
+	}
+
+	/**
+	 * Send a message to the given receiver once the {@code retry-delay} has passed, e.g., rejected work that needs to
+	 * take another path than a plain tell.
+	 * @param context the context of the actor that sends the message
+	 * @param receiver the receiver of the message
+	 * @param message the message
+	 */
+	public static void retry(ActorContext context, ActorRef receiver, Object message) {
+		Duration delay = context.system().settings().config().getDuration(CONFIG_PATH + ".retry-delay");
+		context.system().scheduler().scheduleOnce(delay, receiver, message, context.dispatcher(), context.self());
+	}
+
+	public static class PriorityMessageQueue implements MessageQueue, PriorityMessageQueueSemantics {
+
+		private final Queue<InstrumentedMailbox.TimedEnvelope> control = new ConcurrentLinkedQueue<>();
+		private final Queue<InstrumentedMailbox.TimedEnvelope> work;
+		private final AtomicInteger size = new AtomicInteger();
+		private final ActorStats stats;
+
+		PriorityMessageQueue(int workCapacity, ActorStats stats) {
+			this.work = new ArrayBlockingQueue<>(workCapacity);
+			this.stats = stats;
+		}
+
+		@Override
+		public void enqueue(ActorRef receiver, Envelope handle) {
+			if (!(handle.message() instanceof WorkMessage)) {
+				this.stats.enqueued(this.size.getAndIncrement());
+				this.control.add(new InstrumentedMailbox.TimedEnvelope(handle, System.nanoTime()));
+				return;
+			}
+			int depth = this.size.getAndIncrement();
+			if (this.work.offer(new InstrumentedMailbox.TimedEnvelope(handle, System.nanoTime()))) {
+				this.stats.enqueued(depth);
+				return;
+			}
+			this.size.decrementAndGet();
+			REJECTED.inc();
+			ActorRef deadLetters = ((InternalActorRef) receiver).provider().deadLetters();
+			// Work without a sender has nobody who could send it again
+			if (handle.sender() == null || handle.sender().equals(deadLetters))
+				deadLetters.tell(new DeadLetter(handle.message(), handle.sender(), receiver), handle.sender());
+			else
+				handle.sender().tell(new WorkRejectedMessage(handle.message(), receiver), receiver);
+		}
+
+		@Override
+		public Envelope dequeue() {
+			InstrumentedMailbox.TimedEnvelope timed = this.control.poll();
+			if (timed == null)
+				timed = this.work.poll();
+			if (timed == null)
+				return null;
+			this.size.decrementAndGet();
+			this.stats.dequeued(System.nanoTime() - timed.enqueued);
+			return timed.envelope;
+		}
+
+		@Override
+		public int numberOfMessages() {
+			return this.size.get();
+		}
+
+		@Override
+		public boolean hasMessages() {
+			return !this.control.isEmpty() || !this.work.isEmpty();
+		}
+
+		@Override
+		public void cleanUp(ActorRef owner, MessageQueue deadLetters) {
+			InstrumentedMailbox.TimedEnvelope timed;
+			while ((timed = this.control.poll()) != null || (timed = this.work.poll()) != null) {
+				this.size.decrementAndGet();
+				this.stats.discarded(1);
+				deadLetters.enqueue(owner, timed.envelope);
+			}
+		}
+	}
+}
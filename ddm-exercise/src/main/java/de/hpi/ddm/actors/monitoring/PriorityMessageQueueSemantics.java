@@ -0,0 +1,9 @@
+package de.hpi.ddm.actors.monitoring;
+
+/**
+ * Actors that implement {@code RequiresMessageQueue<PriorityMessageQueueSemantics>} get a {@link PriorityMailbox};
+ * the mapping is configured in the application.conf. The work lane is bounded, but enqueueing never blocks, so these
+ * are not Akka's {@code BoundedMessageQueueSemantics}.
+ */
+public interface PriorityMessageQueueSemantics {
+}
@@ -0,0 +1,26 @@
+package de.hpi.ddm.actors.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A {@code Reader} parsing the next batch of rows from its dataset.
+ */
+@Name("de.hpi.ddm.ReaderBatch")
+@Label("Reader Batch")
+@Category({ "DDM", "Input" })
+@Description("Parsing a batch of rows from a dataset")
+public class ReaderBatchEvent extends Event {
+
+	@Label("Job Id")
+	public int jobId;
+
+	@Label("Dataset")
+	public String dataset;
+
+	@Label("Rows")
+	public int rows;
+}
@@ -0,0 +1,8 @@
+package de.hpi.ddm.actors.monitoring;
+
+/**
+ * Marks messages that carry work or bulk data. A {@link PriorityMailbox} queues them behind all other messages, i.e.,
+ * behind cluster events, registrations, requests and results, and bounds their number.
+ */
+public interface WorkMessage {
+}
@@ -0,0 +1,111 @@
+package de.hpi.ddm.actors.monitoring;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import de.hpi.ddm.structures.Trace;
+import de.hpi.ddm.structures.Trace.Stage;
+
+/**
+ * Aggregates the traces of a job's password work packages into one histogram per stage. The master measures the
+ * stages it sees itself, i.e., queueing and the round trip to the worker; the worker reports the stages it executed
+ * in the trace of the result. Not thread-safe; it is meant to be owned by an actor.
+ */
+public class WorkPackageTracer {
+
+	private static final Stage[] STAGES = Stage.values();
+
+	private final Map<Long, Long> created = new HashMap<>(); // trace id -> System.nanoTime()
+	private final Map<Long, Long> dispatched = new HashMap<>(); // trace id -> System.nanoTime() of the first dispatch
+	private final Histogram[] stages = new Histogram[STAGES.length];
+	private final long[] sums = new long[STAGES.length];
+	private final Histogram totals = new Histogram();
+	private long totalSum;
+	private Trace slowest;
+
+	public WorkPackageTracer() {
+		for (int i = 0; i < STAGES.length; i++)
+			this.stages[i] = new Histogram();
+	}
+
+	public void created(Trace trace, long now) {
+		this.created.put(trace.getId(), now);
+	}
+
+	/**
+	 * Only the first dispatch counts; the time that a speculative or re-assigned copy takes is part of its transfer.
+	 */
+	public void dispatched(Trace trace, long now) {
+		this.dispatched.putIfAbsent(trace.getId(), now);
+	}
+
+	/**
+	 * @param trace the trace that the worker sent back with the result
+	 * @param now the time at which the master received the result
+	 * @return the completed trace, or null if the package was never created or dispatched by this tracer
+	 */
+	public Trace completed(Trace trace, long now) {
+		Long created = this.created.remove(trace.getId());
+		Long dispatched = this.dispatched.remove(trace.getId());
+		if (created == null || dispatched == null)
+			return null;
+
+		long onWorker = trace.get(Stage.HINTS) + trace.get(Stage.CRACK_QUEUE) + trace.get(Stage.CRACK);
+		Trace completed = trace
+				.with(Stage.QUEUE, dispatched - created)
+				.with(Stage.TRANSFER, now - dispatched - onWorker);
+		this.record(completed);
+		return completed;
+	}
+
+	void record(Trace trace) {
+		for (Stage stage : STAGES) {
+			this.stages[stage.ordinal()].record(trace.get(stage));
+			this.sums[stage.ordinal()] += trace.get(stage);
+		}
+		long total = trace.total();
+		this.totals.record(total);
+		this.totalSum += total;
+		if (this.slowest == null || total > this.slowest.total())
+			this.slowest = trace;
+	}
+
+	public long getCount() {
+		return this.totals.snapshot().getCount();
+	}
+
+	/**
+	 * @return the stage on the path that accounts for most of the time of all packages, or null if nothing was traced
+	 */
+	public Stage criticalStage() {
+		Stage critical = null;
+		for (Stage stage : STAGES)
+			if (stage.isOnPath() && this.sums[stage.ordinal()] > 0 && (critical == null || this.sums[stage.ordinal()] > this.sums[critical.ordinal()]))
+				critical = stage;
+		return critical;
+	}
+
+	public String report() {
+		StringBuilder report = new StringBuilder();
+		report.append(String.format("Lifecycle of %d password work packages (ms):%n", this.getCount()));
+		report.append(String.format("  %-12s %9s %9s %9s %7s%n", "stage", "p50", "p99", "max", "share"));
+		for (Stage stage : STAGES)
+			this.appendLine(report, stage.toString(), this.stages[stage.ordinal()].snapshot(), this.sums[stage.ordinal()]);
+		this.appendLine(report, "TOTAL", this.totals.snapshot(), this.totalSum);
+		Stage critical = this.criticalStage();
+		if (critical != null)
+			report.append(String.format("  critical path: %s (%.1f%% of all package time)%n", critical, this.share(this.sums[critical.ordinal()])));
+		if (this.slowest != null)
+			report.append("  slowest package: ").append(this.slowest);
+		return report.toString();
+	}
+
+	private void appendLine(StringBuilder report, String name, Histogram.Snapshot snapshot, long sum) {
+		report.append(String.format("  %-12s %9.1f %9.1f %9.1f %6.1f%%%n", name,
+				snapshot.percentile(0.5) / 1e6, snapshot.percentile(0.99) / 1e6, snapshot.max() / 1e6, this.share(sum)));
+	}
+
+	private double share(long sum) {
+		return (this.totalSum == 0) ? 0 : 100.0 * sum / this.totalSum;
+	}
+}
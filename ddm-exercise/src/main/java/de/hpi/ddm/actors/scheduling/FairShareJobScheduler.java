@@ -0,0 +1,97 @@
+package de.hpi.ddm.actors.scheduling;
+
+import de.hpi.ddm.structures.PasswordWorkPackage;
+import de.hpi.ddm.structures.ShardJob;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hands out password work packages across all active {@link ShardJob}s of a password shard so that every job gets an
+ * equal share of the workers: the next package always comes from the job with the fewest packages in flight. Ties are
+ * broken round-robin, so jobs that are equally served take turns.
+ */
+public class FairShareJobScheduler {
+
+    // All active jobs by id in the order in which they were started
+    private final Map<Integer, ShardJob> jobs = new LinkedHashMap<>();
+
+    // The position of the job that won the last tie, used for round-robin tie breaking
+    private int lastPosition = -1;
+
+    public void addJob(ShardJob job) {
+        this.jobs.put(job.getId(), job);
+    }
+
+    public ShardJob removeJob(int jobId) {
+        return this.jobs.remove(jobId);
+    }
+
+    public ShardJob getJob(int jobId) {
+        return this.jobs.get(jobId);
+    }
+
+    public Collection<ShardJob> getJobs() {
+        return this.jobs.values();
+    }
+
+    public boolean isEmpty() {
+        return this.jobs.isEmpty();
+    }
+
+    /**
+     * Collect the alphabets of all pending password work packages, in the order in which the jobs were started.
+     * @return the alphabets for which some job still has pending passwords
+     */
+    public Set<String> getPendingAlphabets() {
+        Set<String> alphabets = new LinkedHashSet<>();
+        for (ShardJob job : this.jobs.values())
+            alphabets.addAll(job.getPendingPasswordWorkPackages().keySet());
+        return alphabets;
+    }
+
+    /**
+     * Take the next password work package that a node with the given alphabets can work on.
+     * @param alphabets the alphabets for which the requesting node has its permutations ready
+     * @return the next password work package or {@code null} if there is no fitting work
+     */
+    public PasswordWorkPackage next(Set<String> alphabets) {
+        List<ShardJob> jobs = new ArrayList<>(this.jobs.values());
+        List<Integer> candidates = new ArrayList<>();
+        for (int i = 1; i <= jobs.size(); i++) {
+            int position = (this.lastPosition + i) % jobs.size();
+            if (jobs.get(position).hasPendingPasswordWorkPackages(alphabets))
+                candidates.add(position);
+        }
+        // Stable sort: among jobs with equally many packages in flight, the round-robin order decides
+        candidates.sort(Comparator.comparingInt(position -> jobs.get(position).getInFlight()));
+
+        for (int position : candidates) {
+            PasswordWorkPackage passwordWorkPackage = jobs.get(position).pollPasswordWorkPackage(alphabets);
+            if (passwordWorkPackage != null) {
+                this.lastPosition = position;
+                return passwordWorkPackage;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Give up half of the pending password work packages of every job that a node with the given alphabets can work
+     * on, so that an idle password shard can take them over.
+     * @param alphabets the alphabets for which the receiving node has its permutations ready
+     * @return the handed off packages, which may be empty
+     */
+    public List<PasswordWorkPackage> handOff(Set<String> alphabets) {
+        List<PasswordWorkPackage> handedOff = new ArrayList<>();
+        for (ShardJob job : this.jobs.values())
+            handedOff.addAll(job.handOffPasswordWorkPackages(alphabets));
+        return handedOff;
+    }
+}
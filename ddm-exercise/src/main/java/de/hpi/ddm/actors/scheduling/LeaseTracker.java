@@ -0,0 +1,192 @@
+package de.hpi.ddm.actors.scheduling;
+
+import akka.actor.ActorRef;
+import lombok.Getter;
+
+import java.util.*;
+
+/**
+ * Tracks which actor holds which work package since when. Completion times of finished leases feed a window of recent
+ * latencies; a lease becomes overdue once it is held longer than a multiple of a latency percentile, which lets the
+ * owner re-issue it speculatively to another, idle actor. The first result for a lease completes it, later results for
+ * the same key are reported as duplicates.
+ *
+ * @param <K> the type of the keys that identify work packages
+ * @param <P> the type of the work packages
+ */
+public class LeaseTracker<K, P> {
+
+    public static class Lease<P> {
+        @Getter
+        private final P workPackage;
+        @Getter
+        private final long issueTime;
+        private final Set<ActorRef> holders = new LinkedHashSet<>();
+        private boolean speculated;
+
+        private Lease(P workPackage, ActorRef holder, long issueTime) {
+            this.workPackage = workPackage;
+            this.issueTime = issueTime;
+            this.holders.add(holder);
+        }
+
+        public boolean isHeldBy(ActorRef actor) {
+            return this.holders.contains(actor);
+        }
+    }
+
+    private static final int LATENCY_WINDOW = 256;
+    private static final int MIN_LATENCY_SAMPLES = 5;
+
+    private final Map<K, Lease<P>> leases = new LinkedHashMap<>();
+    private final Map<ActorRef, Integer> leasesPerHolder = new HashMap<>();
+    private final long[] latencies = new long[LATENCY_WINDOW];
+    private int numLatencies;
+    private int nextLatency;
+    private final double percentile;
+    private final double multiplier;
+    private final long minDeadline;
+
+    /**
+     * Create a new lease tracker.
+     * @param percentile the latency percentile (between 0 and 1) that deadlines are derived from
+     * @param multiplier the factor by which a lease may exceed the percentile latency before it is overdue
+     * @param minDeadline the minimum time in ms that a lease is held before it can become overdue
+     */
+    public LeaseTracker(double percentile, double multiplier, long minDeadline) {
+        this.percentile = percentile;
+        this.multiplier = multiplier;
+        this.minDeadline = minDeadline;
+    }
+
+    public void issue(K key, P workPackage, ActorRef holder) {
+        Lease<P> previous = this.leases.put(key, new Lease<>(workPackage, holder, System.currentTimeMillis()));
+        if (previous != null)
+            previous.holders.forEach(this::decrement);
+        this.leasesPerHolder.merge(holder, 1, Integer::sum);
+    }
+
+    /**
+     * Complete the lease for the given key and record its latency.
+     * @param key the key of the completed work package
+     * @return the completed lease or {@code null} if the lease was completed before, i.e., this is a duplicate result
+     */
+    public Lease<P> complete(K key) {
+        Lease<P> lease = this.leases.remove(key);
+        if (lease != null) {
+            this.recordLatency(System.currentTimeMillis() - lease.issueTime);
+            lease.holders.forEach(this::decrement);
+        }
+        return lease;
+    }
+
+    public boolean contains(K key) {
+        return this.leases.containsKey(key);
+    }
+
+    public int size() {
+        return this.leases.size();
+    }
+
+    /**
+     * Count the leases that the given actor currently holds, including speculative copies.
+     * @param holder the actor
+     * @return the number of leases held by the actor
+     */
+    public int heldBy(ActorRef holder) {
+        return this.leasesPerHolder.getOrDefault(holder, 0);
+    }
+
+    /**
+     * Calculate the current deadline from the latencies of recently completed leases.
+     * @return the time in ms after which a lease is overdue or {@link Long#MAX_VALUE} if there are too few samples yet
+     */
+    public long deadline() {
+        if (this.numLatencies < MIN_LATENCY_SAMPLES)
+            return Long.MAX_VALUE;
+        long[] sorted = Arrays.copyOf(this.latencies, this.numLatencies);
+        Arrays.sort(sorted);
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(this.percentile * sorted.length) - 1);
+        return Math.max(this.minDeadline, (long) (sorted[Math.max(0, index)] * this.multiplier));
+    }
+
+    /**
+     * Find all leases that are held longer than the current deadline and have not been speculated on yet.
+     * @return the keys of the overdue leases, oldest first
+     */
+    public List<K> overdue() {
+        List<K> overdue = new ArrayList<>();
+        long deadline = this.deadline();
+        if (deadline == Long.MAX_VALUE)
+            return overdue;
+        long now = System.currentTimeMillis();
+        for (Map.Entry<K, Lease<P>> entry : this.leases.entrySet())
+            if (!entry.getValue().speculated && now - entry.getValue().issueTime > deadline)
+                overdue.add(entry.getKey());
+        return overdue;
+    }
+
+    public Lease<P> get(K key) {
+        return this.leases.get(key);
+    }
+
+    /**
+     * Hand a copy of the leased package to another actor; whichever holder answers first completes the lease.
+     * @param key the key of the overdue lease
+     * @param holder the additional holder
+     */
+    public void speculate(K key, ActorRef holder) {
+        Lease<P> lease = this.leases.get(key);
+        if (lease == null)
+            return;
+        if (lease.holders.add(holder))
+            this.leasesPerHolder.merge(holder, 1, Integer::sum);
+        lease.speculated = true;
+    }
+
+    /**
+     * Remove the given actor from all leases, e.g., because it terminated.
+     * @param holder the actor that is gone
+     * @return the work packages that no one holds anymore and that need to be reassigned
+     */
+    public List<P> release(ActorRef holder) {
+        List<P> orphans = new ArrayList<>();
+        this.leasesPerHolder.remove(holder);
+        Iterator<Lease<P>> iterator = this.leases.values().iterator();
+        while (iterator.hasNext()) {
+            Lease<P> lease = iterator.next();
+            if (lease.holders.remove(holder) && lease.holders.isEmpty()) {
+                orphans.add(lease.workPackage);
+                iterator.remove();
+            }
+        }
+        return orphans;
+    }
+
+    /**
+     * Remove the given actor from one lease, e.g., because it gave the work package back.
+     * @param key the key of the work package
+     * @param holder the actor that gave the work package back
+     * @return the work package if no one holds it anymore and it needs to be reassigned, {@code null} otherwise
+     */
+    public P release(K key, ActorRef holder) {
+        Lease<P> lease = this.leases.get(key);
+        if (lease == null || !lease.holders.remove(holder))
+            return null;
+        this.decrement(holder);
+        if (!lease.holders.isEmpty())
+            return null;
+        this.leases.remove(key);
+        return lease.workPackage;
+    }
+
+    private void decrement(ActorRef holder) {
+        this.leasesPerHolder.computeIfPresent(holder, (key, count) -> (count <= 1) ? null : count - 1);
+    }
+
+    private void recordLatency(long latency) {
+        this.latencies[this.nextLatency] = latency;
+        this.nextLatency = (this.nextLatency + 1) % LATENCY_WINDOW;
+        this.numLatencies = Math.min(this.numLatencies + 1, LATENCY_WINDOW);
+    }
+}
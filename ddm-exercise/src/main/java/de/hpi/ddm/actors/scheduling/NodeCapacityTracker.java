@@ -0,0 +1,135 @@
+package de.hpi.ddm.actors.scheduling;
+
+import akka.actor.Address;
+import akka.cluster.metrics.NodeMetrics;
+import akka.cluster.metrics.StandardMetrics;
+import akka.cluster.metrics.StandardMetrics.Cpu;
+import akka.cluster.metrics.StandardMetrics.HeapMemory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Estimates the relative capacity of the nodes in the cluster. Each node's capacity combines what the cluster metrics
+ * report (processors, the share of them that is not loaded and the free heap) with the rate at which the node actually
+ * completes password work packages. Weights are normalized to a mean of 1, so that a node with weight 2 is expected to
+ * finish twice as many packages as an average node in the same time.
+ */
+public class NodeCapacityTracker {
+
+    private static class Node {
+        private double metricsCapacity = -1;
+        private double completionRate = -1;
+        private int completions;
+        private long lastRateUpdate = System.currentTimeMillis();
+    }
+
+    private static final double RATE_SMOOTHING = 0.3;
+    private static final double MIN_RATE_FACTOR = 0.5;
+    private static final double MAX_RATE_FACTOR = 2.0;
+    private static final double HEAP_PRESSURE_THRESHOLD = 0.9;
+
+    private final Map<Address, Node> nodes = new HashMap<>();
+
+    private Node node(Address address) {
+        return this.nodes.computeIfAbsent(address, key -> new Node());
+    }
+
+    public void remove(Address address) {
+        this.nodes.remove(address);
+    }
+
+    /**
+     * Update the capacity estimates from a cluster metrics sample and roll the completion rates forward.
+     * @param nodeMetrics the metrics of one node
+     */
+    public void update(NodeMetrics nodeMetrics) {
+        Node node = this.node(nodeMetrics.address());
+
+        Cpu cpu = StandardMetrics.extractCpu(nodeMetrics);
+        if (cpu != null) {
+            double processors = cpu.processors();
+            double idleShare = 1.0;
+            if (cpu.systemLoadAverage().isDefined())
+                idleShare = Math.max(0.1, 1.0 - (Double) cpu.systemLoadAverage().get() / processors);
+            node.metricsCapacity = processors * idleShare;
+
+            HeapMemory heap = StandardMetrics.extractHeapMemory(nodeMetrics);
+            if (heap != null && heap.max().isDefined() && heap.used() > HEAP_PRESSURE_THRESHOLD * (Long) heap.max().get())
+                node.metricsCapacity *= 0.5;
+        }
+
+        long now = System.currentTimeMillis();
+        double elapsedSeconds = (now - node.lastRateUpdate) / 1000.0;
+        if (elapsedSeconds > 0 && node.completions > 0) {
+            double rate = node.completions / elapsedSeconds;
+            node.completionRate = (node.completionRate < 0) ? rate : RATE_SMOOTHING * rate + (1 - RATE_SMOOTHING) * node.completionRate;
+        }
+        node.completions = 0;
+        node.lastRateUpdate = now;
+    }
+
+    /**
+     * Count completed password work packages for the node.
+     * @param address the node that completed the packages
+     * @param count the number of packages
+     */
+    public void completed(Address address, int count) {
+        this.node(address).completions += count;
+    }
+
+    /**
+     * Calculate the normalized capacity weight of a node.
+     * @param address the node
+     * @return the node's weight; 1 for an average node and for nodes without any measurements yet
+     */
+    public double weight(Address address) {
+        Node node = this.nodes.get(address);
+        if (node == null)
+            return 1.0;
+
+        double weight = 1.0;
+        double meanCapacity = this.mean(true);
+        if (node.metricsCapacity > 0 && meanCapacity > 0)
+            weight = node.metricsCapacity / meanCapacity;
+
+        // Observed throughput corrects what the metrics cannot see, e.g., slower cores or other load on the machine
+        double meanRate = this.mean(false);
+        if (node.completionRate > 0 && meanRate > 0)
+            weight *= Math.max(MIN_RATE_FACTOR, Math.min(MAX_RATE_FACTOR, node.completionRate / meanRate));
+        return weight;
+    }
+
+    /**
+     * @return the normalized capacity weight of every node with measurements
+     */
+    public Map<Address, Double> weights() {
+        Map<Address, Double> weights = new HashMap<>();
+        for (Address address : this.nodes.keySet())
+            weights.put(address, this.weight(address));
+        return weights;
+    }
+
+    /**
+     * Size the number of password work packages a worker on a node should hold at once.
+     * @param weight the capacity weight of the worker's node
+     * @param baseBatchSize the number of packages that a worker on an average node holds
+     * @return the node's batch size, at least 1
+     */
+    public static int batchSize(double weight, int baseBatchSize) {
+        return Math.max(1, (int) Math.round(baseBatchSize * weight));
+    }
+
+    private double mean(boolean capacity) {
+        double sum = 0;
+        int count = 0;
+        for (Node node : this.nodes.values()) {
+            double value = capacity ? node.metricsCapacity : node.completionRate;
+            if (value > 0) {
+                sum += value;
+                count++;
+            }
+        }
+        return (count == 0) ? 0 : sum / count;
+    }
+}
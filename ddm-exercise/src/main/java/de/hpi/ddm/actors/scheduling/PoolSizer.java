@@ -0,0 +1,91 @@
+package de.hpi.ddm.actors.scheduling;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Decides how many worker actors each phase of the pipeline gets on one node. Permutation and cracking workers run
+ * their computations on the node's compute pool, so together they share a budget of compute slots that is split in
+ * proportion to the work queued for each phase. Hint workers only look hints up in the index and are sized by their
+ * queue alone. Every pool keeps at least one worker, so that a phase never has to wait for a worker to start.
+ */
+public class PoolSizer {
+
+    public enum Pool {
+        PERMUTATION, HINT, CRACKING
+    }
+
+    private static final int HINTS_PER_WORKER = 32;
+
+    private final int processors;
+    private final int computeSlots;
+
+    /**
+     * Create a new pool sizer.
+     * @param processors the number of cores of the node
+     * @param computeSlots the number of computations the node can run in parallel, i.e., the compute pool's size
+     */
+    public PoolSizer(int processors, int computeSlots) {
+        this.processors = Math.max(1, processors);
+        this.computeSlots = Math.max(1, computeSlots);
+    }
+
+    /**
+     * Calculate the compute slots that are available under the given load. If the load exceeds the number of cores,
+     * other processes compete for the machine and we scale down accordingly.
+     * @param systemLoadAverage the node's load average or a negative value if unknown
+     * @return the number of compute slots to hand out
+     */
+    public int budget(double systemLoadAverage) {
+        if (systemLoadAverage <= this.processors)
+            return this.computeSlots;
+        return Math.max(1, (int) Math.round(this.computeSlots * this.processors / systemLoadAverage));
+    }
+
+    /**
+     * Size all pools of the node.
+     * @param demands the queued plus in-progress work packages per pool
+     * @param budget the available compute slots, see {@link #budget(double)}
+     * @return the target number of workers per pool
+     */
+    public Map<Pool, Integer> size(Map<Pool, Integer> demands, int budget) {
+        Map<Pool, Integer> sizes = new EnumMap<>(Pool.class);
+
+        int permutationDemand = demands.getOrDefault(Pool.PERMUTATION, 0);
+        int crackingDemand = demands.getOrDefault(Pool.CRACKING, 0);
+        int computeDemand = permutationDemand + crackingDemand;
+        if (computeDemand == 0) {
+            sizes.put(Pool.PERMUTATION, 1);
+            sizes.put(Pool.CRACKING, 1);
+        }
+        else {
+            sizes.put(Pool.PERMUTATION, this.share(budget, permutationDemand, computeDemand));
+            sizes.put(Pool.CRACKING, this.share(budget, crackingDemand, computeDemand));
+        }
+
+        int hintDemand = demands.getOrDefault(Pool.HINT, 0);
+        int hintWorkers = (hintDemand + HINTS_PER_WORKER - 1) / HINTS_PER_WORKER;
+        sizes.put(Pool.HINT, Math.max(1, Math.min(this.processors, hintWorkers)));
+        return sizes;
+    }
+
+    /**
+     * Split a pool's size among the actors that own a part of it, in proportion to their demand.
+     * @param size the size of the pool on the node
+     * @param ownerDemand the owner's demand
+     * @param totalDemand the demand of all owners of the pool
+     * @param numOwners the number of owners
+     * @return the owner's share, at least 1
+     */
+    public static int share(int size, int ownerDemand, int totalDemand, int numOwners) {
+        if (totalDemand == 0)
+            return Math.max(1, size / Math.max(1, numOwners));
+        return Math.max(1, (int) Math.round((double) size * ownerDemand / totalDemand));
+    }
+
+    private int share(int budget, int demand, int totalDemand) {
+        // More workers than work packages would only sit idle
+        int share = (int) Math.round((double) budget * demand / totalDemand);
+        return Math.max(1, Math.min(demand, share));
+    }
+}
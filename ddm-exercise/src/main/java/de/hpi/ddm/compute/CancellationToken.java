@@ -0,0 +1,19 @@
+package de.hpi.ddm.compute;
+
+/**
+ * Shared flag through which an actor asks the tasks of its computation to stop. Tasks poll the token at split points
+ * and every few thousand steps of their inner loops, so a cancelled computation frees its threads quickly without
+ * interrupting them.
+ */
+public class CancellationToken {
+
+    private volatile boolean cancelled;
+
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+}
@@ -0,0 +1,68 @@
+package de.hpi.ddm.compute;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the CPU-bound work of a node, i.e., hashing permutations and brute-forcing passwords, on a work-stealing pool
+ * with one thread per core. Actors submit tasks and have the result piped back to them as a message, so their
+ * dispatcher threads stay free for cluster heartbeats, large message chunks and other control messages.
+ */
+public class ComputeService {
+
+    private final ForkJoinPool pool;
+
+    public ComputeService(int parallelism) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.pool = new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("ddm-compute-" + threadCount.getAndIncrement());
+            return thread;
+        }, null, false);
+    }
+
+    /**
+     * Start a task on the pool.
+     * @param task the task
+     * @param <T> the type of the task's result
+     * @return a future that completes with the task's result, or with a {@link CancellationException} if the task's
+     * token was cancelled before the task finished
+     */
+    public <T> CompletableFuture<T> submit(ComputeTask<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        this.pool.execute(ForkJoinTask.adapt(() -> {
+            try {
+                T result = task.invoke();
+                if (task.getToken().isCancelled())
+                    future.completeExceptionally(new CancellationException());
+                else
+                    future.complete(result);
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        }));
+        return future;
+    }
+
+    /**
+     * Run a task on the pool and wait for its result, e.g., a bulk operation whose result the caller needs right away.
+     * @param task the task
+     * @param <T> the type of the task's result
+     * @return the task's result
+     */
+    public <T> T invoke(ForkJoinTask<T> task) {
+        return this.pool.invoke(task);
+    }
+
+    public int getParallelism() {
+        return this.pool.getParallelism();
+    }
+
+    public void shutdown() {
+        this.pool.shutdownNow();
+    }
+}
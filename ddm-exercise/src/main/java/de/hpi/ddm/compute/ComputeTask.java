@@ -0,0 +1,27 @@
+package de.hpi.ddm.compute;
+
+import lombok.Getter;
+
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A CPU-bound task for the {@link ComputeService}. Implementations split themselves into subtasks that share the
+ * cancellation token of their root, so that idle pool threads can steal parts of a large computation.
+ *
+ * @param <T> the type of the task's result
+ */
+public abstract class ComputeTask<T> extends RecursiveTask<T> {
+
+    private static final long serialVersionUID = -4263819094772140586L;
+
+    @Getter
+    private final CancellationToken token;
+
+    protected ComputeTask(CancellationToken token) {
+        this.token = token;
+    }
+
+    protected boolean isStopped() {
+        return this.token.isCancelled();
+    }
+}
@@ -0,0 +1,186 @@
+package de.hpi.ddm.compute;
+
+import de.hpi.ddm.actors.monitoring.Metrics;
+import de.hpi.ddm.structures.BloomFilter;
+import de.hpi.ddm.structures.HintIndex;
+
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hashes all permutations of an alphabet that start with a given prefix into a {@link HintIndex}. Every permutation is
+ * cut off before its last character, which is then the character missing in the hint. The task splits by fixing one
+ * more prefix character per level until few enough characters remain, and enumerates the rest with Heap's algorithm.
+ *
+ * If the hints that will be looked up are known before the permutations are built, a {@link BloomFilter} of their
+ * index keys can be passed as targets: then only the permutations that pass the filter are added to the index, and
+ * the rest are rejected with a few bit lookups instead of a hash table insert.
+ */
+public class HintPermutationTask extends ComputeTask<Long> {
+
+    private static final long serialVersionUID = 2917034484722958164L;
+
+    /** Leaves permute at most this many characters, i.e., hash up to 8! = 40320 permutations. */
+    private static final int MAX_LEAF_CHARACTERS = 8;
+    private static final int CANCELLATION_CHECK_INTERVAL = 4096;
+
+    private static final Metrics.Counter HASHES = Metrics.counter("ddm_hashes_total", "SHA-256 hashes computed per worker type", "worker", "PermutationWorker");
+
+    private final char[] prefix;
+    private final char[] remaining;
+    private final HintIndex hintIndex;
+    private final BloomFilter targets;
+
+    /**
+     * Create a task for all permutations of {@code prefix + permutation(remaining)}.
+     * @param prefix the fixed first characters of the permutations
+     * @param remaining the characters to permute behind the prefix
+     * @param hintIndex the index that receives the hashed hints
+     * @param token the token through which the computation can be cancelled
+     */
+    public HintPermutationTask(char[] prefix, char[] remaining, HintIndex hintIndex, CancellationToken token) {
+        this(prefix, remaining, hintIndex, null, token);
+    }
+
+    /**
+     * Create a task for the permutations of {@code prefix + permutation(remaining)} whose keys pass the targets.
+     * @param prefix the fixed first characters of the permutations
+     * @param remaining the characters to permute behind the prefix
+     * @param hintIndex the index that receives the hashed hints
+     * @param targets the {@link HintIndex#key} of every hint that will be looked up, or {@code null} to keep all
+     * @param token the token through which the computation can be cancelled
+     */
+    public HintPermutationTask(char[] prefix, char[] remaining, HintIndex hintIndex, BloomFilter targets, CancellationToken token) {
+        super(token);
+        this.prefix = prefix;
+        this.remaining = remaining;
+        this.hintIndex = hintIndex;
+        this.targets = targets;
+    }
+
+    @Override
+    protected Long compute() {
+        if (this.isStopped())
+            return 0L;
+        if (this.remaining.length <= MAX_LEAF_CHARACTERS)
+            return this.permute();
+
+        List<HintPermutationTask> subtasks = new ArrayList<>(this.remaining.length);
+        for (int i = 0; i < this.remaining.length; i++) {
+            char[] subPrefix = new char[this.prefix.length + 1];
+            System.arraycopy(this.prefix, 0, subPrefix, 0, this.prefix.length);
+            subPrefix[this.prefix.length] = this.remaining[i];
+
+            char[] subRemaining = new char[this.remaining.length - 1];
+            System.arraycopy(this.remaining, 0, subRemaining, 0, i);
+            System.arraycopy(this.remaining, i + 1, subRemaining, i, subRemaining.length - i);
+
+            subtasks.add(new HintPermutationTask(subPrefix, subRemaining, this.hintIndex, this.targets, this.getToken()));
+        }
+        long count = 0;
+        for (HintPermutationTask subtask : invokeAll(subtasks))
+            count += subtask.join();
+        return count;
+    }
+
+    private long permute() {
+        char[] permutation = new char[this.prefix.length + this.remaining.length];
+        System.arraycopy(this.prefix, 0, permutation, 0, this.prefix.length);
+        System.arraycopy(this.remaining, 0, permutation, this.prefix.length, this.remaining.length);
+
+        int numPermutations = 1;
+        for (int i = 2; i <= this.remaining.length; i++)
+            numPermutations *= i;
+        long[] keys = new long[numPermutations];
+        char[] missingCharacters = new char[numPermutations];
+        Hasher hasher = new Hasher(permutation.length - 1);
+
+        // Iterative Heap's algorithm over the characters behind the prefix
+        int offset = this.prefix.length;
+        int length = this.remaining.length;
+        int[] counters = new int[length];
+        int count = this.keep(hasher.hash(permutation), permutation, keys, missingCharacters, 0);
+        int hashed = 1;
+        int i = 1;
+        while (i < length) {
+            if (counters[i] < i) {
+                int j = (i % 2 == 0) ? 0 : counters[i];
+                char temp = permutation[offset + j];
+                permutation[offset + j] = permutation[offset + i];
+                permutation[offset + i] = temp;
+
+                count = this.keep(hasher.hash(permutation), permutation, keys, missingCharacters, count);
+                if (++hashed % CANCELLATION_CHECK_INTERVAL == 0 && this.isStopped()) {
+                    HASHES.add(hashed);
+                    return 0;
+                }
+
+                counters[i]++;
+                i = 1;
+            }
+            else {
+                counters[i] = 0;
+                i++;
+            }
+        }
+        this.hintIndex.addAll(keys, missingCharacters, count);
+        HASHES.add(hashed);
+        return hashed;
+    }
+
+    private int keep(long key, char[] permutation, long[] keys, char[] missingCharacters, int count) {
+        if (this.targets != null && !this.targets.contains(key))
+            return count;
+        keys[count] = key;
+        missingCharacters[count] = permutation[permutation.length - 1];
+        return count + 1;
+    }
+
+    /**
+     * Hashes the first characters of a permutation with a reused digest and buffers, because allocating a new
+     * {@link MessageDigest} and string per permutation dominates the cost of the hashing itself.
+     */
+    static class Hasher {
+
+        private final MessageDigest digest;
+        private final byte[] input;
+        private final byte[] output;
+        private final int length;
+
+        Hasher(int length) {
+            try {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new RuntimeException(e.getMessage());
+            }
+            this.length = length;
+            this.input = new byte[length];
+            this.output = new byte[this.digest.getDigestLength()];
+        }
+
+        long hash(char[] characters) {
+            byte[] bytes = this.encode(characters);
+            try {
+                this.digest.update(bytes, 0, bytes.length);
+                this.digest.digest(this.output, 0, this.output.length);
+            } catch (DigestException e) {
+                throw new RuntimeException(e.getMessage());
+            }
+            return HintIndex.key(this.output);
+        }
+
+        private byte[] encode(char[] characters) {
+            for (int i = 0; i < this.length; i++) {
+                // Hints are hashed as UTF-8; only non-ASCII alphabets need the slow path
+                if (characters[i] >= 0x80)
+                    return new String(characters, 0, this.length).getBytes(StandardCharsets.UTF_8);
+                this.input[i] = (byte) characters[i];
+            }
+            return this.input;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package de.hpi.ddm.compute;
+
+import de.hpi.ddm.actors.monitoring.CrackShardEvent;
+import de.hpi.ddm.actors.monitoring.Metrics;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Brute-forces a password by hashing all strings of the given length over the given characters. The task splits by
+ * fixing one more leading character per level until a leaf has at most {@link #MAX_LEAF_CANDIDATES} candidates left;
+ * the first subtask that finds the password publishes it, which stops all others at their next check.
+ */
+public class PasswordCrackTask extends ComputeTask<String> {
+
+    private static final long serialVersionUID = -3502218761359097425L;
+
+    private static final long MAX_LEAF_CANDIDATES = 1 << 16;
+    private static final int CANCELLATION_CHECK_INTERVAL = 4096;
+
+    private static final Metrics.Counter HASHES = Metrics.counter("ddm_hashes_total", "SHA-256 hashes computed per worker type", "worker", "PasswordCrackerWorker");
+
+    private final char[] characters;
+    private final char[] prefix;
+    private final int length;
+    private final byte[] encodedPassword;
+    private final AtomicReference<String> result;
+    private final long traceId;
+    private boolean found; // set by the leaf whose candidates contain the password
+
+    /**
+     * Create a task that cracks a password.
+     * @param characters the characters that can be part of the password
+     * @param length the length of the password
+     * @param encodedPassword the hex encoded SHA-256 digest of the password
+     * @param token the token through which the computation can be cancelled
+     */
+    public PasswordCrackTask(char[] characters, int length, String encodedPassword, CancellationToken token) {
+        this(characters, length, encodedPassword, 0, token);
+    }
+
+    /**
+     * Create a task that cracks a password and tags its {@link CrackShardEvent}s with the trace id of the password.
+     */
+    public PasswordCrackTask(char[] characters, int length, String encodedPassword, long traceId, CancellationToken token) {
+        this(characters, new char[0], length, decode(encodedPassword), new AtomicReference<>(), traceId, token);
+    }
+
+    private PasswordCrackTask(char[] characters, char[] prefix, int length, byte[] encodedPassword, AtomicReference<String> result, long traceId, CancellationToken token) {
+        super(token);
+        this.characters = characters;
+        this.prefix = prefix;
+        this.length = length;
+        this.encodedPassword = encodedPassword;
+        this.result = result;
+        this.traceId = traceId;
+    }
+
+    @Override
+    protected boolean isStopped() {
+        return super.isStopped() || this.result.get() != null;
+    }
+
+    /**
+     * @return the cracked password or {@code null} if no candidate matches
+     */
+    @Override
+    protected String compute() {
+        if (this.isStopped())
+            return this.result.get();
+        int free = this.length - this.prefix.length;
+        if (free == 0 || Math.pow(this.characters.length, free) <= MAX_LEAF_CANDIDATES) {
+            this.enumerate();
+            return this.result.get();
+        }
+
+        List<PasswordCrackTask> subtasks = new ArrayList<>(this.characters.length);
+        for (char character : this.characters) {
+            char[] subPrefix = Arrays.copyOf(this.prefix, this.prefix.length + 1);
+            subPrefix[this.prefix.length] = character;
+            subtasks.add(new PasswordCrackTask(this.characters, subPrefix, this.length, this.encodedPassword, this.result, this.traceId, this.getToken()));
+        }
+        invokeAll(subtasks);
+        return this.result.get();
+    }
+
+    private void enumerate() {
+        if (this.characters.length == 0 && this.prefix.length < this.length)
+            return;
+        CrackShardEvent event = new CrackShardEvent();
+        event.begin();
+        long candidates = this.enumerateCandidates();
+        HASHES.add(candidates);
+        if (event.shouldCommit()) {
+            event.traceId = this.traceId;
+            event.prefix = new String(this.prefix);
+            event.length = this.length;
+            event.candidates = candidates;
+            event.found = this.found;
+            event.commit();
+        }
+    }
+
+    /**
+     * @return the number of candidates that were hashed
+     */
+    private long enumerateCandidates() {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e.getMessage());
+        }
+
+        // Count through all candidates like an odometer over the character indexes behind the prefix
+        char[] candidate = Arrays.copyOf(this.prefix, this.length);
+        int[] indexes = new int[this.length];
+        for (int i = this.prefix.length; i < this.length; i++)
+            candidate[i] = this.characters[0];
+
+        long checked = 0;
+        while (true) {
+            byte[] hash = digest.digest(new String(candidate).getBytes(StandardCharsets.UTF_8));
+            if (Arrays.equals(hash, this.encodedPassword)) {
+                this.found = true;
+                this.result.compareAndSet(null, new String(candidate));
+                return checked + 1;
+            }
+            if (++checked % CANCELLATION_CHECK_INTERVAL == 0 && this.isStopped())
+                return checked;
+
+            int position = this.length - 1;
+            while (position >= this.prefix.length && ++indexes[position] == this.characters.length) {
+                indexes[position] = 0;
+                candidate[position] = this.characters[0];
+                position--;
+            }
+            if (position < this.prefix.length)
+                return checked;
+            candidate[position] = this.characters[indexes[position]];
+        }
+    }
+
+    private static byte[] decode(String hexDigest) {
+        byte[] bytes = new byte[hexDigest.length() / 2];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = (byte) Integer.parseInt(hexDigest.substring(2 * i, 2 * i + 2), 16);
+        return bytes;
+    }
+}
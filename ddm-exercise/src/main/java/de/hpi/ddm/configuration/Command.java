@@ -16,5 +16,23 @@ public abstract class Command {
 
 	@Parameter(names = { "-w", "--numWorkers" }, description = "The number of workers (indexers/validators) to start locally; should be at least one if the algorithm is started standalone (otherwise there are no workers to run the discovery)", required = false)
 	int numWorkers = ConfigurationSingleton.get().getNumWorkers();
+
+	@Parameter(names = { "-hcs", "--hintIndexCacheSize" }, description = "Memory budget (in MB) for the hint indexes that this node keeps per alphabet; least recently used indexes are evicted beyond it", required = false)
+	int hintIndexCacheSize = ConfigurationSingleton.get().getHintIndexCacheSize();
+
+	@Parameter(names = { "-hsp", "--hintIndexSpillPath" }, description = "Directory to which evicted hint indexes are written so that they can be loaded instead of rebuilt; evicted indexes are dropped if not set", required = false)
+	String hintIndexSpillPath = ConfigurationSingleton.get().getHintIndexSpillPath();
+
+	@Parameter(names = { "-hscs", "--hintSolutionCacheSize" }, description = "Number of resolved hints that this node remembers; hints that repeat across passwords are then answered from the cache instead of being brute-forced again", required = false)
+	int hintSolutionCacheSize = ConfigurationSingleton.get().getHintSolutionCacheSize();
+
+	@Parameter(names = { "-ct", "--numComputeThreads" }, description = "The number of threads on which this node's workers hash permutations and brute-force passwords; defaults to the number of cores", required = false)
+	int numComputeThreads = ConfigurationSingleton.get().getNumComputeThreads();
+
+	@Parameter(names = { "-as", "--autoscaling" }, description = "Resize the pools of permutation, brute force and password cracker workers at runtime based on cores, load and queue depths", required = false, arity = 1)
+	boolean autoscaling = ConfigurationSingleton.get().isAutoscaling();
+
+	@Parameter(names = { "-lmcs", "--largeMessageChunkSize" }, description = "Size (in bytes) of the chunks into which the LargeMessageProxy splits large messages; must be the same on all nodes", required = false)
+	int largeMessageChunkSize = ConfigurationSingleton.get().getLargeMessageChunkSize();
 	
 }
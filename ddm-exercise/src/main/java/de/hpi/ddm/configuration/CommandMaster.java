@@ -24,10 +24,19 @@ public class CommandMaster extends Command {
 
 	@Parameter(names = { "-wms", "--welcomeMessageSize" }, description = "Size of the welcome message's data (in MB) with which each worker should be greeted.", required = false)
 	int welcomeDataSize = ConfigurationSingleton.get().getWelcomeDataSize();
+
+	@Parameter(names = { "-mcj", "--maxConcurrentJobs" }, description = "Maximum number of datasets (jobs) that are processed concurrently; further datasets wait until a job finishes", required = false)
+	int maxConcurrentJobs = ConfigurationSingleton.get().getMaxConcurrentJobs();
+
+	@Parameter(names = { "-pbs", "--passwordBatchSize" }, description = "Number of passwords that a worker on a node of average capacity holds at once; workers on faster or less loaded nodes hold proportionally more", required = false)
+	int passwordBatchSize = ConfigurationSingleton.get().getPasswordBatchSize();
+
+	@Parameter(names = { "-crs", "--coordinatorShards" }, description = "Number of password shards over which the master spreads the coordination of password work packages; each shard owns the passwords whose id modulo this number is its index", required = false)
+	int coordinatorShards = ConfigurationSingleton.get().getCoordinatorShards();
 	
 	// DatasetDescriptor
 	
-	@Parameter(names = { "-dn", "--datasetName" }, description = "Dataset name", required = false)
+	@Parameter(names = { "-dn", "--datasetName" }, description = "Dataset name; a comma separated list of names is processed as one job per dataset", required = false)
 	String datasetName = DatasetDescriptorSingleton.get().getDatasetName();
 
 	@Parameter(names = { "-dp", "--datasetPath" }, description = "Dataset path", required = false)
@@ -32,6 +32,8 @@ public class Configuration {
 	private int numPermutationWorkers = 2;
 	private int numBruteForceWorkers = 2;
 	private int numPasswordCrackerWorkers = 1;
+	private boolean autoscaling = true;				// Resize the pools of permutation, brute force and password cracker workers at runtime; the numbers above are then only the initial sizes
+	private int numComputeThreads = Runtime.getRuntime().availableProcessors();	// Size of the pool on which the workers of this node run their hashing and brute-forcing
 	
 	private boolean startPaused = false;			// Wait for some console input to start; useful, if we want to wait manually until all ActorSystems in the cluster are started (e.g. to avoid work stealing effects in performance evaluations)
 	
@@ -40,6 +42,18 @@ public class Configuration {
 	private int largeMessageChunkSize = 8192;       // Size of each message chunk for large messages (LargeMessageProxy) TODO which size?
 
 	private int welcomeDataSize = 0; 				// Size of the welcome message's data (in MB) with which each worker should be greeted
+
+	private int maxConcurrentJobs = 4;				// Maximum number of datasets (jobs) that the master processes concurrently
+	private int passwordBatchSize = 2;				// Number of passwords that a worker on a node of average capacity holds at once; scaled by the node's capacity weight
+	private int coordinatorShards = 4;				// Number of password shards over which the master spreads the coordination of password work packages
+
+	private int hintIndexCacheSize = 2048;			// Memory budget (in MB) for the hint indexes that each node keeps per alphabet
+	private String hintIndexSpillPath = null;		// Directory to which evicted hint indexes are written; evicted indexes are dropped if null
+	private int hintSolutionCacheSize = 100000;	// Number of resolved hints that each node remembers so that repeated hints are not brute-forced again
+
+	private double speculationPercentile = 0.95;	// Latency percentile of a work package type from which the deadline of its leases is derived
+	private double speculationMultiplier = 2.0;		// Factor by which a lease may exceed the percentile latency before it is speculatively re-issued
+	private long speculationMinDeadline = 1000;		// Minimum time (in ms) that a lease is held before it can be re-issued
 	
 	private static String getDefaultHost() {
         try {
@@ -97,6 +111,15 @@ public class Configuration {
 		this.startPaused = commandMaster.startPaused;
 		this.bufferSize = commandMaster.bufferSize;
 		this.welcomeDataSize = commandMaster.welcomeDataSize;
+		this.maxConcurrentJobs = commandMaster.maxConcurrentJobs;
+		this.passwordBatchSize = commandMaster.passwordBatchSize;
+		this.coordinatorShards = commandMaster.coordinatorShards;
+		this.hintIndexCacheSize = commandMaster.hintIndexCacheSize;
+		this.hintIndexSpillPath = commandMaster.hintIndexSpillPath;
+		this.hintSolutionCacheSize = commandMaster.hintSolutionCacheSize;
+		this.numComputeThreads = commandMaster.numComputeThreads;
+		this.autoscaling = commandMaster.autoscaling;
+		this.largeMessageChunkSize = commandMaster.largeMessageChunkSize;
 	}
 
 	private void update(CommandWorker commandWorker) {
@@ -105,6 +128,12 @@ public class Configuration {
 		this.masterHost = commandWorker.masterhost;
 		this.masterPort = commandWorker.masterport;
 		this.numWorkers = commandWorker.numWorkers;
+		this.hintIndexCacheSize = commandWorker.hintIndexCacheSize;
+		this.hintIndexSpillPath = commandWorker.hintIndexSpillPath;
+		this.hintSolutionCacheSize = commandWorker.hintSolutionCacheSize;
+		this.numComputeThreads = commandWorker.numComputeThreads;
+		this.autoscaling = commandWorker.autoscaling;
+		this.largeMessageChunkSize = commandWorker.largeMessageChunkSize;
 	}
 
 	public BloomFilter generateWelcomeData() {
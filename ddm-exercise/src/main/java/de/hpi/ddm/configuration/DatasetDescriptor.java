@@ -9,6 +9,8 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 
 import com.opencsv.CSVParser;
 import com.opencsv.CSVParserBuilder;
@@ -62,8 +64,24 @@ public class DatasetDescriptor implements Serializable {
 		this.readerSkipDifferingLines = commandMaster.readerSkipDifferingLines;
 	}
 
+	/**
+	 * Split this descriptor into one descriptor per dataset, if the dataset name is a comma separated list of names.
+	 * @return a list of descriptors that each describe exactly one dataset
+	 */
+	public List<DatasetDescriptor> split() {
+		List<DatasetDescriptor> descriptors = new ArrayList<>();
+		for (String name : this.datasetName.split(",")) {
+			if (name.trim().isEmpty())
+				continue;
+			descriptors.add(new DatasetDescriptor(name.trim(), this.datasetPath, this.datasetEnding, this.fileHasHeader,
+					this.charset, this.valueSeparator, this.valueQuote, this.valueEscape, this.valueStrictQuotes,
+					this.valueIgnoreLeadingWhitespace, this.readerSkipDifferingLines));
+		}
+		return descriptors;
+	}
+
 	public CSVReader createCSVReader() throws IOException, CsvValidationException {
-		Path path = Paths.get(this.datasetPath + this.datasetName + this.datasetEnding);
+		Path path = Paths.get(this.getDatasetPathNameEnding());
 		
 		CSVParser parser = new CSVParserBuilder()
 				.withSeparator(this.valueSeparator)
@@ -0,0 +1,56 @@
+package de.hpi.ddm.serialization;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import de.hpi.ddm.structures.BitSet;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Writes the words of a {@link BitSet} in bulk: the number of words followed by 8 big-endian bytes per word, copied
+ * through a small scratch buffer so that even a BitSet of several hundred MB never exists a second time as a byte[].
+ * The reader allocates the words array once and fills it in place. Kryo instances are not shared across threads and
+ * the {@link DdmKryoRegistrar} creates one serializer per Kryo instance, so the scratch buffer is not shared either.
+ */
+public class BitSetSerializer extends Serializer<BitSet> {
+
+    private static final int SCRATCH_SIZE = 64 * 1024;
+
+    private final byte[] scratch = new byte[SCRATCH_SIZE];
+    private final ByteBuffer buffer = ByteBuffer.wrap(this.scratch);
+
+    public BitSetSerializer() {
+        super(false, false);
+    }
+
+    @Override
+    public void write(Kryo kryo, Output output, BitSet bits) {
+        int numWords = bits.physicalLength();
+        output.writeVarInt(numWords, true);
+        for (int word = 0; word < numWords; ) {
+            this.buffer.clear();
+            word = bits.writeWords(this.buffer, word);
+            output.writeBytes(this.scratch, 0, this.buffer.position());
+        }
+    }
+
+    @Override
+    public BitSet read(Kryo kryo, Input input, Class<BitSet> type) {
+        BitSet bits = BitSet.withWords(input.readVarInt(true));
+        int numWords = bits.physicalLength();
+        for (int word = 0; word < numWords; ) {
+            int length = Math.min(SCRATCH_SIZE, (numWords - word) * 8);
+            input.readBytes(this.scratch, 0, length);
+            this.buffer.clear().limit(length);
+            word = bits.readWords(this.buffer, word);
+        }
+        return bits;
+    }
+
+    @Override
+    public BitSet copy(Kryo kryo, BitSet original) {
+        return original.clone();
+    }
+}
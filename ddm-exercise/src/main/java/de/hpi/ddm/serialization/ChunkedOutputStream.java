@@ -0,0 +1,74 @@
+package de.hpi.ddm.serialization;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Collects the written bytes in chunks of a fixed size, so that a large serialized message can be sent chunk by chunk
+ * without ever being copied into one contiguous byte[] first. All chunks but the last one are full; closing the
+ * stream trims the last chunk to its length.
+ */
+public class ChunkedOutputStream extends OutputStream {
+
+    private final int chunkSize;
+    private final List<byte[]> chunks = new ArrayList<>();
+    private byte[] chunk;
+    private int position;
+    private int length;
+
+    public ChunkedOutputStream(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public void write(int b) {
+        this.ensureChunk();
+        this.chunk[this.position++] = (byte) b;
+        this.length++;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        while (length > 0) {
+            this.ensureChunk();
+            int count = Math.min(length, this.chunkSize - this.position);
+            System.arraycopy(bytes, offset, this.chunk, this.position, count);
+            this.position += count;
+            this.length += count;
+            offset += count;
+            length -= count;
+        }
+    }
+
+    private void ensureChunk() {
+        if (this.chunk != null && this.position < this.chunkSize)
+            return;
+        this.chunk = new byte[this.chunkSize];
+        this.chunks.add(this.chunk);
+        this.position = 0;
+    }
+
+    @Override
+    public void close() {
+        if (this.chunk != null && this.position < this.chunkSize) {
+            this.chunk = Arrays.copyOf(this.chunk, this.position);
+            this.chunks.set(this.chunks.size() - 1, this.chunk);
+        }
+    }
+
+    /**
+     * @return the chunks in the order in which they were written
+     */
+    public List<byte[]> getChunks() {
+        return this.chunks;
+    }
+
+    /**
+     * @return the number of bytes written into all chunks
+     */
+    public int getLength() {
+        return this.length;
+    }
+}
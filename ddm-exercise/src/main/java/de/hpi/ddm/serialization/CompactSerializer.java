@@ -0,0 +1,58 @@
+package de.hpi.ddm.serialization;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+import java.util.function.Supplier;
+
+/**
+ * A hand-written Kryo serializer assembled from a writer and a reader function, so that the serializers of all ddm
+ * types fit into the {@link DdmKryoRegistrar} next to their class IDs. Fields are written in declaration order and
+ * without any field names or class names; the reader must consume them in the same order.
+ *
+ * @param <T> the type that is serialized
+ */
+public class CompactSerializer<T> extends Serializer<T> {
+
+    @FunctionalInterface
+    public interface Writer<T> {
+        void write(Kryo kryo, Output output, T object);
+    }
+
+    @FunctionalInterface
+    public interface Reader<T> {
+        T read(Kryo kryo, Input input);
+    }
+
+    private final Writer<T> writer;
+    private final Reader<T> reader;
+
+    public CompactSerializer(Writer<T> writer, Reader<T> reader) {
+        // Immutable means "do not copy", and none of our messages are copied by Kryo anyway
+        super(false, true);
+        this.writer = writer;
+        this.reader = reader;
+    }
+
+    /**
+     * Create a serializer for a message without any fields, which costs nothing but its class ID on the wire.
+     * @param constructor creates an instance of the message
+     * @param <T> the type of the message
+     * @return the serializer
+     */
+    public static <T> CompactSerializer<T> empty(Supplier<T> constructor) {
+        return new CompactSerializer<>((kryo, output, object) -> {}, (kryo, input) -> constructor.get());
+    }
+
+    @Override
+    public void write(Kryo kryo, Output output, T object) {
+        this.writer.write(kryo, output, object);
+    }
+
+    @Override
+    public T read(Kryo kryo, Input input, Class<T> type) {
+        return this.reader.read(kryo, input);
+    }
+}
@@ -0,0 +1,26 @@
+package de.hpi.ddm.serialization;
+
+import akka.actor.ExtendedActorSystem;
+import com.twitter.chill.KryoInstantiator;
+import com.twitter.chill.akka.AkkaSerializer;
+
+/**
+ * Akka serializer for all {@link java.io.Serializable} messages: chill's Kryo setup for Scala and {@code ActorRef}s
+ * plus the registrations of all ddm types, with one pooled Kryo instance per core.
+ */
+public class DdmAkkaSerializer extends AkkaSerializer {
+
+    public DdmAkkaSerializer(ExtendedActorSystem system) {
+        super(system);
+    }
+
+    @Override
+    public KryoInstantiator kryoInstantiator() {
+        return super.kryoInstantiator().withRegistrar(new DdmKryoRegistrar());
+    }
+
+    @Override
+    public int poolSize() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+}
@@ -0,0 +1,433 @@
+package de.hpi.ddm.serialization;
+
+import akka.actor.ActorRef;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.twitter.chill.IKryoRegistrar;
+import de.hpi.ddm.actors.*;
+import de.hpi.ddm.actors.monitoring.PriorityMailbox;
+import de.hpi.ddm.actors.scheduling.PoolSizer.Pool;
+import de.hpi.ddm.structures.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Registers all ddm structures and messages with Kryo under fixed class IDs and with hand-written serializers. With
+ * a registration in place, Kryo writes a varint ID instead of the fully qualified class name and skips its reflective
+ * field serializer. Every node must register the same classes under the same IDs, so new classes are only ever
+ * appended and IDs are never reused. Actor-private messages that never leave their JVM are not registered.
+ */
+public class DdmKryoRegistrar implements IKryoRegistrar {
+
+    private static final long serialVersionUID = -5306432891277481546L;
+
+    /** Well above the IDs that Kryo and chill's Scala registrations assign themselves. */
+    public static final int FIRST_ID = 1000;
+
+    private static final Pool[] POOLS = Pool.values();
+    private static final int DIGEST_LENGTH = 64;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private int nextId;
+
+    @Override
+    public void apply(Kryo kryo) {
+        this.nextId = FIRST_ID;
+
+        // Structures
+        this.register(kryo, BitSet.class, new BitSetSerializer());
+        this.register(kryo, BloomFilter.class, new CompactSerializer<>(
+                (k, out, filter) -> {
+                    out.writeInt(filter.getSize());
+                    out.writeVarInt(filter.getNumHashes(), true);
+                    k.writeObject(out, filter.getBits());
+                },
+                (k, in) -> {
+                    BloomFilter filter = new BloomFilter();
+                    filter.setSize(in.readInt());
+                    filter.setNumHashes(in.readVarInt(true));
+                    filter.setBits(k.readObject(in, BitSet.class));
+                    return filter;
+                }));
+        this.register(kryo, PasswordWorkPackage.class, new CompactSerializer<>(
+                DdmKryoRegistrar::writePasswordWorkPackage,
+                DdmKryoRegistrar::readPasswordWorkPackage));
+        this.register(kryo, PermutationWorkPackage.class, new CompactSerializer<>(
+                DdmKryoRegistrar::writePermutationWorkPackage,
+                DdmKryoRegistrar::readPermutationWorkPackage));
+        this.register(kryo, BruteForceWorkPackage.class, new CompactSerializer<>(
+                (k, out, workPackage) -> {
+                    out.writeVarInt(workPackage.getJobId(), true);
+                    out.writeVarInt(workPackage.getPasswordId(), true);
+                    out.writeString(workPackage.getPasswordChars());
+                    writeText(out, workPackage.getHint());
+                    out.writeVarInt(workPackage.getHintPosition(), true);
+                    out.writeVarLong(workPackage.getTraceId(), true);
+                },
+                (k, in) -> new BruteForceWorkPackage(in.readVarInt(true), in.readVarInt(true), in.readString(), readText(in), in.readVarInt(true), in.readVarLong(true))));
+        this.register(kryo, HintResult.class, new CompactSerializer<>(
+                DdmKryoRegistrar::writeHintResult,
+                DdmKryoRegistrar::readHintResult));
+
+        // Master
+        this.register(kryo, Master.StartMessage.class, CompactSerializer.empty(Master.StartMessage::new));
+        this.register(kryo, Master.BatchMessage.class, new CompactSerializer<>(
+                (k, out, message) -> {
+                    out.writeVarInt(message.getJobId(), true);
+                    out.writeVarInt(message.getLines().size(), true);
+                    for (String[] line : message.getLines()) {
+                        out.writeVarInt(line.length, true);
+                        for (String value : line)
+                            writeText(out, value);
+                    }
+                    out.writeVarLong(message.getReadTime(), true);
+                },
+                (k, in) -> {
+                    int jobId = in.readVarInt(true);
+                    int numLines = in.readVarInt(true);
+                    List<String[]> lines = new ArrayList<>(numLines);
+                    for (int i = 0; i < numLines; i++) {
+                        String[] line = new String[in.readVarInt(true)];
+                        for (int j = 0; j < line.length; j++)
+                            line[j] = readText(in);
+                        lines.add(line);
+                    }
+                    return new Master.BatchMessage(jobId, lines, in.readVarLong(true));
+                }));
+        this.register(kryo, Master.RegistrationMessage.class, CompactSerializer.empty(Master.RegistrationMessage::new));
+        this.register(kryo, Master.WorkerWorkRequestMessage.class, CompactSerializer.empty(Master.WorkerWorkRequestMessage::new));
+        this.nextId++; // formerly Master.PermutationWorkPackageRequest
+        this.register(kryo, Master.PermutationsReadyMessage.class, new CompactSerializer<>(
+                (k, out, message) -> out.writeString(message.getAlphabet()),
+                (k, in) -> new Master.PermutationsReadyMessage(in.readString())));
+        this.register(kryo, Master.PermutationsEvictedMessage.class, new CompactSerializer<>(
+                (k, out, message) -> out.writeString(message.getAlphabet()),
+                (k, in) -> new Master.PermutationsEvictedMessage(in.readString())));
+        this.register(kryo, Master.LeaseCheckMessage.class, CompactSerializer.empty(Master.LeaseCheckMessage::new));
+        this.register(kryo, Master.KillTheSystemMessage.class, CompactSerializer.empty(Master.KillTheSystemMessage::new));
+
+        // Worker
+        this.register(kryo, Worker.WelcomeMessage.class, new CompactSerializer<>(
+                (k, out, message) -> k.writeObjectOrNull(out, message.getWelcomeData(), BloomFilter.class),
+                (k, in) -> new Worker.WelcomeMessage(k.readObjectOrNull(in, BloomFilter.class))));
+        this.register(kryo, Worker.PasswordWorkPackageMessage.class, new CompactSerializer<>(
+                (k, out, message) -> writePasswordWorkPackage(k, out, message.getPasswordWorkpackage()),
+                (k, in) -> new Worker.PasswordWorkPackageMessage(readPasswordWorkPackage(k, in))));
+        this.register(kryo, Worker.BruteForceWorkerWorkRequestMessage.class, CompactSerializer.empty(Worker.BruteForceWorkerWorkRequestMessage::new));
+        this.register(kryo, Worker.PasswordCrackerWorkRequestMessage.class, CompactSerializer.empty(Worker.PasswordCrackerWorkRequestMessage::new));
+        this.register(kryo, Worker.BruteForceResultMessage.class, new CompactSerializer<>(
+                (k, out, message) -> {
+                    writeHintResult(k, out, message.getHintResult());
+                    out.writeVarInt(message.getHintPosition(), true);
+                },
+                (k, in) -> new Worker.BruteForceResultMessage(readHintResult(k, in), in.readVarInt(true))));
+        this.register(kryo, Worker.PasswordCrackerResultMessage.class, new CompactSerializer<>(
+                (k, out, message) -> {
+                    out.writeVarInt(message.getJobId(), true);
+                    out.writeVarInt(message.getPasswordId(), true);
+                    out.writeString(message.getCrackedPassword());
+                    writeTrace(out, message.getTrace());
+                },
+                (k, in) -> new Worker.PasswordCrackerResultMessage(in.readVarInt(true), in.readVarInt(true), in.readString(), readTrace(in))));
+
+        // Workers of the pipeline
+        this.register(kryo, BruteForceWorker.HintMessage.class, new CompactSerializer<>(
+                (k, out, message) -> k.writeObject(out, message.getBruteForceWorkPackage()),
+                (k, in) -> new BruteForceWorker.HintMessage(k.readObject(in, BruteForceWorkPackage.class))));
+        this.register(kryo, PasswordCrackerWorker.PasswordAndSolvedHintsMessage.class, new CompactSerializer<>(
+                (k, out, message) -> {
+                    writePasswordWorkPackage(k, out, message.getPasswordWorkpackage());
+                    out.writeVarInt(message.getHintResults().size(), true);
+                    for (HintResult hintResult : message.getHintResults())
+                        writeHintResult(k, out, hintResult);
+                },
+                (k, in) -> {
+                    PasswordWorkPackage passwordWorkPackage = readPasswordWorkPackage(k, in);
+                    int numHintResults = in.readVarInt(true);
+                    List<HintResult> hintResults = new ArrayList<>(numHintResults);
+                    for (int i = 0; i < numHintResults; i++)
+                        hintResults.add(readHintResult(k, in));
+                    return new PasswordCrackerWorker.PasswordAndSolvedHintsMessage(passwordWorkPackage, hintResults);
+                }));
+        this.register(kryo, PermutationWorker.PermutationWorkMessage.class, new CompactSerializer<>(
+                (k, out, message) -> writePermutationWorkPackage(k, out, message.getPermutationWorkPackage()),
+                (k, in) -> new PermutationWorker.PermutationWorkMessage(readPermutationWorkPackage(k, in))));
+        this.register(kryo, PermutationHandler.PermutationWorkPackagesMessage.class, new CompactSerializer<>(
+                (k, out, message) -> {
+                    // All packages of an alphabet share it, so it is only written when it changes
+                    String alphabet = null;
+                    out.writeVarInt(message.getPermutationWorkPackages().size(), true);
+                    for (PermutationWorkPackage workPackage : message.getPermutationWorkPackages()) {
+                        out.writeChar(workPackage.getHead());
+                        out.writeChar(workPackage.getHead2());
+                        boolean newAlphabet = !workPackage.getPasswordChars().equals(alphabet);
+                        out.writeBoolean(newAlphabet);
+                        if (newAlphabet)
+                            out.writeString(alphabet = workPackage.getPasswordChars());
+                    }
+                },
+                (k, in) -> {
+                    String alphabet = null;
+                    int numWorkPackages = in.readVarInt(true);
+                    List<PermutationWorkPackage> workPackages = new ArrayList<>(numWorkPackages);
+                    for (int i = 0; i < numWorkPackages; i++) {
+                        char head = in.readChar();
+                        char head2 = in.readChar();
+                        if (in.readBoolean())
+                            alphabet = in.readString();
+                        workPackages.add(new PermutationWorkPackage(head, head2, alphabet));
+                    }
+                    return new PermutationHandler.PermutationWorkPackagesMessage(workPackages);
+                }));
+        this.register(kryo, PermutationHandler.PermutationResultMessage.class, new CompactSerializer<>(
+                (k, out, message) -> {
+                    out.writeChar(message.getHead());
+                    out.writeChar(message.getHead2());
+                    out.writeString(message.getPasswordChars());
+                },
+                (k, in) -> new PermutationHandler.PermutationResultMessage(in.readChar(), in.readChar(), in.readString())));
+        this.register(kryo, PermutationHandler.PermutationWorkRequest.class, CompactSerializer.empty(PermutationHandler.PermutationWorkRequest::new));
+
+        // Infrastructure
+        this.register(kryo, Collector.PrintMessage.class, CompactSerializer.empty(Collector.PrintMessage::new));
+        this.register(kryo, Reaper.WatchMeMessage.class, CompactSerializer.empty(Reaper.WatchMeMessage::new));
+        this.register(kryo, Reader.ReadMessage.class, CompactSerializer.empty(Reader.ReadMessage::new));
+        this.register(kryo, Reader.StopReadMessage.class, CompactSerializer.empty(Reader.StopReadMessage::new));
+        this.registerGeneric(kryo, LargeMessageProxy.LargeMessage.class, new CompactSerializer<LargeMessageProxy.LargeMessage<?>>(
+                (k, out, message) -> {
+                    k.writeClassAndObject(out, message.getMessage());
+                    k.writeClassAndObject(out, message.getReceiver());
+                },
+                (k, in) -> new LargeMessageProxy.LargeMessage<>(k.readClassAndObject(in), (ActorRef) k.readClassAndObject(in))));
+        this.registerGeneric(kryo, LargeMessageProxy.BytesMessage.class, new CompactSerializer<LargeMessageProxy.BytesMessage<?>>(
+                (k, out, message) -> {
+                    k.writeClassAndObject(out, message.getBytes());
+                    k.writeClassAndObject(out, message.getSender());
+                    k.writeClassAndObject(out, message.getReceiver());
+                    out.writeVarInt(message.getMessageLength(), true);
+                    out.writeVarInt(message.getChunkOffset(), true);
+                    out.writeString(message.getMessageId());
+                },
+                (k, in) -> new LargeMessageProxy.BytesMessage<>(k.readClassAndObject(in), (ActorRef) k.readClassAndObject(in), (ActorRef) k.readClassAndObject(in), in.readVarInt(true), in.readVarInt(true), in.readString())));
+        this.register(kryo, LargeMessageProxy.AckMessage.class, new CompactSerializer<>(
+                (k, out, message) -> {
+                    out.writeString(message.getMessageId());
+                    out.writeVarInt(message.getChunkOffset(), true);
+                },
+                (k, in) -> new LargeMessageProxy.AckMessage(in.readString(), in.readVarInt(true))));
+        this.register(kryo, Autoscaler.PoolDemandMessage.class, new CompactSerializer<>(
+                (k, out, message) -> {
+                    out.writeVarInt(message.getPool().ordinal(), true);
+                    out.writeVarInt(message.getDemand(), true);
+                },
+                (k, in) -> new Autoscaler.PoolDemandMessage(POOLS[in.readVarInt(true)], in.readVarInt(true))));
+        this.register(kryo, Autoscaler.PoolSizeMessage.class, new CompactSerializer<>(
+                (k, out, message) -> {
+                    out.writeVarInt(message.getPool().ordinal(), true);
+                    out.writeVarInt(message.getSize(), true);
+                },
+                (k, in) -> new Autoscaler.PoolSizeMessage(POOLS[in.readVarInt(true)], in.readVarInt(true))));
+        this.register(kryo, Autoscaler.ReportDemandMessage.class, CompactSerializer.empty(Autoscaler.ReportDemandMessage::new));
+
+        // Hint index snapshots
+        this.register(kryo, HintIndex.class, new CompactSerializer<>(
+                (k, out, hintIndex) -> {
+                    try {
+                        hintIndex.writeTo(out);
+                    } catch (IOException e) {
+                        throw new KryoException(e);
+                    }
+                },
+                (k, in) -> {
+                    try {
+                        return HintIndex.readFrom(in);
+                    } catch (IOException e) {
+                        throw new KryoException(e);
+                    }
+                }));
+        this.register(kryo, PermutationHandler.HintIndexRequestMessage.class, new CompactSerializer<>(
+                (k, out, message) -> {
+                    out.writeString(message.getAlphabet());
+                    k.writeClassAndObject(out, message.getReceiver());
+                },
+                (k, in) -> new PermutationHandler.HintIndexRequestMessage(in.readString(), (ActorRef) k.readClassAndObject(in))));
+        this.register(kryo, PermutationHandler.HintIndexSnapshotMessage.class, new CompactSerializer<>(
+                (k, out, message) -> {
+                    out.writeString(message.getAlphabet());
+                    k.writeObjectOrNull(out, message.getHintIndex(), HintIndex.class);
+                },
+                (k, in) -> new PermutationHandler.HintIndexSnapshotMessage(in.readString(), k.readObjectOrNull(in, HintIndex.class))));
+
+        // Hint solutions
+        this.register(kryo, Master.SolvedHintsMessage.class, new CompactSerializer<>(
+                (k, out, message) -> {
+                    out.writeVarInt(message.getKeys().length, true);
+                    for (int i = 0; i < message.getKeys().length; i++) {
+                        out.writeString(message.getKeys()[i]);
+                        out.writeChar(message.getLetters()[i]);
+                    }
+                },
+                (k, in) -> {
+                    String[] keys = new String[in.readVarInt(true)];
+                    char[] letters = new char[keys.length];
+                    for (int i = 0; i < keys.length; i++) {
+                        keys[i] = in.readString();
+                        letters[i] = in.readChar();
+                    }
+                    return new Master.SolvedHintsMessage(keys, letters);
+                }));
+
+        // Returned passwords
+        this.register(kryo, Master.PasswordReturnedMessage.class, new CompactSerializer<>(
+                (k, out, message) -> {
+                    out.writeVarInt(message.getJobId(), true);
+                    out.writeVarInt(message.getPasswordId(), true);
+                },
+                (k, in) -> new Master.PasswordReturnedMessage(in.readVarInt(true), in.readVarInt(true))));
+
+        // Rejected work
+        this.register(kryo, PriorityMailbox.WorkRejectedMessage.class, new CompactSerializer<>(
+                (k, out, message) -> {
+                    k.writeClassAndObject(out, message.getMessage());
+                    k.writeClassAndObject(out, message.getReceiver());
+                },
+                (k, in) -> new PriorityMailbox.WorkRejectedMessage(k.readClassAndObject(in), (ActorRef) k.readClassAndObject(in))));
+    }
+
+    private <T> void register(Kryo kryo, Class<T> type, Serializer<T> serializer) {
+        kryo.register(type, serializer, this.nextId++);
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private void registerGeneric(Kryo kryo, Class type, CompactSerializer<?> serializer) {
+        kryo.register(type, serializer, this.nextId++);
+    }
+
+    private static void writePasswordWorkPackage(Kryo kryo, Output output, PasswordWorkPackage workPackage) {
+        output.writeVarInt(workPackage.getJobId(), true);
+        output.writeVarInt(workPackage.getId(), true);
+        output.writeString(workPackage.getName());
+        output.writeString(workPackage.getPasswordCharacters());
+        output.writeVarInt(workPackage.getPasswordLength(), true);
+        writeText(output, workPackage.getPassword());
+        output.writeVarInt(workPackage.getHints().length, true);
+        for (String hint : workPackage.getHints())
+            writeText(output, hint);
+        writeTrace(output, workPackage.getTrace());
+    }
+
+    private static PasswordWorkPackage readPasswordWorkPackage(Kryo kryo, Input input) {
+        PasswordWorkPackage workPackage = new PasswordWorkPackage();
+        workPackage.setJobId(input.readVarInt(true));
+        workPackage.setId(input.readVarInt(true));
+        workPackage.setName(input.readString());
+        workPackage.setPasswordCharacters(input.readString());
+        workPackage.setPasswordLength(input.readVarInt(true));
+        workPackage.setPassword(readText(input));
+        String[] hints = new String[input.readVarInt(true)];
+        for (int i = 0; i < hints.length; i++)
+            hints[i] = readText(input);
+        workPackage.setHints(hints);
+        workPackage.setTrace(readTrace(input));
+        return workPackage;
+    }
+
+    private static void writePermutationWorkPackage(Kryo kryo, Output output, PermutationWorkPackage workPackage) {
+        output.writeChar(workPackage.getHead());
+        output.writeChar(workPackage.getHead2());
+        output.writeString(workPackage.getPasswordChars());
+    }
+
+    private static PermutationWorkPackage readPermutationWorkPackage(Kryo kryo, Input input) {
+        return new PermutationWorkPackage(input.readChar(), input.readChar(), input.readString());
+    }
+
+    private static void writeHintResult(Kryo kryo, Output output, HintResult hintResult) {
+        output.writeVarInt(hintResult.getJobId(), true);
+        output.writeVarInt(hintResult.getPasswordId(), true);
+        output.writeChar(hintResult.getLetter());
+        writeText(output, hintResult.getEncodedHint());
+        output.writeVarLong(hintResult.getTraceId(), true);
+        output.writeVarLong(hintResult.getSolveTime(), true);
+    }
+
+    private static HintResult readHintResult(Kryo kryo, Input input) {
+        return new HintResult(input.readVarInt(true), input.readVarInt(true), input.readChar(), readText(input), input.readVarLong(true), input.readVarLong(true));
+    }
+
+    /**
+     * Traces are optional; they are written inline as the id and the stage durations.
+     */
+    static void writeTrace(Output output, Trace trace) {
+        output.writeBoolean(trace != null);
+        if (trace == null)
+            return;
+        output.writeVarLong(trace.getId(), true);
+        output.writeVarInt(trace.getDurations().length, true);
+        for (long duration : trace.getDurations())
+            output.writeVarLong(duration, true);
+    }
+
+    static Trace readTrace(Input input) {
+        if (!input.readBoolean())
+            return null;
+        long id = input.readVarLong(true);
+        long[] durations = new long[input.readVarInt(true)];
+        for (int i = 0; i < durations.length; i++)
+            durations[i] = input.readVarLong(true);
+        return new Trace(id, durations);
+    }
+
+    /**
+     * Write a string that is usually a hex encoded SHA-256 digest, as passwords and hints are, in half the bytes.
+     * Other strings are written as they are.
+     */
+    static void writeText(Output output, String text) {
+        byte[] digest = toDigest(text);
+        output.writeBoolean(digest != null);
+        if (digest != null)
+            output.writeBytes(digest);
+        else
+            output.writeString(text);
+    }
+
+    static String readText(Input input) {
+        if (!input.readBoolean())
+            return input.readString();
+        byte[] digest = input.readBytes(DIGEST_LENGTH / 2);
+        char[] text = new char[DIGEST_LENGTH];
+        for (int i = 0; i < digest.length; i++) {
+            text[2 * i] = HEX[(digest[i] >>> 4) & 0xf];
+            text[2 * i + 1] = HEX[digest[i] & 0xf];
+        }
+        return new String(text);
+    }
+
+    private static byte[] toDigest(String text) {
+        if (text == null || text.length() != DIGEST_LENGTH)
+            return null;
+        byte[] digest = new byte[DIGEST_LENGTH / 2];
+        for (int i = 0; i < digest.length; i++) {
+            int high = nibble(text.charAt(2 * i));
+            int low = nibble(text.charAt(2 * i + 1));
+            if (high < 0 || low < 0)
+                return null;
+            digest[i] = (byte) ((high << 4) | low);
+        }
+        return digest;
+    }
+
+    private static int nibble(char c) {
+        // Only lower case digits round-trip exactly
+        if (c >= '0' && c <= '9')
+            return c - '0';
+        if (c >= 'a' && c <= 'f')
+            return c - 'a' + 10;
+        return -1;
+    }
+}
@@ -0,0 +1,18 @@
+package de.hpi.ddm.singletons;
+
+import de.hpi.ddm.compute.ComputeService;
+
+public class ComputeSingleton {
+
+	private static ComputeService computeService;
+
+	public static synchronized ComputeService get() {
+		if (computeService == null)
+			computeService = new ComputeService(Math.max(1, ConfigurationSingleton.get().getNumComputeThreads()));
+		return computeService;
+	}
+
+	public static synchronized void set(ComputeService instance) {
+		computeService = instance;
+	}
+}
@@ -1,19 +1,33 @@
 package de.hpi.ddm.singletons;
 
+import com.esotericsoftware.kryo.Kryo;
 import com.twitter.chill.KryoInstantiator;
 import com.twitter.chill.KryoPool;
 
+import de.hpi.ddm.serialization.DdmKryoRegistrar;
+
 public class KryoPoolSingleton {
 
-	private static final int POOL_SIZE = 10;
+	// Every thread that (de-)serializes concurrently needs its own Kryo instance, which is at most one per core
+	private static final int POOL_SIZE = Runtime.getRuntime().availableProcessors();
+	private static final KryoInstantiator kryoInstantiator;
 	private static final KryoPool kryo;
 
 	static {
-		KryoInstantiator kryoInstantiator = new KryoInstantiator();
+		kryoInstantiator = new KryoInstantiator().withRegistrar(new DdmKryoRegistrar());
 		kryo = KryoPool.withByteArrayOutputStream(POOL_SIZE, kryoInstantiator);
 	}
 
 	public static KryoPool get() {
 		return kryo;
 	}
+
+	/**
+	 * Create a Kryo instance with the same registrations as the pool for an owner that streams its own Inputs and
+	 * Outputs, e.g., an actor. The instance must not be shared across threads.
+	 * @return a new Kryo instance
+	 */
+	public static Kryo newKryo() {
+		return kryoInstantiator.newKryo();
+	}
 }
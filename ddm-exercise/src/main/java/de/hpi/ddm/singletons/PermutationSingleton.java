@@ -1,17 +1,48 @@
 package de.hpi.ddm.singletons;
 
+import java.io.File;
 import java.util.*;
 
-import static java.util.Collections.*;
+import de.hpi.ddm.configuration.Configuration;
+import de.hpi.ddm.structures.HintIndexCache;
+import de.hpi.ddm.structures.HintSolutionCache;
 
 public class PermutationSingleton {
-    private static final List<String> permutations = synchronizedList(new ArrayList<>());
 
-    public static List<String> getPermutations() {
-        return permutations;
+    private static HintIndexCache cache;
+    private static HintSolutionCache solutions;
+
+    /**
+     * Normalize the given password characters so that alphabets with the same characters in a different order share
+     * their permutations.
+     * @param passwordChars the password characters as given in the input data
+     * @return the sorted password characters
+     */
+    public static String alphabet(String passwordChars) {
+        char[] chars = passwordChars.toCharArray();
+        Arrays.sort(chars);
+        return new String(chars);
+    }
+
+    public static synchronized HintIndexCache get() {
+        if (cache == null) {
+            Configuration c = ConfigurationSingleton.get();
+            File spillDirectory = (c.getHintIndexSpillPath() == null) ? null : new File(c.getHintIndexSpillPath());
+            cache = new HintIndexCache((long) c.getHintIndexCacheSize() * 1024 * 1024, spillDirectory);
+        }
+        return cache;
+    }
+
+    public static synchronized void set(HintIndexCache instance) {
+        cache = instance;
     }
 
-    public static void addPermutation(String permutationsPart) {
-        permutations.add(permutationsPart);
+    /**
+     * @return the solutions of the hints that this node resolved or learned from other nodes
+     */
+    public static synchronized HintSolutionCache solutions() {
+        if (solutions == null)
+            solutions = new HintSolutionCache(ConfigurationSingleton.get().getHintSolutionCacheSize());
+        return solutions;
     }
 }
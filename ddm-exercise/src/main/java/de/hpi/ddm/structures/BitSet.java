@@ -4,6 +4,10 @@ import java.io.Serializable;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.RecursiveAction;
+
+import de.hpi.ddm.compute.ComputeService;
+import de.hpi.ddm.singletons.ComputeSingleton;
 
 public class BitSet implements Cloneable, Serializable {
 
@@ -13,6 +17,7 @@ public class BitSet implements Cloneable, Serializable {
 	private final static int BITS_PER_WORD = 1 << BITSHIFTS_TO_WORD_SIZE;
 	private final static int BYTES_PER_WORD = 8;
 	private final static long WORD_MASK = 0xffffffffffffffffL;
+	private final static int PARALLEL_LEAF_WORDS = 1 << 16; // 512 KB per fork-join leaf
 	
 	private long[] words;
 
@@ -55,26 +60,57 @@ public class BitSet implements Cloneable, Serializable {
 	}
 
 	public static BitSet fromBinary(ByteBuffer buffer) {
-		long[] words = new long[buffer.getInt()];
-		for (int i = 0; i < words.length; i++)
-			words[i] = buffer.getLong();
-		return new BitSet(words);
+		BitSet set = BitSet.withWords(buffer.getInt());
+		set.readWords(buffer, 0);
+		return set;
 	}
 
 	public byte[] toBinary() {
 		byte[] bytes = new byte[this.binarySize()];
-		ByteBuffer buffer = ByteBuffer.wrap(bytes);
-		
-		buffer.putInt(this.words.length);
-		for (int i = 0; i < this.words.length; i++)
-			buffer.putLong(this.words[i]);
+		this.toBinary(ByteBuffer.wrap(bytes));
 		return bytes;
 	}
 	
 	public void toBinary(ByteBuffer buffer) {
 		buffer.putInt(this.words.length);
-		for (int i = 0; i < this.words.length; i++)
-			buffer.putLong(this.words[i]);
+		this.writeWords(buffer, 0);
+	}
+
+	/**
+	 * Construct a new {@code BitSet} with the given number of words that are all zero, e.g., to be filled with {@link #readWords(ByteBuffer, int)}.
+	 * @param numWords is the length of the internal words array
+	 * @return a new {@code BitSet} instance with the given number of words
+	 */
+	public static BitSet withWords(int numWords) {
+		BitSet set = new BitSet();
+		set.words = new long[numWords];
+		return set;
+	}
+
+	/**
+	 * Bulk copy as many words as fit into the buffer, starting at the given word, into the buffer.
+	 * @param buffer to copy the words into; its byte order determines the byte order of the words
+	 * @param fromWord is the index of the first word to be copied
+	 * @return the index after the last word that was copied
+	 */
+	public int writeWords(ByteBuffer buffer, int fromWord) {
+		int count = Math.min(buffer.remaining() / BYTES_PER_WORD, this.words.length - fromWord);
+		buffer.asLongBuffer().put(this.words, fromWord, count);
+		buffer.position(buffer.position() + count * BYTES_PER_WORD);
+		return fromWord + count;
+	}
+
+	/**
+	 * Bulk copy as many words as the buffer holds, starting at the given word, into this {@code BitSet}.
+	 * @param buffer to copy the words from; its byte order determines the byte order of the words
+	 * @param fromWord is the index of the first word to be overwritten
+	 * @return the index after the last word that was overwritten
+	 */
+	public int readWords(ByteBuffer buffer, int fromWord) {
+		int count = Math.min(buffer.remaining() / BYTES_PER_WORD, this.words.length - fromWord);
+		buffer.asLongBuffer().get(this.words, fromWord, count);
+		buffer.position(buffer.position() + count * BYTES_PER_WORD);
+		return fromWord + count;
 	}
 	
 	/**
@@ -154,6 +190,43 @@ public class BitSet implements Cloneable, Serializable {
 		this.words[wordIndex] &= ~(1L << bitIndex);
 	}
 
+	/**
+	 * Set the bits at all the specified indices to {@code true}.
+	 * The indices must be sorted ascending, so that the words are written in memory order and all bits that fall into the same word are set with a single write.
+	 * @param bitIndices are the sorted indices of the bits to be set
+	 * @param count is the number of indices to be used from the array
+	 */
+	public void setAll(int[] bitIndices, int count) {
+		if (count == 0)
+			return;
+		int wordIndex = wordIndex(bitIndices[0]);
+		long mask = 0;
+		for (int i = 0; i < count; i++) {
+			int nextWordIndex = wordIndex(bitIndices[i]);
+			if (nextWordIndex != wordIndex) {
+				this.words[wordIndex] |= mask;
+				wordIndex = nextWordIndex;
+				mask = 0;
+			}
+			mask |= (1L << bitIndices[i]);
+		}
+		this.words[wordIndex] |= mask;
+	}
+
+	/**
+	 * Return {@code true} if the bits at all the specified indices are set.
+	 * The indices should be sorted ascending, so that the words are read in memory order.
+	 * @param bitIndices are the indices of the bits to be tested
+	 * @param count is the number of indices to be used from the array
+	 * @return {@code true} if all the bits are set; {@code false} otherwise
+	 */
+	public boolean getAll(int[] bitIndices, int count) {
+		for (int i = 0; i < count; i++)
+			if ((this.words[wordIndex(bitIndices[i])] & (1L << bitIndices[i])) == 0)
+				return false;
+		return true;
+	}
+
 	/**
 	 * Set all the bits in this BitSet to {@code false}.
 	 */
@@ -336,6 +409,31 @@ public class BitSet implements Cloneable, Serializable {
 		return cardinality;
 	}
 
+	/**
+	 * Calculate the number of bits set to {@code true} from the specified {@code fromIndex} (inclusive) to the specified {@code toIndex} (exclusive).
+	 * @param fromIndex is the index of the first bit to be counted
+	 * @param toIndex is the index after the last bit to be counted
+	 * @return the number of bits set to {@code true} in the range
+	 */
+	public int cardinality(int fromIndex, int toIndex) {
+		if (fromIndex >= toIndex)
+			return 0;
+
+		int startWordIndex = wordIndex(fromIndex);
+		int endWordIndex = wordIndex(toIndex - 1);
+		
+		long firstWordMask = WORD_MASK << fromIndex;
+		long lastWordMask = WORD_MASK >>> -toIndex;
+		
+		if (startWordIndex == endWordIndex)
+			return Long.bitCount(this.words[startWordIndex] & firstWordMask & lastWordMask);
+		
+		int cardinality = Long.bitCount(this.words[startWordIndex] & firstWordMask);
+		for (int i = startWordIndex + 1; i < endWordIndex; i++)
+			cardinality += Long.bitCount(this.words[i]);
+		return cardinality + Long.bitCount(this.words[endWordIndex] & lastWordMask);
+	}
+
 	/**
 	 * Return true if this {@code BitSet} contains no bits that are set to {@code true}.
 	 * @return {@code true} if this {@code BitSet} is empty; {@code false} otherwise
@@ -424,6 +522,71 @@ public class BitSet implements Cloneable, Serializable {
 			this.words[i] &= ~set.words[i];
 	}
 
+	/**
+	 * Perform a logical <b>OR</b> like {@link #or(BitSet)}, but split the words of large {@code BitSet}s into chunks that are combined in parallel on the node's {@link ComputeService}.
+	 * @param set is the {@code BitSet} to perform the or-operation with
+	 */
+	public void parallelOr(BitSet set) {
+		this.ensureCompatibility(set);
+		if (this == set)
+			return;
+
+		ComputeSingleton.get().invoke(new WordOperation(this.words, set.words, WordOperation.OR, 0, this.words.length));
+	}
+
+	/**
+	 * Perform a logical <b>AND</b> like {@link #and(BitSet)}, but split the words of large {@code BitSet}s into chunks that are combined in parallel on the node's {@link ComputeService}.
+	 * @param set is the {@code BitSet} to perform the and-operation with
+	 */
+	public void parallelAnd(BitSet set) {
+		this.ensureCompatibility(set);
+		if (this == set)
+			return;
+
+		ComputeSingleton.get().invoke(new WordOperation(this.words, set.words, WordOperation.AND, 0, this.words.length));
+	}
+
+	/**
+	 * Combines a range of words of two words arrays, forking into halves until a range is small enough for one thread.
+	 */
+	private static class WordOperation extends RecursiveAction {
+
+		private static final long serialVersionUID = -6914279355095423818L;
+
+		private static final int OR = 0;
+		private static final int AND = 1;
+
+		private final long[] target;
+		private final long[] source;
+		private final int operation;
+		private final int from;
+		private final int to;
+
+		private WordOperation(long[] target, long[] source, int operation, int from, int to) {
+			this.target = target;
+			this.source = source;
+			this.operation = operation;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.to - this.from > PARALLEL_LEAF_WORDS) {
+				int middle = (this.from + this.to) >>> 1;
+				invokeAll(new WordOperation(this.target, this.source, this.operation, this.from, middle),
+						new WordOperation(this.target, this.source, this.operation, middle, this.to));
+				return;
+			}
+			if (this.operation == OR)
+				for (int i = this.from; i < this.to; i++)
+					this.target[i] |= this.source[i];
+			else
+				for (int i = this.from; i < this.to; i++)
+					this.target[i] &= this.source[i];
+		}
+	}
+
 	public void randomize() {
 		Random rand = new Random();
 		for (int i = 0; i < this.words.length; i++)
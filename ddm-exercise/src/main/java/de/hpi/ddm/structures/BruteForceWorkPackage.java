@@ -11,7 +11,10 @@ import java.io.Serializable;
 @AllArgsConstructor
 public class BruteForceWorkPackage implements Serializable {
     private static final long serialVersionUID = -12975316443837400L;
+    private int jobId;
     private int passwordId;
     private String passwordChars;
     private String hint;
+    private int hintPosition; // index of the hint among the hints of its password; identical hints differ only in it
+    private long traceId;
 }
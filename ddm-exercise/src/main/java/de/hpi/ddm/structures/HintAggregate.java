@@ -0,0 +1,96 @@
+package de.hpi.ddm.structures;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Getter;
+
+/**
+ * The worker-side state of one password while its hints are resolved: which hints are solved, as a bitmask over the
+ * hint positions, and their missing characters. Results are folded in as they arrive instead of being collected, so a
+ * password costs the same few words per hint no matter how many results it sees. The trace of the password and the
+ * start of its current stage travel with it.
+ */
+public class HintAggregate {
+
+	@Getter
+	private final PasswordWorkPackage passwordWorkPackage;
+	private final long[] solved;
+	private final char[] letters;
+	private int numSolved;
+	private long slowestSolveTime;
+	@Getter
+	private Trace trace;
+	private long stageStart;
+
+	public HintAggregate(PasswordWorkPackage passwordWorkPackage, long now) {
+		int numHints = passwordWorkPackage.getHints().length;
+		this.passwordWorkPackage = passwordWorkPackage;
+		this.solved = new long[(numHints + 63) >>> 6];
+		this.letters = new char[numHints];
+		this.trace = passwordWorkPackage.getTrace();
+		this.stageStart = now;
+	}
+
+	/**
+	 * Record the missing character of a hint. A password may list the same hint more than once; each result fills the
+	 * first position of that hint that is still open.
+	 * @param hintResult the result of one of the password's hints
+	 * @return {@code true} if the result filled an open position
+	 */
+	public boolean solve(HintResult hintResult) {
+		String[] hints = this.passwordWorkPackage.getHints();
+		for (int i = 0; i < hints.length; i++) {
+			if ((this.solved[i >>> 6] & (1L << i)) != 0 || !hints[i].equals(hintResult.getEncodedHint()))
+				continue;
+			this.solved[i >>> 6] |= 1L << i;
+			this.letters[i] = hintResult.getLetter();
+			this.numSolved++;
+			this.slowestSolveTime = Math.max(this.slowestSolveTime, hintResult.getSolveTime());
+			return true;
+		}
+		return false;
+	}
+
+	public boolean isComplete() {
+		return this.numSolved == this.letters.length;
+	}
+
+	/**
+	 * @return the nanoseconds that the slowest of the solved hints took on its brute force worker
+	 */
+	public long getSlowestSolveTime() {
+		return this.slowestSolveTime;
+	}
+
+	/**
+	 * @return one result per hint position in the order of the hints
+	 */
+	public List<HintResult> getHintResults() {
+		String[] hints = this.passwordWorkPackage.getHints();
+		long traceId = (this.trace == null) ? 0 : this.trace.getId();
+		List<HintResult> hintResults = new ArrayList<>(hints.length);
+		for (int i = 0; i < hints.length; i++)
+			hintResults.add(new HintResult(this.passwordWorkPackage.getJobId(), this.passwordWorkPackage.getId(), this.letters[i], hints[i], traceId, 0));
+		return hintResults;
+	}
+
+	/**
+	 * Close the current stage of the password's trace and start the next one.
+	 * @param stage the stage that ends now
+	 * @param now the current {@link System#nanoTime()}
+	 */
+	public void trace(Trace.Stage stage, long now) {
+		if (this.trace != null)
+			this.trace = this.trace.with(stage, now - this.stageStart);
+		this.stageStart = now;
+	}
+
+	/**
+	 * Add a stage whose duration was measured elsewhere, e.g., on a brute force worker; the current stage goes on.
+	 */
+	public void addStage(Trace.Stage stage, long duration) {
+		if (this.trace != null)
+			this.trace = this.trace.with(stage, duration);
+	}
+}
@@ -0,0 +1,217 @@
+package de.hpi.ddm.structures;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.longs.Long2CharMap;
+import it.unimi.dsi.fastutil.longs.Long2CharMaps;
+import it.unimi.dsi.fastutil.longs.Long2CharOpenHashMap;
+import lombok.Getter;
+
+import java.io.*;
+
+/**
+ * Maps the SHA-256 digests of all permutations of an alphabet with one character left out to that missing character,
+ * which is all a hint needs to be resolved. The index is keyed by the first 64 bits of the digest; with tens of millions
+ * of entries the chance of a prefix collision is negligible, and each entry costs about ten bytes instead of the two
+ * strings per permutation that a textual index would hold.
+ *
+ * Permutation workers fill an index concurrently, so adding is synchronized. Lookups are not: an index is only read
+ * after the PermutationHandler has seen all permutation results, and that message exchange publishes the entries.
+ *
+ * An index may be built for a set of targets only, i.e., a {@link BloomFilter} of the keys of the hints that were
+ * known when it was built. It then only holds the permutations that pass the filter, and it cannot tell anything about
+ * hints outside the filter; see {@link #covers(String)}.
+ */
+public class HintIndex {
+
+	private static final int FILE_MAGIC = 0x48494432; // "HID2"
+	private static final float LOAD_FACTOR = 0.75f;
+	private static final int BYTES_PER_SLOT = Long.BYTES + Character.BYTES;
+
+	@Getter
+	private final String alphabet;
+	@Getter
+	private final int hintLength;
+	@Getter
+	private final BloomFilter targets; // null if the index holds all permutations
+	private final Long2CharOpenHashMap digestToMissingCharacter;
+	private volatile boolean complete;
+
+	public HintIndex(String alphabet, int hintLength) {
+		this(alphabet, hintLength, null);
+	}
+
+	/**
+	 * Create an index that only holds the permutations whose keys pass the given filter.
+	 * @param alphabet the normalized alphabet
+	 * @param hintLength the length of the hints
+	 * @param targets the {@link #key} of every hint that will be looked up or {@code null} for all permutations
+	 */
+	public HintIndex(String alphabet, int hintLength, BloomFilter targets) {
+		this(alphabet, hintLength, targets, new Long2CharOpenHashMap());
+	}
+
+	private HintIndex(String alphabet, int hintLength, BloomFilter targets, Long2CharOpenHashMap digestToMissingCharacter) {
+		this.alphabet = alphabet;
+		this.hintLength = hintLength;
+		this.targets = targets;
+		this.digestToMissingCharacter = digestToMissingCharacter;
+	}
+
+	/**
+	 * Translate a hex encoded SHA-256 digest, as given in the input data, into the index key.
+	 * @param hexDigest the hex encoded digest
+	 * @return the first 64 bits of the digest
+	 */
+	public static long key(String hexDigest) {
+		return Long.parseUnsignedLong(hexDigest.substring(0, 16), 16);
+	}
+
+	/**
+	 * Translate a binary SHA-256 digest into the index key.
+	 * @param digest the digest bytes
+	 * @return the first 64 bits of the digest
+	 */
+	public static long key(byte[] digest) {
+		long key = 0;
+		for (int i = 0; i < Long.BYTES; i++)
+			key = (key << 8) | (digest[i] & 0xff);
+		return key;
+	}
+
+	public synchronized void add(long key, char missingCharacter) {
+		this.digestToMissingCharacter.put(key, missingCharacter);
+	}
+
+	/**
+	 * Add a batch of entries at once, which keeps lock contention low when many threads fill the index.
+	 * @param keys the index keys
+	 * @param missingCharacters the missing character for each key
+	 * @param count the number of entries to add from the arrays
+	 */
+	public synchronized void addAll(long[] keys, char[] missingCharacters, int count) {
+		for (int i = 0; i < count; i++)
+			this.digestToMissingCharacter.put(keys[i], missingCharacters[i]);
+	}
+
+	/**
+	 * Resolve a hint.
+	 * @param hexDigest the hex encoded digest of the hint
+	 * @return the character that is missing in the hint or {@code 0} if the hint is not part of this index
+	 */
+	public char lookup(String hexDigest) {
+		return this.digestToMissingCharacter.get(key(hexDigest));
+	}
+
+	/**
+	 * Tell if a {@link #lookup} of the hint is conclusive. Bloom filters have no false negatives, so a filtered index
+	 * holds every permutation of a hint in its filter.
+	 * @param hexDigest the hex encoded digest of the hint
+	 * @return false if the index was built for other hints and the hint may be missing from it for that reason
+	 */
+	public boolean covers(String hexDigest) {
+		return this.targets == null || this.targets.contains(key(hexDigest));
+	}
+
+	public boolean isComplete() {
+		return this.complete;
+	}
+
+	public void setComplete() {
+		this.complete = true;
+	}
+
+	public synchronized int size() {
+		return this.digestToMissingCharacter.size();
+	}
+
+	/**
+	 * Estimate the heap size of this index from the size of the backing hash table.
+	 * @return the estimated size in bytes
+	 */
+	public synchronized long estimatedSizeInBytes() {
+		return (long) HashCommon.arraySize(Math.max(1, this.digestToMissingCharacter.size()), LOAD_FACTOR) * BYTES_PER_SLOT;
+	}
+
+	/**
+	 * Write this index in its on-disk format: a header with alphabet, hint length, targets and size followed by the
+	 * entries.
+	 * @param file the file to write to
+	 * @throws IOException if the file cannot be written
+	 */
+	public void writeTo(File file) throws IOException {
+		try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+			this.writeTo(out);
+		}
+	}
+
+	/**
+	 * Write this index in its on-disk format to a stream, e.g., to ship it to another node. The stream is flushed,
+	 * but not closed.
+	 * @param stream the stream to write to
+	 * @throws IOException if the stream cannot be written
+	 */
+	public synchronized void writeTo(OutputStream stream) throws IOException {
+		DataOutputStream out = new DataOutputStream(stream);
+		out.writeInt(FILE_MAGIC);
+		out.writeUTF(this.alphabet);
+		out.writeInt(this.hintLength);
+		out.writeBoolean(this.targets != null);
+		if (this.targets != null) {
+			out.writeInt(this.targets.getSize());
+			out.writeInt(this.targets.getNumHashes());
+			byte[] bits = this.targets.getBits().toBinary();
+			out.writeInt(bits.length);
+			out.write(bits);
+		}
+		out.writeInt(this.digestToMissingCharacter.size());
+		for (Long2CharMap.Entry entry : Long2CharMaps.fastIterable(this.digestToMissingCharacter)) {
+			out.writeLong(entry.getLongKey());
+			out.writeChar(entry.getCharValue());
+		}
+		out.flush();
+	}
+
+	/**
+	 * Read a complete index from its on-disk format.
+	 * @param file the file to read from
+	 * @return the index or {@code null} if the file does not contain an index
+	 * @throws IOException if the file cannot be read
+	 */
+	public static HintIndex readFrom(File file) throws IOException {
+		try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+			return readFrom(in);
+		}
+	}
+
+	/**
+	 * Read a complete index from its on-disk format, consuming exactly the bytes of the index. The table is sized for
+	 * all entries up front, so it is filled in one pass without ever being rehashed.
+	 * @param stream the stream to read from
+	 * @return the index or {@code null} if the stream does not contain an index
+	 * @throws IOException if the stream cannot be read
+	 */
+	public static HintIndex readFrom(InputStream stream) throws IOException {
+		DataInputStream in = new DataInputStream(stream);
+		if (in.readInt() != FILE_MAGIC)
+			return null;
+		String alphabet = in.readUTF();
+		int hintLength = in.readInt();
+		BloomFilter targets = null;
+		if (in.readBoolean()) {
+			targets = new BloomFilter();
+			targets.setSize(in.readInt());
+			targets.setNumHashes(in.readInt());
+			byte[] bits = new byte[in.readInt()];
+			in.readFully(bits);
+			targets.setBits(BitSet.fromBinary(bits));
+		}
+		int size = in.readInt();
+		Long2CharOpenHashMap digestToMissingCharacter = new Long2CharOpenHashMap(size, LOAD_FACTOR);
+		for (int i = 0; i < size; i++)
+			digestToMissingCharacter.put(in.readLong(), in.readChar());
+
+		HintIndex index = new HintIndex(alphabet, hintLength, targets, digestToMissingCharacter);
+		index.setComplete();
+		return index;
+	}
+}
@@ -0,0 +1,197 @@
+package de.hpi.ddm.structures;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Holds one {@link HintIndex} per (alphabet, hint length) pair of a node. Indexes are created on demand and kept in
+ * least-recently-used order; once the estimated size of all complete indexes exceeds the memory budget, the least
+ * recently used ones are evicted. If a spill directory is configured, evicted indexes are written to disk and
+ * transparently loaded again on their next use; otherwise, the eviction listeners are told that the alphabet is gone.
+ * Indexes that hint lookups still depend on can be pinned, which exempts them from eviction until they are unpinned.
+ *
+ * The cache is shared by all actor systems of a JVM, so every PermutationHandler adds its own listeners and removes
+ * them again when it stops.
+ */
+public class HintIndexCache {
+
+	private final long budgetInBytes;
+	private final File spillDirectory;
+	private final LinkedHashMap<String, HintIndex> indexes = new LinkedHashMap<>(16, 0.75f, true);
+	private final Map<String, Integer> pins = new HashMap<>(); // index key -> number of pins
+	private final List<Consumer<String>> evictionListeners = new CopyOnWriteArrayList<>();
+	private final List<BiConsumer<String, IOException>> errorListeners = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Create a new cache.
+	 * @param budgetInBytes the memory budget for all complete indexes
+	 * @param spillDirectory the directory for evicted indexes or {@code null} to drop evicted indexes
+	 */
+	public HintIndexCache(long budgetInBytes, File spillDirectory) {
+		this.budgetInBytes = budgetInBytes;
+		this.spillDirectory = spillDirectory;
+		if (this.spillDirectory != null)
+			this.spillDirectory.mkdirs();
+	}
+
+	/**
+	 * Hints are permutations of all characters of an alphabet but one.
+	 * @param alphabet the alphabet of the hints
+	 * @return the length of the hints
+	 */
+	public static int hintLength(String alphabet) {
+		return alphabet.length() - 1;
+	}
+
+	private static String key(String alphabet) {
+		return alphabet + "/" + hintLength(alphabet);
+	}
+
+	public void addEvictionListener(Consumer<String> evictionListener) {
+		this.evictionListeners.add(evictionListener);
+	}
+
+	public void removeEvictionListener(Consumer<String> evictionListener) {
+		this.evictionListeners.remove(evictionListener);
+	}
+
+	/**
+	 * @param errorListener is told about indexes that could not be spilled or loaded; the cache treats them as evicted
+	 */
+	public void addErrorListener(BiConsumer<String, IOException> errorListener) {
+		this.errorListeners.add(errorListener);
+	}
+
+	public void removeErrorListener(BiConsumer<String, IOException> errorListener) {
+		this.errorListeners.remove(errorListener);
+	}
+
+	/**
+	 * Get the index for the alphabet, loading it from the spill directory if it was evicted.
+	 * @param alphabet the normalized alphabet
+	 * @return the index or {@code null} if this node holds no index for the alphabet
+	 */
+	public synchronized HintIndex get(String alphabet) {
+		HintIndex index = this.indexes.get(key(alphabet));
+		if (index == null) {
+			index = this.load(alphabet);
+			if (index != null) {
+				this.indexes.put(key(alphabet), index);
+				this.evict();
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Get the index for the alphabet or create an empty one that is then filled by the permutation workers.
+	 * @param alphabet the normalized alphabet
+	 * @return the index for the alphabet
+	 */
+	public synchronized HintIndex getOrCreate(String alphabet) {
+		HintIndex index = this.get(alphabet);
+		if (index == null) {
+			index = new HintIndex(alphabet, hintLength(alphabet));
+			this.indexes.put(key(alphabet), index);
+		}
+		return index;
+	}
+
+	/**
+	 * Adopt a complete index that was built elsewhere, e.g., shipped by another node, replacing any partial index of
+	 * its alphabet.
+	 * @param index the complete index
+	 */
+	public synchronized void put(HintIndex index) {
+		this.indexes.put(key(index.getAlphabet()), index);
+		this.evict();
+	}
+
+	/**
+	 * Mark the index of the alphabet as complete, which makes it (and all other complete indexes) subject to eviction.
+	 * @param alphabet the normalized alphabet
+	 */
+	public synchronized void complete(String alphabet) {
+		HintIndex index = this.indexes.get(key(alphabet));
+		if (index != null)
+			index.setComplete();
+		this.evict();
+	}
+
+	/**
+	 * Keep the index of the alphabet in memory until it is unpinned as often as it was pinned.
+	 * @param alphabet the normalized alphabet
+	 */
+	public synchronized void pin(String alphabet) {
+		this.pins.merge(key(alphabet), 1, Integer::sum);
+	}
+
+	public synchronized void unpin(String alphabet) {
+		this.pins.computeIfPresent(key(alphabet), (key, count) -> (count <= 1) ? null : count - 1);
+		this.evict();
+	}
+
+	public synchronized long estimatedSizeInBytes() {
+		long size = 0;
+		for (HintIndex index : this.indexes.values())
+			size += index.estimatedSizeInBytes();
+		return size;
+	}
+
+	private void evict() {
+		long size = this.estimatedSizeInBytes();
+		Iterator<HintIndex> iterator = this.indexes.values().iterator();
+		// Never evict the most recently used index, because that is the one someone is about to work with
+		while (size > this.budgetInBytes && this.indexes.size() > 1 && iterator.hasNext()) {
+			HintIndex index = iterator.next();
+			if (!index.isComplete() || this.pins.containsKey(key(index.getAlphabet())) || !iterator.hasNext())
+				continue;
+
+			size -= index.estimatedSizeInBytes();
+			iterator.remove();
+			if (!this.spill(index))
+				this.evictionListeners.forEach(listener -> listener.accept(index.getAlphabet()));
+		}
+	}
+
+	private File spillFile(String alphabet) {
+		return new File(this.spillDirectory, Integer.toHexString(alphabet.hashCode()) + "-" + hintLength(alphabet) + ".idx");
+	}
+
+	private boolean spill(HintIndex index) {
+		if (this.spillDirectory == null)
+			return false;
+		try {
+			index.writeTo(this.spillFile(index.getAlphabet()));
+			return true;
+		} catch (IOException e) {
+			this.errorListeners.forEach(listener -> listener.accept(index.getAlphabet(), e));
+			return false;
+		}
+	}
+
+	private HintIndex load(String alphabet) {
+		if (this.spillDirectory == null)
+			return null;
+		File file = this.spillFile(alphabet);
+		if (!file.exists())
+			return null;
+		try {
+			HintIndex index = HintIndex.readFrom(file);
+			// Different alphabets may share a file name; the header tells us if this is the right one
+			if (index == null || !index.getAlphabet().equals(alphabet))
+				return null;
+			return index;
+		} catch (IOException e) {
+			// A broken spill file would fail every later load, too; the alphabet is gone and needs to be built again
+			file.delete();
+			this.errorListeners.forEach(listener -> listener.accept(alphabet, e));
+			this.evictionListeners.forEach(listener -> listener.accept(alphabet));
+			return null;
+		}
+	}
+}
@@ -11,7 +11,10 @@ import java.io.Serializable;
 @AllArgsConstructor
 public class HintResult implements Serializable {
     private static final long serialVersionUID = 29876164436256001L;
+    private int jobId;
     private int passwordId;
     private char letter;
     private String encodedHint;
+    private long traceId;
+    private long solveTime; // nanoseconds that the brute force worker spent on the hint
 }
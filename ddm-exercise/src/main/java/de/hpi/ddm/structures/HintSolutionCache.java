@@ -0,0 +1,61 @@
+package de.hpi.ddm.structures;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers the missing character of resolved hints. A hint is a permutation of all characters of an alphabet but
+ * one, so the same hint of the same alphabet always resolves to the same character, no matter which password it came
+ * with. The cache holds a bounded number of hints in least-recently-used order and is safe to share between the
+ * actors of a node.
+ */
+public class HintSolutionCache {
+
+	private final LinkedHashMap<String, Character> solutions;
+
+	/**
+	 * Create a new cache.
+	 * @param capacity the maximum number of hints to keep
+	 */
+	public HintSolutionCache(final int capacity) {
+		this.solutions = new LinkedHashMap<String, Character>(16, 0.75f, true) {
+			private static final long serialVersionUID = 6263371941628013312L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Character> eldest) {
+				return this.size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * @param alphabet the normalized alphabet of the hint
+	 * @param hint the encoded hint
+	 * @return the key under which the hint's solution is cached and published
+	 */
+	public static String key(String alphabet, String hint) {
+		return alphabet + ':' + hint;
+	}
+
+	/**
+	 * @param key the key of the hint
+	 * @return the missing character of the hint or {@code null} if the hint is not cached
+	 */
+	public synchronized Character get(String key) {
+		return this.solutions.get(key);
+	}
+
+	/**
+	 * Cache the missing character of a hint.
+	 * @param key the key of the hint
+	 * @param letter the missing character
+	 * @return {@code true} if the hint was not cached before
+	 */
+	public synchronized boolean put(String key, char letter) {
+		return this.solutions.put(key, letter) == null;
+	}
+
+	public synchronized int size() {
+		return this.solutions.size();
+	}
+}
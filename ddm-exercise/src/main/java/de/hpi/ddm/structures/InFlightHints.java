@@ -0,0 +1,51 @@
+package de.hpi.ddm.structures;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The distinct hints that a worker is brute-forcing, each with the packages of other passwords that wait for the same
+ * hint. Together with the {@link HintSolutionCache}, which answers hints that were resolved before, it lets a worker
+ * brute-force every distinct hint only once. Keys are those of {@link HintSolutionCache#key}.
+ */
+public class InFlightHints {
+
+	private final Map<String, List<BruteForceWorkPackage>> waiting = new HashMap<>(); // hint key -> packages that wait for the hint in flight
+
+	/**
+	 * Let a package wait for the same hint if that hint is in flight already, or mark the hint as in flight otherwise.
+	 * @param key the key of the package's hint
+	 * @param bruteForceWorkPackage the package
+	 * @return {@code true} if the package waits for a hint in flight, {@code false} if it needs to be brute-forced
+	 */
+	public boolean await(String key, BruteForceWorkPackage bruteForceWorkPackage) {
+		List<BruteForceWorkPackage> packages = this.waiting.get(key);
+		if (packages == null) {
+			this.waiting.put(key, new ArrayList<>());
+			return false;
+		}
+		packages.add(bruteForceWorkPackage);
+		return true;
+	}
+
+	/**
+	 * End the flight of a hint, because it was resolved or cannot be resolved.
+	 * @param key the key of the hint
+	 * @return the packages that waited for the hint
+	 */
+	public List<BruteForceWorkPackage> land(String key) {
+		List<BruteForceWorkPackage> packages = this.waiting.remove(key);
+		return (packages == null) ? Collections.emptyList() : packages;
+	}
+
+	public boolean contains(String key) {
+		return this.waiting.containsKey(key);
+	}
+
+	public int size() {
+		return this.waiting.size();
+	}
+}
@@ -0,0 +1,59 @@
+package de.hpi.ddm.structures;
+
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import lombok.Data;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The master-side state of one password file that is processed as a job. The Master only counts the passwords of a job
+ * and their results; the password shards each hold a part of the job with the pending packages of their passwords, see
+ * {@link ShardJob}. Completion is tracked with counters, so checking whether a job is done costs the same for ten
+ * passwords as for millions.
+ */
+@Data
+public class Job {
+    private final int id;
+    private final String name;
+    private final Set<String> alphabets = new LinkedHashSet<>(); // alphabets of all passwords read so far
+    private final IntOpenHashSet passwordIds = new IntOpenHashSet(); // ids of the passwords counted so far, while reading
+    private int numPasswords;
+    private int numCompleted;
+    private boolean readingDone;
+    private long startTime;
+
+    /**
+     * Count a password whose package is held elsewhere, i.e., by the password shards. The shards count every id once,
+     * so a password id that the file repeats is counted once here, too.
+     * @param passwordId the password's id within this job
+     * @return {@code false} if the id was counted before
+     */
+    public boolean addPassword(int passwordId) {
+        if (!this.passwordIds.add(passwordId))
+            return false;
+        this.numPasswords++;
+        return true;
+    }
+
+    public void setReadingDone(boolean readingDone) {
+        this.readingDone = readingDone;
+        // Repeated ids can only come from the file, so its ids need not be kept once it is read
+        if (readingDone) {
+            this.passwordIds.clear();
+            this.passwordIds.trim();
+        }
+    }
+
+    /**
+     * Count results of passwords whose packages are held elsewhere, i.e., by the password shards.
+     * @param count the number of cracked passwords
+     */
+    public void addCompleted(int count) {
+        this.numCompleted += count;
+    }
+
+    public boolean isDone() {
+        return this.readingDone && this.numCompleted >= this.numPasswords;
+    }
+}
@@ -0,0 +1,323 @@
+package de.hpi.ddm.structures;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.RecursiveTask;
+
+import de.hpi.ddm.compute.ComputeService;
+import de.hpi.ddm.singletons.ComputeSingleton;
+
+/**
+ * A {@link BitSet} for multi-GB sizes, whose words live outside the Java heap, either in direct memory or in a
+ * memory-mapped file. A single buffer holds at most 2 GB, so the words are split into segments of 1 GB and bit
+ * indices are {@code long}s. Memory-mapped sets are paged in and out by the operating system and survive a restart of
+ * the JVM, if the same file is mapped again on a machine with the same byte order, because words are stored in native
+ * byte order to avoid swapping the bytes of every word on access.
+ *
+ * Like {@link BitSet}, this class is not thread-safe; only the parallel bulk operations use multiple threads, namely
+ * those of the node's {@link ComputeService}.
+ */
+public class OffHeapBitSet implements Closeable {
+
+	private final static int BITSHIFTS_TO_WORD_SIZE = 6;
+	private final static int BITS_PER_WORD = 1 << BITSHIFTS_TO_WORD_SIZE;
+	private final static int BYTES_PER_WORD = 8;
+	private final static long WORD_MASK = 0xffffffffffffffffL;
+	private final static int WORDS_PER_SEGMENT_SHIFT = 27; // 2^27 words = 1 GB per segment
+	private final static int WORDS_PER_SEGMENT = 1 << WORDS_PER_SEGMENT_SHIFT;
+	private final static int SEGMENT_MASK = WORDS_PER_SEGMENT - 1;
+	private final static int PARALLEL_LEAF_WORDS = 1 << 16; // 512 KB per fork-join leaf
+
+	private final LongBuffer[] segments;
+	private final ByteBuffer[] buffers;
+	private final long numWords;
+	private final RandomAccessFile file;
+
+	private OffHeapBitSet(ByteBuffer[] buffers, long numWords, RandomAccessFile file) {
+		this.buffers = buffers;
+		this.segments = new LongBuffer[buffers.length];
+		for (int i = 0; i < buffers.length; i++)
+			this.segments[i] = buffers[i].order(ByteOrder.nativeOrder()).asLongBuffer();
+		this.numWords = numWords;
+		this.file = file;
+	}
+
+	private static long wordIndex(long bitIndex) {
+		return bitIndex >>> BITSHIFTS_TO_WORD_SIZE;
+	}
+
+	private static long numWords(long capacity) {
+		if (capacity < 0)
+			throw new IllegalArgumentException("Capacity must not be negative but was " + capacity);
+		return (capacity + BITS_PER_WORD - 1) >>> BITSHIFTS_TO_WORD_SIZE;
+	}
+
+	private static int segmentSize(long numWords, int segment) {
+		return (int) Math.min(WORDS_PER_SEGMENT, numWords - ((long) segment << WORDS_PER_SEGMENT_SHIFT));
+	}
+
+	private static int numSegments(long numWords) {
+		return (int) ((numWords + WORDS_PER_SEGMENT - 1) >>> WORDS_PER_SEGMENT_SHIFT);
+	}
+
+	/**
+	 * Allocate a new {@code OffHeapBitSet} in direct memory. All bits are initially set to {@code false}.
+	 * The JVM limits direct memory with {@code -XX:MaxDirectMemorySize}, which defaults to the maximum heap size.
+	 * @param capacity many bits that can be stored in the {@code OffHeapBitSet}
+	 * @return a new {@code OffHeapBitSet} instance with the given capacity
+	 * @throws IllegalArgumentException if the capacity is negative
+	 */
+	public static OffHeapBitSet allocate(long capacity) {
+		long numWords = numWords(capacity);
+		ByteBuffer[] buffers = new ByteBuffer[numSegments(numWords)];
+		for (int i = 0; i < buffers.length; i++)
+			buffers[i] = ByteBuffer.allocateDirect(segmentSize(numWords, i) * BYTES_PER_WORD);
+		return new OffHeapBitSet(buffers, numWords, null);
+	}
+
+	/**
+	 * Map an {@code OffHeapBitSet} onto a file, which is created or extended to the required size.
+	 * Bits that were stored in the file before keep their values; new bits are {@code false}.
+	 * @param path of the file that backs the {@code OffHeapBitSet}
+	 * @param capacity many bits that can be stored in the {@code OffHeapBitSet}
+	 * @return a new {@code OffHeapBitSet} instance with the given capacity
+	 * @throws IOException if the file cannot be created or mapped
+	 * @throws IllegalArgumentException if the capacity is negative
+	 */
+	public static OffHeapBitSet map(File path, long capacity) throws IOException {
+		long numWords = numWords(capacity);
+		RandomAccessFile file = new RandomAccessFile(path, "rw");
+		try {
+			if (file.length() < numWords * BYTES_PER_WORD)
+				file.setLength(numWords * BYTES_PER_WORD);
+			ByteBuffer[] buffers = new ByteBuffer[numSegments(numWords)];
+			for (int i = 0; i < buffers.length; i++) {
+				long position = ((long) i << WORDS_PER_SEGMENT_SHIFT) * BYTES_PER_WORD;
+				buffers[i] = file.getChannel().map(FileChannel.MapMode.READ_WRITE, position, (long) segmentSize(numWords, i) * BYTES_PER_WORD);
+			}
+			return new OffHeapBitSet(buffers, numWords, file);
+		} catch (IOException e) {
+			file.close();
+			throw e;
+		}
+	}
+
+	private long word(long wordIndex) {
+		return this.segments[(int) (wordIndex >>> WORDS_PER_SEGMENT_SHIFT)].get((int) (wordIndex & SEGMENT_MASK));
+	}
+
+	private void word(long wordIndex, long word) {
+		this.segments[(int) (wordIndex >>> WORDS_PER_SEGMENT_SHIFT)].put((int) (wordIndex & SEGMENT_MASK), word);
+	}
+
+	/**
+	 * Set the bit at the specified index to {@code true}.
+	 * @param bitIndex to be set
+	 */
+	public void set(long bitIndex) {
+		long wordIndex = wordIndex(bitIndex);
+		this.word(wordIndex, this.word(wordIndex) | (1L << bitIndex));
+	}
+
+	/**
+	 * Set the bit at the specified index to {@code false}.
+	 * @param bitIndex to be cleared
+	 */
+	public void clear(long bitIndex) {
+		long wordIndex = wordIndex(bitIndex);
+		this.word(wordIndex, this.word(wordIndex) & ~(1L << bitIndex));
+	}
+
+	/**
+	 * Return the value of the bit at the specified index.
+	 * @param bitIndex to be checked
+	 * @return the value of the bit with the specified index
+	 */
+	public boolean get(long bitIndex) {
+		return (this.word(wordIndex(bitIndex)) & (1L << bitIndex)) != 0;
+	}
+
+	/**
+	 * Set the bits at all the specified indices to {@code true}; see {@link BitSet#setAll(int[], int)}.
+	 * @param bitIndices are the sorted indices of the bits to be set
+	 * @param count is the number of indices to be used from the array
+	 */
+	public void setAll(long[] bitIndices, int count) {
+		if (count == 0)
+			return;
+		long wordIndex = wordIndex(bitIndices[0]);
+		long mask = 0;
+		for (int i = 0; i < count; i++) {
+			long nextWordIndex = wordIndex(bitIndices[i]);
+			if (nextWordIndex != wordIndex) {
+				this.word(wordIndex, this.word(wordIndex) | mask);
+				wordIndex = nextWordIndex;
+				mask = 0;
+			}
+			mask |= (1L << bitIndices[i]);
+		}
+		this.word(wordIndex, this.word(wordIndex) | mask);
+	}
+
+	/**
+	 * Return {@code true} if the bits at all the specified indices are set; see {@link BitSet#getAll(int[], int)}.
+	 * @param bitIndices are the indices of the bits to be tested
+	 * @param count is the number of indices to be used from the array
+	 * @return {@code true} if all the bits are set; {@code false} otherwise
+	 */
+	public boolean getAll(long[] bitIndices, int count) {
+		for (int i = 0; i < count; i++)
+			if ((this.word(wordIndex(bitIndices[i])) & (1L << bitIndices[i])) == 0)
+				return false;
+		return true;
+	}
+
+	/**
+	 * Set all the bits in this {@code OffHeapBitSet} to {@code false}.
+	 */
+	public void clear() {
+		for (long i = 0; i < this.numWords; i++)
+			this.word(i, 0);
+	}
+
+	/**
+	 * Calculate the number of bits set to {@code true} in this {@code OffHeapBitSet}.
+	 * @return the number of bits set to {@code true}
+	 */
+	public long cardinality() {
+		return this.cardinality(0, this.numWords * BITS_PER_WORD);
+	}
+
+	/**
+	 * Calculate the number of bits set to {@code true} from the specified {@code fromIndex} (inclusive) to the specified {@code toIndex} (exclusive).
+	 * @param fromIndex is the index of the first bit to be counted
+	 * @param toIndex is the index after the last bit to be counted
+	 * @return the number of bits set to {@code true} in the range
+	 */
+	public long cardinality(long fromIndex, long toIndex) {
+		if (fromIndex >= toIndex)
+			return 0;
+
+		long startWordIndex = wordIndex(fromIndex);
+		long endWordIndex = wordIndex(toIndex - 1);
+
+		long firstWordMask = WORD_MASK << fromIndex;
+		long lastWordMask = WORD_MASK >>> -toIndex;
+
+		if (startWordIndex == endWordIndex)
+			return Long.bitCount(this.word(startWordIndex) & firstWordMask & lastWordMask);
+
+		long cardinality = Long.bitCount(this.word(startWordIndex) & firstWordMask);
+		if (endWordIndex - startWordIndex > 1)
+			cardinality += ComputeSingleton.get().invoke(new WordOperation(this, null, WordOperation.COUNT, startWordIndex + 1, endWordIndex));
+		return cardinality + Long.bitCount(this.word(endWordIndex) & lastWordMask);
+	}
+
+	/**
+	 * Perform a logical <b>OR</b> of this {@code OffHeapBitSet} with the argument, in parallel on the node's {@link ComputeService}.
+	 * @param set is the {@code OffHeapBitSet} to perform the or-operation with
+	 */
+	public void parallelOr(OffHeapBitSet set) {
+		this.ensureCompatibility(set);
+		if (this != set)
+			ComputeSingleton.get().invoke(new WordOperation(this, set, WordOperation.OR, 0, this.numWords));
+	}
+
+	/**
+	 * Perform a logical <b>AND</b> of this {@code OffHeapBitSet} with the argument, in parallel on the node's {@link ComputeService}.
+	 * @param set is the {@code OffHeapBitSet} to perform the and-operation with
+	 */
+	public void parallelAnd(OffHeapBitSet set) {
+		this.ensureCompatibility(set);
+		if (this != set)
+			ComputeSingleton.get().invoke(new WordOperation(this, set, WordOperation.AND, 0, this.numWords));
+	}
+
+	private void ensureCompatibility(OffHeapBitSet set) {
+		if (this.numWords != set.numWords)
+			throw new RuntimeException(OffHeapBitSet.class.getName() + " can operate only with " + OffHeapBitSet.class.getName() + "s of same size.\n This words length was " + this.numWords + " while the other's word length was " + set.numWords + ".");
+	}
+
+	/**
+	 * Calculate the "physical length" of this {@code OffHeapBitSet}, which is the number of its words.
+	 * @return the number of words
+	 */
+	public long physicalLength() {
+		return this.numWords;
+	}
+
+	/**
+	 * Write all changes of a memory-mapped {@code OffHeapBitSet} to its file; does nothing in direct memory.
+	 */
+	public void force() {
+		if (this.file == null)
+			return;
+		for (ByteBuffer buffer : this.buffers)
+			((MappedByteBuffer) buffer).force();
+	}
+
+	/**
+	 * Flush a memory-mapped {@code OffHeapBitSet} and close its file. The memory itself is released by the garbage
+	 * collector once this object is unreachable, because Java 8 has no API to unmap or free a buffer explicitly.
+	 */
+	@Override
+	public void close() throws IOException {
+		this.force();
+		if (this.file != null)
+			this.file.close();
+	}
+
+	/**
+	 * Combines or counts a range of words, forking into halves until a range is small enough for one thread.
+	 */
+	private static class WordOperation extends RecursiveTask<Long> {
+
+		private static final long serialVersionUID = 3366870961357203561L;
+
+		private static final int OR = 0;
+		private static final int AND = 1;
+		private static final int COUNT = 2;
+
+		private final OffHeapBitSet target;
+		private final OffHeapBitSet source;
+		private final int operation;
+		private final long from;
+		private final long to;
+
+		private WordOperation(OffHeapBitSet target, OffHeapBitSet source, int operation, long from, long to) {
+			this.target = target;
+			this.source = source;
+			this.operation = operation;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Long compute() {
+			if (this.to - this.from > PARALLEL_LEAF_WORDS) {
+				long middle = (this.from + this.to) >>> 1;
+				WordOperation left = new WordOperation(this.target, this.source, this.operation, this.from, middle);
+				WordOperation right = new WordOperation(this.target, this.source, this.operation, middle, this.to);
+				left.fork();
+				return right.compute() + left.join();
+			}
+			long cardinality = 0;
+			for (long i = this.from; i < this.to; i++) {
+				if (this.operation == OR)
+					this.target.word(i, this.target.word(i) | this.source.word(i));
+				else if (this.operation == AND)
+					this.target.word(i, this.target.word(i) & this.source.word(i));
+				else
+					cardinality += Long.bitCount(this.target.word(i));
+			}
+			return cardinality;
+		}
+	}
+}
@@ -11,10 +11,22 @@ import java.io.Serializable;
 @AllArgsConstructor
 public class PasswordWorkPackage implements Serializable {
     private static final long serialVersionUID = 24684875323217333L;
+    private int jobId;
     private int id;
     private String name;
     private String passwordCharacters;
     private int passwordLength;
     private String password;
     private String [] hints;
+    private Trace trace;
+
+    /**
+     * Password ids are only unique within a job, so everything that tracks passwords across jobs uses this key.
+     * @param jobId the job the password belongs to
+     * @param passwordId the password's id within its job
+     * @return a key that identifies the password across all jobs
+     */
+    public static long key(int jobId, int passwordId) {
+        return ((long) jobId << 32) | (passwordId & 0xffffffffL);
+    }
 }
@@ -0,0 +1,133 @@
+package de.hpi.ddm.structures;
+
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import lombok.Data;
+
+import java.util.*;
+
+/**
+ * The part of a {@link Job} that one password shard holds. Pending password work packages are kept per alphabet,
+ * because a worker node can only work on a password once it has built the permutations for its alphabet.
+ *
+ * A password is open from the moment its package arrives until it is cracked or handed off to another shard, and the
+ * open and issued ids are all the shard tracks per password. Both sets shrink as passwords are cracked, so a job's
+ * state on a shard ends up empty instead of growing with every password the shard has ever held.
+ */
+@Data
+public class ShardJob {
+    private final int id;
+    private final String name;
+    private final Map<String, Deque<PasswordWorkPackage>> pendingPasswordWorkPackages = new LinkedHashMap<>();
+    private final IntOpenHashSet open = new IntOpenHashSet(); // ids of the passwords that are pending or issued
+    private final IntOpenHashSet issued = new IntOpenHashSet(); // ids of the passwords that are handed out and not yet cracked
+
+    /**
+     * Add the package of a password that is new to this shard.
+     * @param alphabet the normalized alphabet of the password
+     * @param passwordWorkPackage the package of the password
+     * @return {@code false} if the shard already holds a password with the package's id, which is ignored then
+     */
+    public boolean addPasswordWorkPackage(String alphabet, PasswordWorkPackage passwordWorkPackage) {
+        if (!this.open.add(passwordWorkPackage.getId()))
+            return false;
+        this.pendingPasswordWorkPackages.computeIfAbsent(alphabet, key -> new ArrayDeque<>()).add(passwordWorkPackage);
+        return true;
+    }
+
+    /**
+     * Put a password work package back to the front of the pending packages, e.g., because its worker terminated.
+     * @param alphabet the normalized alphabet of the password
+     * @param passwordWorkPackage the package that needs to be reassigned
+     */
+    public void requeuePasswordWorkPackage(String alphabet, PasswordWorkPackage passwordWorkPackage) {
+        if (!this.open.contains(passwordWorkPackage.getId()))
+            return;
+        this.pendingPasswordWorkPackages.computeIfAbsent(alphabet, key -> new ArrayDeque<>()).addFirst(passwordWorkPackage);
+        this.issued.remove(passwordWorkPackage.getId());
+    }
+
+    /**
+     * Take the next pending password whose alphabet is contained in the given set of alphabets.
+     * @param alphabets the alphabets that the requesting node has permutations for
+     * @return the next password work package or {@code null} if none of the pending passwords fits
+     */
+    public PasswordWorkPackage pollPasswordWorkPackage(Set<String> alphabets) {
+        Iterator<Map.Entry<String, Deque<PasswordWorkPackage>>> iterator = this.pendingPasswordWorkPackages.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Deque<PasswordWorkPackage>> entry = iterator.next();
+            if (!alphabets.contains(entry.getKey()))
+                continue;
+            PasswordWorkPackage passwordWorkPackage = entry.getValue().poll();
+            // A requeued package may have been cracked by a speculative copy in the meantime
+            while (passwordWorkPackage != null && !this.open.contains(passwordWorkPackage.getId()))
+                passwordWorkPackage = entry.getValue().poll();
+            if (entry.getValue().isEmpty())
+                iterator.remove();
+            if (passwordWorkPackage != null) {
+                this.issued.add(passwordWorkPackage.getId());
+                return passwordWorkPackage;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Give up the newest half (rounded up) of the pending passwords whose alphabet is contained in the given set, so
+     * that another password shard can work on them. The passwords are no longer part of this shard's job then.
+     * @param alphabets the alphabets that the receiving node has permutations for
+     * @return the passwords that were handed off
+     */
+    public List<PasswordWorkPackage> handOffPasswordWorkPackages(Set<String> alphabets) {
+        List<PasswordWorkPackage> handedOff = new ArrayList<>();
+        Iterator<Map.Entry<String, Deque<PasswordWorkPackage>>> iterator = this.pendingPasswordWorkPackages.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Deque<PasswordWorkPackage>> entry = iterator.next();
+            if (!alphabets.contains(entry.getKey()))
+                continue;
+            Deque<PasswordWorkPackage> pending = entry.getValue();
+            for (int count = (pending.size() + 1) / 2; count > 0; count--) {
+                PasswordWorkPackage passwordWorkPackage = pending.pollLast();
+                // A requeued package may have been cracked by a speculative copy in the meantime
+                if (this.open.remove(passwordWorkPackage.getId()))
+                    handedOff.add(passwordWorkPackage);
+            }
+            if (pending.isEmpty())
+                iterator.remove();
+        }
+        return handedOff;
+    }
+
+    public boolean hasPendingPasswordWorkPackages(Set<String> alphabets) {
+        for (String alphabet : this.pendingPasswordWorkPackages.keySet())
+            if (alphabets.contains(alphabet))
+                return true;
+        return false;
+    }
+
+    /**
+     * Mark the password as cracked.
+     * @param passwordId the password's id within this job
+     * @return {@code true} if the password was open on this shard, i.e., this is its first result
+     */
+    public boolean complete(int passwordId) {
+        if (!this.open.remove(passwordId))
+            return false;
+        // A password may be cracked while it is pending, e.g., by a speculative copy after its worker terminated
+        this.issued.remove(passwordId);
+        return true;
+    }
+
+    /**
+     * @return the number of passwords that are handed out and not yet cracked
+     */
+    public int getInFlight() {
+        return this.issued.size();
+    }
+
+    /**
+     * @return true if every password that this shard held is cracked or handed off
+     */
+    public boolean isDrained() {
+        return this.open.isEmpty();
+    }
+}
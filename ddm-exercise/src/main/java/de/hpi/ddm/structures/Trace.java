@@ -0,0 +1,71 @@
+package de.hpi.ddm.structures;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * The lifecycle trace of a password work package: an id and the time in nanoseconds that the package spent in each
+ * stage. Every stage is measured as a duration on the node that executes it, so that clocks never have to agree across
+ * nodes. Traces are immutable and travel with the package and its result.
+ */
+@Getter
+@EqualsAndHashCode
+@AllArgsConstructor
+public class Trace implements Serializable {
+    private static final long serialVersionUID = -3621498013756342187L;
+
+    public enum Stage {
+        READ,        // the Reader parsing the batch that held the password
+        QUEUE,       // waiting on the master until a worker gets the password
+        TRANSFER,    // master-worker round trip minus the time on the worker, i.e., network and mailboxes
+        HINTS,       // the worker resolving all hints
+        HINT_SOLVE,  // the slowest hint lookup of a brute force worker; part of HINTS
+        CRACK_QUEUE, // resolved hints waiting for a password cracker
+        CRACK;       // the password cracker brute-forcing the password
+
+        /** @return whether the stage lies on the path of a password; sub-stages are already part of another stage */
+        public boolean isOnPath() {
+            return this != HINT_SOLVE;
+        }
+    }
+
+    private static final Stage[] STAGES = Stage.values();
+
+    private final long id;
+    private final long[] durations; // indexed by Stage.ordinal()
+
+    public Trace(long id) {
+        this(id, new long[STAGES.length]);
+    }
+
+    public long get(Stage stage) {
+        return this.durations[stage.ordinal()];
+    }
+
+    public Trace with(Stage stage, long nanos) {
+        long[] durations = Arrays.copyOf(this.durations, STAGES.length);
+        durations[stage.ordinal()] = Math.max(0, nanos);
+        return new Trace(this.id, durations);
+    }
+
+    /** @return the time from reading the password to its result, i.e., the sum of all stages on the path */
+    public long total() {
+        long total = 0;
+        for (Stage stage : STAGES)
+            if (stage.isOnPath())
+                total += this.get(stage);
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("Trace(").append(this.id);
+        for (Stage stage : STAGES)
+            builder.append(", ").append(stage).append('=').append(this.get(stage) / 1_000_000).append("ms");
+        return builder.append(')').toString();
+    }
+}
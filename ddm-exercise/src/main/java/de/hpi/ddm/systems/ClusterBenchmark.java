@@ -0,0 +1,463 @@
+package de.hpi.ddm.systems;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.StreamSupport;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
+
+import akka.actor.AbstractActor;
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import akka.cluster.Cluster;
+import akka.cluster.MemberStatus;
+import de.hpi.ddm.actors.Master;
+import de.hpi.ddm.configuration.Configuration;
+import de.hpi.ddm.singletons.ConfigurationSingleton;
+import de.hpi.ddm.singletons.DatasetDescriptorSingleton;
+import de.hpi.ddm.singletons.PermutationSingleton;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import scala.concurrent.Await;
+import scala.concurrent.duration.Duration;
+
+/**
+ * End-to-end benchmark of a whole cluster on localhost: boots one {@link MasterSystem} without local workers and a
+ * number of {@link WorkerSystem}s, runs a dataset to completion and reports the phase timings, the throughput and the
+ * GC and heap statistics per node. Every combination of the swept parameters is run {@code --repetitions} times; the
+ * results are printed as a table and appended as one JSON object per run to {@code --output}.
+ *
+ * By default, all nodes run in this JVM. They then share the node-local singletons, i.e., the configuration, the hint
+ * index cache and the compute pool, and there is only one JVM-wide set of GC and heap statistics. Use {@code --fork}
+ * to start every worker node in a JVM of its own for faithful per-node behavior.
+ *
+ * Example: {@code java -cp ... de.hpi.ddm.systems.ClusterBenchmark --nodes 2 --workersPerNode 1,2,4 --bufferSize 50,500}
+ * On Java 9 and later, Kryo needs {@code --add-opens java.base/java.util=ALL-UNNAMED} and the like, as for the
+ * {@code Main} class; forked nodes inherit these options.
+ */
+public class ClusterBenchmark {
+
+	private static final String HOST = "127.0.0.1";
+	private static final String NODE_MODE = "node";
+	private static final String NODE_STATS = "NODE_STATS";
+
+	public static class Options {
+
+		@Parameter(names = { "--nodes" }, description = "Number of worker nodes (actor systems) next to the master node")
+		int nodes = 1;
+
+		@Parameter(names = { "--workersPerNode" }, description = "Comma separated list of the numbers of workers per worker node to sweep over")
+		List<Integer> workersPerNode = Collections.singletonList(ConfigurationSingleton.get().getNumWorkers());
+
+		@Parameter(names = { "--bufferSize" }, description = "Comma separated list of reader buffer sizes to sweep over")
+		List<Integer> bufferSize = Collections.singletonList(ConfigurationSingleton.get().getBufferSize());
+
+		@Parameter(names = { "--largeMessageChunkSize" }, description = "Comma separated list of large message chunk sizes (in bytes) to sweep over")
+		List<Integer> largeMessageChunkSize = Collections.singletonList(ConfigurationSingleton.get().getLargeMessageChunkSize());
+
+		@Parameter(names = { "--welcomeDataSize" }, description = "Comma separated list of welcome data sizes (in MB) to sweep over")
+		List<Integer> welcomeDataSize = Collections.singletonList(ConfigurationSingleton.get().getWelcomeDataSize());
+
+		@Parameter(names = { "--repetitions" }, description = "Number of runs per parameter combination")
+		int repetitions = 1;
+
+		@Parameter(names = { "--fork" }, description = "Start each worker node in a JVM of its own", arity = 1)
+		boolean fork = false;
+
+		@Parameter(names = { "--jvmOption" }, description = "Option for the forked JVMs in addition to the options of this JVM, e.g., -Xmx2g; may be given repeatedly")
+		List<String> jvmOptions = new ArrayList<>();
+
+		@Parameter(names = { "--datasetPath" }, description = "Dataset path")
+		String datasetPath = DatasetDescriptorSingleton.get().getDatasetPath();
+
+		@Parameter(names = { "--datasetName" }, description = "Dataset name; a comma separated list of names is processed as one job per dataset")
+		String datasetName = DatasetDescriptorSingleton.get().getDatasetName();
+
+		@Parameter(names = { "--port" }, description = "First port; each run binds the master and its nodes to the ports above it")
+		int port = Configuration.DEFAULT_MASTER_PORT;
+
+		@Parameter(names = { "--timeout" }, description = "Maximum duration (in s) of a single run")
+		int timeout = 600;
+
+		@Parameter(names = { "--output" }, description = "File to which one JSON object per run is appended")
+		String output = "target" + File.separator + "cluster-benchmark.json";
+
+		@Parameter(names = { "--help" }, help = true)
+		boolean help = false;
+	}
+
+	/**
+	 * GC and heap statistics of one JVM; {@link #sample()} resets the peak heap usage, so that the peak of the next
+	 * sample covers only the time in between.
+	 */
+	@Data @NoArgsConstructor @AllArgsConstructor
+	public static class NodeStats {
+		private String node;
+		private long gcCount;
+		private long gcTime;
+		private long heapUsed;
+		private long heapPeak;
+
+		public static NodeStats sample() {
+			long gcCount = 0;
+			long gcTime = 0;
+			for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+				gcCount += Math.max(0, gc.getCollectionCount());
+				gcTime += Math.max(0, gc.getCollectionTime());
+			}
+			long heapPeak = 0;
+			for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+				if (pool.getType() != MemoryType.HEAP)
+					continue;
+				heapPeak += pool.getPeakUsage().getUsed();
+				pool.resetPeakUsage();
+			}
+			long heapUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+			return new NodeStats("jvm", gcCount, gcTime, heapUsed, heapPeak);
+		}
+
+		public NodeStats since(NodeStats before) {
+			return new NodeStats(this.node, this.gcCount - before.gcCount, this.gcTime - before.gcTime, this.heapUsed, this.heapPeak);
+		}
+
+		public String format() {
+			return String.format(Locale.ROOT, "%s %s %d %d %d %d", NODE_STATS, this.node, this.gcCount, this.gcTime, this.heapUsed, this.heapPeak);
+		}
+
+		public static NodeStats parse(String line) {
+			String[] values = line.trim().split(" ");
+			return new NodeStats(values[1], Long.parseLong(values[2]), Long.parseLong(values[3]), Long.parseLong(values[4]), Long.parseLong(values[5]));
+		}
+
+		public String toJson() {
+			return String.format(Locale.ROOT, "{\"node\":\"%s\",\"gcCount\":%d,\"gcTimeMs\":%d,\"heapUsedMB\":%.1f,\"heapPeakMB\":%.1f}",
+					this.node, this.gcCount, this.gcTime, megabytes(this.heapUsed), megabytes(this.heapPeak));
+		}
+	}
+
+	/**
+	 * Records the {@link Master.PhaseEvent}s of the master system's event stream.
+	 */
+	public static class PhaseRecorder extends AbstractActor {
+
+		public static Props props(List<Master.PhaseEvent> events) {
+			return Props.create(PhaseRecorder.class, () -> new PhaseRecorder(events));
+		}
+
+		private final List<Master.PhaseEvent> events;
+
+		public PhaseRecorder(List<Master.PhaseEvent> events) {
+			this.events = events;
+		}
+
+		@Override
+		public void preStart() {
+			this.getContext().getSystem().getEventStream().subscribe(this.self(), Master.PhaseEvent.class);
+		}
+
+		@Override
+		public Receive createReceive() {
+			return receiveBuilder()
+					.match(Master.PhaseEvent.class, this.events::add)
+					.build();
+		}
+	}
+
+	@Data
+	private static class Run {
+		private int run;
+		private int nodes;
+		private int workersPerNode;
+		private int bufferSize;
+		private int largeMessageChunkSize;
+		private int welcomeDataSize;
+		private boolean fork;
+		private boolean completed;
+		private long setupTime;
+		private long permutationTime;
+		private long crackingTime;
+		private long totalTime;
+		private long shutdownTime;
+		private int passwords;
+		private List<NodeStats> nodeStats = new ArrayList<>();
+
+		double throughput() {
+			return (this.totalTime == 0) ? 0 : this.passwords * 1000.0 / this.totalTime;
+		}
+
+		String toJson() {
+			StringBuilder nodes = new StringBuilder();
+			for (NodeStats stats : this.nodeStats)
+				nodes.append((nodes.length() == 0) ? "" : ",").append(stats.toJson());
+			return String.format(Locale.ROOT, "{\"run\":%d,\"nodes\":%d,\"workersPerNode\":%d,\"bufferSize\":%d,\"largeMessageChunkSize\":%d,\"welcomeDataSize\":%d,\"fork\":%b,"
+					+ "\"completed\":%b,\"setupMs\":%d,\"permutationMs\":%d,\"crackingMs\":%d,\"totalMs\":%d,\"shutdownMs\":%d,\"passwords\":%d,\"passwordsPerSecond\":%.2f,\"nodeStats\":[%s]}",
+					this.run, this.nodes, this.workersPerNode, this.bufferSize, this.largeMessageChunkSize, this.welcomeDataSize, this.fork,
+					this.completed, this.setupTime, this.permutationTime, this.crackingTime, this.totalTime, this.shutdownTime, this.passwords, this.throughput(), nodes);
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		if (args.length > 0 && args[0].equals(NODE_MODE)) {
+			runNode(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+
+		Options options = new Options();
+		JCommander jCommander = JCommander.newBuilder().addObject(options).build();
+		jCommander.parse(args);
+		if (options.help) {
+			jCommander.usage();
+			return;
+		}
+
+		DatasetDescriptorSingleton.get().setDatasetPath(options.datasetPath);
+		DatasetDescriptorSingleton.get().setDatasetName(options.datasetName);
+
+		File output = new File(options.output);
+		if (output.getAbsoluteFile().getParentFile() != null)
+			output.getAbsoluteFile().getParentFile().mkdirs();
+
+		List<Run> runs = new ArrayList<>();
+		int runId = 0;
+		for (int workersPerNode : options.workersPerNode)
+			for (int bufferSize : options.bufferSize)
+				for (int largeMessageChunkSize : options.largeMessageChunkSize)
+					for (int welcomeDataSize : options.welcomeDataSize)
+						for (int repetition = 0; repetition < options.repetitions; repetition++) {
+							Run run = new Run();
+							run.setRun(runId++);
+							run.setNodes(options.nodes);
+							run.setWorkersPerNode(workersPerNode);
+							run.setBufferSize(bufferSize);
+							run.setLargeMessageChunkSize(largeMessageChunkSize);
+							run.setWelcomeDataSize(welcomeDataSize);
+							run.setFork(options.fork);
+
+							execute(run, options);
+							runs.add(run);
+
+							try (PrintWriter writer = new PrintWriter(new FileWriter(output, true))) {
+								writer.println(run.toJson());
+							}
+						}
+
+		print(runs);
+		System.exit(0);
+	}
+
+	/**
+	 * Entry point of a forked worker node: runs the worker system until the master shuts it down and reports the
+	 * node's statistics on stdout for the parent to collect.
+	 */
+	private static void runNode(String[] args) throws Exception {
+		Configuration c = ConfigurationSingleton.get();
+		c.updateWith(args);
+
+		NodeStats before = NodeStats.sample();
+		ActorSystem system = WorkerSystem.start();
+		Await.ready(system.whenTerminated(), Duration.Inf());
+
+		NodeStats stats = NodeStats.sample().since(before);
+		stats.setNode(c.getHost() + ":" + c.getPort());
+		System.out.println(stats.format());
+		System.exit(0);
+	}
+
+	private static void execute(Run run, Options options) throws Exception {
+		// Ports of earlier runs may still be in TIME_WAIT, so every run binds to ports of its own
+		int masterPort = options.port + run.getRun() * (options.nodes + 1);
+
+		Configuration c = ConfigurationSingleton.get();
+		c.setHost(HOST);
+		c.setPort(masterPort);
+		c.setMasterHost(HOST);
+		c.setMasterPort(masterPort);
+		c.setNumWorkers(run.getWorkersPerNode());
+		c.setBufferSize(run.getBufferSize());
+		c.setLargeMessageChunkSize(run.getLargeMessageChunkSize());
+		c.setWelcomeDataSize(run.getWelcomeDataSize());
+		c.setStartPaused(false);
+
+		// Every run starts from cold hint indexes
+		PermutationSingleton.set(null);
+		System.gc();
+		NodeStats before = NodeStats.sample();
+
+		long setupStart = System.nanoTime();
+		ActorSystem master = MasterSystem.start(HOST, masterPort, 0, false);
+		List<Master.PhaseEvent> events = Collections.synchronizedList(new ArrayList<>());
+		master.actorOf(PhaseRecorder.props(events), "phaseRecorder");
+
+		List<ActorSystem> workerSystems = new ArrayList<>();
+		List<Process> processes = new ArrayList<>();
+		List<File> logs = new ArrayList<>();
+		for (int i = 0; i < options.nodes; i++) {
+			int port = masterPort + 1 + i;
+			if (options.fork) {
+				File log = new File(new File(options.output).getAbsoluteFile().getParentFile(), "cluster-benchmark-run" + run.getRun() + "-node" + i + ".log");
+				processes.add(fork(options, run, port, masterPort).redirectErrorStream(true).redirectOutput(log).start());
+				logs.add(log);
+			} else {
+				workerSystems.add(WorkerSystem.start(HOST, port, run.getWorkersPerNode()));
+			}
+		}
+
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(options.timeout);
+		Cluster cluster = Cluster.get(master);
+		while (upMembers(cluster) < options.nodes + 1 && System.nanoTime() < deadline)
+			Thread.sleep(50);
+		run.setSetupTime(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - setupStart));
+
+		master.actorSelection("/user/" + Master.DEFAULT_NAME).tell(new Master.StartMessage(), ActorRef.noSender());
+
+		long remaining = Math.max(1, deadline - System.nanoTime());
+		try {
+			Await.ready(master.whenTerminated(), Duration.fromNanos(remaining));
+			run.setCompleted(true);
+		} catch (TimeoutException e) {
+			master.terminate();
+			Await.ready(master.whenTerminated(), Duration.create(30, TimeUnit.SECONDS));
+		}
+		long masterTerminated = System.nanoTime();
+
+		for (ActorSystem workerSystem : workerSystems) {
+			try {
+				Await.ready(workerSystem.whenTerminated(), Duration.create(30, TimeUnit.SECONDS));
+			} catch (TimeoutException e) {
+				workerSystem.terminate();
+				Await.ready(workerSystem.whenTerminated(), Duration.create(30, TimeUnit.SECONDS));
+			}
+		}
+		for (Process process : processes)
+			if (!process.waitFor(30, TimeUnit.SECONDS))
+				process.destroyForcibly().waitFor();
+		long shutdownEnd = System.nanoTime();
+
+		NodeStats masterStats = NodeStats.sample().since(before);
+		masterStats.setNode(options.fork ? HOST + ":" + masterPort : "jvm");
+		run.getNodeStats().add(masterStats);
+		for (File log : logs)
+			run.getNodeStats().add(readNodeStats(log));
+
+		record(run, events, masterTerminated, shutdownEnd);
+	}
+
+	private static ProcessBuilder fork(Options options, Run run, int port, int masterPort) {
+		List<String> command = new ArrayList<>();
+		command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+		// Forked nodes inherit this JVM's options, e.g., its --add-opens flags, unless they are overridden
+		command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+		command.addAll(options.jvmOptions);
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(ClusterBenchmark.class.getName());
+		command.add(NODE_MODE);
+		command.addAll(Arrays.asList(WorkerSystem.WORKER_ROLE,
+				"-h", HOST, "-p", String.valueOf(port),
+				"-mh", HOST, "-mp", String.valueOf(masterPort),
+				"-w", String.valueOf(run.getWorkersPerNode()),
+				"-lmcs", String.valueOf(run.getLargeMessageChunkSize())));
+		return new ProcessBuilder(command);
+	}
+
+	private static long upMembers(Cluster cluster) {
+		return StreamSupport.stream(cluster.state().getMembers().spliterator(), false)
+				.filter(member -> member.status().equals(MemberStatus.up()))
+				.count();
+	}
+
+	private static NodeStats readNodeStats(File log) throws IOException {
+		try (BufferedReader reader = Files.newBufferedReader(log.toPath(), StandardCharsets.UTF_8)) {
+			return reader.lines()
+					.filter(line -> line.startsWith(NODE_STATS))
+					.map(NodeStats::parse)
+					.findFirst()
+					.orElse(new NodeStats(log.getName(), -1, -1, -1, -1));
+		}
+	}
+
+	/**
+	 * Derive the phase timings from the master's events: the permutation phase lasts from the start until the first
+	 * hint index is ready, the cracking phase from then until the master finishes.
+	 */
+	private static void record(Run run, List<Master.PhaseEvent> events, long masterTerminated, long shutdownEnd) {
+		long started = -1, firstReady = -1, finished = -1;
+		int passwords = 0;
+		synchronized (events) {
+			for (Master.PhaseEvent event : events) {
+				switch (event.getPhase()) {
+					case STARTED:
+						started = event.getTimestamp();
+						break;
+					case PERMUTATIONS_READY:
+						if (firstReady < 0)
+							firstReady = event.getTimestamp();
+						break;
+					case PASSWORD_CRACKED:
+						passwords++;
+						break;
+					case FINISHED:
+						finished = event.getTimestamp();
+						break;
+				}
+			}
+		}
+		// The master's system may shut down before the recorder received the last event
+		if (finished < 0)
+			finished = masterTerminated;
+		if (started < 0)
+			started = finished;
+		if (firstReady < 0)
+			firstReady = finished;
+
+		run.setPermutationTime(TimeUnit.NANOSECONDS.toMillis(firstReady - started));
+		run.setCrackingTime(TimeUnit.NANOSECONDS.toMillis(finished - firstReady));
+		run.setTotalTime(TimeUnit.NANOSECONDS.toMillis(finished - started));
+		run.setShutdownTime(TimeUnit.NANOSECONDS.toMillis(shutdownEnd - finished));
+		run.setPasswords(passwords);
+	}
+
+	private static void print(List<Run> runs) {
+		System.out.println();
+		System.out.printf("%4s %5s %7s %7s %7s %7s %9s %8s %8s %8s %8s %9s %9s %8s %8s %10s%n",
+				"run", "nodes", "workers", "buffer", "chunk", "welcome", "completed", "setup", "perm", "crack", "total", "passwords", "pw/s", "gcs", "gc ms", "peak MB");
+		for (Run run : runs) {
+			long gcCount = 0, gcTime = 0, heapPeak = 0;
+			for (NodeStats stats : run.getNodeStats()) {
+				gcCount += stats.getGcCount();
+				gcTime += stats.getGcTime();
+				heapPeak = Math.max(heapPeak, stats.getHeapPeak());
+			}
+			System.out.printf(Locale.ROOT, "%4d %5d %7d %7d %7d %7d %9b %8d %8d %8d %8d %9d %9.2f %8d %8d %10.1f%n",
+					run.getRun(), run.getNodes(), run.getWorkersPerNode(), run.getBufferSize(), run.getLargeMessageChunkSize(), run.getWelcomeDataSize(), run.isCompleted(),
+					run.getSetupTime(), run.getPermutationTime(), run.getCrackingTime(), run.getTotalTime(), run.getPasswords(), run.throughput(), gcCount, gcTime, megabytes(heapPeak));
+			if (run.isFork())
+				for (NodeStats stats : run.getNodeStats())
+					System.out.printf(Locale.ROOT, "     %-20s gcs %6d   gc ms %8d   used MB %8.1f   peak MB %8.1f%n",
+							stats.getNode(), stats.getGcCount(), stats.getGcTime(), megabytes(stats.getHeapUsed()), megabytes(stats.getHeapPeak()));
+		}
+	}
+
+	private static double megabytes(long bytes) {
+		return bytes / (1024.0 * 1024.0);
+	}
+}
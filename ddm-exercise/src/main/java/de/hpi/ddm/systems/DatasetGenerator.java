@@ -0,0 +1,249 @@
+package de.hpi.ddm.systems;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.ParameterException;
+
+import de.hpi.ddm.configuration.DatasetDescriptor;
+
+/**
+ * Generates password datasets in the format of the {@link DatasetDescriptor} defaults, i.e., semicolon separated
+ * {@code ID;Name;PasswordChars;PasswordLength;Password;Hint1;...;HintN} lines with a header, and a solution file with
+ * the same columns in plain text. Each hint is a permutation of the row's alphabet with one character left out; the
+ * password consists of the characters that no hint leaves out. With several alphabets, each row draws one of them.
+ *
+ * Rows are generated in blocks on all cores and written in order as soon as each block is ready, so the memory use
+ * does not depend on the number of rows. Every block has a random generator of its own that is derived from the seed,
+ * so the same options always produce the same files, regardless of the number of threads.
+ *
+ * Example: {@code java -cp ... de.hpi.ddm.systems.DatasetGenerator --rows 1000000 --alphabetSize 12 --alphabets 4}
+ */
+public class DatasetGenerator {
+
+	private static final String CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+	private static final String[] NAMES = { "Sophia", "Jackson", "Emma", "Aiden", "Olivia", "Lucas", "Ava", "Liam", "Mia", "Noah",
+			"Isabella", "Ethan", "Riley", "Mason", "Aria", "Caden", "Zoe", "Oliver", "Charlotte", "Elijah" };
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+	private static final String SOLUTION_SUFFIX = "_solution";
+
+	public static class Options {
+
+		@Parameter(names = { "--rows" }, description = "Number of passwords")
+		long rows = 100;
+
+		@Parameter(names = { "--alphabetSize" }, description = "Number of characters per alphabet")
+		int alphabetSize = 11;
+
+		@Parameter(names = { "--passwordLength" }, description = "Number of characters per password")
+		int passwordLength = 10;
+
+		@Parameter(names = { "--hints" }, description = "Number of hints per password; at most alphabetSize - 1")
+		int hints = 9;
+
+		@Parameter(names = { "--alphabets" }, description = "Number of different alphabets that the rows are spread over")
+		int alphabets = 1;
+
+		@Parameter(names = { "--seed" }, description = "Seed of the random generator")
+		long seed = 42;
+
+		@Parameter(names = { "--threads" }, description = "Number of generator threads")
+		int threads = Runtime.getRuntime().availableProcessors();
+
+		@Parameter(names = { "--blockSize" }, description = "Number of rows that a thread generates at once")
+		int blockSize = 10_000;
+
+		@Parameter(names = { "--datasetPath" }, description = "Directory of the generated files")
+		String datasetPath = "data";
+
+		@Parameter(names = { "--datasetName" }, description = "Name of the generated dataset; the solution is written to <name>" + SOLUTION_SUFFIX)
+		String datasetName = "generated";
+
+		@Parameter(names = { "--help" }, help = true)
+		boolean help = false;
+
+		void validate() {
+			if (this.rows < 0)
+				throw new ParameterException("rows must not be negative");
+			if (this.alphabetSize < 2 || this.alphabetSize > CHARACTERS.length())
+				throw new ParameterException("alphabetSize must be between 2 and " + CHARACTERS.length());
+			if (this.hints < 0 || this.hints >= this.alphabetSize)
+				throw new ParameterException("hints must be between 0 and alphabetSize - 1");
+			if (this.passwordLength < 1)
+				throw new ParameterException("passwordLength must be positive");
+			if (this.alphabets < 1)
+				throw new ParameterException("alphabets must be positive");
+			if (this.threads < 1 || this.blockSize < 1)
+				throw new ParameterException("threads and blockSize must be positive");
+		}
+	}
+
+	/**
+	 * The lines of one block of rows for the dataset and for its solution.
+	 */
+	private static class Block {
+		private final StringBuilder dataset = new StringBuilder();
+		private final StringBuilder solution = new StringBuilder();
+	}
+
+	private final Options options;
+	private final String[] alphabets;
+
+	public DatasetGenerator(Options options) {
+		options.validate();
+		this.options = options;
+		this.alphabets = alphabets(options);
+	}
+
+	public static void main(String[] args) throws Exception {
+		Options options = new Options();
+		JCommander jCommander = JCommander.newBuilder().addObject(options).build();
+		jCommander.parse(args);
+		if (options.help) {
+			jCommander.usage();
+			return;
+		}
+
+		long start = System.currentTimeMillis();
+		new DatasetGenerator(options).generate();
+		System.out.printf("Generated %d rows in %d ms.%n", options.rows, System.currentTimeMillis() - start);
+	}
+
+	/**
+	 * The first alphabet is the first alphabetSize characters, as in the example data; all further alphabets are
+	 * random selections in random order.
+	 */
+	private static String[] alphabets(Options options) {
+		SplittableRandom random = new SplittableRandom(options.seed);
+		String[] alphabets = new String[options.alphabets];
+		alphabets[0] = CHARACTERS.substring(0, options.alphabetSize);
+		for (int i = 1; i < alphabets.length; i++) {
+			char[] characters = CHARACTERS.toCharArray();
+			shuffle(characters, characters.length, random);
+			alphabets[i] = new String(characters, 0, options.alphabetSize);
+		}
+		return alphabets;
+	}
+
+	public File getDatasetFile() {
+		return new File(this.options.datasetPath, this.options.datasetName + ".csv");
+	}
+
+	public File getSolutionFile() {
+		return new File(this.options.datasetPath, this.options.datasetName + SOLUTION_SUFFIX + ".csv");
+	}
+
+	public void generate() throws IOException, InterruptedException {
+		new File(this.options.datasetPath).mkdirs();
+
+		long numBlocks = (this.options.rows + this.options.blockSize - 1) / this.options.blockSize;
+		ExecutorService executor = Executors.newFixedThreadPool(this.options.threads);
+		try (Writer dataset = Files.newBufferedWriter(this.getDatasetFile().toPath(), StandardCharsets.UTF_8);
+			 Writer solution = Files.newBufferedWriter(this.getSolutionFile().toPath(), StandardCharsets.UTF_8)) {
+			String header = this.header();
+			dataset.write(header);
+			solution.write(header);
+
+			// Keep a bounded number of blocks in flight and write them in order
+			Deque<Future<Block>> pending = new ArrayDeque<>();
+			for (long block = 0; block < numBlocks || !pending.isEmpty(); ) {
+				while (block < numBlocks && pending.size() < 2 * this.options.threads) {
+					long first = block * this.options.blockSize;
+					int count = (int) Math.min(this.options.blockSize, this.options.rows - first);
+					long seed = this.options.seed + (block + 1) * 0x9e3779b97f4a7c15L;
+					pending.add(executor.submit(() -> this.generate(first, count, seed)));
+					block++;
+				}
+				Block next = pending.poll().get();
+				dataset.append(next.dataset);
+				solution.append(next.solution);
+			}
+		} catch (ExecutionException e) {
+			throw new IOException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private String header() {
+		StringBuilder header = new StringBuilder("ID;Name;PasswordChars;PasswordLength;Password");
+		for (int i = 1; i <= this.options.hints; i++)
+			header.append(";Hint").append(i);
+		return header.append('\n').toString();
+	}
+
+	private Block generate(long first, int count, long seed) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e.getMessage());
+		}
+
+		SplittableRandom random = new SplittableRandom(seed);
+		Block block = new Block();
+		char[] password = new char[this.options.passwordLength];
+		char[] hint = new char[this.options.alphabetSize - 1];
+		for (int row = 0; row < count; row++) {
+			String alphabet = this.alphabets[random.nextInt(this.alphabets.length)];
+			String name = NAMES[random.nextInt(NAMES.length)];
+			char[] characters = alphabet.toCharArray();
+
+			// The first characters are the ones that the hints leave out; the password is made of the rest
+			shuffle(characters, characters.length, random);
+			int passwordCharacters = characters.length - this.options.hints;
+			for (int i = 0; i < password.length; i++)
+				password[i] = characters[this.options.hints + random.nextInt(passwordCharacters)];
+
+			String prefix = (first + row + 1) + ";" + name + ";" + alphabet + ";" + this.options.passwordLength + ";";
+			block.dataset.append(prefix);
+			block.solution.append(prefix);
+			appendHash(block.dataset, digest, password, password.length);
+			block.solution.append(password);
+
+			for (int i = 0; i < this.options.hints; i++) {
+				int length = 0;
+				for (char character : alphabet.toCharArray())
+					if (character != characters[i])
+						hint[length++] = character;
+				shuffle(hint, length, random);
+				block.dataset.append(';');
+				block.solution.append(';');
+				appendHash(block.dataset, digest, hint, length);
+				block.solution.append(hint, 0, length);
+			}
+			block.dataset.append('\n');
+			block.solution.append('\n');
+		}
+		return block;
+	}
+
+	private static void appendHash(StringBuilder builder, MessageDigest digest, char[] characters, int length) {
+		byte[] hash = digest.digest(new String(characters, 0, length).getBytes(StandardCharsets.UTF_8));
+		for (byte b : hash)
+			builder.append(HEX[(b >> 4) & 0xf]).append(HEX[b & 0xf]);
+	}
+
+	private static void shuffle(char[] characters, int length, SplittableRandom random) {
+		for (int i = length - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			char swap = characters[i];
+			characters[i] = characters[j];
+			characters[j] = swap;
+		}
+	}
+}
@@ -10,10 +10,13 @@ import akka.actor.ActorRef;
 import akka.actor.ActorSystem;
 import akka.cluster.Cluster;
 import de.hpi.ddm.actors.*;
+import de.hpi.ddm.actors.listeners.ActorMetricsListener;
 import de.hpi.ddm.actors.listeners.ClusterListener;
 import de.hpi.ddm.actors.listeners.MetricsListener;
+import de.hpi.ddm.actors.monitoring.MetricsServer;
 import de.hpi.ddm.configuration.Configuration;
 import de.hpi.ddm.singletons.ConfigurationSingleton;
+import de.hpi.ddm.singletons.DatasetDescriptorSingleton;
 import de.hpi.ddm.structures.BloomFilter;
 import scala.concurrent.Await;
 import scala.concurrent.duration.Duration;
@@ -22,33 +25,57 @@ public class MasterSystem {
 	
 	public static final String MASTER_ROLE = "master";
 
-	public static void start() {
+	public static ActorSystem start() {
+		final Configuration c = ConfigurationSingleton.get();
+
+		final ActorSystem system = start(c.getHost(), c.getPort(), c.getNumWorkers(), !c.isStartPaused());
+
+		if (c.isStartPaused()) {
+			System.out.println("Press <enter> to start!");
+			try (final Scanner scanner = new Scanner(System.in)) {
+				scanner.nextLine();
+			}
+			system.actorSelection("/user/" + Master.DEFAULT_NAME).tell(new Master.StartMessage(), ActorRef.noSender());
+		}
+		return system;
+	}
+
+	/**
+	 * Start a master actor system on the given host and port, e.g., next to other actor systems in the same JVM.
+	 * @param host the host name or IP to bind against
+	 * @param port the port to bind against
+	 * @param numWorkers the number of workers to start in the master system
+	 * @param autoStart {@code true} to start the master once the system is up; otherwise, send it a StartMessage
+	 * @return the actor system
+	 */
+	public static ActorSystem start(String host, int port, int numWorkers, boolean autoStart) {
 		final Configuration c = ConfigurationSingleton.get();
 		
 		final Config config = ConfigFactory.parseString(
-				"akka.remote.artery.canonical.hostname = \"" + c.getHost() + "\"\n" +
-				"akka.remote.artery.canonical.port = " + c.getPort() + "\n" +
+				"akka.remote.artery.canonical.hostname = \"" + host + "\"\n" +
+				"akka.remote.artery.canonical.port = " + port + "\n" +
 				"akka.cluster.roles = [" + MASTER_ROLE + "]\n" +
-				"akka.cluster.seed-nodes = [\"akka://" + c.getActorSystemName() + "@" + c.getHost() + ":" + c.getPort() + "\"]")
+				"akka.cluster.seed-nodes = [\"akka://" + c.getActorSystemName() + "@" + host + ":" + port + "\"]")
 			.withFallback(ConfigFactory.load("application"));
 		
 		final ActorSystem system = ActorSystem.create(c.getActorSystemName(), config);
 
 		//ActorRef clusterListener = system.actorOf(ClusterListener.props(), ClusterListener.DEFAULT_NAME);
-		//ActorRef metricsListener = system.actorOf(MetricsListener.props(), MetricsListener.DEFAULT_NAME);
+		system.actorOf(MetricsListener.props(), MetricsListener.DEFAULT_NAME);
 		
 		ActorRef reaper = system.actorOf(Reaper.props(), Reaper.DEFAULT_NAME);
-		
-		ActorRef reader = system.actorOf(Reader.props(), Reader.DEFAULT_NAME);
+		system.actorOf(ActorMetricsListener.props(), ActorMetricsListener.DEFAULT_NAME);
+		MetricsServer.start(system);
 		
 		ActorRef collector = system.actorOf(Collector.props(), Collector.DEFAULT_NAME);
 
 		BloomFilter welcomeData = c.generateWelcomeData();
-		ActorRef master = system.actorOf(Master.props(reader, collector, welcomeData), Master.DEFAULT_NAME);
+		ActorRef master = system.actorOf(Master.props(DatasetDescriptorSingleton.get().split(), collector, welcomeData), Master.DEFAULT_NAME);
 
-		int numWorkers = c.getNumWorkers();
 		if (numWorkers > 0) {
 			ActorRef permutationHandler = system.actorOf(PermutationHandler.props(welcomeData), PermutationHandler.DEFAULT_NAME + "-mastersys");
+			if (c.isAutoscaling())
+				system.actorOf(Autoscaler.props(), Autoscaler.DEFAULT_NAME);
 		}
 
 		Cluster.get(system).registerOnMemberUp(() -> {
@@ -58,7 +85,7 @@ public class MasterSystem {
 					system.actorOf(Worker.props(welcomeData), Worker.DEFAULT_NAME + i);
 				}
 			}
-				if (!c.isStartPaused())
+			if (autoStart)
 				master.tell(new Master.StartMessage(), ActorRef.noSender());
 		});
 
@@ -72,13 +99,7 @@ public class MasterSystem {
 				}
 			}).start();
 		});
-		
-		if (c.isStartPaused()) {
-			System.out.println("Press <enter> to start!");
-			try (final Scanner scanner = new Scanner(System.in)) {
-				scanner.nextLine();
-			}
-			master.tell(new Master.StartMessage(), ActorRef.noSender());
-		}
+
+		return system;
 	}
 }
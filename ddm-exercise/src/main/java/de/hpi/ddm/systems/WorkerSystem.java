@@ -9,8 +9,10 @@ import akka.actor.ActorRef;
 import akka.actor.ActorSystem;
 import akka.cluster.Cluster;
 import de.hpi.ddm.actors.*;
+import de.hpi.ddm.actors.listeners.ActorMetricsListener;
 import de.hpi.ddm.actors.listeners.ClusterListener;
 import de.hpi.ddm.actors.listeners.MetricsListener;
+import de.hpi.ddm.actors.monitoring.MetricsServer;
 import de.hpi.ddm.configuration.Configuration;
 import de.hpi.ddm.singletons.ConfigurationSingleton;
 import de.hpi.ddm.structures.BloomFilter;
@@ -21,12 +23,24 @@ public class WorkerSystem {
 
 	public static final String WORKER_ROLE = "worker";
 	
-	public static void start() {
+	public static ActorSystem start() {
+		final Configuration c = ConfigurationSingleton.get();
+		return start(c.getHost(), c.getPort(), c.getNumWorkers());
+	}
+
+	/**
+	 * Start a worker actor system on the given host and port, e.g., next to other actor systems in the same JVM.
+	 * @param host the host name or IP to bind against
+	 * @param port the port to bind against
+	 * @param numWorkers the number of workers to start in this system
+	 * @return the actor system
+	 */
+	public static ActorSystem start(String host, int port, int numWorkers) {
 		final Configuration c = ConfigurationSingleton.get();
 		
 		final Config config = ConfigFactory.parseString(
-				"akka.remote.artery.canonical.hostname = \"" + c.getHost() + "\"\n" +
-				"akka.remote.artery.canonical.port = " + c.getPort() + "\n" +
+				"akka.remote.artery.canonical.hostname = \"" + host + "\"\n" +
+				"akka.remote.artery.canonical.port = " + port + "\n" +
 				"akka.cluster.roles = [" + WORKER_ROLE + "]\n" +
 				"akka.cluster.seed-nodes = [\"akka://" + c.getActorSystemName() + "@" + c.getMasterHost() + ":" + c.getMasterPort() + "\"]")
 			.withFallback(ConfigFactory.load("application"));
@@ -34,14 +48,18 @@ public class WorkerSystem {
 		final ActorSystem system = ActorSystem.create(c.getActorSystemName(), config);
 		
 		//ActorRef clusterListener = system.actorOf(ClusterListener.props(), ClusterListener.DEFAULT_NAME);
-		//ActorRef metricsListener = system.actorOf(MetricsListener.props(), MetricsListener.DEFAULT_NAME);
+		system.actorOf(MetricsListener.props(), MetricsListener.DEFAULT_NAME);
 		BloomFilter welcomeData = c.generateWelcomeData();
 
 		ActorRef reaper = system.actorOf(Reaper.props(), Reaper.DEFAULT_NAME);
+		system.actorOf(ActorMetricsListener.props(), ActorMetricsListener.DEFAULT_NAME);
+		MetricsServer.start(system);
+		if (c.isAutoscaling())
+			system.actorOf(Autoscaler.props(), Autoscaler.DEFAULT_NAME);
 		ActorRef permutationHandler = system.actorOf(PermutationHandler.props(welcomeData), PermutationHandler.DEFAULT_NAME  + "-workersys-");
 
 		Cluster.get(system).registerOnMemberUp(() -> {
-			for (int i = 0; i < c.getNumWorkers(); i++)
+			for (int i = 0; i < numWorkers; i++)
 				system.actorOf(Worker.props(welcomeData), Worker.DEFAULT_NAME + i);
 		});
 
@@ -55,5 +73,7 @@ public class WorkerSystem {
 				}
 			}).start();
 		});
+
+		return system;
 	}
 }
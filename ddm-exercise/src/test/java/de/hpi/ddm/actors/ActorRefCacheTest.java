@@ -0,0 +1,97 @@
+package de.hpi.ddm.actors;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Duration;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.typesafe.config.ConfigFactory;
+
+import akka.actor.AbstractActor;
+import akka.actor.ActorIdentity;
+import akka.actor.ActorPath;
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.PoisonPill;
+import akka.actor.Props;
+import akka.actor.Terminated;
+import akka.testkit.javadsl.TestKit;
+
+public class ActorRefCacheTest {
+
+	private static ActorSystem system;
+
+	@BeforeClass
+	public static void setUp() {
+		system = ActorSystem.create("test", ConfigFactory.parseString("akka.actor.provider = local\nakka.extensions = []").withFallback(ConfigFactory.load("application")));
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		TestKit.shutdownActorSystem(system);
+	}
+
+	// Tells the target through its cache and reports to the probe whether the target was resolved at that time
+	static class Sender extends AbstractActor {
+
+		private final ActorRefCache actorRefs = new ActorRefCache(this);
+		private final ActorPath target;
+		private final ActorRef probe;
+
+		Sender(ActorPath target, ActorRef probe) {
+			this.target = target;
+			this.probe = probe;
+		}
+
+		@Override
+		public Receive createReceive() {
+			return receiveBuilder()
+					.match(ActorIdentity.class, this.actorRefs::resolved)
+					.match(Terminated.class, message -> this.probe.tell(this.actorRefs.invalidate(message.getActor()) ? "invalidated" : "unknown", this.self()))
+					.match(String.class, message -> {
+						this.probe.tell(this.actorRefs.get(this.target) != null, this.self());
+						this.actorRefs.tell(this.target, message, this.self());
+					})
+					.build();
+		}
+	}
+
+	// Passes everything on to the probe
+	static class Target extends AbstractActor {
+
+		private final ActorRef probe;
+
+		Target(ActorRef probe) {
+			this.probe = probe;
+		}
+
+		@Override
+		public Receive createReceive() {
+			return receiveBuilder().matchAny(message -> this.probe.tell(message, this.sender())).build();
+		}
+	}
+
+	@Test
+	public void shouldResolveOnceAndForgetTerminatedActors() {
+		TestKit probe = new TestKit(system);
+		ActorRef target = system.actorOf(Props.create(Target.class, () -> new Target(probe.getRef())), "target");
+		ActorRef sender = system.actorOf(Props.create(Sender.class, () -> new Sender(target.path(), probe.getRef())));
+
+		// The first message goes through the selection while the path is resolved
+		sender.tell("first", ActorRef.noSender());
+		assertEquals(false, probe.expectMsgClass(Boolean.class));
+		assertEquals("first", probe.expectMsgClass(String.class));
+
+		sender.tell("second", ActorRef.noSender());
+		assertEquals(true, probe.expectMsgClass(Boolean.class));
+		assertEquals("second", probe.expectMsgClass(String.class));
+
+		target.tell(PoisonPill.getInstance(), ActorRef.noSender());
+		assertEquals("invalidated", probe.expectMsgClass(Duration.ofSeconds(3), String.class));
+		sender.tell("third", ActorRef.noSender());
+		assertEquals(false, probe.expectMsgClass(Boolean.class));
+	}
+}
@@ -0,0 +1,287 @@
+package de.hpi.ddm.actors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.typesafe.config.ConfigFactory;
+
+import akka.actor.AbstractActor;
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Address;
+import akka.actor.Props;
+import akka.cluster.Cluster;
+import akka.testkit.javadsl.TestKit;
+
+public class PasswordShardTest {
+
+	private static final int JOB_ID = 7;
+
+	private ActorSystem system;
+	private Address node;
+	private TestKit parent; // receives everything that the shards send to the Master
+	private TestKit collector;
+
+	/**
+	 * Stands in for the Master: creates the shards as its children, so that they find each other, and passes on what
+	 * they send to it.
+	 */
+	static class Parent extends AbstractActor {
+
+		private final List<ActorRef> shards = new ArrayList<>();
+		private final ActorRef probe;
+
+		Parent(int numShards, ActorRef collector, ActorRef probe) {
+			this.probe = probe;
+			for (int i = 0; i < numShards; i++)
+				this.shards.add(this.context().actorOf(PasswordShard.props(i, numShards, collector), PasswordShard.name(i)));
+		}
+
+		@Override
+		public Receive createReceive() {
+			return receiveBuilder()
+					.matchEquals("shards", message -> this.sender().tell(new ArrayList<>(this.shards), this.self()))
+					.matchAny(message -> this.probe.tell(message, this.sender()))
+					.build();
+		}
+	}
+
+	@Before
+	public void setUp() {
+		this.system = ActorSystem.create("test", ConfigFactory.parseString(
+				"akka.remote.artery.canonical.port = 0\nakka.extensions = []\nakka.cluster.metrics.collector.enabled = off")
+				.withFallback(ConfigFactory.load("application")));
+		this.node = Cluster.get(this.system).selfAddress();
+		this.parent = new TestKit(this.system);
+		this.parent.ignoreMsg(message -> message instanceof Master.NoWorkMessage || message instanceof Master.NodeCompletionsMessage);
+		this.collector = new TestKit(this.system);
+	}
+
+	@After
+	public void tearDown() {
+		TestKit.shutdownActorSystem(this.system);
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<ActorRef> createShards(int numShards, String... alphabets) {
+		ActorRef master = this.system.actorOf(Props.create(Parent.class, () -> new Parent(numShards, this.collector.getRef(), this.parent.getRef())));
+		TestKit probe = new TestKit(this.system);
+		master.tell("shards", probe.getRef());
+		List<ActorRef> shards = probe.expectMsgClass(List.class);
+		for (ActorRef shard : shards) {
+			shard.tell(new PasswordShard.StartJobMessage(JOB_ID, "job"), ActorRef.noSender());
+			shard.tell(new PasswordShard.NodeAlphabetsMessage(this.node, new HashSet<>(Arrays.asList(alphabets))), ActorRef.noSender());
+		}
+		return shards;
+	}
+
+	private static String[] line(int passwordId, String alphabet) {
+		return new String[] { String.valueOf(passwordId), "name" + passwordId, alphabet, "3", "hash" + passwordId, "hint" + passwordId };
+	}
+
+	private static Master.BatchMessage batch(int jobId, String alphabet, int... passwordIds) {
+		List<String[]> lines = new ArrayList<>();
+		for (int passwordId : passwordIds)
+			lines.add(line(passwordId, alphabet));
+		return new Master.BatchMessage(jobId, lines, 0);
+	}
+
+	private TestKit addWorker(ActorRef shard) {
+		TestKit worker = new TestKit(this.system);
+		shard.tell(new PasswordShard.AddWorkerMessage(worker.getRef()), ActorRef.noSender());
+		return worker;
+	}
+
+	private static int receivePassword(TestKit worker) {
+		return worker.expectMsgClass(Worker.PasswordWorkPackageMessage.class).getPasswordWorkpackage().getId();
+	}
+
+	private static Set<Integer> receivePasswords(TestKit worker, int count) {
+		Set<Integer> passwordIds = new HashSet<>();
+		for (int i = 0; i < count; i++)
+			passwordIds.add(receivePassword(worker));
+		return passwordIds;
+	}
+
+	/**
+	 * Report the password as cracked and ask for the next one, as a Worker does.
+	 */
+	private static void crack(TestKit worker, ActorRef shard, int jobId, int passwordId) {
+		shard.tell(new Worker.PasswordCrackerResultMessage(jobId, passwordId, "password" + passwordId, null), worker.getRef());
+		shard.tell(new Master.WorkerWorkRequestMessage(), worker.getRef());
+	}
+
+	@Test
+	public void shouldRoutePasswordsByIdAndHandThemOutByAlphabet() {
+		assertEquals(1, PasswordShard.shardOf(5, 2));
+		assertEquals(1, PasswordShard.shardOf(-1, 2));
+		List<ActorRef> shards = this.createShards(1, "ABC");
+		ActorRef shard = shards.get(0);
+		TestKit worker = this.addWorker(shard);
+
+		// A repeated id is held once; a password of an alphabet without permutations waits for them
+		Master.BatchMessage batch = batch(JOB_ID, "ABC", 0, 0);
+		batch.getLines().add(line(1, "DEF"));
+		shard.tell(batch, ActorRef.noSender());
+		assertEquals(0, receivePassword(worker));
+		worker.expectNoMessage(Duration.ofMillis(200));
+
+		shard.tell(new PasswordShard.NodeAlphabetsMessage(this.node, new HashSet<>(Arrays.asList("ABC", "DEF"))), ActorRef.noSender());
+		shard.tell(new Master.WorkerWorkRequestMessage(), worker.getRef());
+		assertEquals(1, receivePassword(worker));
+		worker.expectNoMessage(Duration.ofMillis(200));
+	}
+
+	@Test
+	public void shouldStealFromSiblingsAroundTheRing() {
+		List<ActorRef> shards = this.createShards(3, "ABC");
+		shards.get(2).tell(batch(JOB_ID, "ABC", 2, 5, 8, 11), ActorRef.noSender());
+		// The last hop of a steal is answered even if it finds nothing, which tells that the shard has its batch
+		TestKit thief = new TestKit(this.system);
+		shards.get(2).tell(new PasswordShard.StealMessage(thief.getRef(), this.node, Collections.singleton("XYZ"), 2), ActorRef.noSender());
+		assertEquals(0, thief.expectMsgClass(PasswordShard.StolenPasswordsMessage.class).getPasswordWorkPackages().size());
+
+		// Shard 0 asks shard 1, which has nothing and passes the steal on to shard 2, which gives up its newest half
+		TestKit worker = this.addWorker(shards.get(0));
+		assertEquals(new HashSet<>(Arrays.asList(8, 11)), receivePasswords(worker, 2));
+
+		// The thief owns the stolen passwords now and counts their results
+		crack(worker, shards.get(0), JOB_ID, 8);
+		crack(worker, shards.get(0), JOB_ID, 11);
+		int count = 0;
+		while (count < 2) {
+			Master.PasswordsCompletedMessage completed = this.parent.expectMsgClass(Duration.ofSeconds(3), Master.PasswordsCompletedMessage.class);
+			assertEquals(JOB_ID, completed.getJobId());
+			assertEquals(shards.get(0), this.parent.getLastSender());
+			count += completed.getCount();
+		}
+		assertEquals(2, count);
+	}
+
+	@Test
+	public void shouldReissueOverdueLeasesToIdleWorkers() {
+		ActorRef shard = this.createShards(1, "ABC").get(0);
+		TestKit slowWorker = this.addWorker(shard);
+		shard.tell(batch(JOB_ID, "ABC", 0, 1, 2, 3, 4, 5), ActorRef.noSender());
+
+		// Five quick results give the lease tracker enough latencies to derive deadlines from
+		assertEquals(new HashSet<>(Arrays.asList(0, 1)), receivePasswords(slowWorker, 2));
+		for (int passwordId = 0; passwordId < 4; passwordId++) {
+			crack(slowWorker, shard, JOB_ID, passwordId);
+			assertEquals(passwordId + 2, receivePassword(slowWorker));
+		}
+		crack(slowWorker, shard, JOB_ID, 4);
+
+		// Password 5 is held past the minimum deadline, so the lease check gives it to the idle worker, too
+		TestKit idleWorker = this.addWorker(shard);
+		assertEquals(5, idleWorker.expectMsgClass(Duration.ofSeconds(3), Worker.PasswordWorkPackageMessage.class).getPasswordWorkpackage().getId());
+		slowWorker.expectNoMessage(Duration.ofMillis(100));
+
+		// The first result counts; the late one of the slow worker is dropped
+		crack(idleWorker, shard, JOB_ID, 5);
+		crack(slowWorker, shard, JOB_ID, 5);
+		int count = 0;
+		while (count < 6)
+			count += this.parent.expectMsgClass(Duration.ofSeconds(3), Master.PasswordsCompletedMessage.class).getCount();
+		assertEquals(6, count);
+		this.parent.expectNoMessage(Duration.ofMillis(1500));
+	}
+
+	@Test
+	public void shouldPassOnFullBatchesOfResultsWithCountsPerJob() {
+		int otherJobId = JOB_ID + 1;
+		ActorRef shard = this.createShards(1).get(0);
+		shard.tell(new PasswordShard.StartJobMessage(otherJobId, "other job"), ActorRef.noSender());
+		int[] passwordIds = new int[40];
+		for (int i = 0; i < passwordIds.length; i++)
+			passwordIds[i] = i;
+		shard.tell(batch(JOB_ID, "ABC", passwordIds), ActorRef.noSender());
+		shard.tell(batch(otherJobId, "ABC", passwordIds), ActorRef.noSender());
+
+		// 30 + 34 results fill one batch; neither job has drained, because no worker has taken its passwords
+		for (int passwordId = 0; passwordId < 34; passwordId++) {
+			if (passwordId < 30)
+				shard.tell(new Worker.PasswordCrackerResultMessage(JOB_ID, passwordId, "password", null), ActorRef.noSender());
+			shard.tell(new Worker.PasswordCrackerResultMessage(otherJobId, passwordId, "password", null), ActorRef.noSender());
+		}
+
+		assertEquals(PasswordShard.RESULT_BATCH_SIZE, this.collector.expectMsgClass(Duration.ofMillis(500), Collector.ResultsMessage.class).getResults().size());
+		Map<Integer, Integer> counts = new HashMap<>();
+		for (int i = 0; i < 2; i++) {
+			Master.PasswordsCompletedMessage completed = this.parent.expectMsgClass(Duration.ofMillis(500), Master.PasswordsCompletedMessage.class);
+			assertNull(counts.put(completed.getJobId(), completed.getCount()));
+		}
+		assertEquals(30, (int) counts.get(JOB_ID));
+		assertEquals(34, (int) counts.get(otherJobId));
+
+		// A result that does not fill a batch waits
+		shard.tell(new Worker.PasswordCrackerResultMessage(JOB_ID, 30, "password", null), ActorRef.noSender());
+		this.collector.expectNoMessage(Duration.ofMillis(200));
+	}
+
+	@Test
+	public void shouldPassOnResultsOnceTheJobDrains() {
+		ActorRef shard = this.createShards(1, "ABC").get(0);
+		TestKit worker = this.addWorker(shard);
+		shard.tell(batch(JOB_ID, "ABC", 0, 1, 2), ActorRef.noSender());
+		assertEquals(new HashSet<>(Arrays.asList(0, 1)), receivePasswords(worker, 2));
+		crack(worker, shard, JOB_ID, 0);
+		assertEquals(2, receivePassword(worker));
+		crack(worker, shard, JOB_ID, 1);
+		this.collector.expectNoMessage(Duration.ofMillis(100));
+
+		// The last result goes out right away, together with the ones that waited for a full batch
+		crack(worker, shard, JOB_ID, 2);
+		assertEquals(3, this.collector.expectMsgClass(Duration.ofMillis(300), Collector.ResultsMessage.class).getResults().size());
+		Master.PasswordsCompletedMessage completed = this.parent.expectMsgClass(Duration.ofMillis(300), Master.PasswordsCompletedMessage.class);
+		assertEquals(JOB_ID, completed.getJobId());
+		assertEquals(3, completed.getCount());
+	}
+
+	@Test
+	public void shouldSizeBatchesByTheWeightsOfTheMaster() {
+		ActorRef shard = this.createShards(1, "ABC").get(0);
+		shard.tell(new PasswordShard.NodeWeightsMessage(Collections.singletonMap(this.node, 2.0)), ActorRef.noSender());
+		TestKit worker = this.addWorker(shard);
+		shard.tell(batch(JOB_ID, "ABC", 0, 1, 2, 3, 4, 5), ActorRef.noSender());
+
+		// A node with twice the average capacity holds twice the configured batch of two passwords
+		assertEquals(new HashSet<>(Arrays.asList(0, 1, 2, 3)), receivePasswords(worker, 4));
+		worker.expectNoMessage(Duration.ofMillis(200));
+
+		// The completions go to the master, which follows the cluster metrics for all shards
+		this.parent.ignoreNoMsg();
+		this.parent.ignoreMsg(message -> message instanceof Master.NoWorkMessage || message instanceof Master.PasswordsCompletedMessage);
+		crack(worker, shard, JOB_ID, 0);
+		Master.NodeCompletionsMessage completions = this.parent.expectMsgClass(Duration.ofSeconds(3), Master.NodeCompletionsMessage.class);
+		assertEquals(Collections.singletonMap(this.node, 1), completions.getCompletions());
+	}
+
+	@Test
+	public void shouldReassignPasswordsOfTerminatedWorkers() {
+		ActorRef shard = this.createShards(1, "ABC").get(0);
+		TestKit leavingWorker = this.addWorker(shard);
+		shard.tell(batch(JOB_ID, "ABC", 0, 1), ActorRef.noSender());
+		assertEquals(new HashSet<>(Arrays.asList(0, 1)), receivePasswords(leavingWorker, 2));
+
+		TestKit worker = this.addWorker(shard);
+		worker.expectNoMessage(Duration.ofMillis(200));
+		this.system.stop(leavingWorker.getRef());
+
+		assertEquals(new HashSet<>(Arrays.asList(0, 1)), receivePasswords(worker, 2));
+	}
+}
@@ -0,0 +1,86 @@
+package de.hpi.ddm.actors.monitoring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.typesafe.config.ConfigFactory;
+
+import akka.actor.AbstractActor;
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import akka.dispatch.RequiresMessageQueue;
+import akka.testkit.javadsl.TestKit;
+
+public class ActorMetricsTest {
+
+	private static ActorSystem system;
+
+	static class SleepingActor extends AbstractActor implements RequiresMessageQueue<InstrumentedMessageQueueSemantics> {
+
+		@Override
+		public Receive createReceive() {
+			return ActorMetrics.instrument(this, receiveBuilder()
+					.match(Integer.class, millis -> {
+						Thread.sleep(millis);
+						this.sender().tell(millis, this.self());
+					})
+					.build());
+		}
+	}
+
+	@BeforeClass
+	public static void setUp() {
+		system = ActorSystem.create("test", ConfigFactory.parseString("akka.actor.provider = local\nakka.extensions = []").withFallback(ConfigFactory.load("application")));
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		TestKit.shutdownActorSystem(system);
+	}
+
+	@Test
+	public void shouldApproximatePercentiles() {
+		Histogram histogram = new Histogram();
+		for (long value = 1; value <= 100_000; value++)
+			histogram.record(value);
+		Histogram.Snapshot snapshot = histogram.snapshot();
+
+		assertEquals(100_000, snapshot.getCount());
+		assertTrue(snapshot.percentile(0.5) >= 50_000 && snapshot.percentile(0.5) <= 50_000 * 1.125);
+		assertTrue(snapshot.percentile(0.99) >= 99_000 && snapshot.percentile(0.99) <= 99_000 * 1.125);
+		assertTrue(snapshot.max() >= 100_000);
+		for (int bucket = 1; bucket < 400; bucket++)
+			assertEquals(bucket, Histogram.bucket(Histogram.upperBound(bucket)));
+
+		histogram.record(7);
+		assertEquals(7, histogram.snapshot().since(snapshot).max());
+	}
+
+	@Test
+	public void shouldRecordQueueDepthsWaitAndHandlerTimes() {
+		TestKit probe = new TestKit(system);
+		ActorRef actor = system.actorOf(Props.create(SleepingActor.class));
+		for (int i = 0; i < 5; i++)
+			actor.tell(20, probe.getRef());
+		probe.receiveN(5, Duration.ofSeconds(5));
+
+		ActorStats stats = ActorMetrics.get(SleepingActor.class.getSimpleName());
+		// The handler time of the last message is recorded only after its reply went out
+		probe.awaitAssert(Duration.ofSeconds(5), () -> {
+			assertEquals(5, stats.getMessages());
+			return null;
+		});
+		assertEquals(0, stats.getQueueDepth());
+		assertTrue(stats.getMaxQueueDepth() >= 2);
+		assertTrue(stats.getHandlerTimeP50Micros() >= 20_000);
+		// The last message waited for the four messages before it
+		assertTrue(stats.getWaitTimeMaxMicros() >= 60_000);
+	}
+}
@@ -0,0 +1,62 @@
+package de.hpi.ddm.actors.monitoring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import de.hpi.ddm.compute.CancellationToken;
+import de.hpi.ddm.compute.PasswordCrackTask;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class FlightRecorderEventsTest {
+
+	private static String sha256(String text) throws Exception {
+		StringBuilder hex = new StringBuilder();
+		for (byte b : MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8)))
+			hex.append(String.format("%02x", b));
+		return hex.toString();
+	}
+
+	@Test
+	public void shouldRecordOneEventPerCrackShard() throws Exception {
+		Path file = Files.createTempFile("ddm", ".jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable(CrackShardEvent.class);
+			recording.start();
+			// 8^6 candidates split into 8 shards of 8^5
+			String password = new PasswordCrackTask("ABCDEFGH".toCharArray(), 6, sha256("CAFFEE"), 42, new CancellationToken()).invoke();
+			recording.stop();
+			recording.dump(file);
+			assertEquals("CAFFEE", password);
+		}
+
+		List<RecordedEvent> shards = RecordingFile.readAllEvents(file).stream()
+				.filter(event -> event.getEventType().getName().equals("de.hpi.ddm.CrackShard"))
+				.collect(Collectors.toList());
+		Files.delete(file);
+
+		assertFalse(shards.isEmpty());
+		assertTrue(shards.size() <= 8);
+		for (RecordedEvent shard : shards) {
+			assertEquals(42, shard.getLong("traceId"));
+			assertEquals(6, shard.getInt("length"));
+			assertEquals(1, shard.getString("prefix").length());
+		}
+		// Shards that stop because another one found the password did not find it themselves
+		List<RecordedEvent> found = shards.stream().filter(shard -> shard.getBoolean("found")).collect(Collectors.toList());
+		assertEquals(1, found.size());
+		assertEquals("C", found.get(0).getString("prefix"));
+		assertTrue(found.get(0).getLong("candidates") > 0);
+	}
+}
@@ -0,0 +1,102 @@
+package de.hpi.ddm.actors.monitoring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Scanner;
+
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpServer;
+import com.typesafe.config.ConfigFactory;
+
+import akka.actor.ActorSystem;
+import akka.testkit.javadsl.TestKit;
+
+public class MetricsTest {
+
+	@Test
+	public void shouldRenderPrometheusText() {
+		Metrics.Counter counter = Metrics.counter("test_events_total", "Events", "kind", "a\"b");
+		counter.add(3);
+		Metrics.counter("test_events_total", "Events", "kind", "a\"b").inc();
+		Metrics.gauge("test_level", "Level").set(0.25);
+		Histogram histogram = new Histogram();
+		for (int i = 1; i <= 100; i++)
+			histogram.record(i * 1_000_000L);
+		Metrics.summary("test_latency_seconds", "Latency", histogram, 1e-9);
+
+		String text = Metrics.scrape();
+
+		assertTrue(text, text.contains("# HELP test_events_total Events\n# TYPE test_events_total counter\ntest_events_total{kind=\"a\\\"b\"} 4\n"));
+		assertTrue(text, text.contains("# TYPE test_level gauge\ntest_level 0.25\n"));
+		assertTrue(text, text.contains("# TYPE test_latency_seconds summary\n"));
+		assertTrue(text, text.contains("test_latency_seconds_count 100\n"));
+		assertTrue(text, text.contains("test_latency_seconds{quantile=\"0.5\"} 0.05"));
+	}
+
+	@Test
+	public void shouldDropRemovedSeries() {
+		Metrics.gauge("test_node_level", "Level", "node", "a").set(1);
+		Metrics.gauge("test_node_level", "Level", "node", "b").set(2);
+
+		Metrics.remove("test_node_level", "node", "a");
+		Metrics.remove("test_unknown", "node", "a");
+		String text = Metrics.scrape();
+
+		assertFalse(text, text.contains("test_node_level{node=\"a\"}"));
+		assertTrue(text, text.contains("test_node_level{node=\"b\"} 2\n"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void shouldRejectTypeChanges() {
+		Metrics.counter("test_typed", "Typed");
+		Metrics.gauge("test_typed", "Typed");
+	}
+
+	@Test
+	public void shouldServeMetricsOverHttp() throws Exception {
+		int port;
+		try (ServerSocket socket = new ServerSocket(0)) {
+			port = socket.getLocalPort();
+		}
+		ActorSystem system = ActorSystem.create("test", ConfigFactory.parseString(
+				"akka.actor.provider = local\nakka.extensions = []\n" +
+				"akka.remote.artery.canonical.hostname = \"127.0.0.1\"\nakka.remote.artery.canonical.port = 2551\n" +
+				"ddm.monitoring.metrics-port-offset = " + (port - 2551)).withFallback(ConfigFactory.load("application")));
+		try {
+			HttpServer server = MetricsServer.start(system);
+			assertNotNull(server);
+			Metrics.counter("test_served_total", "Served").inc();
+
+			HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port + MetricsServer.PATH).openConnection();
+			assertEquals(200, connection.getResponseCode());
+			assertTrue(connection.getContentType().startsWith("text/plain; version=0.0.4"));
+			try (InputStream input = connection.getInputStream(); Scanner scanner = new Scanner(input, StandardCharsets.UTF_8.name())) {
+				String body = scanner.useDelimiter("\\A").next();
+				assertTrue(body, body.contains("test_served_total 1\n"));
+			}
+		} finally {
+			TestKit.shutdownActorSystem(system);
+		}
+	}
+
+	@Test
+	public void shouldRecordTheFirstWorkOfANodeOnce() {
+		ActorSystem system = ActorSystem.create("first-work", ConfigFactory.parseString("akka.actor.provider = local\nakka.extensions = []").withFallback(ConfigFactory.load("application")));
+		try {
+			assertTrue(FirstWork.started(system));
+			assertFalse(FirstWork.started(system));
+			assertTrue(Metrics.scrape().contains("ddm_node_first_work_seconds{node=\"akka://first-work\"}"));
+		} finally {
+			TestKit.shutdownActorSystem(system);
+		}
+	}
+}
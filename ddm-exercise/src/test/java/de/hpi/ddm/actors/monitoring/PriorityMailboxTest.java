@@ -0,0 +1,130 @@
+package de.hpi.ddm.actors.monitoring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.typesafe.config.ConfigFactory;
+
+import akka.actor.AbstractActor;
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.DeadLetter;
+import akka.actor.Props;
+import akka.testkit.javadsl.TestKit;
+
+public class PriorityMailboxTest {
+
+	private static ActorSystem system;
+
+	static class Work implements WorkMessage {
+		final int id;
+
+		Work(int id) {
+			this.id = id;
+		}
+	}
+
+	/**
+	 * Blocks on its first message until the test releases it, then reports everything it handles in order.
+	 */
+	static class BlockingActor extends AbstractActor {
+
+		private final ActorRef probe;
+		private final CountDownLatch release;
+
+		BlockingActor(ActorRef probe, CountDownLatch release) {
+			this.probe = probe;
+			this.release = release;
+		}
+
+		@Override
+		public Receive createReceive() {
+			return receiveBuilder()
+					.matchEquals("block", message -> this.release.await(5, TimeUnit.SECONDS))
+					.match(Work.class, work -> this.probe.tell("work-" + work.id, this.self()))
+					.matchAny(message -> this.probe.tell(message, this.self()))
+					.build();
+		}
+	}
+
+	@BeforeClass
+	public static void setUp() {
+		system = ActorSystem.create("test", ConfigFactory.parseString(
+				"akka.actor.provider = local\nakka.extensions = []\n" +
+				"test-priority-mailbox = ${ddm-priority-mailbox} { work-capacity = 2 }")
+				.withFallback(ConfigFactory.load("application")).resolve());
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		TestKit.shutdownActorSystem(system);
+	}
+
+	@Test
+	public void shouldDequeueControlMessagesFirstAndBoundWork() {
+		TestKit probe = new TestKit(system);
+		TestKit sender = new TestKit(system);
+		TestKit deadLetters = new TestKit(system);
+		system.eventStream().subscribe(deadLetters.getRef(), DeadLetter.class);
+		CountDownLatch release = new CountDownLatch(1);
+		ActorRef actor = system.actorOf(Props.create(BlockingActor.class, () -> new BlockingActor(probe.getRef(), release)).withMailbox("test-priority-mailbox"));
+
+		actor.tell("block", ActorRef.noSender());
+		probe.expectNoMessage(Duration.ofMillis(100)); // the actor now blocks in its first message
+		actor.tell(new Work(1), ActorRef.noSender());
+		actor.tell(new Work(2), ActorRef.noSender());
+		actor.tell(new Work(3), sender.getRef()); // returns to its sender right away
+		actor.tell(new Work(4), ActorRef.noSender()); // has nobody to return to and goes to the dead letters
+		actor.tell("control", ActorRef.noSender());
+		PriorityMailbox.WorkRejectedMessage rejected = sender.expectMsgClass(Duration.ofMillis(500), PriorityMailbox.WorkRejectedMessage.class);
+		assertEquals(3, ((Work) rejected.getMessage()).id);
+		assertSame(actor, rejected.getReceiver());
+		assertEquals(4, ((Work) deadLetters.expectMsgClass(DeadLetter.class).message()).id);
+		release.countDown();
+
+		assertEquals("control", probe.expectMsgClass(String.class));
+		assertEquals("work-1", probe.expectMsgClass(String.class));
+		assertEquals("work-2", probe.expectMsgClass(String.class));
+		probe.expectNoMessage(Duration.ofMillis(200));
+	}
+
+	@Test
+	public void shouldDeliverRejectedWorkOnRetry() {
+		TestKit probe = new TestKit(system);
+		CountDownLatch release = new CountDownLatch(1);
+		ActorRef actor = system.actorOf(Props.create(BlockingActor.class, () -> new BlockingActor(probe.getRef(), release)).withMailbox("test-priority-mailbox"));
+		// Sends its work to the actor and retries whatever comes back, as the senders of work do
+		ActorRef sender = system.actorOf(Props.create(AbstractActor.class, () -> new AbstractActor() {
+			@Override
+			public Receive createReceive() {
+				return receiveBuilder()
+						.match(PriorityMailbox.WorkRejectedMessage.class, rejected -> PriorityMailbox.retry(this.context(), rejected))
+						.match(Work.class, work -> actor.tell(work, this.self()))
+						.build();
+			}
+		}));
+
+		actor.tell("block", ActorRef.noSender());
+		for (int i = 1; i <= 4; i++)
+			sender.tell(new Work(i), ActorRef.noSender());
+		probe.expectNoMessage(Duration.ofMillis(100));
+		release.countDown();
+
+		assertEquals("work-1", probe.expectMsgClass(String.class));
+		assertEquals("work-2", probe.expectMsgClass(String.class));
+		// Retried work may overtake other retried work, but none of it is lost
+		Set<Object> retried = new HashSet<>(probe.receiveN(2));
+		assertEquals(new HashSet<>(Arrays.asList("work-3", "work-4")), retried);
+	}
+}
@@ -0,0 +1,52 @@
+package de.hpi.ddm.actors.monitoring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import de.hpi.ddm.structures.Trace;
+import de.hpi.ddm.structures.Trace.Stage;
+
+public class WorkPackageTracerTest {
+
+	private static final long MS = 1_000_000;
+
+	@Test
+	public void shouldDeriveMasterStagesAndFindTheCriticalPath() {
+		WorkPackageTracer tracer = new WorkPackageTracer();
+		for (long id = 0; id < 10; id++) {
+			Trace trace = new Trace(id).with(Stage.READ, 2 * MS);
+			tracer.created(trace, 0);
+			tracer.dispatched(trace, 10 * MS);
+			tracer.dispatched(trace, 500 * MS); // a speculative copy does not reset the dispatch time
+			Trace fromWorker = trace.with(Stage.HINTS, 30 * MS).with(Stage.HINT_SOLVE, 20 * MS).with(Stage.CRACK_QUEUE, 5 * MS).with(Stage.CRACK, (100 + id) * MS);
+			Trace completed = tracer.completed(fromWorker, (160 + id) * MS);
+
+			assertEquals(10 * MS, completed.get(Stage.QUEUE));
+			assertEquals(15 * MS, completed.get(Stage.TRANSFER));
+			assertEquals((162 + id) * MS, completed.total());
+		}
+
+		assertEquals(10, tracer.getCount());
+		assertEquals(Stage.CRACK, tracer.criticalStage());
+		String report = tracer.report();
+		assertTrue(report, report.contains("critical path: CRACK"));
+		assertTrue(report, report.contains("slowest package: Trace(9"));
+	}
+
+	@Test
+	public void shouldIgnoreUnknownAndDuplicateResults() {
+		WorkPackageTracer tracer = new WorkPackageTracer();
+		Trace trace = new Trace(1);
+		assertNull(tracer.completed(trace, 0));
+
+		tracer.created(trace, 0);
+		tracer.dispatched(trace, 0);
+		tracer.completed(trace, 0);
+		assertNull(tracer.completed(trace, 0));
+		assertEquals(1, tracer.getCount());
+		assertNull(tracer.criticalStage());
+	}
+}
@@ -0,0 +1,115 @@
+package de.hpi.ddm.actors.scheduling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.hpi.ddm.structures.ShardJob;
+import de.hpi.ddm.structures.PasswordWorkPackage;
+
+public class FairShareJobSchedulerTest {
+
+	private static final String ALPHABET = "ABC";
+	private static final Set<String> READY = Collections.singleton(ALPHABET);
+
+	private FairShareJobScheduler scheduler;
+
+	@Before
+	public void setUp() {
+		this.scheduler = new FairShareJobScheduler();
+	}
+
+	private ShardJob createJob(int jobId, int numPasswords) {
+		ShardJob job = new ShardJob(jobId, "job" + jobId);
+		for (int i = 0; i < numPasswords; i++)
+			job.addPasswordWorkPackage(ALPHABET, new PasswordWorkPackage(jobId, i, "name", ALPHABET, 3, "hash", new String[0], null));
+		this.scheduler.addJob(job);
+		return job;
+	}
+
+	@Test
+	public void shouldAlternateBetweenEquallyServedJobs() {
+		this.createJob(0, 3);
+		this.createJob(1, 3);
+
+		assertEquals(0, this.scheduler.next(READY).getJobId());
+		assertEquals(1, this.scheduler.next(READY).getJobId());
+		assertEquals(0, this.scheduler.next(READY).getJobId());
+		assertEquals(1, this.scheduler.next(READY).getJobId());
+	}
+
+	@Test
+	public void shouldPreferJobWithFewestPackagesInFlight() {
+		ShardJob first = this.createJob(0, 3);
+		this.createJob(1, 3);
+
+		this.scheduler.next(READY);
+		this.scheduler.next(READY);
+		this.scheduler.next(READY);
+		first.complete(0);
+		first.complete(1);
+
+		assertEquals(0, this.scheduler.next(READY).getJobId());
+	}
+
+	@Test
+	public void shouldOnlyHandOutPackagesForReadyAlphabets() {
+		this.createJob(0, 1);
+
+		assertNull(this.scheduler.next(Collections.singleton("XYZ")));
+		assertEquals(0, this.scheduler.next(READY).getJobId());
+		assertNull(this.scheduler.next(READY));
+	}
+
+	@Test
+	public void shouldHandOffHalfOfThePendingPackages() {
+		ShardJob job = this.createJob(0, 5);
+		this.scheduler.next(READY);
+
+		List<PasswordWorkPackage> handedOff = this.scheduler.handOff(READY);
+
+		assertEquals(2, handedOff.size());
+		assertEquals(4, handedOff.get(0).getId());
+		assertEquals(3, job.getOpen().size());
+		assertTrue(this.scheduler.handOff(Collections.singleton("XYZ")).isEmpty());
+	}
+
+	@Test
+	public void shouldCompleteEveryPasswordOnce() {
+		ShardJob job = this.createJob(0, 2);
+
+		assertTrue(job.complete(0));
+		assertFalse(job.complete(0));
+		assertFalse(job.isDrained());
+		assertTrue(job.complete(1));
+		assertTrue(job.isDrained());
+		// Cracked passwords are not kept, and neither are their packages once they come up
+		assertNull(this.scheduler.next(READY));
+		assertTrue(job.getPendingPasswordWorkPackages().isEmpty());
+	}
+
+	@Test
+	public void shouldOnlyCountIssuedPasswordsAsInFlight() {
+		ShardJob job = this.createJob(0, 2);
+		PasswordWorkPackage issued = this.scheduler.next(READY);
+		job.requeuePasswordWorkPackage(ALPHABET, issued);
+		assertEquals(0, job.getInFlight());
+
+		// A speculative copy cracks the requeued password before it is handed out again
+		assertTrue(job.complete(issued.getId()));
+		assertEquals(0, job.getInFlight());
+
+		this.scheduler.next(READY);
+		assertEquals(1, job.getInFlight());
+		job.complete(1);
+		assertEquals(0, job.getInFlight());
+	}
+}
@@ -0,0 +1,86 @@
+package de.hpi.ddm.compute;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import org.junit.Test;
+
+import de.hpi.ddm.structures.BloomFilter;
+import de.hpi.ddm.structures.HintIndex;
+
+public class TargetFilterTest {
+
+	private static final String ALPHABET = "ABCDEFGH";
+	private static final String[] TARGET_HINTS = { "HGFEDCB", "BDFHACE", "EFGHABC" }; // missing A, G and D
+	private static final int NUM_PERMUTATIONS = 40_320; // 8!
+
+	private static String sha256(String text) throws Exception {
+		StringBuilder hex = new StringBuilder();
+		for (byte b : MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8)))
+			hex.append(String.format("%02x", b));
+		return hex.toString();
+	}
+
+	private static BloomFilter targets(String... hexDigests) {
+		BloomFilter targets = BloomFilter.create(hexDigests.length, 0.01);
+		for (String hexDigest : hexDigests)
+			targets.add(HintIndex.key(hexDigest));
+		return targets;
+	}
+
+	/**
+	 * Build the index package by package, as the permutation workers do.
+	 */
+	private static HintIndex build(BloomFilter targets) {
+		HintIndex hintIndex = new HintIndex(ALPHABET, ALPHABET.length() - 1, targets);
+		for (char head : ALPHABET.toCharArray()) {
+			for (char head2 : ALPHABET.toCharArray()) {
+				if (head == head2)
+					continue;
+				String remaining = ALPHABET.replace(String.valueOf(head), "").replace(String.valueOf(head2), "");
+				new HintPermutationTask(new char[] { head, head2 }, remaining.toCharArray(), hintIndex, hintIndex.getTargets(), new CancellationToken()).invoke();
+			}
+		}
+		hintIndex.setComplete();
+		return hintIndex;
+	}
+
+	@Test
+	public void shouldOnlyIndexThePermutationsOfTheTargets() throws Exception {
+		String[] hexDigests = new String[TARGET_HINTS.length];
+		for (int i = 0; i < TARGET_HINTS.length; i++)
+			hexDigests[i] = sha256(TARGET_HINTS[i]);
+		HintIndex hintIndex = build(targets(hexDigests));
+
+		assertEquals('A', hintIndex.lookup(hexDigests[0]));
+		assertEquals('G', hintIndex.lookup(hexDigests[1]));
+		assertEquals('D', hintIndex.lookup(hexDigests[2]));
+		assertTrue(hintIndex.size() + " entries", hintIndex.size() < NUM_PERMUTATIONS / 20);
+
+		// A hint outside the filter is not in the index, and the index says that it cannot tell
+		String other = sha256("ABCDEFG");
+		assertEquals(0, hintIndex.lookup(other));
+		assertFalse(hintIndex.covers(other));
+		assertTrue(hintIndex.covers(hexDigests[0]));
+		assertEquals(NUM_PERMUTATIONS, build(null).size());
+	}
+
+	@Test
+	public void shouldKeepTheTargetsOfWrittenIndexes() throws Exception {
+		String hexDigest = sha256(TARGET_HINTS[0]);
+		HintIndex hintIndex = build(targets(hexDigest));
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		hintIndex.writeTo(bytes);
+		HintIndex copy = HintIndex.readFrom(new ByteArrayInputStream(bytes.toByteArray()));
+
+		assertEquals(hintIndex.getTargets(), copy.getTargets());
+		assertEquals('A', copy.lookup(hexDigest));
+	}
+}
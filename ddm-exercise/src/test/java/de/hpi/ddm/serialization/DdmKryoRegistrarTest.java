@@ -0,0 +1,190 @@
+package de.hpi.ddm.serialization;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.twitter.chill.KryoInstantiator;
+import com.twitter.chill.KryoPool;
+import com.twitter.chill.akka.ActorRefSerializer;
+import com.typesafe.config.ConfigFactory;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.ExtendedActorSystem;
+import akka.serialization.SerializationExtension;
+import akka.testkit.javadsl.TestKit;
+import de.hpi.ddm.actors.LargeMessageProxy;
+import de.hpi.ddm.actors.Master;
+import de.hpi.ddm.actors.PasswordCrackerWorker;
+import de.hpi.ddm.actors.PermutationHandler;
+import de.hpi.ddm.actors.Worker;
+import de.hpi.ddm.actors.monitoring.PriorityMailbox;
+import de.hpi.ddm.singletons.KryoPoolSingleton;
+import de.hpi.ddm.structures.BitSet;
+import de.hpi.ddm.structures.BloomFilter;
+import de.hpi.ddm.structures.HintIndex;
+import de.hpi.ddm.structures.HintResult;
+import de.hpi.ddm.structures.PasswordWorkPackage;
+import de.hpi.ddm.structures.Trace;
+
+public class DdmKryoRegistrarTest {
+
+	private static ActorSystem system;
+
+	@BeforeClass
+	public static void setUp() {
+		system = ActorSystem.create("test", ConfigFactory.parseString("akka.actor.provider = local\nakka.extensions = []").withFallback(ConfigFactory.load("application")));
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		TestKit.shutdownActorSystem(system);
+	}
+
+	private static PasswordWorkPackage passwordWorkPackage() {
+		return new PasswordWorkPackage(3, 42, "Sophia", "ABCDEFGHIJK", 10, "c4712866799881ac48ca55bf78a9540b1883ae033b52109169eb784969be09d5", new String[] { "1582824a01c4b842e207a51e3cfc47212885e58eb147e33ea29ba212e611904d", "e91c254ad58860a02c788dfb5c1a65d6a8846ab1dc649631c7db16fef4af2dec" }, new Trace(17).with(Trace.Stage.READ, 1_234_567));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T roundTrip(T object) {
+		KryoPool kryo = KryoPoolSingleton.get();
+		return (T) kryo.fromBytes(kryo.toBytesWithClass(object));
+	}
+
+	@Test
+	public void shouldRoundTripStructuresAndMessages() {
+		BloomFilter welcomeData = new BloomFilter(1024, true);
+		Object[] messages = {
+				welcomeData,
+				new Worker.WelcomeMessage(welcomeData),
+				new Worker.PasswordWorkPackageMessage(passwordWorkPackage()),
+				new Worker.BruteForceResultMessage(new HintResult(3, 42, 'K', "1582824a01c4b842e207a51e3cfc47212885e58eb147e33ea29ba212e611904d", 17, 3_000_000), 2),
+				new Worker.PasswordCrackerResultMessage(3, 42, "GGGFGFFFFG", new Trace(17).with(Trace.Stage.CRACK, 5_000_000_000L)),
+				new Worker.PasswordCrackerResultMessage(3, 42, "GGGFGFFFFG", null),
+				new PasswordCrackerWorker.PasswordAndSolvedHintsMessage(passwordWorkPackage(), Arrays.asList(new HintResult(3, 42, 'K', "a", 17, 0), new HintResult(3, 42, 'J', "b", 17, 0))),
+				new Master.PermutationsReadyMessage("ABCDEFGHIJK"),
+				new Master.RegistrationMessage(),
+				new Master.SolvedHintsMessage(new String[] { "ABCDEFGHIJK:1582824a01c4b842e207a51e3cfc47212885e58eb147e33ea29ba212e611904d", "ABC:a" }, new char[] { 'K', 'B' }),
+				new Master.PasswordReturnedMessage(3, 42)
+		};
+		for (Object message : messages)
+			assertEquals(message, roundTrip(message));
+	}
+
+	@Test
+	public void shouldRoundTripBatchMessages() {
+		List<String[]> lines = new ArrayList<>();
+		lines.add(new String[] { "1", "Sophia", "ABCDEFGHIJK", "10", "hash", "hint" });
+		lines.add(new String[] { "2", "Jackson", "ABCDEFGHIJK", "10", "hash", "hint" });
+
+		Master.BatchMessage copy = roundTrip(new Master.BatchMessage(7, lines, 42_000));
+
+		assertEquals(7, copy.getJobId());
+		assertEquals(42_000, copy.getReadTime());
+		assertEquals(lines.size(), copy.getLines().size());
+		for (int i = 0; i < lines.size(); i++)
+			assertArrayEquals(lines.get(i), copy.getLines().get(i));
+	}
+
+	@Test
+	public void shouldStreamLargeBitSetsThroughChunks() {
+		// Larger than the serializer's scratch buffer and not a multiple of the chunk size
+		BloomFilter welcomeData = new BloomFilter(8 * 1024 * 1024 + 64, true);
+		Worker.WelcomeMessage message = new Worker.WelcomeMessage(welcomeData);
+		Kryo kryo = KryoPoolSingleton.newKryo();
+
+		ChunkedOutputStream chunks = new ChunkedOutputStream(65_000);
+		try (Output output = new Output(chunks, 4096)) {
+			kryo.writeClassAndObject(output, message);
+		}
+		List<InputStream> streams = chunks.getChunks().stream().map(ByteArrayInputStream::new).collect(Collectors.toList());
+		Object copy;
+		try (Input input = new Input(new SequenceInputStream(Collections.enumeration(streams)), 4096)) {
+			copy = kryo.readClassAndObject(input);
+		}
+
+		assertEquals(message, copy);
+		assertEquals(chunks.getLength(), KryoPoolSingleton.get().toBytesWithClass(message).length);
+		assertArrayEquals(welcomeData.getBits().toBinary(), BitSet.fromBinary(welcomeData.getBits().toBinary()).toBinary());
+	}
+
+	@Test
+	public void shouldStreamHintIndexSnapshotsThroughChunks() {
+		HintIndex hintIndex = new HintIndex("ABCDE", 4);
+		for (long key = 1; key <= 10_000; key++)
+			hintIndex.add(key * 0x9E3779B97F4A7C15L, (char) ('A' + key % 5));
+		hintIndex.setComplete();
+		Kryo kryo = KryoPoolSingleton.newKryo();
+
+		ChunkedOutputStream chunks = new ChunkedOutputStream(65_000);
+		try (Output output = new Output(chunks, 4096)) {
+			kryo.writeClassAndObject(output, new PermutationHandler.HintIndexSnapshotMessage("ABCDE", hintIndex));
+			kryo.writeClassAndObject(output, new PermutationHandler.HintIndexSnapshotMessage("ABCDE", null));
+		}
+		List<InputStream> streams = chunks.getChunks().stream().map(ByteArrayInputStream::new).collect(Collectors.toList());
+		PermutationHandler.HintIndexSnapshotMessage copy;
+		PermutationHandler.HintIndexSnapshotMessage unavailable;
+		try (Input input = new Input(new SequenceInputStream(Collections.enumeration(streams)), 4096)) {
+			copy = (PermutationHandler.HintIndexSnapshotMessage) kryo.readClassAndObject(input);
+			unavailable = (PermutationHandler.HintIndexSnapshotMessage) kryo.readClassAndObject(input);
+		}
+
+		HintIndex shipped = copy.getHintIndex();
+		assertEquals("ABCDE", shipped.getAlphabet());
+		assertEquals(4, shipped.getHintLength());
+		assertEquals(hintIndex.size(), shipped.size());
+		assertTrue(shipped.isComplete());
+		for (long key = 1; key <= 10_000; key++) {
+			String hexDigest = String.format("%016x", key * 0x9E3779B97F4A7C15L) + "00";
+			assertEquals(hintIndex.lookup(hexDigest), shipped.lookup(hexDigest));
+		}
+		assertNull(unavailable.getHintIndex());
+	}
+
+	@Test
+	public void shouldWriteClassIdsInsteadOfClassNames() {
+		Worker.PasswordWorkPackageMessage message = new Worker.PasswordWorkPackageMessage(passwordWorkPackage());
+		KryoPool unregistered = KryoPool.withByteArrayOutputStream(1, new KryoInstantiator());
+
+		int registeredSize = KryoPoolSingleton.get().toBytesWithClass(message).length;
+		int unregisteredSize = unregistered.toBytesWithClass(message).length;
+
+		assertTrue(registeredSize + " < " + unregisteredSize, registeredSize < unregisteredSize);
+	}
+
+	@Test
+	public void shouldSerializeActorRefs() {
+		ActorRef receiver = new TestKit(system).getRef();
+		LargeMessageProxy.LargeMessage<String> message = new LargeMessageProxy.LargeMessage<>("payload", receiver);
+		// The same setup as in DdmAkkaSerializer, minus chill's Scala registrations
+		KryoInstantiator instantiator = new KryoInstantiator()
+				.withRegistrar(new ActorRefSerializer((ExtendedActorSystem) system))
+				.withRegistrar(new DdmKryoRegistrar());
+		KryoPool kryo = KryoPool.withByteArrayOutputStream(1, instantiator);
+
+		assertTrue(SerializationExtension.get(system).findSerializerFor(message) instanceof DdmAkkaSerializer);
+		assertEquals(message, kryo.fromBytes(kryo.toBytesWithClass(message)));
+
+		PriorityMailbox.WorkRejectedMessage rejected = new PriorityMailbox.WorkRejectedMessage(new Worker.PasswordWorkPackageMessage(passwordWorkPackage()), receiver);
+		assertTrue(SerializationExtension.get(system).findSerializerFor(rejected) instanceof DdmAkkaSerializer);
+		assertEquals(rejected, kryo.fromBytes(kryo.toBytesWithClass(rejected)));
+	}
+}
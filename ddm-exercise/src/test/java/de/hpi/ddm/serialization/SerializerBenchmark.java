@@ -0,0 +1,120 @@
+package de.hpi.ddm.serialization;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.twitter.chill.KryoInstantiator;
+import com.twitter.chill.KryoPool;
+
+import de.hpi.ddm.actors.Autoscaler;
+import de.hpi.ddm.actors.BruteForceWorker;
+import de.hpi.ddm.actors.LargeMessageProxy;
+import de.hpi.ddm.actors.Master;
+import de.hpi.ddm.actors.PasswordCrackerWorker;
+import de.hpi.ddm.actors.PermutationHandler;
+import de.hpi.ddm.actors.PermutationWorker;
+import de.hpi.ddm.actors.Worker;
+import de.hpi.ddm.actors.scheduling.PoolSizer.Pool;
+import de.hpi.ddm.structures.BloomFilter;
+import de.hpi.ddm.structures.BruteForceWorkPackage;
+import de.hpi.ddm.structures.HintResult;
+import de.hpi.ddm.structures.PasswordWorkPackage;
+import de.hpi.ddm.structures.PermutationWorkPackage;
+import de.hpi.ddm.structures.Trace;
+
+/**
+ * Compares the serialized size and the time of a serialization round trip of typical ddm messages between Kryo's
+ * default setup, which writes class names and serializes fields reflectively, and the registered serializers of the
+ * {@link DdmKryoRegistrar}. This is not a unit test; run it with the test classpath, e.g., from the IDE. The JMH
+ * {@code KryoBenchmark} of the benchmark profile measures the same messages more rigorously.
+ */
+public class SerializerBenchmark {
+
+	private static final String HASH = "c4712866799881ac48ca55bf78a9540b1883ae033b52109169eb784969be09d5";
+	private static int hashes;
+	private static final long MIN_DURATION_NS = 1_000_000_000L;
+
+	public static void main(String[] args) {
+		KryoPool current = KryoPool.withByteArrayOutputStream(1, new KryoInstantiator());
+		KryoPool registered = KryoPool.withByteArrayOutputStream(1, new KryoInstantiator().withRegistrar(new DdmKryoRegistrar()));
+
+		System.out.printf("%-36s %10s %10s %12s %12s%n", "message", "bytes", "bytes reg", "ns/op", "ns/op reg");
+		for (Object message : messages()) {
+			String name = message.getClass().getSimpleName();
+			int bytes = current.toBytesWithClass(message).length;
+			int registeredBytes = registered.toBytesWithClass(message).length;
+			double nanos = measure(current, message);
+			double registeredNanos = measure(registered, message);
+			System.out.printf("%-36s %10d %10d %12.0f %12.0f%n", name, bytes, registeredBytes, nanos, registeredNanos);
+		}
+	}
+
+	/**
+	 * Real hashes differ from each other, so we must not let Kryo's reference tracking collapse copies of one string.
+	 */
+	private static String hash() {
+		String suffix = Integer.toHexString(hashes++);
+		return HASH.substring(0, HASH.length() - suffix.length()) + suffix;
+	}
+
+	/**
+	 * One typical instance of each registered message type that has fields; messages without fields cost the same as
+	 * {@link Master.WorkerWorkRequestMessage}. LargeMessage is missing, because its ActorRef needs an actor system.
+	 */
+	static List<Object> messages() {
+		String[] hints = new String[9];
+		for (int i = 0; i < hints.length; i++)
+			hints[i] = hash();
+		PasswordWorkPackage passwordWorkPackage = new PasswordWorkPackage(0, 1, "Sophia", "ABCDEFGHIJK", 10, hash(), hints, new Trace(1));
+		List<HintResult> hintResults = new ArrayList<>();
+		for (int i = 0; i < hints.length; i++)
+			hintResults.add(new HintResult(0, 1, (char) ('A' + i), hints[i], 1, 0));
+		List<PermutationWorkPackage> permutationWorkPackages = new ArrayList<>();
+		for (char head = 'A'; head <= 'K'; head++)
+			for (char head2 = 'A'; head2 <= 'K'; head2++)
+				if (head != head2)
+					permutationWorkPackages.add(new PermutationWorkPackage(head, head2, "ABCDEFGHIJK"));
+		byte[] chunk = new byte[64 * 1024];
+		Arrays.fill(chunk, (byte) 42);
+		List<String[]> lines = new ArrayList<>();
+		for (int i = 0; i < 50; i++)
+			lines.add(new String[] { String.valueOf(i), "Sophia", "ABCDEFGHIJK", "10", hash(), hash(), hash(), hash(), hash(), hash(), hash(), hash(), hash(), hash() });
+
+		return Arrays.asList(
+				new Master.WorkerWorkRequestMessage(),
+				new BruteForceWorker.HintMessage(new BruteForceWorkPackage(0, 1, "ABCDEFGHIJK", hash(), 0, 1)),
+				new Worker.BruteForceResultMessage(hintResults.get(0), 0),
+				new Worker.PasswordCrackerResultMessage(0, 1, "GGGFGFFFFG", new Trace(1)),
+				new Worker.PasswordWorkPackageMessage(passwordWorkPackage),
+				new PasswordCrackerWorker.PasswordAndSolvedHintsMessage(passwordWorkPackage, hintResults),
+				new PermutationHandler.PermutationWorkPackagesMessage(permutationWorkPackages),
+				new Master.BatchMessage(0, lines, 0),
+				new Worker.WelcomeMessage(new BloomFilter(8 * 1024 * 1024, true)),
+				new Master.PermutationsReadyMessage("ABCDEFGHIJK"),
+				new Master.PermutationsEvictedMessage("ABCDEFGHIJK"),
+				new PermutationWorker.PermutationWorkMessage(permutationWorkPackages.get(0)),
+				new PermutationHandler.PermutationResultMessage('A', 'B', "ABCDEFGHIJK"),
+				new LargeMessageProxy.BytesMessage<>(chunk, null, null, 8 * 1024 * 1024, 64 * 1024, "3f2a9c4e-5b1d-4c8e-9a7f-1e2d3c4b5a69"),
+				new LargeMessageProxy.AckMessage("3f2a9c4e-5b1d-4c8e-9a7f-1e2d3c4b5a69", 64 * 1024),
+				new Autoscaler.PoolDemandMessage(Pool.CRACKING, 12),
+				new Autoscaler.PoolSizeMessage(Pool.CRACKING, 4));
+	}
+
+	private static double measure(KryoPool kryo, Object message) {
+		// Warm up, then run for at least a second
+		for (int i = 0; i < 1000; i++)
+			kryo.fromBytes(kryo.toBytesWithClass(message));
+
+		long operations = 0;
+		long start = System.nanoTime();
+		long elapsed;
+		do {
+			for (int i = 0; i < 100; i++)
+				kryo.fromBytes(kryo.toBytesWithClass(message));
+			operations += 100;
+			elapsed = System.nanoTime() - start;
+		} while (elapsed < MIN_DURATION_NS);
+		return (double) elapsed / operations;
+	}
+}
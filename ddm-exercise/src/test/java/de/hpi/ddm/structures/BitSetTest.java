@@ -0,0 +1,76 @@
+package de.hpi.ddm.structures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class BitSetTest {
+
+	// Large enough for several fork-join leaves
+	private static final int NUM_BITS = 1 << 24;
+
+	private static int[] sortedIndices(int count, int bound) {
+		Random random = new Random(42);
+		int[] indices = new int[count];
+		for (int i = 0; i < count; i++)
+			indices[i] = random.nextInt(bound);
+		Arrays.sort(indices);
+		return indices;
+	}
+
+	@Test
+	public void shouldSetAndTestSortedBatches() {
+		int[] indices = sortedIndices(10_000, 1 << 16);
+		BitSet bits = new BitSet(1 << 16);
+		BitSet expected = new BitSet(1 << 16);
+
+		bits.setAll(indices, indices.length);
+		for (int index : indices)
+			expected.set(index);
+
+		assertEquals(expected, bits);
+		assertTrue(bits.getAll(indices, indices.length));
+		bits.clear(indices[indices.length / 2]);
+		assertFalse(bits.getAll(indices, indices.length));
+		assertTrue(bits.getAll(indices, indices.length / 2));
+	}
+
+	@Test
+	public void shouldCountBitsInRanges() {
+		BitSet bits = new BitSet(1000);
+		bits.set(3, 700);
+
+		assertEquals(697, bits.cardinality(0, 1000));
+		assertEquals(697, bits.cardinality(3, 700));
+		assertEquals(10, bits.cardinality(60, 70));
+		assertEquals(1, bits.cardinality(699, 700));
+		assertEquals(0, bits.cardinality(700, 1000));
+		assertEquals(0, bits.cardinality(5, 5));
+	}
+
+	@Test
+	public void shouldCombineLargeSetsInParallel() {
+		BitSet bits = new BitSet(NUM_BITS);
+		BitSet other = new BitSet(NUM_BITS);
+		bits.randomize();
+		other.randomize();
+
+		BitSet expectedOr = bits.clone();
+		expectedOr.or(other);
+		BitSet expectedAnd = bits.clone();
+		expectedAnd.and(other);
+
+		BitSet or = bits.clone();
+		or.parallelOr(other);
+		BitSet and = bits.clone();
+		and.parallelAnd(other);
+
+		assertEquals(expectedOr, or);
+		assertEquals(expectedAnd, and);
+	}
+}
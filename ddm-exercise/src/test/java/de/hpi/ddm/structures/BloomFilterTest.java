@@ -0,0 +1,77 @@
+package de.hpi.ddm.structures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+public class BloomFilterTest {
+
+	private static final int NUM_ELEMENTS = 100_000;
+	private static final double FALSE_POSITIVE_RATE = 0.01;
+
+	@Test
+	public void shouldSizeFromExpectedElementsAndFalsePositiveRate() {
+		BloomFilter filter = BloomFilter.create(NUM_ELEMENTS, FALSE_POSITIVE_RATE);
+
+		// About 9.6 bits and 7 hash functions per element for 1 %
+		assertEquals(958_506, filter.getSize());
+		assertEquals(7, filter.getNumHashes());
+	}
+
+	@Test
+	public void shouldKeepTheFalsePositiveRateOfLongs() {
+		BloomFilter filter = BloomFilter.create(NUM_ELEMENTS, FALSE_POSITIVE_RATE);
+		for (long i = 0; i < NUM_ELEMENTS; i++)
+			filter.add(i * 31);
+
+		for (long i = 0; i < NUM_ELEMENTS; i++)
+			assertTrue(filter.contains(i * 31));
+		int falsePositives = 0;
+		for (long i = 0; i < NUM_ELEMENTS; i++)
+			if (filter.contains(i * 31 + 1))
+				falsePositives++;
+		assertTrue(falsePositives + " false positives", falsePositives < NUM_ELEMENTS * FALSE_POSITIVE_RATE * 1.5);
+	}
+
+	@Test
+	public void shouldKeepTheFalsePositiveRateOfByteArrays() {
+		BloomFilter filter = BloomFilter.create(NUM_ELEMENTS, FALSE_POSITIVE_RATE);
+		for (int i = 0; i < NUM_ELEMENTS; i++)
+			filter.add(("element" + i).getBytes(StandardCharsets.UTF_8));
+
+		for (int i = 0; i < NUM_ELEMENTS; i++)
+			assertTrue(filter.contains(("element" + i).getBytes(StandardCharsets.UTF_8)));
+		int falsePositives = 0;
+		for (int i = 0; i < NUM_ELEMENTS; i++)
+			if (filter.contains(("other" + i).getBytes(StandardCharsets.UTF_8)))
+				falsePositives++;
+		assertTrue(falsePositives + " false positives", falsePositives < NUM_ELEMENTS * FALSE_POSITIVE_RATE * 1.5);
+	}
+
+	@Test
+	public void shouldReportWhetherAnElementWasAdded() {
+		BloomFilter filter = BloomFilter.create(10, FALSE_POSITIVE_RATE);
+
+		assertTrue(filter.add(42L));
+		assertFalse(filter.add(42L));
+	}
+
+	@Test
+	public void shouldAddBatchesLikeSingleElements() {
+		long[] elements = new long[1000];
+		for (int i = 0; i < elements.length; i++)
+			elements[i] = i * 7919L;
+		BloomFilter batch = BloomFilter.create(elements.length, FALSE_POSITIVE_RATE);
+		BloomFilter single = BloomFilter.create(elements.length, FALSE_POSITIVE_RATE);
+
+		batch.addAll(elements);
+		for (long element : elements)
+			single.add(element);
+
+		assertEquals(single, batch);
+	}
+}
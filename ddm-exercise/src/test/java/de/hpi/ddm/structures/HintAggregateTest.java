@@ -0,0 +1,46 @@
+package de.hpi.ddm.structures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class HintAggregateTest {
+
+	private static HintAggregate aggregate(String... hints) {
+		return new HintAggregate(new PasswordWorkPackage(1, 7, "name", "ABCD", 3, "hash", hints, null), 0);
+	}
+
+	@Test
+	public void shouldFillEachPositionOfARepeatedHintOnce() {
+		HintAggregate password = aggregate("a", "b", "a");
+
+		assertTrue(password.solve(new HintResult(1, 7, 'D', "a", 0, 5)));
+		assertTrue(password.solve(new HintResult(1, 7, 'C', "b", 0, 9)));
+		assertFalse(password.isComplete());
+		assertTrue(password.solve(new HintResult(1, 7, 'D', "a", 0, 3)));
+		assertFalse(password.solve(new HintResult(1, 7, 'D', "a", 0, 3)));
+
+		assertTrue(password.isComplete());
+		assertEquals(9, password.getSlowestSolveTime());
+		List<HintResult> hintResults = password.getHintResults();
+		assertEquals('D', hintResults.get(0).getLetter());
+		assertEquals('C', hintResults.get(1).getLetter());
+		assertEquals("a", hintResults.get(2).getEncodedHint());
+	}
+
+	@Test
+	public void shouldTrackMoreThanSixtyFourHints() {
+		String[] hints = new String[70];
+		for (int i = 0; i < hints.length; i++)
+			hints[i] = "h" + i;
+		HintAggregate password = aggregate(hints);
+
+		for (int i = hints.length - 1; i >= 0; i--)
+			assertTrue(password.solve(new HintResult(1, 7, 'A', hints[i], 0, 0)));
+		assertTrue(password.isComplete());
+	}
+}
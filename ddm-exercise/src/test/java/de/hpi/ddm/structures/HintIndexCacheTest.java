@@ -0,0 +1,106 @@
+package de.hpi.ddm.structures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.Test;
+
+public class HintIndexCacheTest {
+
+	private static HintIndex completeIndex(HintIndexCache cache, String alphabet) {
+		HintIndex index = cache.getOrCreate(alphabet);
+		for (int i = 0; i < 100; i++)
+			index.add(i, alphabet.charAt(0));
+		cache.complete(alphabet);
+		return index;
+	}
+
+	@Test
+	public void shouldEvictLeastRecentlyUsedIndexesOverBudget() {
+		HintIndexCache cache = new HintIndexCache(1, null);
+		List<String> evicted = new ArrayList<>();
+		cache.addEvictionListener(evicted::add);
+
+		completeIndex(cache, "ABC");
+		completeIndex(cache, "DEF");
+
+		assertEquals(1, evicted.size());
+		assertEquals("ABC", evicted.get(0));
+		assertNull(cache.get("ABC"));
+	}
+
+	@Test
+	public void shouldKeepPinnedIndexesUntilUnpinned() {
+		HintIndexCache cache = new HintIndexCache(1, null);
+		List<String> evicted = new ArrayList<>();
+		cache.addEvictionListener(evicted::add);
+
+		HintIndex pinned = completeIndex(cache, "ABC");
+		cache.pin("ABC");
+		cache.pin("ABC");
+		completeIndex(cache, "DEF");
+		assertSame(pinned, cache.get("ABC"));
+
+		// Using DEF leaves ABC as the least recently used index, which goes once its last pin is gone
+		cache.get("DEF");
+		cache.unpin("ABC");
+		assertEquals(0, evicted.size());
+		cache.unpin("ABC");
+		assertEquals(1, evicted.size());
+		assertEquals("ABC", evicted.get(0));
+	}
+
+	@Test
+	public void shouldReportBrokenSpillFilesAsMisses() throws IOException {
+		File spillDirectory = Files.createTempDirectory("hint-index-cache").toFile();
+		HintIndexCache cache = new HintIndexCache(1, spillDirectory);
+		List<String> evicted = new ArrayList<>();
+		List<String> failed = new ArrayList<>();
+		cache.addEvictionListener(evicted::add);
+		cache.addErrorListener((alphabet, e) -> failed.add(alphabet));
+
+		completeIndex(cache, "ABC");
+		completeIndex(cache, "DEF");
+		File[] spilled = spillDirectory.listFiles();
+		assertNotNull(spilled);
+		assertEquals(1, spilled.length);
+		try (FileOutputStream stream = new FileOutputStream(spilled[0])) {
+			stream.write(new byte[] {1, 2, 3});
+		}
+
+		assertNull(cache.get("ABC"));
+		assertEquals(1, failed.size());
+		assertEquals("ABC", evicted.get(0));
+		assertEquals(0, spillDirectory.listFiles().length);
+	}
+
+	@Test
+	public void shouldTellEveryListenerUntilItIsRemoved() {
+		// Several worker systems can share the cache of one JVM, and each of them must hear about its evictions
+		HintIndexCache cache = new HintIndexCache(1, null);
+		List<String> first = new ArrayList<>();
+		List<String> second = new ArrayList<>();
+		Consumer<String> firstListener = first::add;
+		cache.addEvictionListener(firstListener);
+		cache.addEvictionListener(second::add);
+
+		completeIndex(cache, "ABC");
+		completeIndex(cache, "DEF");
+		cache.removeEvictionListener(firstListener);
+		completeIndex(cache, "GHI");
+
+		assertEquals(1, first.size());
+		assertEquals(2, second.size());
+		assertEquals("DEF", second.get(1));
+	}
+}
@@ -0,0 +1,44 @@
+package de.hpi.ddm.structures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class HintSolutionCacheTest {
+
+	@Test
+	public void shouldReportHitsAndMisses() {
+		HintSolutionCache cache = new HintSolutionCache(10);
+		String key = HintSolutionCache.key("ABC", "hint");
+
+		assertNull(cache.get(key));
+		assertTrue(cache.put(key, 'A'));
+		assertEquals('A', (char) cache.get(key));
+		// The same hint of another alphabet is another hint
+		assertNull(cache.get(HintSolutionCache.key("ABD", "hint")));
+		// Results of other workers for a cached hint change nothing
+		assertFalse(cache.put(key, 'A'));
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void shouldEvictLeastRecentlyUsedHints() {
+		HintSolutionCache cache = new HintSolutionCache(2);
+		cache.put("a", 'A');
+		cache.put("b", 'B');
+		// Reading a hint makes it the most recently used one
+		cache.get("a");
+		cache.put("c", 'C');
+
+		assertEquals(2, cache.size());
+		assertNull(cache.get("b"));
+		assertEquals('A', (char) cache.get("a"));
+		assertEquals('C', (char) cache.get("c"));
+		// An evicted hint counts as new once it is resolved again
+		assertTrue(cache.put("b", 'B'));
+		assertNull(cache.get("a"));
+	}
+}
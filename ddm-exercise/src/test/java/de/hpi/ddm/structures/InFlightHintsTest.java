@@ -0,0 +1,70 @@
+package de.hpi.ddm.structures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class InFlightHintsTest {
+
+	private static final String ALPHABET = "ABCD";
+
+	private static BruteForceWorkPackage hintOf(int passwordId, String hint) {
+		return new BruteForceWorkPackage(1, passwordId, ALPHABET, hint, 0, 0);
+	}
+
+	@Test
+	public void shouldBruteForceEachDistinctHintOnce() {
+		HintSolutionCache solutions = new HintSolutionCache(10);
+		InFlightHints inFlightHints = new InFlightHints();
+		List<BruteForceWorkPackage> bruteForced = new ArrayList<>();
+		List<Integer> resolved = new ArrayList<>();
+		String key = HintSolutionCache.key(ALPHABET, "hint");
+
+		// The way a Worker takes in the hints of its passwords
+		for (int passwordId = 0; passwordId < 3; passwordId++) {
+			BruteForceWorkPackage bruteForceWorkPackage = hintOf(passwordId, "hint");
+			if (solutions.get(key) != null)
+				resolved.add(passwordId);
+			else if (!inFlightHints.await(key, bruteForceWorkPackage))
+				bruteForced.add(bruteForceWorkPackage);
+		}
+		assertEquals(1, bruteForced.size());
+		assertEquals(0, bruteForced.get(0).getPasswordId());
+		assertTrue(inFlightHints.contains(key));
+
+		// The result of the one brute-forced hint resolves the waiting ones
+		solutions.put(key, 'D');
+		for (BruteForceWorkPackage waiting : inFlightHints.land(key))
+			resolved.add(waiting.getPasswordId());
+		resolved.add(bruteForced.get(0).getPasswordId());
+		assertEquals(0, inFlightHints.size());
+
+		// Later passwords with the same hint get it from the cache
+		if (solutions.get(key) != null)
+			resolved.add(3);
+		assertEquals(4, resolved.size());
+		assertEquals(1, bruteForced.size());
+		assertTrue(inFlightHints.land(key).isEmpty());
+	}
+
+	@Test
+	public void shouldKeepDistinctHintsApart() {
+		InFlightHints inFlightHints = new InFlightHints();
+		String first = HintSolutionCache.key(ALPHABET, "first");
+		String second = HintSolutionCache.key(ALPHABET, "second");
+
+		assertFalse(inFlightHints.await(first, hintOf(0, "first")));
+		assertFalse(inFlightHints.await(second, hintOf(0, "second")));
+		assertTrue(inFlightHints.await(first, hintOf(1, "first")));
+
+		// A hint that cannot be resolved hands back its waiting packages, too
+		assertEquals(1, inFlightHints.land(first).size());
+		assertTrue(inFlightHints.land(second).isEmpty());
+		assertFalse(inFlightHints.await(first, hintOf(2, "first")));
+	}
+}
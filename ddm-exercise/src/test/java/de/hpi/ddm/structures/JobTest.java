@@ -0,0 +1,34 @@
+package de.hpi.ddm.structures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class JobTest {
+
+	private static PasswordWorkPackage passwordWorkPackage(int passwordId) {
+		return new PasswordWorkPackage(0, passwordId, "name", "ABC", 3, "hash", new String[0], null);
+	}
+
+	@Test
+	public void shouldCountRepeatedPasswordIdsOnce() {
+		// The Master counts the passwords that the shards hold, and both sides must agree on their number
+		Job master = new Job(0, "master");
+		ShardJob shard = new ShardJob(0, "shard");
+		for (int passwordId : new int[] { 1, 2, 2, 3 }) {
+			master.addPassword(passwordId);
+			shard.addPasswordWorkPackage("ABC", passwordWorkPackage(passwordId));
+		}
+		assertEquals(3, master.getNumPasswords());
+		assertEquals(3, shard.getOpen().size());
+		assertFalse(master.addPassword(3));
+		assertFalse(shard.addPasswordWorkPackage("ABC", passwordWorkPackage(3)));
+
+		master.setReadingDone(true);
+		master.addCompleted(3);
+		assertTrue(master.isDone());
+		assertTrue(master.getPasswordIds().isEmpty());
+	}
+}
@@ -0,0 +1,72 @@
+package de.hpi.ddm.structures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class OffHeapBitSetTest {
+
+	private static final long NUM_BITS = 1L << 24;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void shouldMatchTheHeapBitSet() throws IOException {
+		BitSet expected = new BitSet((int) NUM_BITS);
+		expected.randomize();
+		try (OffHeapBitSet bits = OffHeapBitSet.allocate(NUM_BITS)) {
+			for (int i = expected.nextSetBit(0); i >= 0; i = expected.nextSetBit(i + 1))
+				bits.set(i);
+
+			assertEquals(expected.cardinality(), bits.cardinality());
+			assertEquals(expected.cardinality(100, 1_000_000), bits.cardinality(100, 1_000_000));
+			for (int i = 0; i < 1000; i++)
+				assertEquals(expected.get(i), bits.get(i));
+		}
+	}
+
+	@Test
+	public void shouldCombineInParallelAndKeepMappedBits() throws IOException {
+		File file = this.folder.newFile();
+		long[] indices = { 1, 64, 65, 1L << 20, NUM_BITS - 1 };
+		try (OffHeapBitSet bits = OffHeapBitSet.map(file, NUM_BITS); OffHeapBitSet other = OffHeapBitSet.allocate(NUM_BITS)) {
+			other.setAll(indices, indices.length);
+			bits.parallelOr(other);
+			assertTrue(bits.getAll(indices, indices.length));
+			bits.clear(64);
+			other.parallelAnd(bits);
+			assertFalse(other.get(64));
+			assertEquals(indices.length - 1, other.cardinality());
+		}
+		try (OffHeapBitSet bits = OffHeapBitSet.map(file, NUM_BITS)) {
+			assertEquals(indices.length - 1, bits.cardinality());
+			assertTrue(bits.get(NUM_BITS - 1));
+		}
+	}
+
+	@Test
+	public void shouldAllocateEmptySets() throws IOException {
+		try (OffHeapBitSet bits = OffHeapBitSet.allocate(0); OffHeapBitSet mapped = OffHeapBitSet.map(this.folder.newFile(), 0)) {
+			assertEquals(0, bits.physicalLength());
+			assertEquals(0, bits.cardinality());
+			bits.parallelOr(mapped);
+			assertEquals(0, mapped.cardinality());
+		}
+		assertEquals(1, OffHeapBitSet.allocate(1).physicalLength());
+		assertEquals(1, OffHeapBitSet.allocate(64).physicalLength());
+		assertEquals(2, OffHeapBitSet.allocate(65).physicalLength());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void shouldRejectNegativeCapacities() {
+		OffHeapBitSet.allocate(-1);
+	}
+}
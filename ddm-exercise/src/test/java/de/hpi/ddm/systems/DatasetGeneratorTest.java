@@ -0,0 +1,91 @@
+package de.hpi.ddm.systems;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DatasetGeneratorTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private DatasetGenerator generate(String name, int threads) throws IOException, InterruptedException {
+		DatasetGenerator.Options options = new DatasetGenerator.Options();
+		options.rows = 50;
+		options.alphabetSize = 8;
+		options.passwordLength = 6;
+		options.hints = 5;
+		options.alphabets = 3;
+		options.threads = threads;
+		options.blockSize = 7;
+		options.datasetPath = this.folder.getRoot().getPath();
+		options.datasetName = name;
+		DatasetGenerator generator = new DatasetGenerator(options);
+		generator.generate();
+		return generator;
+	}
+
+	private static String sha256(String text) throws NoSuchAlgorithmException {
+		StringBuilder builder = new StringBuilder();
+		for (byte b : MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8)))
+			builder.append(String.format("%02x", b));
+		return builder.toString();
+	}
+
+	@Test
+	public void shouldGenerateSolvableRowsWithMatchingSolutions() throws Exception {
+		DatasetGenerator generator = this.generate("generated", 4);
+		List<String> dataset = Files.readAllLines(generator.getDatasetFile().toPath());
+		List<String> solution = Files.readAllLines(generator.getSolutionFile().toPath());
+
+		assertEquals(51, dataset.size());
+		assertEquals(dataset.get(0), solution.get(0));
+		assertEquals(10, dataset.get(0).split(";").length);
+
+		Set<String> alphabets = new HashSet<>();
+		for (int row = 1; row < dataset.size(); row++) {
+			String[] hashes = dataset.get(row).split(";");
+			String[] plain = solution.get(row).split(";");
+			assertEquals(String.valueOf(row), hashes[0]);
+			assertEquals(8, hashes[2].length());
+			alphabets.add(hashes[2]);
+
+			Set<Character> leftOut = new HashSet<>();
+			for (int i = 4; i < hashes.length; i++) {
+				assertEquals(sha256(plain[i]), hashes[i]);
+				if (i > 4) {
+					assertEquals(7, plain[i].length());
+					for (char character : hashes[2].toCharArray())
+						if (plain[i].indexOf(character) < 0)
+							leftOut.add(character);
+				}
+			}
+			assertEquals(6, plain[4].length());
+			for (char character : plain[4].toCharArray())
+				assertTrue(hashes[2].indexOf(character) >= 0 && !leftOut.contains(character));
+		}
+		assertEquals(3, alphabets.size());
+	}
+
+	@Test
+	public void shouldNotDependOnTheNumberOfThreads() throws Exception {
+		File parallel = this.generate("parallel", 4).getDatasetFile();
+		File sequential = this.generate("sequential", 1).getDatasetFile();
+
+		assertArrayEquals(Files.readAllBytes(sequential.toPath()), Files.readAllBytes(parallel.toPath()));
+	}
+}